@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.microbenchmarks;
+
+import org.apache.giraph.bsp.CentralizedServiceWorker;
+import org.apache.giraph.conf.GiraphConfiguration;
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.partition.BasicPartitionOwner;
+import org.apache.giraph.partition.PartitionOwner;
+import org.apache.giraph.worker.WorkerInfo;
+import org.apache.hadoop.io.DoubleWritable;
+import org.apache.hadoop.io.LongWritable;
+
+import com.google.common.collect.Lists;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.util.List;
+
+/**
+ * Helpers shared by the microbenchmarks: a configuration for a graph with
+ * long ids and double values, and a minimal service worker.
+ */
+public class BenchmarkUtils {
+  /** Port of the first fake worker */
+  private static final int BASE_PORT = 30000;
+
+  /** Do not instantiate */
+  private BenchmarkUtils() { }
+
+  /**
+   * Vertex with long ids, double values, double edges and double messages.
+   * Computation is never called by the benchmarks.
+   */
+  public static class LongDoubleVertex extends Vertex<LongWritable,
+      DoubleWritable, DoubleWritable, DoubleWritable> {
+    @Override
+    public void compute(Iterable<DoubleWritable> messages) { }
+  }
+
+  /**
+   * Create a configuration with {@link LongDoubleVertex} as the vertex
+   * class, to be customized before it is made immutable.
+   *
+   * @return Giraph configuration
+   */
+  public static GiraphConfiguration newConf() {
+    GiraphConfiguration conf = new GiraphConfiguration();
+    conf.setVertexClass(LongDoubleVertex.class);
+    return conf;
+  }
+
+  /**
+   * Make a configuration immutable with the types of
+   * {@link LongDoubleVertex}.
+   *
+   * @param conf Giraph configuration
+   * @return Immutable configuration
+   */
+  public static ImmutableClassesGiraphConfiguration<LongWritable,
+      DoubleWritable, DoubleWritable, DoubleWritable> newImmutableConf(
+      GiraphConfiguration conf) {
+    return new ImmutableClassesGiraphConfiguration<LongWritable,
+        DoubleWritable, DoubleWritable, DoubleWritable>(conf);
+  }
+
+  /**
+   * Get the partition of a vertex id the way
+   * {@link org.apache.giraph.partition.HashWorkerPartitioner} does.
+   *
+   * @param vertexId Vertex id
+   * @param numPartitions Number of partitions
+   * @return Partition id
+   */
+  public static int getPartitionId(long vertexId, int numPartitions) {
+    // Same as LongWritable#hashCode()
+    int hashCode = (int) (vertexId ^ (vertexId >>> 32));
+    return Math.abs(hashCode % numPartitions);
+  }
+
+  /**
+   * Create a service worker which only knows the partition layout: the
+   * workers, the owners of the partitions (assigned round robin) and the
+   * partition of a vertex id.  Any other call fails.
+   *
+   * @param numWorkers Number of workers
+   * @param numPartitions Number of partitions
+   * @return Service worker
+   */
+  @SuppressWarnings("unchecked")
+  public static CentralizedServiceWorker<LongWritable, DoubleWritable,
+      DoubleWritable, DoubleWritable> newServiceWorker(
+      int numWorkers, final int numPartitions) {
+    final List<WorkerInfo> workers = Lists.newArrayList();
+    for (int i = 0; i < numWorkers; ++i) {
+      WorkerInfo workerInfo = new WorkerInfo();
+      workerInfo.setInetSocketAddress(
+          InetSocketAddress.createUnresolved("worker" + i, BASE_PORT + i));
+      workerInfo.setTaskId(i);
+      workers.add(workerInfo);
+    }
+    final List<PartitionOwner> owners = Lists.newArrayList();
+    for (int i = 0; i < numPartitions; ++i) {
+      owners.add(new BasicPartitionOwner(i, workers.get(i % numWorkers)));
+    }
+    InvocationHandler handler = new InvocationHandler() {
+      @Override
+      public Object invoke(Object proxy, Method method, Object[] args) {
+        String name = method.getName();
+        if (name.equals("getVertexPartitionOwner")) {
+          return owners.get(getPartitionId(
+              ((LongWritable) args[0]).get(), numPartitions));
+        } else if (name.equals("getPartitionOwners")) {
+          return owners;
+        } else if (name.equals("getWorkerInfoList")) {
+          return workers;
+        }
+        throw new UnsupportedOperationException(
+            "invoke: " + name + " is not available in benchmarks");
+      }
+    };
+    Object serviceWorker = Proxy.newProxyInstance(
+        BenchmarkUtils.class.getClassLoader(),
+        new Class<?>[] { CentralizedServiceWorker.class }, handler);
+    return (CentralizedServiceWorker<LongWritable, DoubleWritable,
+        DoubleWritable, DoubleWritable>) serviceWorker;
+  }
+}
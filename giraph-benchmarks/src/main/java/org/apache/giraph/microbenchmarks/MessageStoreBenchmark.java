@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.microbenchmarks;
+
+import org.apache.giraph.bsp.CentralizedServiceWorker;
+import org.apache.giraph.combiner.DoubleSumCombiner;
+import org.apache.giraph.comm.messages.ByteArrayMessagesPerVertexStore;
+import org.apache.giraph.comm.messages.MessageStoreByPartition;
+import org.apache.giraph.comm.messages.MessageStoreFactory;
+import org.apache.giraph.comm.messages.OneMessagePerVertexStore;
+import org.apache.giraph.conf.GiraphConfiguration;
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.utils.ByteArrayVertexIdMessages;
+import org.apache.hadoop.io.DoubleWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the message stores: {@link ByteArrayMessagesPerVertexStore},
+ * which keeps every message serialized, and
+ * {@link OneMessagePerVertexStore}, which combines messages on arrival
+ * with a {@link DoubleSumCombiner}.  Measures adding the messages of a
+ * superstep and reading them back per vertex.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class MessageStoreBenchmark {
+  /** Number of partitions */
+  private static final int NUM_PARTITIONS = 4;
+
+  /** Combine messages on arrival? */
+  @Param({ "false", "true" })
+  private boolean combine;
+  /** Number of vertices receiving messages */
+  @Param({ "100000" })
+  private int numVertices;
+  /** Number of messages per receiving vertex */
+  @Param({ "1", "10" })
+  private int messagesPerVertex;
+
+  /** Factory of the store being measured */
+  private MessageStoreFactory<LongWritable, DoubleWritable,
+      MessageStoreByPartition<LongWritable, DoubleWritable>> factory;
+  /** Incoming messages per partition, in random vertex order */
+  private ByteArrayVertexIdMessages<LongWritable, DoubleWritable>[] messages;
+  /** Store already holding {@link #messages} */
+  private MessageStoreByPartition<LongWritable, DoubleWritable> fullStore;
+
+  /**
+   * Create the messages and fill a store with them.
+   *
+   * @throws IOException
+   */
+  @Setup
+  @SuppressWarnings("unchecked")
+  public void setup() throws IOException {
+    GiraphConfiguration giraphConf = BenchmarkUtils.newConf();
+    if (combine) {
+      giraphConf.setCombinerClass(DoubleSumCombiner.class);
+    }
+    ImmutableClassesGiraphConfiguration<LongWritable, DoubleWritable,
+        DoubleWritable, DoubleWritable> conf =
+        BenchmarkUtils.newImmutableConf(giraphConf);
+    CentralizedServiceWorker<LongWritable, DoubleWritable, DoubleWritable,
+        DoubleWritable> service =
+        BenchmarkUtils.newServiceWorker(1, NUM_PARTITIONS);
+    factory = combine ?
+        OneMessagePerVertexStore.newFactory(service, conf) :
+        ByteArrayMessagesPerVertexStore.newFactory(service, conf);
+
+    messages = new ByteArrayVertexIdMessages[NUM_PARTITIONS];
+    for (int i = 0; i < NUM_PARTITIONS; ++i) {
+      messages[i] = new ByteArrayVertexIdMessages<LongWritable,
+          DoubleWritable>();
+      messages[i].setConf(conf);
+      messages[i].initialize();
+    }
+    Random random = new Random(numVertices);
+    LongWritable vertexId = new LongWritable();
+    DoubleWritable message = new DoubleWritable();
+    for (int i = 0; i < numVertices * messagesPerVertex; ++i) {
+      long id = random.nextInt(numVertices);
+      vertexId.set(id);
+      message.set(random.nextDouble());
+      messages[BenchmarkUtils.getPartitionId(id, NUM_PARTITIONS)].add(
+          vertexId, message);
+    }
+    fullStore = addMessages();
+  }
+
+  /**
+   * Add the messages of a superstep to a new store, as the request
+   * processing threads do.
+   *
+   * @return Store with the messages
+   * @throws IOException
+   */
+  @Benchmark
+  public MessageStoreByPartition<LongWritable, DoubleWritable> addMessages()
+    throws IOException {
+    MessageStoreByPartition<LongWritable, DoubleWritable> store =
+        factory.newStore();
+    for (int i = 0; i < NUM_PARTITIONS; ++i) {
+      store.addPartitionMessages(i, messages[i]);
+    }
+    return store;
+  }
+
+  /**
+   * Read the messages of every vertex which received any, as the compute
+   * threads do.
+   *
+   * @return Sum of the messages
+   * @throws IOException
+   */
+  @Benchmark
+  public double getMessages() throws IOException {
+    double sum = 0;
+    for (int i = 0; i < NUM_PARTITIONS; ++i) {
+      for (LongWritable vertexId :
+          fullStore.getPartitionDestinationVertices(i)) {
+        for (DoubleWritable message : fullStore.getVertexMessages(vertexId)) {
+          sum += message.get();
+        }
+      }
+    }
+    return sum;
+  }
+}
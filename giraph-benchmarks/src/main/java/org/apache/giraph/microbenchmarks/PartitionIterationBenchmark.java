@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.microbenchmarks;
+
+import org.apache.giraph.conf.GiraphConfiguration;
+import org.apache.giraph.conf.GiraphConstants;
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.edge.Edge;
+import org.apache.giraph.edge.EdgeFactory;
+import org.apache.giraph.edge.LongDoubleArrayEdges;
+import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.partition.Partition;
+import org.apache.hadoop.io.DoubleWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.util.Progressable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.Lists;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link Partition} implementations on the loops of a compute
+ * thread: iterating over the vertices, over their edges, and updating and
+ * saving every vertex.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PartitionIterationBenchmark {
+  /** Class in org.apache.giraph.partition to benchmark */
+  @Param({ "SimplePartition", "ByteArrayPartition", "LongCsrPartition" })
+  private String partitionClass;
+  /** Number of vertices in the partition */
+  @Param({ "100000" })
+  private int numVertices;
+  /** Number of edges per vertex */
+  @Param({ "10" })
+  private int edgesPerVertex;
+
+  /** Partition holding the graph */
+  private Partition<LongWritable, DoubleWritable, DoubleWritable,
+      DoubleWritable> partition;
+
+  /**
+   * Create the partition and fill it with a random graph.
+   */
+  @Setup
+  public void setup() {
+    GiraphConfiguration giraphConf = BenchmarkUtils.newConf();
+    giraphConf.set(GiraphConstants.PARTITION_CLASS.getKey(),
+        "org.apache.giraph.partition." + partitionClass);
+    GiraphConstants.VERTEX_EDGES_CLASS.set(
+        giraphConf, LongDoubleArrayEdges.class);
+    ImmutableClassesGiraphConfiguration<LongWritable, DoubleWritable,
+        DoubleWritable, DoubleWritable> conf =
+        BenchmarkUtils.newImmutableConf(giraphConf);
+
+    partition = conf.createPartition(0, new Progressable() {
+      @Override
+      public void progress() { }
+    });
+    Random random = new Random(numVertices);
+    for (int i = 0; i < numVertices; ++i) {
+      List<Edge<LongWritable, DoubleWritable>> edges =
+          Lists.newArrayListWithCapacity(edgesPerVertex);
+      for (int j = 0; j < edgesPerVertex; ++j) {
+        edges.add(EdgeFactory.create(
+            new LongWritable(random.nextInt(numVertices)),
+            new DoubleWritable(random.nextDouble())));
+      }
+      Vertex<LongWritable, DoubleWritable, DoubleWritable, DoubleWritable>
+          vertex = conf.createVertex();
+      vertex.initialize(new LongWritable(i), new DoubleWritable(i),
+          conf.createAndInitializeVertexEdges(edges));
+      partition.putVertex(vertex);
+    }
+    // Let partitions which build their layout lazily do it now
+    iterateVertices();
+  }
+
+  /**
+   * Read the value of every vertex.
+   *
+   * @return Sum of the values
+   */
+  @Benchmark
+  public double iterateVertices() {
+    double sum = 0;
+    for (Vertex<LongWritable, DoubleWritable, DoubleWritable, DoubleWritable>
+        vertex : partition) {
+      sum += vertex.getValue().get();
+    }
+    return sum;
+  }
+
+  /**
+   * Read the targets and values of every edge, as sending messages along
+   * all edges does.
+   *
+   * @return Sum of the targets and values
+   */
+  @Benchmark
+  public double iterateEdges() {
+    double sum = 0;
+    for (Vertex<LongWritable, DoubleWritable, DoubleWritable, DoubleWritable>
+        vertex : partition) {
+      for (Edge<LongWritable, DoubleWritable> edge : vertex.getEdges()) {
+        sum += edge.getTargetVertexId().get() + edge.getValue().get();
+      }
+    }
+    return sum;
+  }
+
+  /**
+   * Update the value of every vertex and save it back, as the compute
+   * threads do after calling compute().
+   *
+   * @return Number of vertices in the partition
+   */
+  @Benchmark
+  public long updateVertices() {
+    for (Vertex<LongWritable, DoubleWritable, DoubleWritable, DoubleWritable>
+        vertex : partition) {
+      vertex.getValue().set(vertex.getValue().get() + 1);
+      partition.saveVertex(vertex);
+    }
+    return partition.getVertexCount();
+  }
+}
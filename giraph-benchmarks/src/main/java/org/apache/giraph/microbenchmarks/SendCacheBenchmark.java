@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.microbenchmarks;
+
+import org.apache.giraph.bsp.CentralizedServiceWorker;
+import org.apache.giraph.comm.SendMessageCache;
+import org.apache.giraph.conf.GiraphConstants;
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.partition.PartitionOwner;
+import org.apache.giraph.worker.WorkerInfo;
+import org.apache.hadoop.io.DoubleWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures filling a {@link SendMessageCache} with the messages of a
+ * superstep and flushing it, with the same policy as
+ * {@link org.apache.giraph.comm.netty.NettyWorkerClientRequestProcessor}:
+ * the data of a worker is removed as soon as it reaches
+ * {@link GiraphConstants#MAX_MSG_REQUEST_SIZE}, and the rest at the end.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SendCacheBenchmark {
+  /** Number of partitions per worker */
+  private static final int PARTITIONS_PER_WORKER = 4;
+
+  /** Number of workers the messages are sent to */
+  @Param({ "1", "16" })
+  private int numWorkers;
+  /** Number of messages to send */
+  @Param({ "1000000" })
+  private int numMessages;
+
+  /** Configuration */
+  private ImmutableClassesGiraphConfiguration<LongWritable, DoubleWritable,
+      DoubleWritable, DoubleWritable> conf;
+  /** Service worker knowing the partition layout */
+  private CentralizedServiceWorker<LongWritable, DoubleWritable,
+      DoubleWritable, DoubleWritable> service;
+  /** Request size at which the data of a worker is flushed */
+  private int maxRequestSize;
+  /** Destination of each message */
+  private long[] destinations;
+  /** Owner of the partition of each destination */
+  private PartitionOwner[] owners;
+
+  /**
+   * Create the destinations and look up their owners.
+   */
+  @Setup
+  public void setup() {
+    conf = BenchmarkUtils.newImmutableConf(BenchmarkUtils.newConf());
+    service = BenchmarkUtils.newServiceWorker(
+        numWorkers, numWorkers * PARTITIONS_PER_WORKER);
+    maxRequestSize = GiraphConstants.MAX_MSG_REQUEST_SIZE.get(conf);
+    Random random = new Random(numMessages);
+    destinations = new long[numMessages];
+    owners = new PartitionOwner[numMessages];
+    for (int i = 0; i < numMessages; ++i) {
+      destinations[i] = random.nextLong();
+      owners[i] = service.getVertexPartitionOwner(
+          new LongWritable(destinations[i]));
+    }
+  }
+
+  /**
+   * Add all messages to a new cache, flushing full workers, then flush
+   * the rest.
+   *
+   * @param blackhole Consumer of the flushed data
+   */
+  @Benchmark
+  public void fillAndFlush(Blackhole blackhole) {
+    SendMessageCache<LongWritable, DoubleWritable> cache =
+        new SendMessageCache<LongWritable, DoubleWritable>(conf, service);
+    LongWritable vertexId = new LongWritable();
+    DoubleWritable message = new DoubleWritable();
+    for (int i = 0; i < numMessages; ++i) {
+      vertexId.set(destinations[i]);
+      message.set(i);
+      WorkerInfo workerInfo = owners[i].getWorkerInfo();
+      int workerMessageSize = cache.addMessage(
+          workerInfo, owners[i].getPartitionId(), vertexId, message);
+      if (workerMessageSize >= maxRequestSize) {
+        blackhole.consume(cache.removeWorkerData(workerInfo));
+      }
+    }
+    blackhole.consume(cache.removeAllData());
+  }
+}
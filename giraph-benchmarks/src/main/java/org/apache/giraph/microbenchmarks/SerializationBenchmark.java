@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.microbenchmarks;
+
+import org.apache.giraph.utils.ExtendedByteArrayDataInput;
+import org.apache.giraph.utils.ExtendedByteArrayDataOutput;
+import org.apache.giraph.utils.UnsafeByteArrayInputStream;
+import org.apache.giraph.utils.UnsafeByteArrayOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the streams used to serialize vertices and messages:
+ * {@link UnsafeByteArrayOutputStream} and
+ * {@link UnsafeByteArrayInputStream} (used with
+ * {@link org.apache.giraph.conf.GiraphConstants#USE_UNSAFE_SERIALIZATION}),
+ * {@link ExtendedByteArrayDataOutput} and
+ * {@link ExtendedByteArrayDataInput} (used without it), and the plain
+ * {@link DataOutputStream} and {@link DataInputStream}.  Each record is a
+ * long, a double and an int, like a vertex id, a value and an edge count.
+ *
+ * Each benchmark runs in its own fork, so the calls through
+ * {@link DataOutput} and {@link DataInput} only ever see one stream class.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SerializationBenchmark {
+  /** Number of records written or read */
+  @Param({ "100", "100000" })
+  private int numRecords;
+
+  /** Ids of the records */
+  private long[] ids;
+  /** Values of the records */
+  private double[] values;
+  /** Counts of the records */
+  private int[] counts;
+  /** Records serialized by the unsafe stream (native byte order) */
+  private byte[] unsafeBytes;
+  /** Records serialized by a {@link DataOutputStream} (big endian) */
+  private byte[] bigEndianBytes;
+
+  /**
+   * Create the records and serialize them.
+   *
+   * @throws IOException
+   */
+  @Setup
+  public void setup() throws IOException {
+    Random random = new Random(numRecords);
+    ids = new long[numRecords];
+    values = new double[numRecords];
+    counts = new int[numRecords];
+    for (int i = 0; i < numRecords; ++i) {
+      ids[i] = random.nextLong();
+      values[i] = random.nextDouble();
+      counts[i] = random.nextInt(1000);
+    }
+    unsafeBytes = writeUnsafe().toByteArray();
+    bigEndianBytes = writeDataOutputStream().toByteArray();
+  }
+
+  /**
+   * Write all records.
+   *
+   * @param output Output to write to
+   * @throws IOException
+   */
+  private void writeRecords(DataOutput output) throws IOException {
+    for (int i = 0; i < numRecords; ++i) {
+      output.writeLong(ids[i]);
+      output.writeDouble(values[i]);
+      output.writeInt(counts[i]);
+    }
+  }
+
+  /**
+   * Read all records.
+   *
+   * @param input Input to read from
+   * @return Sum of the fields, so that reads are not eliminated
+   * @throws IOException
+   */
+  private double readRecords(DataInput input) throws IOException {
+    double sum = 0;
+    for (int i = 0; i < numRecords; ++i) {
+      sum += input.readLong();
+      sum += input.readDouble();
+      sum += input.readInt();
+    }
+    return sum;
+  }
+
+  /**
+   * Write with {@link UnsafeByteArrayOutputStream}.
+   *
+   * @return Stream
+   * @throws IOException
+   */
+  @Benchmark
+  public UnsafeByteArrayOutputStream writeUnsafe() throws IOException {
+    UnsafeByteArrayOutputStream output = new UnsafeByteArrayOutputStream();
+    writeRecords(output);
+    return output;
+  }
+
+  /**
+   * Write with {@link ExtendedByteArrayDataOutput}.
+   *
+   * @return Stream
+   * @throws IOException
+   */
+  @Benchmark
+  public ExtendedByteArrayDataOutput writeExtended() throws IOException {
+    ExtendedByteArrayDataOutput output = new ExtendedByteArrayDataOutput();
+    writeRecords(output);
+    return output;
+  }
+
+  /**
+   * Write with a {@link DataOutputStream} over a
+   * {@link ByteArrayOutputStream}.
+   *
+   * @return Underlying byte stream
+   * @throws IOException
+   */
+  @Benchmark
+  public ByteArrayOutputStream writeDataOutputStream() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    writeRecords(new DataOutputStream(bytes));
+    return bytes;
+  }
+
+  /**
+   * Read with {@link UnsafeByteArrayInputStream}.
+   *
+   * @return Sum of the fields
+   * @throws IOException
+   */
+  @Benchmark
+  public double readUnsafe() throws IOException {
+    return readRecords(new UnsafeByteArrayInputStream(unsafeBytes));
+  }
+
+  /**
+   * Read with {@link ExtendedByteArrayDataInput}.
+   *
+   * @return Sum of the fields
+   * @throws IOException
+   */
+  @Benchmark
+  public double readExtended() throws IOException {
+    return readRecords(new ExtendedByteArrayDataInput(bigEndianBytes));
+  }
+
+  /**
+   * Read with a {@link DataInputStream} over a
+   * {@link ByteArrayInputStream}.
+   *
+   * @return Sum of the fields
+   * @throws IOException
+   */
+  @Benchmark
+  public double readDataInputStream() throws IOException {
+    return readRecords(
+        new DataInputStream(new ByteArrayInputStream(bigEndianBytes)));
+  }
+}
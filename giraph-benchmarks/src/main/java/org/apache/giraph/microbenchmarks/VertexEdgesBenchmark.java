@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.microbenchmarks;
+
+import org.apache.giraph.conf.GiraphConfiguration;
+import org.apache.giraph.conf.GiraphConstants;
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.edge.Edge;
+import org.apache.giraph.edge.EdgeFactory;
+import org.apache.giraph.edge.VertexEdges;
+import org.apache.giraph.utils.WritableUtils;
+import org.apache.hadoop.io.DoubleWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.Lists;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link VertexEdges} implementations for long ids and double edge
+ * values: building the edges of a vertex, adding them one by one,
+ * iterating over them and (de)serializing them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class VertexEdgesBenchmark {
+  /** Class in org.apache.giraph.edge to benchmark */
+  @Param({ "ArrayListEdges", "ByteArrayEdges", "HashMapEdges",
+      "LongDoubleArrayEdges", "LongDoubleHashMapEdges",
+      "LongDoubleAdaptiveEdges" })
+  private String edgesClass;
+  /** Number of edges of the vertex */
+  @Param({ "10", "1000" })
+  private int numEdges;
+
+  /** Configuration creating edges of {@link #edgesClass} */
+  private ImmutableClassesGiraphConfiguration<LongWritable, DoubleWritable,
+      DoubleWritable, DoubleWritable> conf;
+  /** Edges to add, with distinct random targets */
+  private List<Edge<LongWritable, DoubleWritable>> edgeList;
+  /** Edges already initialized with {@link #edgeList} */
+  private VertexEdges<LongWritable, DoubleWritable> edges;
+  /** {@link #edges} serialized */
+  private byte[] serializedEdges;
+
+  /**
+   * Create the configuration and the edges.
+   */
+  @Setup
+  public void setup() {
+    GiraphConfiguration giraphConf = BenchmarkUtils.newConf();
+    giraphConf.set(GiraphConstants.VERTEX_EDGES_CLASS.getKey(),
+        "org.apache.giraph.edge." + edgesClass);
+    conf = BenchmarkUtils.newImmutableConf(giraphConf);
+
+    Random random = new Random(numEdges);
+    edgeList = Lists.newArrayListWithCapacity(numEdges);
+    for (int i = 0; i < numEdges; ++i) {
+      // Random high bits keep the targets distinct and unsorted
+      long target = ((long) random.nextInt() << 32) | i;
+      edgeList.add(EdgeFactory.create(new LongWritable(target),
+          new DoubleWritable(random.nextDouble())));
+    }
+    edges = conf.createAndInitializeVertexEdges(edgeList);
+    serializedEdges = WritableUtils.writeToByteArray(edges);
+  }
+
+  /**
+   * Initialize edges from an iterable, as vertex input does.
+   *
+   * @return Edges
+   */
+  @Benchmark
+  public VertexEdges<LongWritable, DoubleWritable> initialize() {
+    return conf.createAndInitializeVertexEdges(edgeList);
+  }
+
+  /**
+   * Add the edges one at a time, as edge input and mutations do.
+   *
+   * @return Edges
+   */
+  @Benchmark
+  public VertexEdges<LongWritable, DoubleWritable> add() {
+    VertexEdges<LongWritable, DoubleWritable> newEdges =
+        conf.createAndInitializeVertexEdges(numEdges);
+    for (Edge<LongWritable, DoubleWritable> edge : edgeList) {
+      newEdges.add(edge);
+    }
+    return newEdges;
+  }
+
+  /**
+   * Iterate over the edges reading targets and values, as
+   * sendMessageToAllEdges and most computations do.
+   *
+   * @return Sum of targets and values
+   */
+  @Benchmark
+  public double iterate() {
+    double sum = 0;
+    for (Edge<LongWritable, DoubleWritable> edge : edges) {
+      sum += edge.getTargetVertexId().get() + edge.getValue().get();
+    }
+    return sum;
+  }
+
+  /**
+   * Serialize the edges, as checkpoints and partition exchanges do.
+   *
+   * @return Serialized edges
+   */
+  @Benchmark
+  public byte[] write() {
+    return WritableUtils.writeToByteArray(edges);
+  }
+
+  /**
+   * Deserialize the edges.
+   *
+   * @return Edges
+   */
+  @Benchmark
+  public VertexEdges<LongWritable, DoubleWritable> readFields() {
+    VertexEdges<LongWritable, DoubleWritable> newEdges =
+        conf.createVertexEdges();
+    WritableUtils.readFieldsFromByteArray(serializedEdges, newEdges);
+    return newEdges;
+  }
+}
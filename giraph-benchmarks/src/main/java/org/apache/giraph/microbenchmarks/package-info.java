@@ -0,0 +1,31 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * JMH microbenchmarks for the data structures on the hot paths of a
+ * worker: vertex edges, message stores, send caches, serialization streams
+ * and partitions.  Unlike {@link org.apache.giraph.benchmark}, which runs
+ * whole jobs, these measure one structure at a time so that alternative
+ * implementations can be compared before they are used in production.
+ *
+ * Build with <code>mvn -pl giraph-benchmarks -am package</code> and run
+ * the self-contained jar with Hadoop on the classpath, e.g.
+ * <code>java -cp giraph-benchmarks/target/benchmarks.jar:$(hadoop
+ * classpath) org.openjdk.jmh.Main VertexEdgesBenchmark</code>.
+ */
+package org.apache.giraph.microbenchmarks;
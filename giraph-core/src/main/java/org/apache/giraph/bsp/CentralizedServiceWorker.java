@@ -29,6 +29,7 @@ import org.apache.giraph.master.MasterInfo;
 import org.apache.giraph.partition.PartitionOwner;
 import org.apache.giraph.partition.PartitionStats;
 import org.apache.giraph.partition.PartitionStore;
+import org.apache.giraph.partition.WorkerGraphPartitioner;
 import org.apache.giraph.worker.WorkerAggregatorHandler;
 import org.apache.giraph.worker.WorkerContext;
 import org.apache.giraph.worker.WorkerInfo;
@@ -172,6 +173,13 @@ public interface CentralizedServiceWorker<I extends WritableComparable,
    */
   Iterable<? extends PartitionOwner> getPartitionOwners();
 
+  /**
+   * Get the graph partitioner of this worker.
+   *
+   * @return Worker graph partitioner
+   */
+  WorkerGraphPartitioner<I, V, E, M> getWorkerGraphPartitioner();
+
   /**
    * If desired by the user, vertex partitions are redistributed among
    * workers according to the chosen WorkerGraphPartitioner.
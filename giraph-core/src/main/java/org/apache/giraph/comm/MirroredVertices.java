@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.comm;
+
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.edge.Edge;
+import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.partition.Partition;
+import org.apache.giraph.partition.PartitionStore;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.log4j.Logger;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Vertices mirrored on this worker: the targets of many edges of the local
+ * vertices.  The messages sent to a mirrored vertex are combined on this
+ * worker before being sent to its owner, so that a vertex with a huge
+ * in-degree receives at most one message per worker and compute thread.
+ * The mirrors are chosen once the graph is loaded, later mutations do not
+ * change them.  Immutable.
+ *
+ * @param <I> Vertex id
+ */
+@SuppressWarnings("rawtypes")
+public class MirroredVertices<I extends WritableComparable> {
+  /** Class logger */
+  private static final Logger LOG = Logger.getLogger(MirroredVertices.class);
+  /** Number of counters used to find the candidate mirrors */
+  private static final int SKETCH_SIZE = 1 << 20;
+  /** Index of every mirrored vertex */
+  private final Map<I, Integer> idIndices;
+  /** Ids of the mirrored vertices, by index */
+  private final List<I> ids;
+
+  /**
+   * Constructor.
+   *
+   * @param ids Ids of the mirrored vertices
+   */
+  public MirroredVertices(List<I> ids) {
+    this.ids = ids;
+    idIndices = Maps.newHashMapWithExpectedSize(ids.size());
+    for (int i = 0; i < ids.size(); ++i) {
+      idIndices.put(ids.get(i), i);
+    }
+  }
+
+  /**
+   * Get the index of a mirrored vertex.
+   *
+   * @param vertexId Vertex id
+   * @return Index of the vertex, -1 if it is not mirrored
+   */
+  public int getIndex(I vertexId) {
+    Integer index = idIndices.get(vertexId);
+    return (index == null) ? -1 : index;
+  }
+
+  /**
+   * Get the id of a mirrored vertex.
+   *
+   * @param index Index of the vertex
+   * @return Vertex id
+   */
+  public I getId(int index) {
+    return ids.get(index);
+  }
+
+  /**
+   * Get the number of mirrored vertices.
+   *
+   * @return Number of mirrored vertices
+   */
+  public int size() {
+    return ids.size();
+  }
+
+  /**
+   * Get the counter of a vertex id in the sketch.
+   *
+   * @param vertexId Vertex id
+   * @return Counter index
+   */
+  private static int getSketchIndex(WritableComparable vertexId) {
+    int hash = vertexId.hashCode();
+    // Spread the hash, ids are often consecutive numbers
+    hash ^= (hash >>> 20) ^ (hash >>> 12);
+    hash ^= (hash >>> 7) ^ (hash >>> 4);
+    return hash & (SKETCH_SIZE - 1);
+  }
+
+  /**
+   * Find the vertices with at least a minimum number of edges from the
+   * vertices of this worker.  The edges are first counted by hash, and
+   * only the targets whose hash is frequent enough are counted exactly.
+   *
+   * @param conf Configuration
+   * @param partitionStore Partitions of this worker
+   * @param minInDegree Minimum number of local edges to a mirrored vertex
+   * @param <I> Vertex id
+   * @param <V> Vertex data
+   * @param <E> Edge data
+   * @param <M> Message data
+   * @return Mirrored vertices
+   */
+  public static <I extends WritableComparable, V extends Writable,
+      E extends Writable, M extends Writable> MirroredVertices<I>
+  findMirroredVertices(ImmutableClassesGiraphConfiguration<I, V, E, M> conf,
+      PartitionStore<I, V, E, M> partitionStore, int minInDegree) {
+    int[] sketch = new int[SKETCH_SIZE];
+    for (Integer partitionId : partitionStore.getPartitionIds()) {
+      Partition<I, V, E, M> partition =
+          partitionStore.getPartition(partitionId);
+      for (Vertex<I, V, E, M> vertex : partition) {
+        for (Edge<I, E> edge : vertex.getEdges()) {
+          ++sketch[getSketchIndex(edge.getTargetVertexId())];
+        }
+      }
+      partitionStore.putPartition(partition);
+    }
+
+    Map<I, int[]> candidateCounts = Maps.newHashMap();
+    for (Integer partitionId : partitionStore.getPartitionIds()) {
+      Partition<I, V, E, M> partition =
+          partitionStore.getPartition(partitionId);
+      for (Vertex<I, V, E, M> vertex : partition) {
+        for (Edge<I, E> edge : vertex.getEdges()) {
+          I targetId = edge.getTargetVertexId();
+          if (sketch[getSketchIndex(targetId)] < minInDegree) {
+            continue;
+          }
+          int[] count = candidateCounts.get(targetId);
+          if (count == null) {
+            // Edge iterators may reuse the target id
+            I candidateId = WritableUtils.clone(targetId, conf);
+            count = new int[1];
+            candidateCounts.put(candidateId, count);
+          }
+          ++count[0];
+        }
+      }
+      partitionStore.putPartition(partition);
+    }
+
+    List<I> ids = Lists.newArrayList();
+    for (Map.Entry<I, int[]> entry : candidateCounts.entrySet()) {
+      if (entry.getValue()[0] >= minInDegree) {
+        ids.add(entry.getKey());
+      }
+    }
+    if (LOG.isInfoEnabled()) {
+      LOG.info("findMirroredVertices: Mirroring " + ids.size() +
+          " vertices with at least " + minInDegree + " local in-edges, out " +
+          "of " + candidateCounts.size() + " candidates");
+    }
+    return new MirroredVertices<I>(ids);
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.comm;
+
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.graph.GiraphTransferRegulator;
+import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.partition.PartitionOwner;
+import org.apache.giraph.utils.ExtendedDataOutput;
+import org.apache.giraph.utils.WritableUtils;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.log4j.Logger;
+
+import com.google.common.collect.Maps;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Caches partition vertices prior to sending, serialized as soon as they
+ * are added, so that no vertex objects are held while loading the input.
+ * Every vertex is stored as its size followed by its data, the same way
+ * {@link org.apache.giraph.partition.ByteArrayPartition} stores it.
+ * Not thread-safe.
+ *
+ * @param <I> Vertex index value
+ * @param <V> Vertex value
+ * @param <E> Edge value
+ * @param <M> Message data
+ */
+public class SendVertexBytesCache<I extends WritableComparable,
+    V extends Writable, E extends Writable, M extends Writable> {
+  /** Class logger */
+  private static final Logger LOG =
+      Logger.getLogger(SendVertexBytesCache.class);
+  /** Serialized vertices of every partition owner */
+  private final Map<PartitionOwner, ExtendedDataOutput> ownerVertexBytesMap =
+      Maps.newHashMap();
+  /** Configuration */
+  private final ImmutableClassesGiraphConfiguration<I, V, E, M> configuration;
+  /**
+   * Regulates the size of outgoing Collections of vertices read
+   * by the local worker during INPUT_SUPERSTEP that are to be
+   * transfered from <code>inputSplitCache</code> to the owner
+   * of their initial, master-assigned Partition.*
+   */
+  private final GiraphTransferRegulator transferRegulator;
+
+  /**
+   * Constructor.
+   *
+   * @param configuration Configuration
+   */
+  public SendVertexBytesCache(
+      ImmutableClassesGiraphConfiguration<I, V, E, M> configuration) {
+    this.configuration = configuration;
+    transferRegulator = new GiraphTransferRegulator(configuration);
+    if (LOG.isInfoEnabled()) {
+      LOG.info("SendVertexBytesCache: maxVerticesPerTransfer = " +
+          transferRegulator.getMaxVerticesPerTransfer());
+      LOG.info("SendVertexBytesCache: maxEdgesPerTransfer = " +
+          transferRegulator.getMaxEdgesPerTransfer());
+    }
+  }
+
+  /**
+   * Serialize a vertex in the cache of its partition owner.
+   *
+   * @param partitionOwner Owner of the partition
+   * @param vertex Vertex to add, may be reused by the caller afterwards
+   * @return Serialized vertices to send, or null if the transfer
+   *         requirements aren't met yet
+   */
+  public ExtendedDataOutput addVertex(PartitionOwner partitionOwner,
+                                      Vertex<I, V, E, M> vertex) {
+    ExtendedDataOutput vertexBytes = ownerVertexBytesMap.get(partitionOwner);
+    if (vertexBytes == null) {
+      vertexBytes = configuration.createExtendedDataOutput();
+      ownerVertexBytesMap.put(partitionOwner, vertexBytes);
+    }
+    transferRegulator.incrementCounters(partitionOwner, vertex);
+
+    try {
+      WritableUtils.writeVertexWithSize(vertexBytes, vertex, configuration);
+    } catch (IOException e) {
+      throw new IllegalStateException("addVertex: IOException", e);
+    }
+
+    // Requirements met to transfer?
+    if (transferRegulator.transferThisPartition(partitionOwner)) {
+      return ownerVertexBytesMap.remove(partitionOwner);
+    }
+
+    return null;
+  }
+
+  /**
+   * Get the serialized vertices of every partition owner.
+   *
+   * @return Serialized vertices of every partition owner
+   */
+  public Map<PartitionOwner, ExtendedDataOutput> getOwnerVertexBytesMap() {
+    return ownerVertexBytesMap;
+  }
+
+  /**
+   * Clear the cache.
+   */
+  public void clear() {
+    ownerVertexBytesMap.clear();
+  }
+}
@@ -23,19 +23,25 @@ import org.apache.giraph.comm.aggregators.AllAggregatorServerData;
 import org.apache.giraph.comm.aggregators.OwnerAggregatorServerData;
 import org.apache.giraph.comm.messages.MessageStoreByPartition;
 import org.apache.giraph.comm.messages.MessageStoreFactory;
+import org.apache.giraph.comm.mutations.LongMutationStore;
+import org.apache.giraph.comm.mutations.MutationStore;
+import org.apache.giraph.comm.mutations.SimpleMutationStore;
 import org.apache.giraph.conf.GiraphConstants;
 import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
 import org.apache.giraph.edge.EdgeStore;
-import org.apache.giraph.graph.VertexMutations;
 import org.apache.giraph.partition.DiskBackedPartitionStore;
 import org.apache.giraph.partition.PartitionStore;
 import org.apache.giraph.partition.SimplePartitionStore;
+import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.io.WritableComparable;
 import org.apache.hadoop.mapreduce.Mapper;
 
+import com.google.common.collect.Maps;
+
 import java.io.IOException;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Anything that the server stores
@@ -48,6 +54,8 @@ import java.util.concurrent.ConcurrentHashMap;
 @SuppressWarnings("rawtypes")
 public class ServerData<I extends WritableComparable,
     V extends Writable, E extends Writable, M extends Writable> {
+  /** Service worker */
+  private final CentralizedServiceWorker<I, V, E, M> serviceWorker;
   /** Partition store for this worker. */
   private volatile PartitionStore<I, V, E, M> partitionStore;
   /** Edge store for this worker. */
@@ -66,11 +74,21 @@ public class ServerData<I extends WritableComparable,
    */
   private volatile MessageStoreByPartition<I, M> currentMessageStore;
   /**
-   * Map of partition ids to incoming vertex mutations from other workers.
-   * (Synchronized access to values)
+   * Bytes of the incoming messages of every partition (messages which will
+   * be consumed in the next super step)
+   */
+  private volatile ConcurrentMap<Integer, AtomicLong> incomingMessageBytes =
+      Maps.newConcurrentMap();
+  /**
+   * Bytes of the current messages of every partition (messages which will
+   * be consumed in the current super step)
    */
-  private final ConcurrentHashMap<I, VertexMutations<I, V, E, M>>
-  vertexMutations = new ConcurrentHashMap<I, VertexMutations<I, V, E, M>>();
+  private volatile ConcurrentMap<Integer, AtomicLong> currentMessageBytes =
+      Maps.newConcurrentMap();
+  /** Incoming vertex mutations from other workers, by partition */
+  private final MutationStore<I, V, E, M> mutationStore;
+  /** Vertices mirrored on this worker (null if mirroring is disabled) */
+  private volatile MirroredVertices<I> mirroredVertices;
   /**
    * Holds aggregtors which current worker owns from current superstep
    */
@@ -95,6 +113,7 @@ public class ServerData<I extends WritableComparable,
           messageStoreFactory,
       Mapper<?, ?, ?, ?>.Context context) {
 
+    this.serviceWorker = service;
     this.messageStoreFactory = messageStoreFactory;
     currentMessageStore = messageStoreFactory.newStore();
     incomingMessageStore = messageStoreFactory.newStore();
@@ -106,10 +125,38 @@ public class ServerData<I extends WritableComparable,
           new SimplePartitionStore<I, V, E, M>(conf, context);
     }
     edgeStore = new EdgeStore<I, V, E, M>(service, conf, context);
+    mutationStore = createMutationStore(conf);
     ownerAggregatorData = new OwnerAggregatorServerData(context, conf);
     allAggregatorData = new AllAggregatorServerData(context, conf);
   }
 
+  /**
+   * Create the store for incoming vertex mutations. Graphs with long ids
+   * get a store keyed by primitive longs.
+   *
+   * @param conf Configuration
+   * @return Mutation store
+   */
+  @SuppressWarnings("unchecked")
+  private MutationStore<I, V, E, M> createMutationStore(
+      ImmutableClassesGiraphConfiguration<I, V, E, M> conf) {
+    if (LongWritable.class.equals(conf.getVertexIdClass())) {
+      return (MutationStore<I, V, E, M>) new LongMutationStore<V, E, M>(
+          (ImmutableClassesGiraphConfiguration<LongWritable, V, E, M>) conf);
+    } else {
+      return new SimpleMutationStore<I, V, E, M>(conf);
+    }
+  }
+
+  /**
+   * Get the service worker this server belongs to.
+   *
+   * @return Service worker
+   */
+  public CentralizedServiceWorker<I, V, E, M> getServiceWorker() {
+    return serviceWorker;
+  }
+
   public EdgeStore<I, V, E, M> getEdgeStore() {
     return edgeStore;
   }
@@ -143,6 +190,24 @@ public class ServerData<I extends WritableComparable,
     return currentMessageStore;
   }
 
+  /**
+   * Get the vertices mirrored on this worker.
+   *
+   * @return Mirrored vertices, null if mirroring is disabled
+   */
+  public MirroredVertices<I> getMirroredVertices() {
+    return mirroredVertices;
+  }
+
+  /**
+   * Set the vertices mirrored on this worker.
+   *
+   * @param mirroredVertices Mirrored vertices
+   */
+  public void setMirroredVertices(MirroredVertices<I> mirroredVertices) {
+    this.mirroredVertices = mirroredVertices;
+  }
+
   /** Prepare for next super step */
   public void prepareSuperstep() {
     if (currentMessageStore != null) {
@@ -155,16 +220,47 @@ public class ServerData<I extends WritableComparable,
     }
     currentMessageStore = incomingMessageStore;
     incomingMessageStore = messageStoreFactory.newStore();
+    currentMessageBytes = incomingMessageBytes;
+    incomingMessageBytes = Maps.newConcurrentMap();
+  }
+
+  /**
+   * Count bytes of incoming messages for a partition.
+   *
+   * @param partitionId Partition id
+   * @param bytes Bytes of the messages
+   */
+  public void addIncomingMessageBytes(int partitionId, long bytes) {
+    AtomicLong partitionBytes = incomingMessageBytes.get(partitionId);
+    if (partitionBytes == null) {
+      AtomicLong newPartitionBytes = new AtomicLong();
+      partitionBytes =
+          incomingMessageBytes.putIfAbsent(partitionId, newPartitionBytes);
+      if (partitionBytes == null) {
+        partitionBytes = newPartitionBytes;
+      }
+    }
+    partitionBytes.addAndGet(bytes);
+  }
+
+  /**
+   * Get the bytes of the current messages of a partition.
+   *
+   * @param partitionId Partition id
+   * @return Bytes of the messages
+   */
+  public long getCurrentMessageBytes(int partitionId) {
+    AtomicLong partitionBytes = currentMessageBytes.get(partitionId);
+    return partitionBytes == null ? 0 : partitionBytes.get();
   }
 
   /**
-   * Get the vertex mutations (synchronize on the values)
+   * Get the store of incoming vertex mutations
    *
-   * @return Vertex mutations
+   * @return Mutation store
    */
-  public ConcurrentHashMap<I, VertexMutations<I, V, E, M>>
-  getVertexMutations() {
-    return vertexMutations;
+  public MutationStore<I, V, E, M> getMutationStore() {
+    return mutationStore;
   }
 
   /**
@@ -21,6 +21,7 @@ import org.apache.giraph.edge.Edge;
 import org.apache.giraph.partition.Partition;
 import org.apache.giraph.partition.PartitionOwner;
 import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.utils.ByteArrayVertexIdEdges;
 import org.apache.giraph.worker.WorkerInfo;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.io.WritableComparable;
@@ -46,6 +47,16 @@ public interface WorkerClientRequestProcessor<I extends WritableComparable,
    */
   boolean sendMessageRequest(I destVertexId, M message);
 
+  /**
+   * Sends a message to the targets of all the edges, serializing it only
+   * once per destination worker.
+   *
+   * @param edges Edges to the destination vertices
+   * @param message Message to send
+   * @return true if any network I/O occurred.
+   */
+  boolean sendMessageToAllRequest(Iterable<Edge<I, E>> edges, M message);
+
   /**
    * Sends a vertex to the appropriate partition owner
    *
@@ -64,6 +75,17 @@ public interface WorkerClientRequestProcessor<I extends WritableComparable,
   void sendPartitionRequest(WorkerInfo workerInfo,
                             Partition<I, V, E, M> partition);
 
+  /**
+   * Send a partition in serialized chunks of vertices, removing the
+   * vertices from the partition as they are sent when possible.  Waits for
+   * the chunks to be acknowledged once enough of them are pending.
+   *
+   * @param workerInfo Worker to send the partition to
+   * @param partition Partition to send
+   */
+  void sendPartitionInChunks(WorkerInfo workerInfo,
+                             Partition<I, V, E, M> partition);
+
   /**
    * Sends a request to the appropriate vertex range owner to add an edge
    *
@@ -86,6 +108,28 @@ public interface WorkerClientRequestProcessor<I extends WritableComparable,
   boolean sendEdgeRequest(I sourceVertexId, Edge<I, E> edge)
     throws IOException;
 
+  /**
+   * Sends edges to be added to a vertex in bulk. Edges are serialized into
+   * per-partition buffers and sent together, the same way as messages.
+   * Edges can be reused after this call.
+   *
+   * @param vertexIndex Vertex index where the edges are added
+   * @param edges Edges to add
+   * @throws IOException
+   */
+  void addEdgesRequest(I vertexIndex, Iterable<Edge<I, E>> edges)
+    throws IOException;
+
+  /**
+   * Sends a batch of edges to be added to their source vertices in bulk.
+   * The batch can be reused after this call.
+   *
+   * @param vertexIdEdges Pairs of source vertex id and edge to add
+   * @throws IOException
+   */
+  void addEdgesRequest(ByteArrayVertexIdEdges<I, E> vertexIdEdges)
+    throws IOException;
+
   /**
    * Sends a request to the appropriate vertex range owner to remove all edges
    * pointing to a given vertex.
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.comm.mutations;
+
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.graph.VertexMutations;
+import org.apache.giraph.utils.ByteArrayVertexIdEdges;
+import org.apache.giraph.utils.VertexIdIterator;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+
+import com.google.common.collect.Maps;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Abstract {@link MutationStore} which keeps bulk edge additions in their
+ * serialized form until the partition they belong to is read, and then
+ * moves them into the per-vertex mutations of the subclass.
+ *
+ * @param <I> Vertex id
+ * @param <V> Vertex data
+ * @param <E> Edge data
+ * @param <M> Message data
+ */
+@SuppressWarnings("rawtypes")
+public abstract class AbstractMutationStore<I extends WritableComparable,
+    V extends Writable, E extends Writable, M extends Writable>
+    implements MutationStore<I, V, E, M> {
+  /** Giraph configuration */
+  protected final ImmutableClassesGiraphConfiguration<I, V, E, M> conf;
+  /** Map from partition id to serialized edge additions for it */
+  private final
+  ConcurrentMap<Integer, Queue<ByteArrayVertexIdEdges<I, E>>> partitionEdges =
+      Maps.newConcurrentMap();
+
+  /**
+   * Constructor
+   *
+   * @param conf Configuration
+   */
+  public AbstractMutationStore(
+      ImmutableClassesGiraphConfiguration<I, V, E, M> conf) {
+    this.conf = conf;
+  }
+
+  /**
+   * Get the mutations for the current vertex of an iterator, creating them
+   * if they don't exist. Only called by the single thread reading the
+   * partition. The vertex id should be released from the iterator if a
+   * reference to it is kept.
+   *
+   * @param partitionId Id of partition
+   * @param iterator Iterator positioned at the vertex
+   * @return Mutations for the vertex
+   */
+  protected abstract VertexMutations<I, V, E, M> getOrCreateVertexMutations(
+      int partitionId, VertexIdIterator<I> iterator);
+
+  /**
+   * Create empty vertex mutations
+   *
+   * @return Vertex mutations
+   */
+  protected VertexMutations<I, V, E, M> createVertexMutations() {
+    VertexMutations<I, V, E, M> mutations = new VertexMutations<I, V, E, M>();
+    mutations.setConf(conf);
+    return mutations;
+  }
+
+  @Override
+  public void addPartitionEdges(int partitionId,
+      ByteArrayVertexIdEdges<I, E> vertexIdEdges) {
+    Queue<ByteArrayVertexIdEdges<I, E>> edgesQueue =
+        partitionEdges.get(partitionId);
+    if (edgesQueue == null) {
+      Queue<ByteArrayVertexIdEdges<I, E>> tmpQueue =
+          new ConcurrentLinkedQueue<ByteArrayVertexIdEdges<I, E>>();
+      edgesQueue = partitionEdges.putIfAbsent(partitionId, tmpQueue);
+      if (edgesQueue == null) {
+        edgesQueue = tmpQueue;
+      }
+    }
+    edgesQueue.add(vertexIdEdges);
+  }
+
+  /**
+   * Move the serialized edge additions of a partition into the per-vertex
+   * mutations.
+   *
+   * @param partitionId Id of partition
+   */
+  protected void moveEdgesToMutations(int partitionId) {
+    Queue<ByteArrayVertexIdEdges<I, E>> edgesQueue =
+        partitionEdges.remove(partitionId);
+    if (edgesQueue == null) {
+      return;
+    }
+    for (ByteArrayVertexIdEdges<I, E> vertexIdEdges : edgesQueue) {
+      ByteArrayVertexIdEdges<I, E>.VertexIdEdgeIterator iterator =
+          vertexIdEdges.getVertexIdEdgeIterator();
+      while (iterator.hasNext()) {
+        iterator.next();
+        // Edges are kept by the mutations, so we release them
+        getOrCreateVertexMutations(partitionId, iterator).addEdge(
+            iterator.releaseCurrentEdge());
+      }
+    }
+  }
+
+  /**
+   * Get ids of partitions which we have bulk edge additions for
+   *
+   * @return Iterable over partition ids
+   */
+  protected Iterable<Integer> getPartitionEdgesIds() {
+    return partitionEdges.keySet();
+  }
+
+  /**
+   * Check if there are bulk edge additions which were not moved to
+   * mutations yet
+   *
+   * @return True iff there are serialized edge additions
+   */
+  protected boolean hasPartitionEdges() {
+    return !partitionEdges.isEmpty();
+  }
+
+  @Override
+  public void clearPartition(int partitionId) {
+    partitionEdges.remove(partitionId);
+  }
+}
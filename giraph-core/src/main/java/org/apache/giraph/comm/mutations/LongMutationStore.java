@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.comm.mutations;
+
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.graph.VertexMutations;
+import org.apache.giraph.utils.VertexIdIterator;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Writable;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * {@link MutationStore} for graphs with long ids. Mutations of each
+ * partition are kept in a primitive-keyed hash map, so no
+ * {@link LongWritable} keys or map entries are held per mutated vertex.
+ * A request always carries mutations for a single partition, so the
+ * partition map is locked once per request rather than once per vertex.
+ *
+ * @param <V> Vertex data
+ * @param <E> Edge data
+ * @param <M> Message data
+ */
+public class LongMutationStore<V extends Writable, E extends Writable,
+    M extends Writable> extends AbstractMutationStore<LongWritable, V, E, M> {
+  /** Map from partition id to map from vertex id to its mutations */
+  private final ConcurrentMap<Integer,
+      Long2ObjectOpenHashMap<VertexMutations<LongWritable, V, E, M>>> map =
+      Maps.newConcurrentMap();
+
+  /**
+   * Constructor
+   *
+   * @param conf Configuration
+   */
+  public LongMutationStore(
+      ImmutableClassesGiraphConfiguration<LongWritable, V, E, M> conf) {
+    super(conf);
+  }
+
+  /**
+   * If there is already a map of mutations related to the partition id
+   * return that map, otherwise create a new one, put it in global map and
+   * return it.
+   *
+   * @param partitionId Id of partition
+   * @return Mutation map for this partition
+   */
+  private Long2ObjectOpenHashMap<VertexMutations<LongWritable, V, E, M>>
+  getOrCreatePartitionMap(int partitionId) {
+    Long2ObjectOpenHashMap<VertexMutations<LongWritable, V, E, M>>
+        partitionMap = map.get(partitionId);
+    if (partitionMap == null) {
+      Long2ObjectOpenHashMap<VertexMutations<LongWritable, V, E, M>> tmpMap =
+          new Long2ObjectOpenHashMap<VertexMutations<LongWritable, V, E, M>>();
+      partitionMap = map.putIfAbsent(partitionId, tmpMap);
+      if (partitionMap == null) {
+        partitionMap = tmpMap;
+      }
+    }
+    return partitionMap;
+  }
+
+  @Override
+  public void addPartitionMutations(int partitionId,
+      Map<LongWritable, VertexMutations<LongWritable, V, E, M>>
+          vertexIdMutations) {
+    Long2ObjectOpenHashMap<VertexMutations<LongWritable, V, E, M>>
+        partitionMap = getOrCreatePartitionMap(partitionId);
+    synchronized (partitionMap) {
+      for (Map.Entry<LongWritable, VertexMutations<LongWritable, V, E, M>>
+          entry : vertexIdMutations.entrySet()) {
+        long vertexId = entry.getKey().get();
+        VertexMutations<LongWritable, V, E, M> mutations =
+            partitionMap.get(vertexId);
+        if (mutations == null) {
+          partitionMap.put(vertexId, entry.getValue());
+        } else {
+          mutations.addVertexMutations(entry.getValue());
+        }
+      }
+    }
+  }
+
+  @Override
+  protected VertexMutations<LongWritable, V, E, M> getOrCreateVertexMutations(
+      int partitionId, VertexIdIterator<LongWritable> iterator) {
+    Long2ObjectOpenHashMap<VertexMutations<LongWritable, V, E, M>>
+        partitionMap = getOrCreatePartitionMap(partitionId);
+    long vertexId = iterator.getCurrentVertexId().get();
+    VertexMutations<LongWritable, V, E, M> mutations =
+        partitionMap.get(vertexId);
+    if (mutations == null) {
+      mutations = createVertexMutations();
+      partitionMap.put(vertexId, mutations);
+    }
+    return mutations;
+  }
+
+  @Override
+  public Iterable<Integer> getPartitionIds() {
+    return Sets.union(map.keySet(), Sets.newHashSet(getPartitionEdgesIds()));
+  }
+
+  @Override
+  public Iterable<LongWritable> getPartitionMutatedVertices(int partitionId) {
+    moveEdgesToMutations(partitionId);
+    final Long2ObjectOpenHashMap<VertexMutations<LongWritable, V, E, M>>
+        partitionMap = map.get(partitionId);
+    if (partitionMap == null) {
+      return Collections.emptyList();
+    }
+    return new Iterable<LongWritable>() {
+      @Override
+      public Iterator<LongWritable> iterator() {
+        final LongIterator idIterator = partitionMap.keySet().iterator();
+        return new Iterator<LongWritable>() {
+          @Override
+          public boolean hasNext() {
+            return idIterator.hasNext();
+          }
+
+          @Override
+          public LongWritable next() {
+            // New object each time, since resolved vertices keep their ids
+            return new LongWritable(idIterator.nextLong());
+          }
+
+          @Override
+          public void remove() {
+            throw new UnsupportedOperationException(
+                "remove: Not supported");
+          }
+        };
+      }
+    };
+  }
+
+  @Override
+  public VertexMutations<LongWritable, V, E, M> getVertexMutations(
+      int partitionId, LongWritable vertexId) {
+    Long2ObjectMap<VertexMutations<LongWritable, V, E, M>> partitionMap =
+        map.get(partitionId);
+    return (partitionMap == null) ? null : partitionMap.get(vertexId.get());
+  }
+
+  @Override
+  public void clearPartition(int partitionId) {
+    super.clearPartition(partitionId);
+    map.remove(partitionId);
+  }
+
+  @Override
+  public long getNumberOfMutatedVertices() {
+    long numberOfMutatedVertices = 0;
+    for (Long2ObjectMap<VertexMutations<LongWritable, V, E, M>> partitionMap :
+        map.values()) {
+      numberOfMutatedVertices += partitionMap.size();
+    }
+    return numberOfMutatedVertices;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return !hasPartitionEdges() && getNumberOfMutatedVertices() == 0;
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.comm.mutations;
+
+import org.apache.giraph.graph.VertexMutations;
+import org.apache.giraph.utils.ByteArrayVertexIdEdges;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+
+import java.util.Map;
+
+/**
+ * Store for vertex mutations received from other workers, grouped by
+ * partition so that each partition can be resolved independently.
+ *
+ * Adding mutations can be done concurrently from multiple threads. Reading
+ * and clearing a partition must only be done after all the mutations for
+ * the superstep have been received, and a partition must not be accessed by
+ * more than one thread at a time while resolving.
+ *
+ * @param <I> Vertex id
+ * @param <V> Vertex data
+ * @param <E> Edge data
+ * @param <M> Message data
+ */
+@SuppressWarnings("rawtypes")
+public interface MutationStore<I extends WritableComparable,
+    V extends Writable, E extends Writable, M extends Writable> {
+  /**
+   * Add mutations for a partition. The store may keep references to the
+   * objects passed in.
+   *
+   * @param partitionId Id of partition
+   * @param vertexIdMutations Map from vertex id to mutations for that vertex
+   */
+  void addPartitionMutations(
+      int partitionId, Map<I, VertexMutations<I, V, E, M>> vertexIdMutations);
+
+  /**
+   * Add edge additions for a partition in serialized form. They are only
+   * turned into per-vertex mutations when the partition is read, so receiving
+   * them is just appending a byte array. The store keeps a reference to the
+   * object passed in.
+   *
+   * @param partitionId Id of partition
+   * @param vertexIdEdges Source vertex ids and edges to add to them
+   */
+  void addPartitionEdges(
+      int partitionId, ByteArrayVertexIdEdges<I, E> vertexIdEdges);
+
+  /**
+   * Get ids of partitions which we have mutations for
+   *
+   * @return Iterable over partition ids
+   */
+  Iterable<Integer> getPartitionIds();
+
+  /**
+   * Get vertex ids from selected partition which we have mutations for
+   *
+   * @param partitionId Id of partition
+   * @return Iterable over vertex ids which we have mutations for
+   */
+  Iterable<I> getPartitionMutatedVertices(int partitionId);
+
+  /**
+   * Get mutations for a vertex
+   *
+   * @param partitionId Id of partition which holds the vertex
+   * @param vertexId Id of vertex
+   * @return Mutations for the vertex, or null if there are none
+   */
+  VertexMutations<I, V, E, M> getVertexMutations(int partitionId, I vertexId);
+
+  /**
+   * Clear mutations for a partition
+   *
+   * @param partitionId Id of partition
+   */
+  void clearPartition(int partitionId);
+
+  /**
+   * Get the number of vertices which we have mutations for
+   *
+   * @return Number of mutated vertices
+   */
+  long getNumberOfMutatedVertices();
+
+  /**
+   * Check if there are no mutations in the store
+   *
+   * @return True iff there are no mutations
+   */
+  boolean isEmpty();
+}
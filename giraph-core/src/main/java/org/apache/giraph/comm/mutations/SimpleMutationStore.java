@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.comm.mutations;
+
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.graph.VertexMutations;
+import org.apache.giraph.utils.VertexIdIterator;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+
+import com.google.common.collect.MapMaker;
+import com.google.common.collect.Sets;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Generic {@link MutationStore} implemented with a two level concurrent hash
+ * map, from partition id to map from vertex id to mutations.
+ * (Synchronized access to the {@link VertexMutations} values while adding)
+ *
+ * @param <I> Vertex id
+ * @param <V> Vertex data
+ * @param <E> Edge data
+ * @param <M> Message data
+ */
+@SuppressWarnings("rawtypes")
+public class SimpleMutationStore<I extends WritableComparable,
+    V extends Writable, E extends Writable, M extends Writable>
+    extends AbstractMutationStore<I, V, E, M> {
+  /** Map from partition id to map from vertex id to its mutations */
+  private final
+  ConcurrentMap<Integer, ConcurrentMap<I, VertexMutations<I, V, E, M>>> map;
+
+  /**
+   * Constructor
+   *
+   * @param conf Configuration
+   */
+  public SimpleMutationStore(
+      ImmutableClassesGiraphConfiguration<I, V, E, M> conf) {
+    super(conf);
+    map = new MapMaker().concurrencyLevel(
+        conf.getNettyServerExecutionConcurrency()).makeMap();
+  }
+
+  /**
+   * If there is already a map of mutations related to the partition id
+   * return that map, otherwise create a new one, put it in global map and
+   * return it.
+   *
+   * @param partitionId Id of partition
+   * @return Mutation map for this partition
+   */
+  private ConcurrentMap<I, VertexMutations<I, V, E, M>>
+  getOrCreatePartitionMap(int partitionId) {
+    ConcurrentMap<I, VertexMutations<I, V, E, M>> partitionMap =
+        map.get(partitionId);
+    if (partitionMap == null) {
+      ConcurrentMap<I, VertexMutations<I, V, E, M>> tmpMap =
+          new MapMaker().concurrencyLevel(
+              conf.getNettyServerExecutionConcurrency()).makeMap();
+      partitionMap = map.putIfAbsent(partitionId, tmpMap);
+      if (partitionMap == null) {
+        partitionMap = tmpMap;
+      }
+    }
+    return partitionMap;
+  }
+
+  @Override
+  public void addPartitionMutations(int partitionId,
+      Map<I, VertexMutations<I, V, E, M>> vertexIdMutations) {
+    ConcurrentMap<I, VertexMutations<I, V, E, M>> partitionMap =
+        getOrCreatePartitionMap(partitionId);
+    for (Map.Entry<I, VertexMutations<I, V, E, M>> entry :
+        vertexIdMutations.entrySet()) {
+      VertexMutations<I, V, E, M> mutations =
+          partitionMap.get(entry.getKey());
+      if (mutations == null) {
+        mutations = partitionMap.putIfAbsent(
+            entry.getKey(), entry.getValue());
+        if (mutations == null) {
+          continue;
+        }
+      }
+      synchronized (mutations) {
+        mutations.addVertexMutations(entry.getValue());
+      }
+    }
+  }
+
+  @Override
+  protected VertexMutations<I, V, E, M> getOrCreateVertexMutations(
+      int partitionId, VertexIdIterator<I> iterator) {
+    ConcurrentMap<I, VertexMutations<I, V, E, M>> partitionMap =
+        getOrCreatePartitionMap(partitionId);
+    VertexMutations<I, V, E, M> mutations =
+        partitionMap.get(iterator.getCurrentVertexId());
+    if (mutations == null) {
+      mutations = createVertexMutations();
+      partitionMap.put(iterator.releaseCurrentVertexId(), mutations);
+    }
+    return mutations;
+  }
+
+  @Override
+  public Iterable<Integer> getPartitionIds() {
+    return Sets.union(map.keySet(), Sets.newHashSet(getPartitionEdgesIds()));
+  }
+
+  @Override
+  public Iterable<I> getPartitionMutatedVertices(int partitionId) {
+    moveEdgesToMutations(partitionId);
+    ConcurrentMap<I, VertexMutations<I, V, E, M>> partitionMap =
+        map.get(partitionId);
+    return (partitionMap == null) ? Collections.<I>emptyList() :
+        partitionMap.keySet();
+  }
+
+  @Override
+  public VertexMutations<I, V, E, M> getVertexMutations(int partitionId,
+      I vertexId) {
+    ConcurrentMap<I, VertexMutations<I, V, E, M>> partitionMap =
+        map.get(partitionId);
+    return (partitionMap == null) ? null : partitionMap.get(vertexId);
+  }
+
+  @Override
+  public void clearPartition(int partitionId) {
+    super.clearPartition(partitionId);
+    map.remove(partitionId);
+  }
+
+  @Override
+  public long getNumberOfMutatedVertices() {
+    long numberOfMutatedVertices = 0;
+    for (ConcurrentMap<I, VertexMutations<I, V, E, M>> partitionMap :
+        map.values()) {
+      numberOfMutatedVertices += partitionMap.size();
+    }
+    return numberOfMutatedVertices;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return !hasPartitionEdges() && getNumberOfMutatedVertices() == 0;
+  }
+}
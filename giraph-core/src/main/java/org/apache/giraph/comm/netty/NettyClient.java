@@ -26,13 +26,21 @@ import org.apache.giraph.comm.netty.handler.RequestServerHandler;
 import org.apache.giraph.comm.netty.handler.ResponseClientHandler;
 /*if_not[HADOOP_NON_SECURE]*/
 import org.apache.giraph.comm.netty.handler.SaslClientHandler;
+/*end[HADOOP_NON_SECURE]*/
 import org.apache.giraph.comm.requests.RequestType;
+/*if_not[HADOOP_NON_SECURE]*/
 import org.apache.giraph.comm.requests.SaslTokenMessageRequest;
 /*end[HADOOP_NON_SECURE]*/
 import org.apache.giraph.comm.requests.WritableRequest;
 import org.apache.giraph.conf.GiraphConstants;
 import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
 import org.apache.giraph.graph.TaskInfo;
+import org.apache.giraph.metrics.GiraphMetrics;
+import org.apache.giraph.metrics.GiraphTrace;
+import org.apache.giraph.metrics.MetricNames;
+import org.apache.giraph.time.SystemTime;
+import org.apache.giraph.time.Time;
+import org.apache.giraph.time.Times;
 import org.apache.giraph.utils.ProgressableUtils;
 import org.apache.giraph.utils.TimedLogger;
 import org.apache.hadoop.mapreduce.Mapper;
@@ -55,6 +63,7 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.MapMaker;
 import com.google.common.collect.Maps;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.yammer.metrics.core.Gauge;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
@@ -63,6 +72,8 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -111,6 +122,27 @@ public class NettyClient {
 /*end[HADOOP_NON_SECURE]*/
   /** Class logger */
   private static final Logger LOG = Logger.getLogger(NettyClient.class);
+  /** Time class to use */
+  private static final Time TIME = SystemTime.get();
+  /** Clients of this task which were not stopped */
+  private static final Set<NettyClient> LIVE_CLIENTS =
+      Collections.newSetFromMap(new ConcurrentHashMap<NettyClient, Boolean>());
+  /**
+   * Open requests of all the clients of this task.  A gauge is only
+   * registered once per name, so a single one covers the worker and the
+   * master clients.
+   */
+  private static final Gauge<Integer> OPEN_REQUESTS_GAUGE =
+      new Gauge<Integer>() {
+        @Override
+        public Integer value() {
+          int openRequests = 0;
+          for (NettyClient client : LIVE_CLIENTS) {
+            openRequests += client.clientRequestIdRequestInfoMap.size();
+          }
+          return openRequests;
+        }
+      };
   /** Context used to report progress */
   private final Mapper<?, ?, ?, ?>.Context context;
   /** Client bootstrap */
@@ -143,6 +175,8 @@ public class NettyClient {
   private final boolean limitNumberOfOpenRequests;
   /** Maximum number of requests without confirmation we can have */
   private final int maxNumberOfOpenRequests;
+  /** Account for the requests in the superstep metrics? */
+  private final boolean accountRequests;
   /** Maximum number of connection failures */
   private final int maxConnectionFailures;
   /** Maximum number of milliseconds for a request */
@@ -185,6 +219,7 @@ public class NettyClient {
     this.context = context;
     this.myTaskInfo = myTaskInfo;
     this.channelsPerServer = GiraphConstants.CHANNELS_PER_SERVER.get(conf);
+    accountRequests = conf.metricsEnabled();
     sendBufferSize = CLIENT_SEND_BUFFER_SIZE.get(conf);
     receiveBufferSize = CLIENT_RECEIVE_BUFFER_SIZE.get(conf);
 
@@ -215,6 +250,9 @@ public class NettyClient {
 
     clientRequestIdRequestInfoMap =
         new MapMaker().concurrencyLevel(maxPoolSize).makeMap();
+    LIVE_CLIENTS.add(this);
+    GiraphMetrics.get().perJobOptional().getGauge(MetricNames.OPEN_REQUESTS,
+        OPEN_REQUESTS_GAUGE);
 
     handlerBeforeExecutionHandler =
         NETTY_CLIENT_EXECUTION_AFTER_HANDLER.get(conf);
@@ -528,6 +566,7 @@ public class NettyClient {
    * Stop the client.
    */
   public void stop() {
+    LIVE_CLIENTS.remove(this);
     // Close connections asynchronously, in a Netty-approved
     // way, without cleaning up thread pools until all channels
     // in addressChannelMap are closed (success or failure)
@@ -621,6 +660,7 @@ public class NettyClient {
    */
   public void sendWritableRequest(Integer destTaskId,
       WritableRequest request) {
+    long startNanos = GiraphTrace.get().start();
     InetSocketAddress remoteServer = taskIdAddressMap.get(destTaskId);
     if (clientRequestIdRequestInfoMap.isEmpty()) {
       byteCounter.resetAll();
@@ -648,13 +688,27 @@ public class NettyClient {
           "request info of " + oldRequestInfo);
       }
     }
+    final long writeStartNanos = accountRequests ? TIME.getNanoseconds() : 0;
     ChannelFuture writeFuture = channel.write(request);
     newRequestInfo.setWriteFuture(writeFuture);
+    if (accountRequests) {
+      final RequestType type = request.getType();
+      writeFuture.addListener(new ChannelFutureListener() {
+        @Override
+        public void operationComplete(ChannelFuture future) {
+          GiraphMetrics.get().perSuperstep().getRequestTypeMetrics()
+              .requestWritten(type,
+                  Times.getNanosSince(TIME, writeStartNanos));
+        }
+      });
+    }
 
     if (limitNumberOfOpenRequests &&
         clientRequestIdRequestInfoMap.size() > maxNumberOfOpenRequests) {
       waitSomeRequests(maxNumberOfOpenRequests);
     }
+    GiraphTrace.get().complete(GiraphTrace.NETTY_SEND,
+        request.getType().name(), startNanos, "destination", destTaskId);
   }
 
   /**
@@ -19,19 +19,25 @@ package org.apache.giraph.comm.netty;
 
 import org.apache.giraph.bsp.BspService;
 import org.apache.giraph.bsp.CentralizedServiceWorker;
+import org.apache.giraph.combiner.Combiner;
+import org.apache.giraph.comm.MirroredVertices;
 import org.apache.giraph.comm.SendEdgeCache;
 import org.apache.giraph.comm.SendMessageCache;
 import org.apache.giraph.comm.SendMutationsCache;
 import org.apache.giraph.comm.SendPartitionCache;
+import org.apache.giraph.comm.SendVertexBytesCache;
 import org.apache.giraph.comm.ServerData;
 import org.apache.giraph.comm.WorkerClient;
 import org.apache.giraph.comm.WorkerClientRequestProcessor;
 import org.apache.giraph.comm.messages.MessageStoreByPartition;
 import org.apache.giraph.comm.requests.SendPartitionCurrentMessagesRequest;
 import org.apache.giraph.comm.requests.SendPartitionMutationsRequest;
+import org.apache.giraph.comm.requests.SendVertexBytesRequest;
 import org.apache.giraph.comm.requests.SendVertexRequest;
+import org.apache.giraph.comm.requests.SendWorkerEdgeMutationsRequest;
 import org.apache.giraph.comm.requests.SendWorkerEdgesRequest;
 import org.apache.giraph.comm.requests.SendWorkerMessagesRequest;
+import org.apache.giraph.comm.requests.SendWorkerOneMessageToManyRequest;
 import org.apache.giraph.comm.requests.WorkerRequest;
 import org.apache.giraph.comm.requests.WritableRequest;
 import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
@@ -39,29 +45,39 @@ import org.apache.giraph.edge.Edge;
 import org.apache.giraph.graph.Vertex;
 import org.apache.giraph.graph.VertexMutations;
 import org.apache.giraph.metrics.GiraphMetrics;
+import org.apache.giraph.metrics.HotVertexSampler;
 import org.apache.giraph.metrics.MetricNames;
 import org.apache.giraph.metrics.SuperstepMetricsRegistry;
+import org.apache.giraph.partition.ByteArrayPartition;
 import org.apache.giraph.partition.Partition;
 import org.apache.giraph.partition.PartitionOwner;
+import org.apache.giraph.partition.SimplePartition;
 import org.apache.giraph.utils.ByteArrayVertexIdEdges;
 import org.apache.giraph.utils.ByteArrayVertexIdMessages;
+import org.apache.giraph.utils.ExtendedDataOutput;
 import org.apache.giraph.utils.PairList;
+import org.apache.giraph.utils.WritableUtils;
 import org.apache.giraph.worker.WorkerInfo;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.io.WritableComparable;
 import org.apache.hadoop.mapreduce.Mapper;
 import org.apache.log4j.Logger;
 
+import com.google.common.collect.Maps;
 import com.yammer.metrics.core.Counter;
 import com.yammer.metrics.core.Gauge;
 import com.yammer.metrics.util.PercentGauge;
 
 import java.io.IOException;
+import java.util.Iterator;
 import java.util.Map;
 
 import static org.apache.giraph.conf.GiraphConstants.MAX_EDGE_REQUEST_SIZE;
 import static org.apache.giraph.conf.GiraphConstants.MAX_MSG_REQUEST_SIZE;
 import static org.apache.giraph.conf.GiraphConstants.MAX_MUTATIONS_PER_REQUEST;
+import static org.apache.giraph.conf.GiraphConstants.PARTITION_EXCHANGE_CHUNK_SIZE;
+import static org.apache.giraph.conf.GiraphConstants.PARTITION_EXCHANGE_MAX_OPEN_CHUNKS;
+import static org.apache.giraph.conf.GiraphConstants.SEND_SERIALIZED_INPUT_VERTICES;
 
 /**
  * Aggregate requests and sends them to the thread-safe NettyClient.  This
@@ -82,10 +98,14 @@ public class NettyWorkerClientRequestProcessor<I extends WritableComparable,
       Logger.getLogger(NettyWorkerClientRequestProcessor.class);
   /** Cached partitions of vertices to send */
   private final SendPartitionCache<I, V, E, M> sendPartitionCache;
+  /** Cached serialized vertices to send (null unless configured) */
+  private final SendVertexBytesCache<I, V, E, M> sendVertexBytesCache;
   /** Cached map of partitions to vertex indices to messages */
   private final SendMessageCache<I, M> sendMessageCache;
   /** Cache of edges to be sent. */
   private final SendEdgeCache<I, E> sendEdgeCache;
+  /** Cache of edges to be added to vertices before the next superstep */
+  private final SendEdgeCache<I, E> sendEdgeMutationsCache;
   /** Cached map of partitions to vertex indices to mutations */
   private final SendMutationsCache<I, V, E, M> sendMutationsCache =
       new SendMutationsCache<I, V, E, M>();
@@ -99,18 +119,30 @@ public class NettyWorkerClientRequestProcessor<I extends WritableComparable,
   private final int maxEdgesSizePerWorker;
   /** Maximum number of mutations per partition before sending */
   private final int maxMutationsPerPartition;
+  /** Size of the chunks of a streamed partition */
+  private final int partitionExchangeChunkSize;
+  /** Chunks of streamed partitions to send before waiting for them */
+  private final int partitionExchangeMaxOpenChunks;
   /** Giraph configuration */
   private final ImmutableClassesGiraphConfiguration<I, V, E, M> configuration;
   /** Service worker */
   private final CentralizedServiceWorker<I, V, E, M> serviceWorker;
   /** Server data from the server (used for local requests) */
   private final ServerData<I, V, E, M> serverData;
+  /** Vertices whose messages are combined here (null if none) */
+  private final MirroredVertices<I> mirroredVertices;
+  /** Combiner of the messages to the mirrored vertices */
+  private final Combiner<I, M> mirrorCombiner;
+  /** Combined messages to the mirrored vertices, by mirror index */
+  private final M[] mirrorMessages;
 
   // Per-Superstep Metrics
   /** Number of requests that went on the wire */
   private final Counter localRequests;
   /** Number of requests that were handled locally */
   private final Counter remoteRequests;
+  /** Records the destinations of the messages (null if not sampling) */
+  private HotVertexSampler<I> hotVertexSampler;
 
   /**
    * Constructor.
@@ -127,13 +159,29 @@ public class NettyWorkerClientRequestProcessor<I extends WritableComparable,
     this.configuration = conf;
 
     sendPartitionCache = new SendPartitionCache<I, V, E, M>(context, conf);
+    sendVertexBytesCache = SEND_SERIALIZED_INPUT_VERTICES.get(conf) ?
+        new SendVertexBytesCache<I, V, E, M>(conf) : null;
     sendMessageCache = new SendMessageCache<I, M>(conf, serviceWorker);
     sendEdgeCache = new SendEdgeCache<I, E>(conf, serviceWorker);
+    sendEdgeMutationsCache = new SendEdgeCache<I, E>(conf, serviceWorker);
     maxMessagesSizePerWorker = MAX_MSG_REQUEST_SIZE.get(conf);
     maxEdgesSizePerWorker = MAX_EDGE_REQUEST_SIZE.get(conf);
     maxMutationsPerPartition = MAX_MUTATIONS_PER_REQUEST.get(conf);
+    partitionExchangeChunkSize = PARTITION_EXCHANGE_CHUNK_SIZE.get(conf);
+    partitionExchangeMaxOpenChunks =
+        PARTITION_EXCHANGE_MAX_OPEN_CHUNKS.get(conf);
     this.serviceWorker = serviceWorker;
     this.serverData = serviceWorker.getServerData();
+    MirroredVertices<I> mirrors = serverData.getMirroredVertices();
+    if (mirrors != null && mirrors.size() > 0 && conf.useCombiner()) {
+      mirroredVertices = mirrors;
+      mirrorCombiner = conf.createCombiner();
+      mirrorMessages = (M[]) new Writable[mirrors.size()];
+    } else {
+      mirroredVertices = null;
+      mirrorCombiner = null;
+      mirrorMessages = null;
+    }
 
     // Per-Superstep Metrics.
     // Since this object is not long lived we just initialize the metrics here.
@@ -159,8 +207,45 @@ public class NettyWorkerClientRequestProcessor<I extends WritableComparable,
     });
   }
 
+  /**
+   * Record the destination of every message sent.
+   *
+   * @param hotVertexSampler Sampler of the compute thread
+   */
+  public void setHotVertexSampler(HotVertexSampler<I> hotVertexSampler) {
+    this.hotVertexSampler = hotVertexSampler;
+  }
+
   @Override
   public boolean sendMessageRequest(I destVertexId, M message) {
+    ++totalMsgsSentInSuperstep;
+    if (hotVertexSampler != null) {
+      hotVertexSampler.messageSent(destVertexId);
+    }
+    if (mirroredVertices != null) {
+      int mirrorIndex = mirroredVertices.getIndex(destVertexId);
+      if (mirrorIndex >= 0) {
+        // Combined here and sent once the superstep's computation is done
+        if (mirrorMessages[mirrorIndex] == null) {
+          mirrorMessages[mirrorIndex] = mirrorCombiner.createInitialMessage();
+        }
+        mirrorCombiner.combine(
+            destVertexId, mirrorMessages[mirrorIndex], message);
+        return false;
+      }
+    }
+    return addMessage(destVertexId, message);
+  }
+
+  /**
+   * Add a message to the cache and send the messages for the destination
+   * worker if the cache for it is full.
+   *
+   * @param destVertexId Destination vertex id
+   * @param message Message to send
+   * @return true if any network I/O occurred.
+   */
+  private boolean addMessage(I destVertexId, M message) {
     PartitionOwner owner =
         serviceWorker.getVertexPartitionOwner(destVertexId);
     WorkerInfo workerInfo = owner.getWorkerInfo();
@@ -169,7 +254,6 @@ public class NettyWorkerClientRequestProcessor<I extends WritableComparable,
       LOG.trace("sendMessageRequest: Send bytes (" + message.toString() +
           ") to " + destVertexId + " on worker " + workerInfo);
     }
-    ++totalMsgsSentInSuperstep;
 
     // Add the message to the cache
     int workerMessageSize = sendMessageCache.addMessage(
@@ -190,6 +274,61 @@ public class NettyWorkerClientRequestProcessor<I extends WritableComparable,
     return false;
   }
 
+  @Override
+  public boolean sendMessageToAllRequest(Iterable<Edge<I, E>> edges,
+                                         M message) {
+    boolean sentRequest = false;
+    Map<WorkerInfo, ExtendedDataOutput> workerOutputs = Maps.newHashMap();
+    try {
+      for (Edge<I, E> edge : edges) {
+        PartitionOwner owner =
+            serviceWorker.getVertexPartitionOwner(edge.getTargetVertexId());
+        ExtendedDataOutput output =
+            workerOutputs.get(owner.getWorkerInfo());
+        if (output == null) {
+          output = configuration.createExtendedDataOutput();
+          message.write(output);
+          workerOutputs.put(owner.getWorkerInfo(), output);
+        }
+        output.writeInt(owner.getPartitionId());
+        edge.getTargetVertexId().write(output);
+        ++totalMsgsSentInSuperstep;
+        if (hotVertexSampler != null) {
+          hotVertexSampler.messageSent(edge.getTargetVertexId());
+        }
+        if (output.getPos() >= maxMessagesSizePerWorker) {
+          sendOneMessageToManyRequest(owner.getWorkerInfo(), output);
+          workerOutputs.remove(owner.getWorkerInfo());
+          sentRequest = true;
+        }
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException(
+          "sendMessageToAllRequest: Got IOException", e);
+    }
+    for (Map.Entry<WorkerInfo, ExtendedDataOutput> entry :
+        workerOutputs.entrySet()) {
+      sendOneMessageToManyRequest(entry.getKey(), entry.getValue());
+      sentRequest = true;
+    }
+    return sentRequest;
+  }
+
+  /**
+   * Send a message to many vertices of a worker.
+   *
+   * @param workerInfo Worker owning the destination vertices
+   * @param messageAndTargets Serialized message and destinations
+   */
+  private void sendOneMessageToManyRequest(WorkerInfo workerInfo,
+      ExtendedDataOutput messageAndTargets) {
+    WritableRequest writableRequest =
+        new SendWorkerOneMessageToManyRequest<I, V, E, M>(messageAndTargets);
+    // Needed when the request is executed locally
+    writableRequest.setConf(configuration);
+    doRequest(workerInfo, writableRequest);
+  }
+
   @Override
   public void sendPartitionRequest(WorkerInfo workerInfo,
                                    Partition<I, V, E, M> partition) {
@@ -258,6 +397,15 @@ public class NettyWorkerClientRequestProcessor<I extends WritableComparable,
   @Override
   public void sendVertexRequest(PartitionOwner partitionOwner,
                                 Vertex<I, V, E, M> vertex) {
+    if (sendVertexBytesCache != null) {
+      ExtendedDataOutput vertexBytes =
+          sendVertexBytesCache.addVertex(partitionOwner, vertex);
+      if (vertexBytes != null) {
+        sendVertexBytesRequest(partitionOwner, vertexBytes);
+      }
+      return;
+    }
+
     Partition<I, V, E, M> partition =
         sendPartitionCache.addVertex(partitionOwner, vertex);
     if (partition == null) {
@@ -267,6 +415,103 @@ public class NettyWorkerClientRequestProcessor<I extends WritableComparable,
     sendPartitionRequest(partitionOwner.getWorkerInfo(), partition);
   }
 
+  /**
+   * Send serialized vertices to the owner of their partition.
+   *
+   * @param partitionOwner Owner of the partition
+   * @param vertexBytes Serialized vertices
+   */
+  private void sendVertexBytesRequest(PartitionOwner partitionOwner,
+                                      ExtendedDataOutput vertexBytes) {
+    WritableRequest vertexBytesRequest =
+        new SendVertexBytesRequest<I, V, E, M>(
+            partitionOwner.getPartitionId(), vertexBytes);
+    // Needed when the request is executed locally
+    vertexBytesRequest.setConf(configuration);
+    doRequest(partitionOwner.getWorkerInfo(), vertexBytesRequest);
+  }
+
+  @Override
+  public void sendPartitionInChunks(WorkerInfo workerInfo,
+                                    Partition<I, V, E, M> partition) {
+    int openChunks = 0;
+    boolean sentChunk = false;
+    ExtendedDataOutput chunk = configuration.createExtendedDataOutput();
+    try {
+      if (partition instanceof ByteArrayPartition) {
+        // Already serialized, the bytes are moved as they are
+        ByteArrayPartition<I, V, E, M> byteArrayPartition =
+            (ByteArrayPartition<I, V, E, M>) partition;
+        while (byteArrayPartition.removeVertexBytes(
+            chunk, partitionExchangeChunkSize)) {
+          openChunks = sendPartitionChunk(workerInfo, partition.getId(),
+              chunk, openChunks);
+          sentChunk = true;
+          chunk = configuration.createExtendedDataOutput();
+        }
+      } else {
+        // Only the simple partition can release its vertices one by one
+        boolean removeVertices = partition instanceof SimplePartition;
+        Iterator<Vertex<I, V, E, M>> vertexIterator = partition.iterator();
+        while (vertexIterator.hasNext()) {
+          WritableUtils.writeVertexWithSize(
+              chunk, vertexIterator.next(), configuration);
+          if (removeVertices) {
+            vertexIterator.remove();
+          }
+          if (chunk.getPos() >= partitionExchangeChunkSize) {
+            openChunks = sendPartitionChunk(workerInfo, partition.getId(),
+                chunk, openChunks);
+            sentChunk = true;
+            chunk = configuration.createExtendedDataOutput();
+          }
+        }
+      }
+      // An empty partition still needs a chunk, the receiver creates the
+      // partition when adding it
+      if (chunk.getPos() > 0 || !sentChunk) {
+        sendPartitionChunk(workerInfo, partition.getId(), chunk, openChunks);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException(
+          "sendPartitionInChunks: Got IOException", e);
+    }
+    if (LOG.isInfoEnabled()) {
+      LOG.info("sendPartitionInChunks: Sent partition " + partition.getId() +
+          " to " + workerInfo);
+    }
+
+    // Messages are stored separately
+    if (serviceWorker.getSuperstep() != BspService.INPUT_SUPERSTEP) {
+      sendPartitionMessages(workerInfo, partition);
+    }
+  }
+
+  /**
+   * Send a chunk of a partition, and wait for the chunks sent to be
+   * acknowledged if there are too many of them.
+   *
+   * @param workerInfo Worker to send the chunk to
+   * @param partitionId Partition id
+   * @param chunk Serialized vertices
+   * @param openChunks Number of chunks sent and not waited for
+   * @return Number of chunks sent and not waited for, after this one
+   */
+  private int sendPartitionChunk(WorkerInfo workerInfo, int partitionId,
+      ExtendedDataOutput chunk, int openChunks) {
+    WritableRequest vertexBytesRequest =
+        new SendVertexBytesRequest<I, V, E, M>(partitionId, chunk);
+    // Needed when the request is executed locally
+    vertexBytesRequest.setConf(configuration);
+    doRequest(workerInfo, vertexBytesRequest);
+    if (openChunks + 1 >= partitionExchangeMaxOpenChunks) {
+      // The acknowledged requests can be freed
+      workerClient.waitAllRequests();
+      return 0;
+    }
+    return openChunks + 1;
+  }
+
   @Override
   public void addEdgeRequest(I vertexIndex, Edge<I, E> edge) throws
       IOException {
@@ -316,6 +561,57 @@ public class NettyWorkerClientRequestProcessor<I extends WritableComparable,
     return false;
   }
 
+  @Override
+  public void addEdgesRequest(I vertexIndex, Iterable<Edge<I, E>> edges)
+    throws IOException {
+    PartitionOwner owner = serviceWorker.getVertexPartitionOwner(vertexIndex);
+    WorkerInfo workerInfo = owner.getWorkerInfo();
+    int partitionId = owner.getPartitionId();
+    for (Edge<I, E> edge : edges) {
+      addEdgeMutation(workerInfo, partitionId, vertexIndex, edge);
+    }
+  }
+
+  @Override
+  public void addEdgesRequest(ByteArrayVertexIdEdges<I, E> vertexIdEdges)
+    throws IOException {
+    ByteArrayVertexIdEdges<I, E>.VertexIdEdgeIterator iterator =
+        vertexIdEdges.getVertexIdEdgeIterator();
+    while (iterator.hasNext()) {
+      iterator.next();
+      PartitionOwner owner =
+          serviceWorker.getVertexPartitionOwner(iterator.getCurrentVertexId());
+      addEdgeMutation(owner.getWorkerInfo(), owner.getPartitionId(),
+          iterator.getCurrentVertexId(), iterator.getCurrentEdge());
+    }
+  }
+
+  /**
+   * Add an edge mutation to the bulk cache and send the edges for the
+   * worker if the cache for it is full.
+   *
+   * @param workerInfo Worker which owns the partition
+   * @param partitionId Partition id
+   * @param vertexIndex Vertex index where the edge is added
+   * @param edge Edge to add
+   */
+  private void addEdgeMutation(WorkerInfo workerInfo, int partitionId,
+      I vertexIndex, Edge<I, E> edge) {
+    if (LOG.isTraceEnabled()) {
+      LOG.trace("addEdgeMutation: Sending edge " + edge + " for index " +
+          vertexIndex + " with partition " + partitionId);
+    }
+    int workerEdgesSize = sendEdgeMutationsCache.addEdge(
+        workerInfo, partitionId, vertexIndex, edge);
+    if (workerEdgesSize >= maxEdgesSizePerWorker) {
+      PairList<Integer, ByteArrayVertexIdEdges<I, E>> workerEdges =
+          sendEdgeMutationsCache.removeWorkerEdges(workerInfo);
+      WritableRequest writableRequest =
+          new SendWorkerEdgeMutationsRequest<I, E>(workerEdges);
+      doRequest(workerInfo, writableRequest);
+    }
+  }
+
   /**
    * Send a mutations request if the maximum number of mutations per partition
    * was met.
@@ -403,6 +699,23 @@ public class NettyWorkerClientRequestProcessor<I extends WritableComparable,
       sendPartitionRequest(entry.getKey().getWorkerInfo(), entry.getValue());
     }
     sendPartitionCache.clear();
+    if (sendVertexBytesCache != null) {
+      for (Map.Entry<PartitionOwner, ExtendedDataOutput> entry :
+          sendVertexBytesCache.getOwnerVertexBytesMap().entrySet()) {
+        sendVertexBytesRequest(entry.getKey(), entry.getValue());
+      }
+      sendVertexBytesCache.clear();
+    }
+
+    // Send the combined messages to the mirrored vertices (if any)
+    if (mirroredVertices != null) {
+      for (int i = 0; i < mirrorMessages.length; ++i) {
+        if (mirrorMessages[i] != null) {
+          addMessage(mirroredVertices.getId(i), mirrorMessages[i]);
+          mirrorMessages[i] = null;
+        }
+      }
+    }
 
     // Execute the remaining sends messages (if any)
     PairList<WorkerInfo, PairList<Integer,
@@ -434,6 +747,21 @@ public class NettyWorkerClientRequestProcessor<I extends WritableComparable,
       doRequest(edgeIterator.getCurrentFirst(), writableRequest);
     }
 
+    // Execute the remaining sends bulk edge mutations (if any)
+    PairList<WorkerInfo, PairList<Integer,
+        ByteArrayVertexIdEdges<I, E>>>
+        remainingEdgeMutationsCache = sendEdgeMutationsCache.removeAllEdges();
+    PairList<WorkerInfo,
+        PairList<Integer, ByteArrayVertexIdEdges<I, E>>>.Iterator
+        edgeMutationsIterator = remainingEdgeMutationsCache.getIterator();
+    while (edgeMutationsIterator.hasNext()) {
+      edgeMutationsIterator.next();
+      WritableRequest writableRequest =
+          new SendWorkerEdgeMutationsRequest<I, E>(
+              edgeMutationsIterator.getCurrentSecond());
+      doRequest(edgeMutationsIterator.getCurrentFirst(), writableRequest);
+    }
+
     // Execute the remaining sends mutations (if any)
     Map<Integer, Map<I, VertexMutations<I, V, E, M>>> remainingMutationsCache =
         sendMutationsCache.removeAllPartitionMutations();
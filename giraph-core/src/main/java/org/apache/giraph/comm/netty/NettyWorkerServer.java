@@ -30,6 +30,7 @@ import org.apache.giraph.comm.messages.MessageStoreByPartition;
 import org.apache.giraph.comm.messages.MessageStoreFactory;
 import org.apache.giraph.comm.messages.OneMessagePerVertexStore;
 import org.apache.giraph.comm.messages.SequentialFileMessageStore;
+import org.apache.giraph.comm.mutations.MutationStore;
 import org.apache.giraph.comm.netty.handler.WorkerRequestServerHandler;
 import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
 import org.apache.giraph.graph.GraphState;
@@ -37,18 +38,21 @@ import org.apache.giraph.graph.Vertex;
 import org.apache.giraph.graph.VertexMutations;
 import org.apache.giraph.graph.VertexResolver;
 import org.apache.giraph.partition.Partition;
+import org.apache.giraph.utils.CallableFactory;
+import org.apache.giraph.utils.ProgressableUtils;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.io.WritableComparable;
 import org.apache.hadoop.mapreduce.Mapper;
 import org.apache.log4j.Logger;
 
-import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Iterables;
-import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
 
 import java.net.InetSocketAddress;
-import java.util.Collection;
-import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.LinkedBlockingQueue;
 
 import static org.apache.giraph.conf.GiraphConstants.MAX_MESSAGES_IN_MEMORY;
 import static org.apache.giraph.conf.GiraphConstants.USE_OUT_OF_CORE_MESSAGES;
@@ -153,90 +157,109 @@ public class NettyWorkerServer<I extends WritableComparable,
   }
 
   /**
-   * Resolve mutation requests.
+   * Resolve mutation requests. Mutations are already grouped by partition
+   * on receipt, so partitions are resolved in parallel, each one by a
+   * single thread of the compute thread pool.
    *
    * @param graphState Graph state
    */
-  private void resolveMutations(GraphState<I, V, E, M> graphState) {
-    Multimap<Integer, I> resolveVertexIndices = HashMultimap.create(
-        service.getPartitionStore().getNumPartitions(), 100);
-      // Add any mutated vertex indices to be resolved
-    for (Entry<I, VertexMutations<I, V, E, M>> e :
-        serverData.getVertexMutations().entrySet()) {
-      I vertexId = e.getKey();
-      Integer partitionId = service.getPartitionId(vertexId);
-      if (!resolveVertexIndices.put(partitionId, vertexId)) {
-        throw new IllegalStateException(
-            "resolveMutations: Already has missing vertex on this " +
-                "worker for " + vertexId);
+  private void resolveMutations(final GraphState<I, V, E, M> graphState) {
+    final MutationStore<I, V, E, M> mutationStore =
+        serverData.getMutationStore();
+    final BlockingQueue<Integer> resolvePartitionIdQueue =
+        new LinkedBlockingQueue<Integer>();
+    Iterables.addAll(resolvePartitionIdQueue,
+        service.getPartitionStore().getPartitionIds());
+    int numThreads = Math.min(conf.getNumComputeThreads(),
+        resolvePartitionIdQueue.size());
+    if (numThreads > 0) {
+      if (LOG.isInfoEnabled()) {
+        LOG.info("resolveMutations: Resolving " +
+            mutationStore.getNumberOfMutatedVertices() +
+            " mutated vertices using " + numThreads + " thread(s)");
       }
-    }
-    // Keep track of the vertices which are not here but have received messages
-    for (Integer partitionId : service.getPartitionStore().getPartitionIds()) {
-      Iterable<I> destinations = serverData.getCurrentMessageStore().
-          getPartitionDestinationVertices(partitionId);
-      if (!Iterables.isEmpty(destinations)) {
-        Partition<I, V, E, M> partition =
-            service.getPartitionStore().getPartition(partitionId);
-        for (I vertexId : destinations) {
-          if (partition.getVertex(vertexId) == null) {
-            if (!resolveVertexIndices.put(partitionId, vertexId)) {
-              throw new IllegalStateException(
-                  "resolveMutations: Already has missing vertex on this " +
-                      "worker for " + vertexId);
+      CallableFactory<Void> callableFactory = new CallableFactory<Void>() {
+        @Override
+        public Callable<Void> newCallable(int callableId) {
+          return new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+              VertexResolver<I, V, E, M> vertexResolver =
+                  conf.createVertexResolver(graphState);
+              while (true) {
+                Integer partitionId = resolvePartitionIdQueue.poll();
+                if (partitionId == null) {
+                  break;
+                }
+                resolvePartitionMutations(partitionId, vertexResolver,
+                    graphState);
+              }
+              return null;
             }
-          }
+          };
         }
-        service.getPartitionStore().putPartition(partition);
+      };
+      ProgressableUtils.getResultsWithNCallables(callableFactory,
+          numThreads, "resolve-%d", graphState.getContext());
+    }
+    if (!mutationStore.isEmpty()) {
+      throw new IllegalStateException("resolveMutations: Illegally " +
+          "still has " + mutationStore.getNumberOfMutatedVertices() +
+          " mutations left.");
+    }
+  }
+
+  /**
+   * Resolve mutations of a single partition, together with the vertices
+   * which are not there but have received messages.
+   *
+   * @param partitionId Id of partition
+   * @param vertexResolver Vertex resolver to use
+   * @param graphState Graph state
+   */
+  private void resolvePartitionMutations(int partitionId,
+      VertexResolver<I, V, E, M> vertexResolver,
+      GraphState<I, V, E, M> graphState) {
+    MutationStore<I, V, E, M> mutationStore = serverData.getMutationStore();
+    Partition<I, V, E, M> partition =
+        service.getPartitionStore().getPartition(partitionId);
+    // Add any mutated vertex indices to be resolved
+    Set<I> resolveVertexIndices = Sets.newHashSet(
+        mutationStore.getPartitionMutatedVertices(partitionId));
+    // Keep track of the vertices which are not here but have received messages
+    for (I vertexId : serverData.getCurrentMessageStore().
+        getPartitionDestinationVertices(partitionId)) {
+      if (partition.getVertex(vertexId) == null) {
+        resolveVertexIndices.add(vertexId);
       }
     }
     // Resolve all graph mutations
-    VertexResolver<I, V, E, M> vertexResolver =
-        conf.createVertexResolver(graphState);
-    for (Entry<Integer, Collection<I>> e :
-        resolveVertexIndices.asMap().entrySet()) {
-      Partition<I, V, E, M> partition =
-          service.getPartitionStore().getPartition(e.getKey());
-      for (I vertexIndex : e.getValue()) {
-        Vertex<I, V, E, M> originalVertex =
-            partition.getVertex(vertexIndex);
-
-        VertexMutations<I, V, E, M> mutations = null;
-        VertexMutations<I, V, E, M> vertexMutations =
-            serverData.getVertexMutations().get(vertexIndex);
-        if (vertexMutations != null) {
-          synchronized (vertexMutations) {
-            mutations = vertexMutations.copy();
-          }
-          serverData.getVertexMutations().remove(vertexIndex);
-        }
-        Vertex<I, V, E, M> vertex = vertexResolver.resolve(
-            vertexIndex, originalVertex, mutations,
-            serverData.getCurrentMessageStore().
-                hasMessagesForVertex(vertexIndex));
-        graphState.getContext().progress();
-
-        if (LOG.isDebugEnabled()) {
-          LOG.debug("resolveMutations: Resolved vertex index " +
-              vertexIndex + " with original vertex " +
-              originalVertex + ", returned vertex " + vertex +
-              " on superstep " + service.getSuperstep() +
-              " with mutations " +
-              mutations);
-        }
-        if (vertex != null) {
-          partition.putVertex(vertex);
-        } else if (originalVertex != null) {
-          partition.removeVertex(originalVertex.getId());
-        }
+    for (I vertexIndex : resolveVertexIndices) {
+      Vertex<I, V, E, M> originalVertex = partition.getVertex(vertexIndex);
+      VertexMutations<I, V, E, M> mutations =
+          mutationStore.getVertexMutations(partitionId, vertexIndex);
+      Vertex<I, V, E, M> vertex = vertexResolver.resolve(
+          vertexIndex, originalVertex, mutations,
+          serverData.getCurrentMessageStore().
+              hasMessagesForVertex(vertexIndex));
+      graphState.getContext().progress();
+
+      if (LOG.isDebugEnabled()) {
+        LOG.debug("resolveMutations: Resolved vertex index " +
+            vertexIndex + " with original vertex " +
+            originalVertex + ", returned vertex " + vertex +
+            " on superstep " + service.getSuperstep() +
+            " with mutations " +
+            mutations);
+      }
+      if (vertex != null) {
+        partition.putVertex(vertex);
+      } else if (originalVertex != null) {
+        partition.removeVertex(originalVertex.getId());
       }
-      service.getPartitionStore().putPartition(partition);
-    }
-    if (!serverData.getVertexMutations().isEmpty()) {
-      throw new IllegalStateException("resolveMutations: Illegally " +
-          "still has " + serverData.getVertexMutations().size() +
-          " mutations left.");
     }
+    mutationStore.clearPartition(partitionId);
+    service.getPartitionStore().putPartition(partition);
   }
 
   @Override
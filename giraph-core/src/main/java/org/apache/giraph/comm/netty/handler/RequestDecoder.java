@@ -22,6 +22,7 @@ import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
 import org.apache.giraph.comm.netty.ByteCounter;
 import org.apache.giraph.comm.requests.RequestType;
 import org.apache.giraph.comm.requests.WritableRequest;
+import org.apache.giraph.metrics.GiraphMetrics;
 import org.apache.giraph.utils.ReflectionUtils;
 import org.apache.giraph.time.SystemTime;
 import org.apache.giraph.time.Time;
@@ -46,8 +47,8 @@ public class RequestDecoder extends OneToOneDecoder {
   private final ImmutableClassesGiraphConfiguration conf;
   /** Byte counter to output */
   private final ByteCounter byteCounter;
-  /** Start nanoseconds for the decoding time */
-  private long startDecodingNanoseconds = -1;
+  /** Account for the requests in the superstep metrics? */
+  private final boolean accountRequests;
   /**
    * Constructor.
    *
@@ -58,6 +59,7 @@ public class RequestDecoder extends OneToOneDecoder {
                         ByteCounter byteCounter) {
     this.conf = conf;
     this.byteCounter = byteCounter;
+    accountRequests = conf.metricsEnabled();
   }
 
   @Override
@@ -75,12 +77,15 @@ public class RequestDecoder extends OneToOneDecoder {
       }
     }
 
-    if (LOG.isDebugEnabled()) {
+    long startDecodingNanoseconds = -1;
+    if (accountRequests || LOG.isDebugEnabled()) {
       startDecodingNanoseconds = TIME.getNanoseconds();
     }
 
     // Decode the request
     ChannelBuffer buffer = (ChannelBuffer) msg;
+    // The length field was stripped by the frame decoder
+    int requestBytes = buffer.readableBytes() + 4;
     ChannelBufferInputStream inputStream = new ChannelBufferInputStream(buffer);
     int enumValue = inputStream.readByte();
     RequestType type = RequestType.values()[enumValue];
@@ -90,6 +95,11 @@ public class RequestDecoder extends OneToOneDecoder {
     WritableRequest writableRequest =
         ReflectionUtils.newInstance(writableRequestClass, conf);
     writableRequest.readFields(inputStream);
+    if (accountRequests) {
+      GiraphMetrics.get().perSuperstep().getRequestTypeMetrics()
+          .requestDecoded(type, requestBytes,
+              Times.getNanosSince(TIME, startDecodingNanoseconds));
+    }
     if (LOG.isDebugEnabled()) {
       LOG.debug("decode: Client " + writableRequest.getClientId() +
           ", requestId " + writableRequest.getRequestId() +
@@ -21,6 +21,7 @@ package org.apache.giraph.comm.netty.handler;
 import org.apache.giraph.comm.requests.WritableRequest;
 import org.apache.giraph.conf.GiraphConfiguration;
 import org.apache.giraph.conf.GiraphConstants;
+import org.apache.giraph.metrics.GiraphMetrics;
 import org.apache.giraph.time.SystemTime;
 import org.apache.giraph.time.Time;
 import org.apache.giraph.time.Times;
@@ -46,8 +47,8 @@ public class RequestEncoder extends OneToOneEncoder {
   private final int bufferStartingSize;
   /** Whether or not to use direct byte buffers */
   private final boolean useDirectBuffers;
-  /** Start nanoseconds for the encoding time */
-  private long startEncodingNanoseconds = -1;
+  /** Account for the requests in the superstep metrics? */
+  private final boolean accountRequests;
 
   /**
    * Constructor.
@@ -59,6 +60,7 @@ public class RequestEncoder extends OneToOneEncoder {
         GiraphConstants.NETTY_REQUEST_ENCODER_BUFFER_SIZE.get(conf);
     useDirectBuffers =
         GiraphConstants.NETTY_REQUEST_ENCODER_USE_DIRECT_BUFFERS.get(conf);
+    accountRequests = conf.metricsEnabled();
   }
 
   @Override
@@ -70,7 +72,8 @@ public class RequestEncoder extends OneToOneEncoder {
     }
 
     // Encode the request
-    if (LOG.isDebugEnabled()) {
+    long startEncodingNanoseconds = -1;
+    if (accountRequests || LOG.isDebugEnabled()) {
       startEncodingNanoseconds = TIME.getNanoseconds();
     }
     WritableRequest writableRequest = (WritableRequest) msg;
@@ -104,6 +107,12 @@ public class RequestEncoder extends OneToOneEncoder {
     // Set the correct size at the end
     ChannelBuffer encodedBuffer = outputStream.buffer();
     encodedBuffer.setInt(0, encodedBuffer.writerIndex() - 4);
+    if (accountRequests) {
+      GiraphMetrics.get().perSuperstep().getRequestTypeMetrics()
+          .requestEncoded(writableRequest.getType(),
+              encodedBuffer.writerIndex(),
+              Times.getNanosSince(TIME, startEncodingNanoseconds));
+    }
     if (LOG.isDebugEnabled()) {
       LOG.debug("encode: Client " + writableRequest.getClientId() + ", " +
           "requestId " + writableRequest.getRequestId() +
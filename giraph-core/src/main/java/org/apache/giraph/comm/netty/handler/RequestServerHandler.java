@@ -21,6 +21,8 @@ package org.apache.giraph.comm.netty.handler;
 import org.apache.giraph.comm.requests.WritableRequest;
 import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
 import org.apache.giraph.graph.TaskInfo;
+import org.apache.giraph.metrics.GiraphMetrics;
+import org.apache.giraph.metrics.GiraphTrace;
 import org.apache.giraph.time.SystemTime;
 import org.apache.giraph.time.Time;
 import org.apache.giraph.time.Times;
@@ -57,8 +59,8 @@ public abstract class RequestServerHandler<R> extends
   private final WorkerRequestReservedMap workerRequestReservedMap;
   /** My task info */
   private final TaskInfo myTaskInfo;
-  /** Start nanoseconds for the processing time */
-  private long startProcessingNanoseconds = -1;
+  /** Account for the requests in the superstep metrics? */
+  private final boolean accountRequests;
 
   /**
    * Constructor
@@ -74,6 +76,7 @@ public abstract class RequestServerHandler<R> extends
     this.workerRequestReservedMap = workerRequestReservedMap;
     closeFirstRequest = NETTY_SIMULATE_FIRST_REQUEST_CLOSED.get(conf);
     this.myTaskInfo = myTaskInfo;
+    accountRequests = conf.metricsEnabled();
   }
 
   @Override
@@ -100,10 +103,20 @@ public abstract class RequestServerHandler<R> extends
     if (workerRequestReservedMap.reserveRequest(
         writableRequest.getClientId(),
         writableRequest.getRequestId())) {
-      if (LOG.isDebugEnabled()) {
+      long startProcessingNanoseconds = -1;
+      if (accountRequests || LOG.isDebugEnabled()) {
         startProcessingNanoseconds = TIME.getNanoseconds();
       }
+      long traceStartNanos = GiraphTrace.get().start();
       processRequest((R) writableRequest);
+      GiraphTrace.get().complete(GiraphTrace.NETTY_RECEIVE,
+          writableRequest.getType().name(), traceStartNanos,
+          "client", writableRequest.getClientId());
+      if (accountRequests) {
+        GiraphMetrics.get().perSuperstep().getRequestTypeMetrics()
+            .requestProcessed(writableRequest.getType(),
+                Times.getNanosSince(TIME, startProcessingNanoseconds));
+      }
       if (LOG.isDebugEnabled()) {
         LOG.debug("messageReceived: Processing client " +
             writableRequest.getClientId() + ", " +
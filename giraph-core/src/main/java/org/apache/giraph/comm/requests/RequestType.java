@@ -46,6 +46,8 @@ public enum RequestType {
   SEND_WORKER_EDGES_REQUEST(SendWorkerEdgesRequest.class),
   /** Send a partition of mutations */
   SEND_PARTITION_MUTATIONS_REQUEST(SendPartitionMutationsRequest.class),
+  /** Send edges to be added to vertices before the next superstep */
+  SEND_WORKER_EDGE_MUTATIONS_REQUEST(SendWorkerEdgeMutationsRequest.class),
   /** Send aggregated values from one worker's vertices */
   SEND_WORKER_AGGREGATORS_REQUEST(SendWorkerAggregatorsRequest.class),
   /** Send aggregated values from worker owner to master */
@@ -53,7 +55,14 @@ public enum RequestType {
   /** Send aggregators from master to worker owners */
   SEND_AGGREGATORS_TO_OWNER_REQUEST(SendAggregatorsToOwnerRequest.class),
   /** Send aggregators from worker owner to other workers */
-  SEND_AGGREGATORS_TO_WORKER_REQUEST(SendAggregatorsToWorkerRequest.class);
+  SEND_AGGREGATORS_TO_WORKER_REQUEST(SendAggregatorsToWorkerRequest.class),
+  /** Sending serialized vertices request */
+  SEND_VERTEX_BYTES_REQUEST(SendVertexBytesRequest.class),
+  /** Send the partitions assigned to vertices */
+  SEND_VERTEX_PARTITIONS_REQUEST(SendVertexPartitionsRequest.class),
+  /** Send one message to many vertices of a worker */
+  SEND_WORKER_ONE_MESSAGE_TO_MANY_REQUEST(
+      SendWorkerOneMessageToManyRequest.class);
 
   /** Class of request which this type corresponds to */
   private final Class<? extends WritableRequest> requestClass;
@@ -34,7 +34,6 @@ import java.io.DataOutput;
 import java.io.IOException;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Send a collection of vertex mutations for a partition.
@@ -111,26 +110,11 @@ public class SendPartitionMutationsRequest<I extends WritableComparable,
 
   @Override
   public void doRequest(ServerData<I, V, E, M> serverData) {
-    ConcurrentHashMap<I, VertexMutations<I, V, E, M>> vertexMutations =
-      serverData.getVertexMutations();
     Histogram verticesInMutationHist = GiraphMetrics.get().perSuperstep()
         .getUniformHistogram(MetricNames.VERTICES_IN_MUTATION_REQUEST);
-    verticesInMutationHist.update(vertexMutations.size());
-    for (Entry<I, VertexMutations<I, V, E, M>> entry :
-        vertexIdMutations.entrySet()) {
-      VertexMutations<I, V, E, M> mutations =
-          vertexMutations.get(entry.getKey());
-      if (mutations == null) {
-        mutations = vertexMutations.putIfAbsent(
-            entry.getKey(), entry.getValue());
-        if (mutations == null) {
-          continue;
-        }
-      }
-      synchronized (mutations) {
-        mutations.addVertexMutations(entry.getValue());
-      }
-    }
+    verticesInMutationHist.update(vertexIdMutations.size());
+    serverData.getMutationStore().addPartitionMutations(
+        partitionId, vertexIdMutations);
   }
 
   @Override
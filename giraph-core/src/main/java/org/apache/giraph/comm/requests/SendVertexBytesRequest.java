@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.comm.requests;
+
+import org.apache.giraph.comm.ServerData;
+import org.apache.giraph.partition.ByteArrayPartition;
+import org.apache.giraph.partition.Partition;
+import org.apache.giraph.utils.ExtendedDataInput;
+import org.apache.giraph.utils.ExtendedDataOutput;
+import org.apache.giraph.utils.WritableUtils;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Send serialized vertices for a partition, as cached by
+ * {@link org.apache.giraph.comm.SendVertexBytesCache}.  A
+ * {@link ByteArrayPartition} takes the vertex bytes as they are, other
+ * partitions get the deserialized vertices.
+ *
+ * @param <I> Vertex id
+ * @param <V> Vertex data
+ * @param <E> Edge data
+ * @param <M> Message data
+ */
+@SuppressWarnings("rawtypes")
+public class SendVertexBytesRequest<I extends WritableComparable,
+    V extends Writable, E extends Writable, M extends Writable> extends
+    WritableRequest<I, V, E, M> implements WorkerRequest<I, V, E, M> {
+  /** Partition id */
+  private int partitionId;
+  /** Serialized vertices */
+  private byte[] vertexBytes;
+  /** Number of bytes used in the buffer */
+  private int length;
+
+  /**
+   * Constructor used for reflection only
+   */
+  public SendVertexBytesRequest() { }
+
+  /**
+   * Constructor for sending a request.
+   *
+   * @param partitionId Partition to send the vertices to
+   * @param vertexBytes Serialized vertices
+   */
+  public SendVertexBytesRequest(int partitionId,
+      ExtendedDataOutput vertexBytes) {
+    this.partitionId = partitionId;
+    this.vertexBytes = vertexBytes.getByteArray();
+    this.length = vertexBytes.getPos();
+  }
+
+  @Override
+  public void readFieldsRequest(DataInput input) throws IOException {
+    partitionId = input.readInt();
+    length = input.readInt();
+    vertexBytes = new byte[length];
+    input.readFully(vertexBytes);
+  }
+
+  @Override
+  public void writeRequest(DataOutput output) throws IOException {
+    output.writeInt(partitionId);
+    output.writeInt(length);
+    output.write(vertexBytes, 0, length);
+  }
+
+  @Override
+  public RequestType getType() {
+    return RequestType.SEND_VERTEX_BYTES_REQUEST;
+  }
+
+  @Override
+  public void doRequest(ServerData<I, V, E, M> serverData) {
+    Partition<I, V, E, M> partition =
+        getConf().createPartition(partitionId, null);
+    if (partition instanceof ByteArrayPartition) {
+      ((ByteArrayPartition<I, V, E, M>) partition).putVertexBytes(
+          vertexBytes, length);
+    } else {
+      ExtendedDataInput input =
+          getConf().createExtendedDataInput(vertexBytes, 0, length);
+      try {
+        while (input.available() > 0) {
+          // Skip the size of the vertex
+          input.readInt();
+          partition.putVertex(
+              WritableUtils.readVertexFromDataInput(input, getConf()));
+        }
+      } catch (IOException e) {
+        throw new IllegalStateException("doRequest: IOException", e);
+      }
+    }
+    serverData.getPartitionStore().addPartition(partition);
+  }
+
+  @Override
+  public int getSerializedSize() {
+    // 4 for the partition id, 4 for the length, plus the vertex bytes
+    return super.getSerializedSize() + 8 + length;
+  }
+}
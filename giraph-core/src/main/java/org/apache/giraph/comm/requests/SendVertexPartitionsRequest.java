@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.comm.requests;
+
+import org.apache.giraph.comm.ServerData;
+import org.apache.giraph.partition.StreamingWorkerPartitioner;
+import org.apache.giraph.utils.ExtendedDataOutput;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Send the partitions a worker assigned to the vertices it loaded, see
+ * {@link StreamingWorkerPartitioner}.
+ *
+ * @param <I> Vertex id
+ * @param <V> Vertex data
+ * @param <E> Edge data
+ * @param <M> Message data
+ */
+@SuppressWarnings("rawtypes")
+public class SendVertexPartitionsRequest<I extends WritableComparable,
+    V extends Writable, E extends Writable, M extends Writable> extends
+    WritableRequest<I, V, E, M> implements WorkerRequest<I, V, E, M> {
+  /** Serialized (vertex id, partition id) pairs */
+  private byte[] assignmentBytes;
+  /** Number of bytes used in the buffer */
+  private int length;
+
+  /**
+   * Constructor used for reflection only
+   */
+  public SendVertexPartitionsRequest() { }
+
+  /**
+   * Constructor for sending a request.
+   *
+   * @param assignments Serialized (vertex id, partition id) pairs
+   */
+  public SendVertexPartitionsRequest(ExtendedDataOutput assignments) {
+    this.assignmentBytes = assignments.getByteArray();
+    this.length = assignments.getPos();
+  }
+
+  @Override
+  public void readFieldsRequest(DataInput input) throws IOException {
+    length = input.readInt();
+    assignmentBytes = new byte[length];
+    input.readFully(assignmentBytes);
+  }
+
+  @Override
+  public void writeRequest(DataOutput output) throws IOException {
+    output.writeInt(length);
+    output.write(assignmentBytes, 0, length);
+  }
+
+  @Override
+  public RequestType getType() {
+    return RequestType.SEND_VERTEX_PARTITIONS_REQUEST;
+  }
+
+  @Override
+  public void doRequest(ServerData<I, V, E, M> serverData) {
+    StreamingWorkerPartitioner<I, V, E, M> partitioner =
+        (StreamingWorkerPartitioner<I, V, E, M>)
+            serverData.getServiceWorker().getWorkerGraphPartitioner();
+    try {
+      partitioner.addAssignments(
+          getConf().createExtendedDataInput(assignmentBytes, 0, length));
+    } catch (IOException e) {
+      throw new IllegalStateException("doRequest: IOException", e);
+    }
+  }
+
+  @Override
+  public int getSerializedSize() {
+    // 4 for the length, plus the assignment bytes
+    return super.getSerializedSize() + 4 + length;
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.comm.requests;
+
+import org.apache.giraph.comm.ServerData;
+import org.apache.giraph.edge.Edge;
+import org.apache.giraph.metrics.GiraphMetrics;
+import org.apache.giraph.metrics.MetricNames;
+import org.apache.giraph.utils.ByteArrayVertexIdEdges;
+import org.apache.giraph.utils.PairList;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+
+import com.yammer.metrics.core.Histogram;
+
+/**
+ * Send a collection of edges to be added to vertices of a partition before
+ * the next superstep. Bulk counterpart of the edge additions carried by
+ * {@link SendPartitionMutationsRequest}.
+ *
+ * @param <I> Vertex id
+ * @param <E> Edge data
+ */
+@SuppressWarnings("unchecked")
+public class SendWorkerEdgeMutationsRequest<I extends WritableComparable,
+    E extends Writable>
+    extends SendWorkerDataRequest<I, Edge<I, E>,
+    ByteArrayVertexIdEdges<I, E>> {
+  /**
+   * Constructor used for reflection only
+   */
+  public SendWorkerEdgeMutationsRequest() { }
+
+  /**
+   * Constructor used to send request.
+   *
+   * @param partVertEdges Map of remote partitions =>
+   *                     ByteArrayVertexIdEdges
+   */
+  public SendWorkerEdgeMutationsRequest(
+      PairList<Integer, ByteArrayVertexIdEdges<I, E>> partVertEdges) {
+    this.partitionVertexData = partVertEdges;
+  }
+
+  @Override
+  public ByteArrayVertexIdEdges<I, E> createByteArrayVertexIdData() {
+    return new ByteArrayVertexIdEdges<I, E>();
+  }
+
+  @Override
+  public RequestType getType() {
+    return RequestType.SEND_WORKER_EDGE_MUTATIONS_REQUEST;
+  }
+
+  @Override
+  public void doRequest(ServerData serverData) {
+    Histogram edgeMutationBytesHist = GiraphMetrics.get().perSuperstep()
+        .getUniformHistogram(MetricNames.BYTES_IN_EDGE_MUTATIONS_REQUEST);
+    PairList<Integer, ByteArrayVertexIdEdges<I, E>>.Iterator
+        iterator = partitionVertexData.getIterator();
+    while (iterator.hasNext()) {
+      iterator.next();
+      edgeMutationBytesHist.update(iterator.getCurrentSecond().getSize());
+      serverData.getMutationStore().
+          addPartitionEdges(iterator.getCurrentFirst(),
+              iterator.getCurrentSecond());
+    }
+  }
+}
@@ -68,6 +68,8 @@ public class SendWorkerMessagesRequest<I extends WritableComparable,
         iterator = partitionVertexData.getIterator();
     while (iterator.hasNext()) {
       iterator.next();
+      serverData.addIncomingMessageBytes(iterator.getCurrentFirst(),
+          iterator.getCurrentSecond().getSize());
       try {
         serverData.getIncomingMessageStore().
             addPartitionMessages(iterator.getCurrentFirst(),
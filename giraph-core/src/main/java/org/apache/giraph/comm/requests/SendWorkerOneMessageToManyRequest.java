@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.comm.requests;
+
+import org.apache.giraph.comm.ServerData;
+import org.apache.giraph.utils.ByteArrayVertexIdMessages;
+import org.apache.giraph.utils.ExtendedDataInput;
+import org.apache.giraph.utils.ExtendedDataOutput;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+
+import com.google.common.collect.Maps;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Send one message to many vertices of a worker.  The message is
+ * serialized once, followed by the (partition id, vertex id) pairs of its
+ * destinations on the worker.
+ *
+ * @param <I> Vertex id
+ * @param <V> Vertex data
+ * @param <E> Edge data
+ * @param <M> Message data
+ */
+@SuppressWarnings("rawtypes")
+public class SendWorkerOneMessageToManyRequest<I extends WritableComparable,
+    V extends Writable, E extends Writable, M extends Writable> extends
+    WritableRequest<I, V, E, M> implements WorkerRequest<I, V, E, M> {
+  /** Serialized message and destinations */
+  private byte[] messageBytes;
+  /** Number of bytes used in the buffer */
+  private int length;
+
+  /**
+   * Constructor used for reflection only
+   */
+  public SendWorkerOneMessageToManyRequest() { }
+
+  /**
+   * Constructor for sending a request.
+   *
+   * @param messageAndTargets Serialized message and destinations
+   */
+  public SendWorkerOneMessageToManyRequest(
+      ExtendedDataOutput messageAndTargets) {
+    this.messageBytes = messageAndTargets.getByteArray();
+    this.length = messageAndTargets.getPos();
+  }
+
+  @Override
+  public void readFieldsRequest(DataInput input) throws IOException {
+    length = input.readInt();
+    messageBytes = new byte[length];
+    input.readFully(messageBytes);
+  }
+
+  @Override
+  public void writeRequest(DataOutput output) throws IOException {
+    output.writeInt(length);
+    output.write(messageBytes, 0, length);
+  }
+
+  @Override
+  public RequestType getType() {
+    return RequestType.SEND_WORKER_ONE_MESSAGE_TO_MANY_REQUEST;
+  }
+
+  @Override
+  public void doRequest(ServerData<I, V, E, M> serverData) {
+    ExtendedDataInput input =
+        getConf().createExtendedDataInput(messageBytes, 0, length);
+    Map<Integer, ByteArrayVertexIdMessages<I, M>> partitionMessages =
+        Maps.newHashMap();
+    try {
+      M message = getConf().createMessageValue();
+      message.readFields(input);
+      I vertexId = getConf().createVertexId();
+      while (input.available() > 0) {
+        int partitionId = input.readInt();
+        vertexId.readFields(input);
+        ByteArrayVertexIdMessages<I, M> messages =
+            partitionMessages.get(partitionId);
+        if (messages == null) {
+          messages = new ByteArrayVertexIdMessages<I, M>();
+          messages.setConf(getConf());
+          messages.initialize();
+          partitionMessages.put(partitionId, messages);
+        }
+        messages.add(vertexId, message);
+      }
+      for (Map.Entry<Integer, ByteArrayVertexIdMessages<I, M>> entry :
+          partitionMessages.entrySet()) {
+        serverData.addIncomingMessageBytes(entry.getKey(),
+            entry.getValue().getSize());
+        serverData.getIncomingMessageStore().addPartitionMessages(
+            entry.getKey(), entry.getValue());
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("doRequest: IOException", e);
+    }
+  }
+
+  @Override
+  public int getSerializedSize() {
+    // 4 for the length, plus the message and destination bytes
+    return super.getSerializedSize() + 4 + length;
+  }
+}
@@ -317,6 +317,28 @@ public class GiraphConfiguration extends Configuration
     DO_OUTPUT_DURING_COMPUTATION.set(this, doOutputDuringComputation);
   }
 
+  /**
+   * Check if output during computation should be written asynchronously
+   *
+   * @return True iff output during computation is handed over to writer
+   *         threads
+   */
+  public final boolean asyncOutputDuringComputation() {
+    return ASYNC_OUTPUT_DURING_COMPUTATION.get(this);
+  }
+
+  /**
+   * Set whether or not output during computation should be written
+   * asynchronously
+   *
+   * @param asyncOutputDuringComputation True iff we want compute threads to
+   *                                     hand output over to writer threads
+   */
+  public final void setAsyncOutputDuringComputation(
+      boolean asyncOutputDuringComputation) {
+    ASYNC_OUTPUT_DURING_COMPUTATION.set(this, asyncOutputDuringComputation);
+  }
+
   /**
    * Check if VertexOutputFormat is thread-safe
    *
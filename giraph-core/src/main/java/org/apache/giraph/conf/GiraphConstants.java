@@ -35,6 +35,7 @@ import org.apache.giraph.job.GiraphJobObserver;
 import org.apache.giraph.master.DefaultMasterCompute;
 import org.apache.giraph.master.MasterCompute;
 import org.apache.giraph.master.MasterObserver;
+import org.apache.giraph.metrics.GiraphMetricsReporter;
 import org.apache.giraph.partition.DefaultPartitionContext;
 import org.apache.giraph.partition.GraphPartitionerFactory;
 import org.apache.giraph.partition.HashPartitionerFactory;
@@ -143,6 +144,28 @@ public interface GiraphConstants {
   /** Number of threads for writing output in the end of the application */
   IntConfOption NUM_OUTPUT_THREADS =
       new IntConfOption("giraph.numOutputThreads", 1);
+  /**
+   * Only used together with {@link #DO_OUTPUT_DURING_COMPUTATION}. If true,
+   * compute threads serialize vertices into batches which are handed over
+   * to dedicated writer threads, so compute doesn't wait on the output
+   * filesystem.
+   */
+  BooleanConfOption ASYNC_OUTPUT_DURING_COMPUTATION =
+      new BooleanConfOption("giraph.asyncOutputDuringComputation", false);
+  /**
+   * Maximum number of serialized vertex batches waiting to be written when
+   * {@link #ASYNC_OUTPUT_DURING_COMPUTATION} is used. Compute threads block
+   * when the buffer is full.
+   */
+  IntConfOption ASYNC_OUTPUT_BUFFER_BATCHES =
+      new IntConfOption("giraph.asyncOutputBufferBatches", 64);
+  /**
+   * Size in bytes of a batch of serialized vertices after which it is handed
+   * over to the writer threads when {@link #ASYNC_OUTPUT_DURING_COMPUTATION}
+   * is used.
+   */
+  IntConfOption ASYNC_OUTPUT_BATCH_SIZE =
+      new IntConfOption("giraph.asyncOutputBatchSize", 64 * ONE_KB);
 
   /** conf key for comma-separated list of jars to export to YARN workers */
   StrConfOption GIRAPH_YARN_LIBJARS =
@@ -241,6 +264,45 @@ public interface GiraphConstants {
   BooleanConfOption METRICS_ENABLE =
       new BooleanConfOption("giraph.metrics.enable", false);
 
+  /**
+   * Reporter exposing the metrics while the task runs, e.g.
+   * {@link org.apache.giraph.metrics.HttpMetricsReporter} (only used when
+   * metrics are enabled)
+   */
+  ClassConfOption<GiraphMetricsReporter> METRICS_REPORTER_CLASS =
+      ClassConfOption.create("giraph.metrics.reporterClass", null,
+          GiraphMetricsReporter.class);
+  /** Port of the HTTP metrics reporter, the task partition is added to it */
+  IntConfOption METRICS_HTTP_INITIAL_PORT =
+      new IntConfOption("giraph.metrics.http.initialPort", 31000);
+
+  /**
+   * Record a timeline of the threads of every task, written at the end of
+   * the job in the Chrome trace-event format
+   */
+  BooleanConfOption TRACE_ENABLED =
+      new BooleanConfOption("giraph.trace.enable", false);
+  /** Maximum number of trace events kept for every thread */
+  IntConfOption TRACE_EVENTS_PER_THREAD =
+      new IntConfOption("giraph.trace.eventsPerThread", 64 * 1024);
+  /** Directory where the traces are written, under the job id */
+  StrConfOption TRACE_DIRECTORY =
+      new StrConfOption("giraph.trace.directory", "_bsp/_traces");
+
+  /**
+   * Number of slowest vertices, top message senders and top message
+   * receivers reported with the superstep metrics (0 to disable).  Only
+   * used when giraph.metrics.enable is set.
+   */
+  IntConfOption HOT_VERTICES_TOP_N =
+      new IntConfOption("giraph.hotVertices.topN", 0);
+  /**
+   * One in this many sent messages is counted to find the top message
+   * receivers
+   */
+  IntConfOption HOT_VERTICES_SAMPLE_RATE =
+      new IntConfOption("giraph.hotVertices.sampleRate", 16);
+
   /**
    *  ZooKeeper comma-separated list (if not set,
    *  will start up ZooKeeper locally)
@@ -451,6 +513,45 @@ public interface GiraphConstants {
   IntConfOption NUM_INPUT_THREADS =
       new IntConfOption("giraph.numInputThreads", 1);
 
+  /**
+   * Number of threads parsing the records of an input split, for each input
+   * thread, if the vertex reader is a
+   * {@link org.apache.giraph.io.PipelinedVertexReader}, which readers
+   * only implement when their parsing keeps no state between records (such
+   * as the JSON, int id and adjacency list text vertex readers).  The
+   * input thread then only reads the raw records and sends the parsed
+   * vertices.  0 parses on the input thread.
+   */
+  IntConfOption NUM_INPUT_PARSING_THREADS =
+      new IntConfOption("giraph.numInputParsingThreads", 0);
+
+  /**
+   * Serialize the vertices read from the input as soon as they are sent,
+   * instead of caching vertex objects until a partition's worth is sent.
+   * The receiving worker adds the bytes as they are to a
+   * {@link org.apache.giraph.partition.ByteArrayPartition}, and only
+   * deserializes them for other partition classes.
+   */
+  BooleanConfOption SEND_SERIALIZED_INPUT_VERTICES =
+      new BooleanConfOption("giraph.sendSerializedInputVertices", false);
+
+  /**
+   * Send the partitions moving to another worker as serialized chunks of
+   * vertices, removing the vertices as they are serialized, instead of
+   * one request per partition.
+   */
+  BooleanConfOption STREAM_PARTITION_EXCHANGE =
+      new BooleanConfOption("giraph.streamPartitionExchange", false);
+  /** Size in bytes of the chunks of a streamed partition exchange */
+  IntConfOption PARTITION_EXCHANGE_CHUNK_SIZE =
+      new IntConfOption("giraph.partitionExchangeChunkSize", 512 * ONE_KB);
+  /**
+   * Number of chunks of a streamed partition exchange sent before waiting
+   * for them to be acknowledged, which bounds the memory they hold
+   */
+  IntConfOption PARTITION_EXCHANGE_MAX_OPEN_CHUNKS =
+      new IntConfOption("giraph.partitionExchangeMaxOpenChunks", 16);
+
   /** Minimum stragglers of the superstep before printing them out */
   IntConfOption PARTITION_LONG_TAIL_MIN_PRINT =
       new IntConfOption("giraph.partitionLongTailMinPrint", 1);
@@ -484,6 +585,42 @@ public interface GiraphConstants {
   LongConfOption INPUT_SPLIT_MAX_EDGES =
       new LongConfOption("giraph.InputSplitMaxEdges", -1);
 
+  /**
+   * Whether the edge store should keep incoming edges in their serialized
+   * per-partition buffers, instead of adding every edge to a concurrent map
+   * of vertex edges.  The edges are then sorted by source vertex (radix sort
+   * for long ids) and grouped when moved to the vertices, building each
+   * vertex's edges in one pass.  The input vertex edges class is not used.
+   */
+  BooleanConfOption SORT_INPUT_EDGES =
+      new BooleanConfOption("giraph.sortInputEdges", false);
+
+  /**
+   * Whether to drop input edges from a vertex to itself.  Like the other
+   * input edge canonicalization options, this implies
+   * {@link #SORT_INPUT_EDGES}.
+   */
+  BooleanConfOption INPUT_EDGES_REMOVE_SELF_LOOPS =
+      new BooleanConfOption("giraph.inputEdgesRemoveSelfLoops", false);
+
+  /**
+   * Whether to keep only the first of the input edges from a vertex to the
+   * same target (implies {@link #SORT_INPUT_EDGES}).  The edges are also
+   * sorted by target then, so the edges of a vertex end up in target order
+   * rather than input order.
+   */
+  BooleanConfOption INPUT_EDGES_REMOVE_DUPLICATES =
+      new BooleanConfOption("giraph.inputEdgesRemoveDuplicates", false);
+
+  /**
+   * Combiner for the values of input edges from a vertex to the same target,
+   * called with the target id.  If set, duplicate edges are replaced by one
+   * edge with the combined value (implies {@link #SORT_INPUT_EDGES}).
+   */
+  ClassConfOption<Combiner> INPUT_EDGE_VALUE_COMBINER_CLASS =
+      ClassConfOption.create("giraph.inputEdgeValueCombinerClass", null,
+          Combiner.class);
+
   /**
    * To minimize network usage when reading input splits,
    * each worker can prioritize splits that reside on its host.
@@ -494,6 +631,18 @@ public interface GiraphConstants {
   BooleanConfOption USE_INPUT_SPLIT_LOCALITY =
       new BooleanConfOption("giraph.useInputSplitLocality", true);
 
+  /**
+   * If true, the master plans which worker reads which input split, giving
+   * out the largest splits first and preferring workers local to a split
+   * (see {@link org.apache.giraph.graph.InputSplitSchedule}).  Workers
+   * take over the remaining splits of slower workers when done with their
+   * own.  Avoids late workers picking up huge splits at the end of the
+   * input superstep, and the per-split ZooKeeper reads of
+   * {@link #USE_INPUT_SPLIT_LOCALITY}.
+   */
+  BooleanConfOption SCHEDULE_INPUT_SPLITS =
+      new BooleanConfOption("giraph.scheduleInputSplits", false);
+
   /** Multiplier for the current workers squared */
   FloatConfOption PARTITION_COUNT_MULTIPLIER =
       new FloatConfOption("giraph.masterPartitionCountMultiplier", 1.0f);
@@ -507,6 +656,57 @@ public interface GiraphConstants {
    */
   String PARTITION_VERTEX_KEY_SPACE_SIZE = "giraph.vertexKeySpaceSize";
 
+  /**
+   * Heuristic of the
+   * {@link org.apache.giraph.partition.StreamingWorkerPartitioner},
+   * either "ldg" (linear deterministic greedy) or "fennel"
+   */
+  StrConfOption STREAMING_PARTITIONER_HEURISTIC =
+      new StrConfOption("giraph.streamingPartitioner.heuristic", "ldg");
+
+  /**
+   * How much larger than the average a partition may grow in the
+   * {@link org.apache.giraph.partition.StreamingWorkerPartitioner}
+   */
+  FloatConfOption STREAMING_PARTITIONER_BALANCE_SLACK =
+      new FloatConfOption("giraph.streamingPartitioner.balanceSlack", 0.1f);
+
+  /**
+   * Estimated cost in nanoseconds of a message sent, for the cost
+   * partition balancer
+   */
+  FloatConfOption COST_BALANCER_NS_PER_MESSAGE_SENT =
+      new FloatConfOption("giraph.costBalancer.nsPerMessageSent", 500f);
+  /**
+   * Estimated cost in nanoseconds of a byte of messages received, for the
+   * cost partition balancer
+   */
+  FloatConfOption COST_BALANCER_NS_PER_MESSAGE_BYTE_RECEIVED =
+      new FloatConfOption("giraph.costBalancer.nsPerMessageByteReceived", 5f);
+  /**
+   * Estimated cost in nanoseconds of moving a vertex or an edge to another
+   * worker, for the cost partition balancer
+   */
+  FloatConfOption COST_BALANCER_NS_PER_ELEMENT_MOVED =
+      new FloatConfOption("giraph.costBalancer.nsPerElementMoved", 2000f);
+  /**
+   * Number of supersteps over which the cost partition balancer expects a
+   * migration to pay off
+   */
+  IntConfOption COST_BALANCER_GAIN_SUPERSTEPS =
+      new IntConfOption("giraph.costBalancer.gainSupersteps", 1);
+
+  /**
+   * Minimum degree of the mirrored vertices, 0 to disable mirroring.  A
+   * vertex with at least this many out-edges sends a message to all its
+   * edges once per worker, which delivers it to its local targets.  A
+   * vertex with at least this many in-edges from a worker gets a mirror on
+   * that worker, which combines its incoming messages before sending them
+   * (requires a combiner).
+   */
+  IntConfOption MIRROR_VERTICES_MIN_DEGREE =
+      new IntConfOption("giraph.mirrorVertices.minDegree", 0);
+
   /** Java opts passed to ZooKeeper startup */
   StrConfOption ZOOKEEPER_JAVA_OPTS =
       new StrConfOption("giraph.zkJavaOpts",
@@ -526,6 +726,22 @@ public interface GiraphConstants {
   BooleanConfOption CLEANUP_CHECKPOINTS_AFTER_SUCCESS =
       new BooleanConfOption("giraph.cleanupCheckpointsAfterSuccess", true);
 
+  /**
+   * Number of threads each worker uses to write its checkpoint. Every thread
+   * writes its own file.
+   */
+  IntConfOption NUM_CHECKPOINT_IO_THREADS =
+      new IntConfOption("giraph.checkpoint.io.threads", 8);
+
+  /**
+   * Incremental checkpointing - partitions whose vertices didn't change
+   * since the previous checkpoint of this worker aren't rewritten, the new
+   * checkpoint refers to the data stored by the earlier one instead.
+   * Requires the earlier checkpoints not to be removed while the job runs.
+   */
+  BooleanConfOption CHECKPOINT_INCREMENTAL =
+      new BooleanConfOption("giraph.checkpoint.incremental", false);
+
   /**
    * An application can be restarted manually by selecting a superstep.  The
    * corresponding checkpoint must exist for this to work.  The user should
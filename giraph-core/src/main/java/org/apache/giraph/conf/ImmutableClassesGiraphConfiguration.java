@@ -31,6 +31,7 @@ import org.apache.giraph.graph.VertexValueFactory;
 import org.apache.giraph.io.EdgeInputFormat;
 import org.apache.giraph.io.VertexInputFormat;
 import org.apache.giraph.io.VertexOutputFormat;
+import org.apache.giraph.io.superstep_output.AsynchronousSuperstepOutput;
 import org.apache.giraph.io.superstep_output.MultiThreadedSuperstepOutput;
 import org.apache.giraph.io.superstep_output.NoOpSuperstepOutput;
 import org.apache.giraph.io.superstep_output.SuperstepOutput;
@@ -81,6 +82,8 @@ public class ImmutableClassesGiraphConfiguration<I extends WritableComparable,
    * extended data input/output classes
    */
   private final boolean useUnsafeSerialization;
+  /** Minimum degree of the mirrored vertices, cached for fast access */
+  private final int mirrorVerticesMinDegree;
 
   /**
    * Constructor.  Takes the configuration and then gets the classes out of
@@ -92,6 +95,7 @@ public class ImmutableClassesGiraphConfiguration<I extends WritableComparable,
     super(conf);
     classes = new GiraphClasses(conf);
     useUnsafeSerialization = USE_UNSAFE_SERIALIZATION.get(this);
+    mirrorVerticesMinDegree = MIRROR_VERTICES_MIN_DEGREE.get(this);
     try {
       vertexValueFactory = (VertexValueFactory<V>)
           classes.getVertexValueFactoryClass().newInstance();
@@ -220,11 +224,19 @@ public class ImmutableClassesGiraphConfiguration<I extends WritableComparable,
   public SuperstepOutput<I, V, E> createSuperstepOutput(
       Mapper<?, ?, ?, ?>.Context context) {
     if (doOutputDuringComputation()) {
+      SuperstepOutput<I, V, E> superstepOutput;
       if (vertexOutputFormatThreadSafe()) {
-        return new MultiThreadedSuperstepOutput<I, V, E>(this, context);
+        superstepOutput =
+            new MultiThreadedSuperstepOutput<I, V, E>(this, context);
       } else {
-        return new SynchronizedSuperstepOutput<I, V, E>(this, context);
+        superstepOutput =
+            new SynchronizedSuperstepOutput<I, V, E>(this, context);
       }
+      if (asyncOutputDuringComputation()) {
+        superstepOutput = new AsynchronousSuperstepOutput<I, V, E>(
+            this, context, superstepOutput);
+      }
+      return superstepOutput;
     } else {
       return new NoOpSuperstepOutput<I, V, E>();
     }
@@ -704,6 +716,15 @@ public class ImmutableClassesGiraphConfiguration<I extends WritableComparable,
     return useUnsafeSerialization;
   }
 
+  /**
+   * Get the minimum degree of the mirrored vertices.
+   *
+   * @return Minimum degree, 0 if mirroring is disabled
+   */
+  public int getMirrorVerticesMinDegree() {
+    return mirrorVerticesMinDegree;
+  }
+
   /**
    * Create an extended data output (can be subclassed)
    *
@@ -18,20 +18,40 @@
 
 package org.apache.giraph.edge;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.MapMaker;
+import it.unimi.dsi.fastutil.ints.AbstractIntComparator;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import org.apache.giraph.bsp.CentralizedServiceWorker;
+import org.apache.giraph.combiner.Combiner;
+import org.apache.giraph.conf.GiraphConstants;
 import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
 import org.apache.giraph.graph.Vertex;
 import org.apache.giraph.partition.Partition;
 import org.apache.giraph.utils.ByteArrayVertexIdEdges;
 import org.apache.giraph.utils.CallableFactory;
+import org.apache.giraph.utils.ExtendedDataInput;
+import org.apache.giraph.utils.ExtendedDataOutput;
 import org.apache.giraph.utils.ProgressableUtils;
+import org.apache.giraph.utils.ReflectionUtils;
+import org.apache.giraph.utils.WritableUtils;
+import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableComparator;
 import org.apache.hadoop.util.Progressable;
 import org.apache.log4j.Logger;
 
@@ -56,6 +76,20 @@ public class EdgeStore<I extends WritableComparable,
   /** Map used to temporarily store incoming edges. */
   private ConcurrentMap<Integer,
       ConcurrentMap<I, VertexEdges<I, E>>> transientEdges;
+  /**
+   * Map used to temporarily store the buffers of incoming edges, when they
+   * are sorted instead of added to {@link #transientEdges}.
+   */
+  private ConcurrentMap<Integer,
+      Collection<ByteArrayVertexIdEdges<I, E>>> bufferedEdges;
+  /** Whether to keep incoming edges in buffers and sort them later */
+  private boolean sortInputEdges;
+  /** Whether to drop edges from a vertex to itself */
+  private boolean removeSelfLoops;
+  /** Whether to keep only one edge from a vertex to a target */
+  private boolean removeDuplicates;
+  /** Combiner for the values of duplicate edges, null if none */
+  private Combiner<I, E> edgeValueCombiner;
   /**
    * Whether the chosen {@link VertexEdges} implementation allows for Edge
    * reuse.
@@ -85,6 +119,21 @@ public class EdgeStore<I extends WritableComparable,
         configuration.getNettyServerExecutionConcurrency()).makeMap();
     reuseEdgeObjects = configuration.reuseEdgeObjects();
     useInputVertexEdges = configuration.useInputVertexEdges();
+    removeSelfLoops =
+        GiraphConstants.INPUT_EDGES_REMOVE_SELF_LOOPS.get(configuration);
+    Class<? extends Combiner> edgeValueCombinerClass =
+        GiraphConstants.INPUT_EDGE_VALUE_COMBINER_CLASS.get(configuration);
+    if (edgeValueCombinerClass != null) {
+      edgeValueCombiner = ReflectionUtils.newInstance(
+          edgeValueCombinerClass, configuration);
+    }
+    removeDuplicates = edgeValueCombiner != null ||
+        GiraphConstants.INPUT_EDGES_REMOVE_DUPLICATES.get(configuration);
+    // Canonicalization works on the sorted edges of a vertex
+    sortInputEdges = GiraphConstants.SORT_INPUT_EDGES.get(configuration) ||
+        removeSelfLoops || removeDuplicates;
+    bufferedEdges = new MapMaker().concurrencyLevel(
+        configuration.getNettyServerExecutionConcurrency()).makeMap();
   }
 
   /**
@@ -96,6 +145,10 @@ public class EdgeStore<I extends WritableComparable,
    */
   public void addPartitionEdges(
       int partitionId, ByteArrayVertexIdEdges<I, E> edges) {
+    if (sortInputEdges) {
+      bufferPartitionEdges(partitionId, edges);
+      return;
+    }
     ConcurrentMap<I, VertexEdges<I, E>> partitionEdges =
         transientEdges.get(partitionId);
     if (partitionEdges == null) {
@@ -134,6 +187,30 @@ public class EdgeStore<I extends WritableComparable,
     }
   }
 
+  /**
+   * Keep a buffer of edges belonging to a given partition on this worker,
+   * to be sorted when the edges are moved to the vertices.
+   * Note: This method is thread-safe.
+   *
+   * @param partitionId Partition id for the incoming edges.
+   * @param edges Incoming edges
+   */
+  private void bufferPartitionEdges(
+      int partitionId, ByteArrayVertexIdEdges<I, E> edges) {
+    Collection<ByteArrayVertexIdEdges<I, E>> partitionEdges =
+        bufferedEdges.get(partitionId);
+    if (partitionEdges == null) {
+      Collection<ByteArrayVertexIdEdges<I, E>> newPartitionEdges =
+          new ConcurrentLinkedQueue<ByteArrayVertexIdEdges<I, E>>();
+      partitionEdges = bufferedEdges.putIfAbsent(partitionId,
+          newPartitionEdges);
+      if (partitionEdges == null) {
+        partitionEdges = newPartitionEdges;
+      }
+    }
+    partitionEdges.add(edges);
+  }
+
   /**
    * Convert the input edges to the {@link VertexEdges} data structure used
    * for computation (if different).
@@ -155,12 +232,262 @@ public class EdgeStore<I extends WritableComparable,
     }
   }
 
+  /**
+   * Set the edges of a vertex, creating the vertex if it doesn't exist.
+   *
+   * @param partition Partition of the vertex
+   * @param vertexId Vertex id
+   * @param vertexEdges Edges of the vertex
+   */
+  private void setVertexEdges(Partition<I, V, E, M> partition, I vertexId,
+                              VertexEdges<I, E> vertexEdges) {
+    Vertex<I, V, E, M> vertex = partition.getVertex(vertexId);
+    // If the source vertex doesn't exist, create it. Otherwise,
+    // just set the edges.
+    if (vertex == null) {
+      vertex = configuration.createVertex();
+      vertex.initialize(vertexId, configuration.createVertexValue(),
+          vertexEdges);
+      partition.putVertex(vertex);
+    } else {
+      vertex.setEdges(vertexEdges);
+      // Some Partition implementations (e.g. ByteArrayPartition)
+      // require us to put back the vertex after modifying it.
+      partition.saveVertex(vertex);
+    }
+  }
+
+  /**
+   * Move the edges of a partition from the concurrent map to the vertices.
+   *
+   * @param partition Partition
+   * @param partitionEdges Edges of the partition
+   */
+  private void moveTransientEdges(Partition<I, V, E, M> partition,
+      ConcurrentMap<I, VertexEdges<I, E>> partitionEdges) {
+    for (I vertexId : partitionEdges.keySet()) {
+      setVertexEdges(partition, vertexId,
+          convertInputToComputeEdges(partitionEdges.remove(vertexId)));
+    }
+  }
+
+  /**
+   * Move the buffered edges of a partition to the vertices, after sorting
+   * them by source vertex.  Only the positions of the edges are sorted; the
+   * edges are then copied to one buffer in sorted order and read from it
+   * in a single pass, so no per-edge objects are kept meanwhile.  At peak
+   * this holds the serialized edges twice, plus a few ints per edge.
+   *
+   * @param partition Partition
+   * @param partitionEdges Buffers with the edges of the partition
+   */
+  private void moveBufferedEdges(Partition<I, V, E, M> partition,
+      Collection<ByteArrayVertexIdEdges<I, E>> partitionEdges) {
+    // Long ids are kept in a primitive array and radix sorted, other ids
+    // are grouped by comparing their serialized bytes
+    boolean longIds =
+        configuration.getVertexIdClass().equals(LongWritable.class);
+    final List<byte[]> buffers =
+        Lists.newArrayListWithCapacity(partitionEdges.size());
+    IntArrayList bufferSizes = new IntArrayList(partitionEdges.size());
+    IntArrayList recordBufferList = new IntArrayList();
+    IntArrayList recordStartList = new IntArrayList();
+    IntArrayList sourceEndList = longIds ? null : new IntArrayList();
+    IntArrayList targetEndList =
+        longIds || !removeDuplicates ? null : new IntArrayList();
+    LongArrayList longSourceIdList = longIds ? new LongArrayList() : null;
+    LongArrayList longTargetIdList =
+        longIds && removeDuplicates ? new LongArrayList() : null;
+    I sourceId = configuration.createVertexId();
+    Edge<I, E> edge = configuration.createReusableEdge();
+    int totalSize = 0;
+    try {
+      for (ByteArrayVertexIdEdges<I, E> edges : partitionEdges) {
+        ExtendedDataInput input = configuration.createExtendedDataInput(
+            edges.getByteArray(), 0, edges.getSize());
+        while (input.available() > 0) {
+          recordBufferList.add(buffers.size());
+          recordStartList.add(input.getPos());
+          sourceId.readFields(input);
+          if (longIds) {
+            longSourceIdList.add(((LongWritable) sourceId).get());
+          } else {
+            sourceEndList.add(input.getPos());
+          }
+          edge.getTargetVertexId().readFields(input);
+          if (longTargetIdList != null) {
+            longTargetIdList.add(
+                ((LongWritable) edge.getTargetVertexId()).get());
+          } else if (targetEndList != null) {
+            targetEndList.add(input.getPos());
+          }
+          edge.getValue().readFields(input);
+        }
+        buffers.add(edges.getByteArray());
+        bufferSizes.add(edges.getSize());
+        totalSize += edges.getSize();
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("moveBufferedEdges: IOException", e);
+    }
+    partitionEdges.clear();
+    final int numEdges = recordStartList.size();
+    final int[] recordBuffers = recordBufferList.elements();
+    final int[] recordStarts = recordStartList.elements();
+    final int[] sourceEnds = longIds ? null : sourceEndList.elements();
+    final int[] targetEnds =
+        targetEndList == null ? null : targetEndList.elements();
+    long[] longSourceIds = longIds ? longSourceIdList.elements() : null;
+
+    // Sort edge positions by source, keeping the input order of the edges
+    // of a vertex.  Duplicate removal also sorts by target, so duplicates
+    // are next to each other with the first one in input order first.
+    int[] order = new int[numEdges];
+    for (int i = 0; i < numEdges; ++i) {
+      order[i] = i;
+    }
+    final AbstractIntComparator sourceComparator = longIds ? null :
+        new AbstractIntComparator() {
+          @Override
+          public int compare(int first, int second) {
+            return WritableComparator.compareBytes(
+                buffers.get(recordBuffers[first]), recordStarts[first],
+                sourceEnds[first] - recordStarts[first],
+                buffers.get(recordBuffers[second]), recordStarts[second],
+                sourceEnds[second] - recordStarts[second]);
+          }
+        };
+    if (longIds && removeDuplicates) {
+      LongArrays.radixSortIndirect(order, longSourceIds,
+          longTargetIdList.elements(), 0, numEdges, true);
+    } else if (longIds) {
+      LongArrays.radixSortIndirect(order, longSourceIds, 0, numEdges, true);
+    } else if (removeDuplicates) {
+      IntArrays.mergeSort(order, 0, numEdges, new AbstractIntComparator() {
+        @Override
+        public int compare(int first, int second) {
+          int result = sourceComparator.compare(first, second);
+          return result != 0 ? result : WritableComparator.compareBytes(
+              buffers.get(recordBuffers[first]), sourceEnds[first],
+              targetEnds[first] - sourceEnds[first],
+              buffers.get(recordBuffers[second]), sourceEnds[second],
+              targetEnds[second] - sourceEnds[second]);
+        }
+      });
+    } else {
+      IntArrays.mergeSort(order, 0, numEdges, sourceComparator);
+    }
+
+    // Copy the edges to one buffer in sorted order, marking where the edges
+    // of each vertex start
+    ExtendedDataOutput sortedOutput =
+        configuration.createExtendedDataOutput(totalSize);
+    BitSet vertexStarts = new BitSet(numEdges);
+    try {
+      for (int i = 0; i < numEdges; ++i) {
+        int record = order[i];
+        if (i == 0 || (longIds ?
+            longSourceIds[record] != longSourceIds[order[i - 1]] :
+            sourceComparator.compare(record, order[i - 1]) != 0)) {
+          vertexStarts.set(i);
+        }
+        int recordEnd = record + 1 < numEdges &&
+            recordBuffers[record + 1] == recordBuffers[record] ?
+            recordStarts[record + 1] :
+            bufferSizes.getInt(recordBuffers[record]);
+        sortedOutput.write(buffers.get(recordBuffers[record]),
+            recordStarts[record], recordEnd - recordStarts[record]);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("moveBufferedEdges: IOException", e);
+    }
+    buffers.clear();
+
+    ExtendedDataInput sortedInput = configuration.createExtendedDataInput(
+        sortedOutput.getByteArray(), 0, sortedOutput.getPos());
+    int start = 0;
+    try {
+      while (start < numEdges) {
+        int end = vertexStarts.nextSetBit(start + 1);
+        if (end < 0) {
+          end = numEdges;
+        }
+        I vertexId = configuration.createVertexId();
+        VertexEdges<I, E> vertexEdges =
+            configuration.createAndInitializeVertexEdges(end - start);
+        if (removeSelfLoops || removeDuplicates) {
+          addCanonicalEdges(vertexId, vertexEdges, sortedInput, end - start);
+        } else {
+          for (int i = start; i < end; ++i) {
+            vertexId.readFields(sortedInput);
+            if (!reuseEdgeObjects) {
+              edge = configuration.createReusableEdge();
+            }
+            WritableUtils.readEdge(sortedInput, edge);
+            vertexEdges.add(edge);
+          }
+        }
+        setVertexEdges(partition, vertexId, vertexEdges);
+        start = end;
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("moveBufferedEdges: IOException", e);
+    }
+  }
+
+  /**
+   * Read the edges of a vertex and add them after dropping self loops and
+   * duplicates, and combining the values of duplicates, as configured.
+   * Duplicates are expected next to each other, so each edge is only
+   * compared with the last one kept.
+   *
+   * @param vertexId Vertex id, filled from the input
+   * @param vertexEdges Edges to add to
+   * @param input Input positioned at the first edge of the vertex
+   * @param numEdges Number of edges of the vertex in the input
+   * @throws IOException
+   */
+  private void addCanonicalEdges(I vertexId, VertexEdges<I, E> vertexEdges,
+      ExtendedDataInput input, int numEdges) throws IOException {
+    // Last edge kept, added once all its duplicates were combined into it
+    Edge<I, E> edge = null;
+    Edge<I, E> nextEdge = configuration.createReusableEdge();
+    for (int i = 0; i < numEdges; ++i) {
+      vertexId.readFields(input);
+      WritableUtils.readEdge(input, nextEdge);
+      I targetId = nextEdge.getTargetVertexId();
+      if (removeSelfLoops && targetId.equals(vertexId)) {
+        continue;
+      }
+      if (removeDuplicates && edge != null &&
+          targetId.equals(edge.getTargetVertexId())) {
+        if (edgeValueCombiner != null) {
+          edgeValueCombiner.combine(targetId, edge.getValue(),
+              nextEdge.getValue());
+        }
+        continue;
+      }
+      Edge<I, E> addedEdge = edge;
+      if (addedEdge != null) {
+        vertexEdges.add(addedEdge);
+      }
+      edge = nextEdge;
+      nextEdge = reuseEdgeObjects && addedEdge != null ? addedEdge :
+          configuration.createReusableEdge();
+    }
+    if (edge != null) {
+      vertexEdges.add(edge);
+    }
+  }
+
   /**
    * Move all edges from temporary storage to their source vertices.
    * Note: this method is not thread-safe.
    */
   public void moveEdgesToVertices() {
-    if (transientEdges.isEmpty()) {
+    Set<Integer> partitionIds = sortInputEdges ?
+        bufferedEdges.keySet() : transientEdges.keySet();
+    if (partitionIds.isEmpty()) {
       if (LOG.isInfoEnabled()) {
         LOG.info("moveEdgesToVertices: No edges to move");
       }
@@ -172,8 +499,8 @@ public class EdgeStore<I extends WritableComparable,
     }
 
     final BlockingQueue<Integer> partitionIdQueue =
-        new ArrayBlockingQueue<Integer>(transientEdges.size());
-    partitionIdQueue.addAll(transientEdges.keySet());
+        new ArrayBlockingQueue<Integer>(partitionIds.size());
+    partitionIdQueue.addAll(partitionIds);
     int numThreads = configuration.getNumInputSplitsThreads();
 
     CallableFactory<Void> callableFactory = new CallableFactory<Void>() {
@@ -186,25 +513,12 @@ public class EdgeStore<I extends WritableComparable,
             while ((partitionId = partitionIdQueue.poll()) != null) {
               Partition<I, V, E, M> partition =
                   service.getPartitionStore().getPartition(partitionId);
-              ConcurrentMap<I, VertexEdges<I, E>> partitionEdges =
-                  transientEdges.remove(partitionId);
-              for (I vertexId : partitionEdges.keySet()) {
-                VertexEdges<I, E> vertexEdges = convertInputToComputeEdges(
-                    partitionEdges.remove(vertexId));
-                Vertex<I, V, E, M> vertex = partition.getVertex(vertexId);
-                // If the source vertex doesn't exist, create it. Otherwise,
-                // just set the edges.
-                if (vertex == null) {
-                  vertex = configuration.createVertex();
-                  vertex.initialize(vertexId, configuration.createVertexValue(),
-                      vertexEdges);
-                  partition.putVertex(vertex);
-                } else {
-                  vertex.setEdges(vertexEdges);
-                  // Some Partition implementations (e.g. ByteArrayPartition)
-                  // require us to put back the vertex after modifying it.
-                  partition.saveVertex(vertex);
-                }
+              if (sortInputEdges) {
+                moveBufferedEdges(partition,
+                    bufferedEdges.remove(partitionId));
+              } else {
+                moveTransientEdges(partition,
+                    transientEdges.remove(partitionId));
               }
               // Some PartitionStore implementations
               // (e.g. DiskBackedPartitionStore) require us to put back the
@@ -220,6 +534,7 @@ public class EdgeStore<I extends WritableComparable,
         "move-edges-%d", progressable);
 
     transientEdges.clear();
+    bufferedEdges.clear();
 
     if (LOG.isInfoEnabled()) {
       LOG.info("moveEdgesToVertices: Finished moving incoming edges to " +
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.edge;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import org.apache.hadoop.io.DoubleWritable;
+import org.apache.hadoop.io.LongWritable;
+
+/**
+ * {@link LongDoubleArrayEdges} with random access.
+ * Edges of vertices with fewer than {@link #INDEX_THRESHOLD} edges are
+ * looked up with a linear scan; for larger vertices, a primitive hash map
+ * from target vertex id to position in the arrays is built on the first
+ * lookup and kept up to date as edges are added.
+ * Parallel edges are allowed, random access uses the first one.
+ * Note: edge removals drop the index.
+ */
+public class LongDoubleAdaptiveEdges extends LongDoubleArrayEdges
+    implements StrictRandomAccessVertexEdges<LongWritable, DoubleWritable> {
+  /** Minimum number of edges for which lookups use an index */
+  public static final int INDEX_THRESHOLD = 32;
+  /** Position of the first edge to every target, null if not built */
+  private Long2IntOpenHashMap index;
+  /** Representative edge value object, used by getEdgeValue(). */
+  private DoubleWritable representativeEdgeValue;
+
+  @Override
+  public void initialize(int capacity) {
+    super.initialize(capacity);
+    index = null;
+  }
+
+  @Override
+  public void initialize() {
+    super.initialize();
+    index = null;
+  }
+
+  @Override
+  public void add(Edge<LongWritable, DoubleWritable> edge) {
+    long targetVertexId = edge.getTargetVertexId().get();
+    if (index != null && !index.containsKey(targetVertexId)) {
+      index.put(targetVertexId, neighbors.size());
+    }
+    super.add(edge);
+  }
+
+  /**
+   * Find the first edge to a target vertex.
+   *
+   * @param targetVertexId Target vertex id
+   * @return Position of the edge in the arrays, -1 if there is none
+   */
+  private int indexOf(long targetVertexId) {
+    if (neighbors.size() < INDEX_THRESHOLD) {
+      return neighbors.indexOf(targetVertexId);
+    }
+    if (index == null) {
+      index = new Long2IntOpenHashMap(neighbors.size());
+      index.defaultReturnValue(-1);
+      // Iterate backwards so that the first edge to a target wins
+      for (int i = neighbors.size() - 1; i >= 0; --i) {
+        index.put(neighbors.getLong(i), i);
+      }
+    }
+    return index.get(targetVertexId);
+  }
+
+  @Override
+  public DoubleWritable getEdgeValue(LongWritable targetVertexId) {
+    int position = indexOf(targetVertexId.get());
+    if (position < 0) {
+      return null;
+    }
+    if (representativeEdgeValue == null) {
+      representativeEdgeValue = new DoubleWritable();
+    }
+    representativeEdgeValue.set(edgeValues.getDouble(position));
+    return representativeEdgeValue;
+  }
+
+  @Override
+  public void setEdgeValue(LongWritable targetVertexId,
+                           DoubleWritable edgeValue) {
+    int position = indexOf(targetVertexId.get());
+    if (position >= 0) {
+      edgeValues.set(position, edgeValue.get());
+    }
+  }
+
+  @Override
+  protected void removeAt(int i) {
+    // Positions change, the index is rebuilt on the next lookup.
+    index = null;
+    super.removeAt(i);
+  }
+}
@@ -43,9 +43,9 @@ public class LongDoubleArrayEdges
     implements ReuseObjectsVertexEdges<LongWritable, DoubleWritable>,
     MutableVertexEdges<LongWritable, DoubleWritable> {
   /** Array of target vertex ids. */
-  private LongArrayList neighbors;
+  protected LongArrayList neighbors;
   /** Array of edge values. */
-  private DoubleArrayList edgeValues;
+  protected DoubleArrayList edgeValues;
 
   @Override
   public void initialize(Iterable<Edge<LongWritable, DoubleWritable>> edges) {
@@ -97,7 +97,7 @@ public class LongDoubleArrayEdges
    *
    * @param i Position of edge to be removed
    */
-  private void removeAt(int i) {
+  protected void removeAt(int i) {
     // The order of the edges is irrelevant, so we can simply replace
     // the deleted edge with the rightmost element, thus achieving constant
     // time.
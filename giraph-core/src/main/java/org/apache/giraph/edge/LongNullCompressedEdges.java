@@ -0,0 +1,449 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.edge;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import org.apache.giraph.utils.SortedLongArrays;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+
+import com.google.common.collect.UnmodifiableIterator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Implementation of {@link VertexEdges} with long ids and null edge
+ * values, storing the sorted targets as variable-length encoded deltas.
+ * Targets are split in blocks of {@link #BLOCK_SIZE} edges, each starting
+ * with its full first target, and the first target and offset of every
+ * block are kept in a skip index, so lookups only decode one block.
+ * Parallel edges are allowed.
+ * Intersections with sorted ids stream through the targets, or use the
+ * index to look the ids up if there are few of them.
+ * Note: this implementation is optimized for space usage on graphs with
+ * clustered ids, but edge removals and out of order additions are
+ * expensive.
+ */
+public class LongNullCompressedEdges
+    implements ReuseObjectsVertexEdges<LongWritable, NullWritable>,
+    StrictRandomAccessVertexEdges<LongWritable, NullWritable>,
+    SortedLongTargetsVertexEdges<NullWritable> {
+  /** Number of edges in a block */
+  public static final int BLOCK_SIZE = 64;
+  /** Empty byte array */
+  private static final byte[] EMPTY_BYTES = new byte[0];
+
+  /** Encoded targets */
+  private byte[] data;
+  /** Number of bytes used in {@link #data} */
+  private int dataLength;
+  /** Number of encoded edges */
+  private int numEncoded;
+  /** Last encoded target */
+  private long lastTarget;
+  /** First target of every block but the first one, null if none */
+  private long[] blockFirstTargets;
+  /** Offset of every block but the first one, null if none */
+  private int[] blockOffsets;
+  /** Added targets which are not encoded yet, null if none */
+  private LongArrayList unsortedTargets;
+
+  @Override
+  public void initialize(Iterable<Edge<LongWritable, NullWritable>> edges) {
+    LongArrayList targets = new LongArrayList();
+    for (Edge<LongWritable, NullWritable> edge : edges) {
+      targets.add(edge.getTargetVertexId().get());
+    }
+    long[] sortedTargets = targets.elements();
+    Arrays.sort(sortedTargets, 0, targets.size());
+    encode(sortedTargets, targets.size());
+  }
+
+  @Override
+  public void initialize(int capacity) {
+    initialize();
+    // Deltas of clustered ids mostly take one byte
+    data = new byte[capacity];
+  }
+
+  @Override
+  public void initialize() {
+    data = EMPTY_BYTES;
+    dataLength = 0;
+    numEncoded = 0;
+    lastTarget = 0;
+    blockFirstTargets = null;
+    blockOffsets = null;
+    unsortedTargets = null;
+  }
+
+  /**
+   * Replace all edges with the given sorted targets.
+   *
+   * @param sortedTargets Sorted targets
+   * @param numTargets Number of targets to use from the array
+   */
+  private void encode(long[] sortedTargets, int numTargets) {
+    initialize();
+    data = new byte[numTargets];
+    for (int i = 0; i < numTargets; ++i) {
+      append(sortedTargets[i]);
+    }
+    if (data.length != dataLength) {
+      data = Arrays.copyOf(data, dataLength);
+    }
+  }
+
+  /**
+   * Encode a target after all the encoded ones.
+   *
+   * @param target Target, not smaller than the last encoded one
+   */
+  private void append(long target) {
+    if (numEncoded % BLOCK_SIZE == 0) {
+      if (numEncoded > 0) {
+        addBlock(target);
+      }
+      // Zig-zag encoding, so that small negative ids stay short
+      writeVarLong((target << 1) ^ (target >> 63));
+    } else {
+      // Treated as unsigned, so that it works even if the subtraction
+      // overflows
+      writeVarLong(target - lastTarget);
+    }
+    lastTarget = target;
+    ++numEncoded;
+  }
+
+  /**
+   * Add a block starting at the current end of the data to the index.
+   *
+   * @param firstTarget First target of the block
+   */
+  private void addBlock(long firstTarget) {
+    int block = numEncoded / BLOCK_SIZE - 1;
+    if (blockOffsets == null) {
+      blockFirstTargets = new long[4];
+      blockOffsets = new int[4];
+    } else if (block == blockOffsets.length) {
+      blockFirstTargets = Arrays.copyOf(blockFirstTargets, 2 * block);
+      blockOffsets = Arrays.copyOf(blockOffsets, 2 * block);
+    }
+    blockFirstTargets[block] = firstTarget;
+    blockOffsets[block] = dataLength;
+  }
+
+  /**
+   * Write an unsigned variable-length long at the end of the data.
+   *
+   * @param value Value to write
+   */
+  private void writeVarLong(long value) {
+    if (data.length - dataLength < 10) {
+      data = Arrays.copyOf(data, Math.max(16, data.length + data.length / 2));
+    }
+    while ((value & ~0x7FL) != 0) {
+      data[dataLength++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    data[dataLength++] = (byte) value;
+  }
+
+  /**
+   * Decodes targets one after the other.
+   */
+  private class Decoder {
+    /** Position in the data */
+    private int offset;
+    /** Index of the next target */
+    private int index;
+    /** Last decoded target */
+    private long target;
+
+    /**
+     * Constructor
+     *
+     * @param block Index of the block to start at
+     */
+    public Decoder(int block) {
+      offset = block == 0 ? 0 : blockOffsets[block - 1];
+      index = block * BLOCK_SIZE;
+    }
+
+    /**
+     * Whether there are targets left.
+     *
+     * @return True iff there are targets left
+     */
+    public boolean hasNext() {
+      return index < numEncoded;
+    }
+
+    /**
+     * Decode the next target.
+     *
+     * @return Next target
+     */
+    public long next() {
+      long value = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = data[offset++];
+        value |= (long) (b & 0x7F) << shift;
+        shift += 7;
+      } while (b < 0);
+      if (index % BLOCK_SIZE == 0) {
+        target = (value >>> 1) ^ -(value & 1);
+      } else {
+        target += value;
+      }
+      ++index;
+      return target;
+    }
+  }
+
+  /**
+   * Decode all targets.
+   *
+   * @param capacity Minimum size of the returned array
+   * @return Array starting with all encoded targets
+   */
+  private long[] decodeAll(int capacity) {
+    long[] targets = new long[Math.max(capacity, numEncoded)];
+    Decoder decoder = new Decoder(0);
+    for (int i = 0; i < numEncoded; ++i) {
+      targets[i] = decoder.next();
+    }
+    return targets;
+  }
+
+  /**
+   * Encode the targets which were added out of order.
+   */
+  private void encodeUnsortedTargets() {
+    if (unsortedTargets == null) {
+      return;
+    }
+    long[] targets = decodeAll(numEncoded + unsortedTargets.size());
+    unsortedTargets.getElements(0, targets, numEncoded,
+        unsortedTargets.size());
+    Arrays.sort(targets);
+    unsortedTargets = null;
+    encode(targets, targets.length);
+  }
+
+  @Override
+  public void add(Edge<LongWritable, NullWritable> edge) {
+    long target = edge.getTargetVertexId().get();
+    if (numEncoded == 0 || target >= lastTarget) {
+      append(target);
+    } else {
+      if (unsortedTargets == null) {
+        unsortedTargets = new LongArrayList();
+      }
+      unsortedTargets.add(target);
+      // Re-encoding is linear, so only do it when it doubles the size
+      if (unsortedTargets.size() >= Math.max(BLOCK_SIZE, numEncoded)) {
+        encodeUnsortedTargets();
+      }
+    }
+  }
+
+  /**
+   * Whether there is an edge to the given target.
+   *
+   * @param target Target vertex id
+   * @return True iff there is such an edge
+   */
+  public boolean contains(long target) {
+    encodeUnsortedTargets();
+    if (numEncoded == 0) {
+      return false;
+    }
+    int block = 0;
+    if (blockOffsets != null) {
+      // Last block whose first target is not bigger than the target
+      int numIndexed = (numEncoded - 1) / BLOCK_SIZE;
+      int position = Arrays.binarySearch(blockFirstTargets, 0, numIndexed,
+          target);
+      block = position >= 0 ? position + 1 : -position - 1;
+      if (position >= 0) {
+        return true;
+      }
+    }
+    Decoder decoder = new Decoder(block);
+    for (int i = 0; i < BLOCK_SIZE && decoder.hasNext(); ++i) {
+      long next = decoder.next();
+      if (next >= target) {
+        return next == target;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public long[] getSortedTargets() {
+    encodeUnsortedTargets();
+    return decodeAll(0);
+  }
+
+  @Override
+  public int intersectionSize(long[] sortedIds, int length) {
+    return intersect(sortedIds, length, null);
+  }
+
+  @Override
+  public int intersect(long[] sortedIds, int length, long[] result) {
+    encodeUnsortedTargets();
+    int count = 0;
+    if ((long) length * SortedLongArrays.GALLOP_RATIO < numEncoded) {
+      // Few ids, look each of them up in its block
+      for (int i = 0; i < length; ++i) {
+        if (contains(sortedIds[i])) {
+          if (result != null) {
+            result[count] = sortedIds[i];
+          }
+          ++count;
+        }
+      }
+      return count;
+    }
+    if ((long) numEncoded * SortedLongArrays.GALLOP_RATIO < length) {
+      // Few targets, gallop through the ids
+      return SortedLongArrays.intersect(sortedIds, length,
+          decodeAll(0), numEncoded, result);
+    }
+    Decoder decoder = new Decoder(0);
+    if (!decoder.hasNext()) {
+      return 0;
+    }
+    long target = decoder.next();
+    for (int i = 0; i < length; ++i) {
+      long id = sortedIds[i];
+      while (target < id && decoder.hasNext()) {
+        target = decoder.next();
+      }
+      if (target == id) {
+        if (result != null) {
+          result[count] = id;
+        }
+        ++count;
+      } else if (target < id) {
+        // No targets left
+        break;
+      }
+    }
+    return count;
+  }
+
+  @Override
+  public void remove(LongWritable targetVertexId) {
+    long target = targetVertexId.get();
+    if (!contains(target)) {
+      return;
+    }
+    long[] targets = decodeAll(0);
+    int numTargets = 0;
+    for (long other : targets) {
+      if (other != target) {
+        targets[numTargets++] = other;
+      }
+    }
+    encode(targets, numTargets);
+  }
+
+  @Override
+  public NullWritable getEdgeValue(LongWritable targetVertexId) {
+    return contains(targetVertexId.get()) ? NullWritable.get() : null;
+  }
+
+  @Override
+  public void setEdgeValue(LongWritable targetVertexId,
+                           NullWritable edgeValue) {
+    // No-op.
+  }
+
+  @Override
+  public int size() {
+    return numEncoded + (unsortedTargets == null ? 0 : unsortedTargets.size());
+  }
+
+  @Override
+  public Iterator<Edge<LongWritable, NullWritable>> iterator() {
+    encodeUnsortedTargets();
+    return new UnmodifiableIterator<Edge<LongWritable, NullWritable>>() {
+      /** Decoder for the targets */
+      private final Decoder decoder = new Decoder(0);
+      /** Representative edge object. */
+      private final ReusableEdge<LongWritable, NullWritable>
+      representativeEdge = EdgeFactory.createReusable(new LongWritable());
+
+      @Override
+      public boolean hasNext() {
+        return decoder.hasNext();
+      }
+
+      @Override
+      public Edge<LongWritable, NullWritable> next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        representativeEdge.getTargetVertexId().set(decoder.next());
+        return representativeEdge;
+      }
+    };
+  }
+
+  @Override
+  public void write(DataOutput out) throws IOException {
+    encodeUnsortedTargets();
+    out.writeInt(numEncoded);
+    out.writeInt(dataLength);
+    out.write(data, 0, dataLength);
+  }
+
+  @Override
+  public void readFields(DataInput in) throws IOException {
+    initialize();
+    int numTargets = in.readInt();
+    byte[] encodedTargets = new byte[in.readInt()];
+    in.readFully(encodedTargets);
+    // Rebuild the block index and the last target
+    data = encodedTargets;
+    numEncoded = numTargets;
+    Decoder decoder = new Decoder(0);
+    dataLength = 0;
+    numEncoded = 0;
+    for (int i = 0; i < numTargets; ++i) {
+      long target = decoder.next();
+      if (i % BLOCK_SIZE == 0 && i > 0) {
+        addBlock(target);
+      }
+      dataLength = decoder.offset;
+      lastTarget = target;
+      ++numEncoded;
+    }
+  }
+}
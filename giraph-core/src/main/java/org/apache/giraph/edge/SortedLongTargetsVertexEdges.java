@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.edge;
+
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Writable;
+
+/**
+ * {@link VertexEdges} with long ids which keeps the targets sorted, and can
+ * intersect them with sorted arrays of ids (e.g. neighbor lists received as
+ * {@link org.apache.giraph.utils.SortedLongArrayWritable} messages) without
+ * going through edge objects.
+ *
+ * @param <E> Edge value
+ */
+public interface SortedLongTargetsVertexEdges<E extends Writable>
+    extends VertexEdges<LongWritable, E> {
+  /**
+   * Count the given ids which are targets of these edges.
+   *
+   * @param sortedIds Sorted ids
+   * @param length Number of ids to use from the array
+   * @return Number of common ids
+   */
+  int intersectionSize(long[] sortedIds, int length);
+
+  /**
+   * Find the given ids which are targets of these edges.
+   *
+   * @param sortedIds Sorted ids
+   * @param length Number of ids to use from the array
+   * @param result Array to store the common ids in, at least length long
+   * @return Number of common ids
+   */
+  int intersect(long[] sortedIds, int length, long[] result);
+
+  /**
+   * Copy the sorted targets into an array, e.g. to send them as a neighbor
+   * list.
+   *
+   * @return Sorted targets, one per edge
+   */
+  long[] getSortedTargets();
+}
@@ -24,6 +24,8 @@ import org.apache.giraph.comm.netty.NettyWorkerClientRequestProcessor;
 import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
 import org.apache.giraph.io.SimpleVertexWriter;
 import org.apache.giraph.metrics.GiraphMetrics;
+import org.apache.giraph.metrics.GiraphTrace;
+import org.apache.giraph.metrics.HotVertexSampler;
 import org.apache.giraph.metrics.MetricNames;
 import org.apache.giraph.metrics.SuperstepMetricsRegistry;
 import org.apache.giraph.metrics.TimerDesc;
@@ -101,6 +103,8 @@ public class ComputeCallable<I extends WritableComparable, V extends Writable,
   private final Counter messagesSentCounter;
   /** Timer for single compute() call */
   private final Timer computeOneTimer;
+  /** Finds the expensive vertices (null if not sampling) */
+  private final HotVertexSampler<I> hotVertexSampler;
 
   /**
    * Constructor
@@ -131,14 +135,18 @@ public class ComputeCallable<I extends WritableComparable, V extends Writable,
     // not long-lived, so just instantiating in the constructor is good enough.
     computeOneTimer = metrics.getTimer(TimerDesc.COMPUTE_ONE);
     messagesSentCounter = metrics.getCounter(MetricNames.MESSAGES_SENT);
+    hotVertexSampler = HotVertexSampler.isEnabled(configuration) ?
+        new HotVertexSampler<I>(configuration) : null;
   }
 
   @Override
   public Collection<PartitionStats> call() {
     // Thread initialization (for locality)
-    this.workerClientRequestProcessor =
+    NettyWorkerClientRequestProcessor<I, V, E, M> nettyRequestProcessor =
         new NettyWorkerClientRequestProcessor<I, V, E, M>(
             context, configuration, serviceWorker);
+    nettyRequestProcessor.setHotVertexSampler(hotVertexSampler);
+    this.workerClientRequestProcessor = nettyRequestProcessor;
     WorkerThreadAggregatorUsage aggregatorUsage =
         serviceWorker.getAggregatorHandler().newThreadAggregatorUsage();
 
@@ -179,6 +187,11 @@ public class ComputeCallable<I extends WritableComparable, V extends Writable,
       }
     }
 
+    if (hotVertexSampler != null) {
+      hotVertexSampler.addTo(
+          GiraphMetrics.get().perSuperstep().getHotVertices());
+    }
+
     // Return VertexWriter after the usage
     serviceWorker.getSuperstepOutput().returnVertexWriter(vertexWriter);
 
@@ -190,7 +203,10 @@ public class ComputeCallable<I extends WritableComparable, V extends Writable,
           graphState.getSuperstep() + ".  Flushing started");
     }
     try {
+      long flushStartNanos = GiraphTrace.get().start();
       workerClientRequestProcessor.flush();
+      GiraphTrace.get().complete(
+          GiraphTrace.FLUSH, "flush", flushStartNanos);
       aggregatorUsage.finishThreadComputation();
     } catch (IOException e) {
       throw new IllegalStateException("call: Flushing failed.", e);
@@ -208,6 +224,10 @@ public class ComputeCallable<I extends WritableComparable, V extends Writable,
     throws IOException, InterruptedException {
     PartitionStats partitionStats =
         new PartitionStats(partition.getId(), 0, 0, 0, 0);
+    partitionStats.setMessageBytesReceived(
+        serviceWorker.getServerData().getCurrentMessageBytes(
+            partition.getId()));
+    long partitionStartNanos = TIME.getNanoseconds();
     // Make sure this is thread-safe across runs
     synchronized (partition) {
       // Prepare Partition context
@@ -230,11 +250,17 @@ public class ComputeCallable<I extends WritableComparable, V extends Writable,
         if (!vertex.isHalted()) {
           context.progress();
           TimerContext computeOneTimerContext = computeOneTimer.time();
+          long computeStartNanos =
+              (hotVertexSampler == null) ? 0 : TIME.getNanoseconds();
           try {
             vertex.compute(messages);
           } finally {
             computeOneTimerContext.stop();
           }
+          if (hotVertexSampler != null) {
+            hotVertexSampler.vertexComputed(vertex.getId(),
+                Times.getNanosSince(TIME, computeStartNanos));
+          }
           // Need to unwrap the mutated edges (possibly)
           vertex.unwrapMutableEdges();
           // Write vertex to superstep output (no-op if it is not used)
@@ -259,6 +285,10 @@ public class ComputeCallable<I extends WritableComparable, V extends Writable,
         partitionContext.postSuperstep(workerContext);
       }
     }
+    partitionStats.setComputeNanos(
+        Times.getNanosSince(TIME, partitionStartNanos));
+    GiraphTrace.get().complete(GiraphTrace.COMPUTE, "compute-partition",
+        partitionStartNanos, "partition", partition.getId());
     return partitionStats;
   }
 }
@@ -29,6 +29,7 @@ import org.apache.giraph.master.MasterAggregatorUsage;
 import org.apache.giraph.master.MasterThread;
 import org.apache.giraph.metrics.GiraphMetrics;
 import org.apache.giraph.metrics.GiraphMetricsRegistry;
+import org.apache.giraph.metrics.GiraphTrace;
 import org.apache.giraph.metrics.GiraphTimer;
 import org.apache.giraph.metrics.GiraphTimerContext;
 import org.apache.giraph.metrics.ResetSuperstepMetricsObserver;
@@ -334,6 +335,7 @@ public class GraphTaskManager<I extends WritableComparable, V extends Writable,
    */
   private void setupAndInitializeGiraphMetrics() {
     GiraphMetrics.init(conf);
+    GiraphTrace.init(conf);
     GiraphMetrics.get().addSuperstepResetObserver(this);
     initJobMetrics();
     MemoryUtils.initMetrics();
@@ -880,6 +882,8 @@ public class GraphTaskManager<I extends WritableComparable, V extends Writable,
       // cleanup phase -- just log the error
       LOG.error("cleanup: Master thread couldn't join");
     }
+    GiraphTrace.get().writeTaskTrace(conf);
+    GiraphMetrics.get().stopReporter();
     if (zkManager != null) {
       zkManager.offlineZooKeeperServers(ZooKeeperManager.State.FINISHED);
     }
@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.graph;
+
+import org.apache.giraph.worker.WorkerInfo;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.InputSplit;
+
+import com.google.common.collect.Lists;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Plan of which worker should read which input split, computed by the
+ * master from the split lengths and locations.  Splits are handed out
+ * largest first, each to the least loaded worker, preferring a worker on
+ * one of the split's hosts unless that worker is already more than the
+ * split itself ahead of the least loaded one.
+ *
+ * Workers read their own splits largest first.  Once done, they take over
+ * the splits of other workers that are still unreserved, smallest first,
+ * so that they pick from the tail of the other workers' lists.
+ */
+public class InputSplitSchedule implements Writable {
+  /** Split indices, from the largest split to the smallest */
+  private int[] order;
+  /** Task id of the worker assigned to each split index */
+  private int[] owners;
+
+  /**
+   * Constructor for reflection.
+   */
+  public InputSplitSchedule() { }
+
+  /**
+   * Constructor.
+   *
+   * @param order Split indices, from the largest split to the smallest
+   * @param owners Task id of the worker assigned to each split index
+   */
+  public InputSplitSchedule(int[] order, int[] owners) {
+    this.order = order;
+    this.owners = owners;
+  }
+
+  /**
+   * Plan the reading of the input splits by the workers.
+   *
+   * @param splits Input splits, indexed as their paths
+   * @param workers Workers reading the splits
+   * @return Schedule of the splits
+   * @throws IOException
+   * @throws InterruptedException
+   */
+  public static InputSplitSchedule create(List<InputSplit> splits,
+      List<WorkerInfo> workers) throws IOException, InterruptedException {
+    final long[] lengths = new long[splits.size()];
+    String[][] locations = new String[splits.size()][];
+    for (int i = 0; i < splits.size(); ++i) {
+      lengths[i] = splits.get(i).getLength();
+      locations[i] = splits.get(i).getLocations();
+    }
+    String[] hosts = new String[workers.size()];
+    for (int i = 0; i < workers.size(); ++i) {
+      hosts[i] = workers.get(i).getHostname();
+    }
+    int[] workerIndices = assign(lengths, locations, hosts);
+
+    List<Integer> sortedIndices = Lists.newArrayListWithCapacity(
+        splits.size());
+    for (int i = 0; i < splits.size(); ++i) {
+      sortedIndices.add(i);
+    }
+    Collections.sort(sortedIndices, new LengthComparator(lengths));
+    int[] order = new int[splits.size()];
+    int[] owners = new int[splits.size()];
+    for (int i = 0; i < splits.size(); ++i) {
+      order[i] = sortedIndices.get(i);
+      owners[i] = workers.get(workerIndices[i]).getTaskId();
+    }
+    return new InputSplitSchedule(order, owners);
+  }
+
+  /**
+   * Assign the splits to workers, largest split first, each to the least
+   * loaded worker or to the least loaded worker local to the split if it
+   * is not more than the split ahead.
+   *
+   * @param lengths Length of every split
+   * @param locations Hosts of every split (may be null)
+   * @param hosts Host of every worker
+   * @return Index of the worker assigned to every split
+   */
+  public static int[] assign(long[] lengths, String[][] locations,
+      String[] hosts) {
+    List<Integer> sortedIndices = Lists.newArrayListWithCapacity(
+        lengths.length);
+    for (int i = 0; i < lengths.length; ++i) {
+      sortedIndices.add(i);
+    }
+    Collections.sort(sortedIndices, new LengthComparator(lengths));
+
+    long[] loads = new long[hosts.length];
+    int[] assignment = new int[lengths.length];
+    for (int split : sortedIndices) {
+      // Splits of unknown length still count for something
+      long weight = Math.max(1, lengths[split]);
+      int leastLoaded = 0;
+      int leastLoadedLocal = -1;
+      for (int worker = 0; worker < hosts.length; ++worker) {
+        if (loads[worker] < loads[leastLoaded]) {
+          leastLoaded = worker;
+        }
+        if (isLocal(locations[split], hosts[worker]) &&
+            (leastLoadedLocal == -1 ||
+                loads[worker] < loads[leastLoadedLocal])) {
+          leastLoadedLocal = worker;
+        }
+      }
+      int worker = leastLoaded;
+      if (leastLoadedLocal != -1 &&
+          loads[leastLoadedLocal] - loads[leastLoaded] <= weight) {
+        worker = leastLoadedLocal;
+      }
+      assignment[split] = worker;
+      loads[worker] += weight;
+    }
+    return assignment;
+  }
+
+  /**
+   * Check whether a host is one of the locations of a split.
+   *
+   * @param locations Locations of the split (may be null)
+   * @param host Host to look for
+   * @return True iff the split is stored on the host
+   */
+  private static boolean isLocal(String[] locations, String host) {
+    return locations != null && Arrays.asList(locations).contains(host);
+  }
+
+  /**
+   * Get the number of scheduled input splits.
+   *
+   * @return Number of input splits
+   */
+  public int getNumSplits() {
+    return order.length;
+  }
+
+  /**
+   * Order the paths of the input splits for a worker: its own splits
+   * largest first, then the splits of the other workers smallest first.
+   *
+   * @param pathList Paths of the input splits, ending with their index
+   * @param taskId Task id of the worker
+   * @return Ordered paths
+   */
+  public List<String> orderPaths(List<String> pathList, int taskId) {
+    String[] paths = new String[order.length];
+    for (String path : pathList) {
+      paths[Integer.parseInt(path.substring(path.lastIndexOf('/') + 1))] =
+          path;
+    }
+    List<String> orderedPaths = Lists.newArrayListWithCapacity(order.length);
+    for (int split : order) {
+      if (owners[split] == taskId) {
+        orderedPaths.add(paths[split]);
+      }
+    }
+    for (int i = order.length - 1; i >= 0; --i) {
+      if (owners[order[i]] != taskId) {
+        orderedPaths.add(paths[order[i]]);
+      }
+    }
+    return orderedPaths;
+  }
+
+  @Override
+  public void write(DataOutput output) throws IOException {
+    output.writeInt(order.length);
+    for (int i = 0; i < order.length; ++i) {
+      output.writeInt(order[i]);
+      output.writeInt(owners[i]);
+    }
+  }
+
+  @Override
+  public void readFields(DataInput input) throws IOException {
+    int numSplits = input.readInt();
+    order = new int[numSplits];
+    owners = new int[numSplits];
+    for (int i = 0; i < numSplits; ++i) {
+      order[i] = input.readInt();
+      owners[i] = input.readInt();
+    }
+  }
+
+  /**
+   * Sorts split indices by decreasing length, then by index.
+   */
+  private static class LengthComparator implements Comparator<Integer> {
+    /** Length of every split */
+    private final long[] lengths;
+
+    /**
+     * Constructor.
+     *
+     * @param lengths Length of every split
+     */
+    public LengthComparator(long[] lengths) {
+      this.lengths = lengths;
+    }
+
+    @Override
+    public int compare(Integer index1, Integer index2) {
+      if (lengths[index1] != lengths[index2]) {
+        return lengths[index1] > lengths[index2] ? -1 : 1;
+      }
+      return index1.compareTo(index2);
+    }
+  }
+}
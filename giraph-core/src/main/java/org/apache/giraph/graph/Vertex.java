@@ -29,6 +29,7 @@ import org.apache.giraph.edge.MutableVertexEdges;
 import org.apache.giraph.edge.StrictRandomAccessVertexEdges;
 import org.apache.giraph.edge.VertexEdges;
 import org.apache.giraph.partition.PartitionContext;
+import org.apache.giraph.utils.ByteArrayVertexIdEdges;
 import org.apache.giraph.worker.WorkerAggregatorUsage;
 import org.apache.giraph.worker.WorkerContext;
 import org.apache.hadoop.io.Writable;
@@ -343,11 +344,22 @@ public abstract class Vertex<I extends WritableComparable,
   }
 
   /**
-   * Send a message to all edges.
+   * Send a message to all edges.  The message is serialized once per
+   * destination worker when this vertex has at least
+   * {@link org.apache.giraph.conf.GiraphConstants#MIRROR_VERTICES_MIN_DEGREE}
+   * edges.
    *
    * @param message Message sent to all edges.
    */
   public void sendMessageToAllEdges(M message) {
+    int mirrorMinDegree = getConf().getMirrorVerticesMinDegree();
+    if (mirrorMinDegree > 0 && getNumEdges() >= mirrorMinDegree) {
+      if (graphState.getWorkerClientRequestProcessor().
+          sendMessageToAllRequest(getEdges(), message)) {
+        graphState.getGraphTaskManager().notifySentMessages();
+      }
+      return;
+    }
     for (Edge<I, E> edge : getEdges()) {
       sendMessage(edge.getTargetVertexId(), message);
     }
@@ -447,6 +459,36 @@ public abstract class Vertex<I extends WritableComparable,
         addEdgeRequest(sourceVertexId, edge);
   }
 
+  /**
+   * Request to add several edges to a vertex in the graph in bulk
+   * (processed just prior to the next superstep). Edges are serialized into
+   * per-partition buffers, so they can be reused after this call.
+   *
+   * @param sourceVertexId Source vertex id of the edges
+   * @param edges Edges to add
+   * @throws IOException
+   */
+  public void addEdgesRequest(I sourceVertexId, Iterable<Edge<I, E>> edges)
+    throws IOException {
+    graphState.getWorkerClientRequestProcessor().
+        addEdgesRequest(sourceVertexId, edges);
+  }
+
+  /**
+   * Request to add a batch of edges to their source vertices in the graph
+   * (processed just prior to the next superstep). Cheaper than calling
+   * {@link #addEdgeRequest(WritableComparable, Edge)} per edge when adding
+   * many edges, since no per-edge mutation objects are created.
+   *
+   * @param vertexIdEdges Pairs of source vertex id and edge to add
+   * @throws IOException
+   */
+  public void addEdgesRequest(ByteArrayVertexIdEdges<I, E> vertexIdEdges)
+    throws IOException {
+    graphState.getWorkerClientRequestProcessor().
+        addEdgesRequest(vertexIdEdges);
+  }
+
   /**
    * Request to remove all edges from a given source vertex to a given target
    * vertex (processed just prior to the next superstep).
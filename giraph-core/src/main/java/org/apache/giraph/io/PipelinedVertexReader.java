@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.io;
+
+import org.apache.giraph.graph.Vertex;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+
+import java.io.IOException;
+
+/**
+ * Implemented by {@link VertexReader}s which can separate reading raw
+ * records from parsing them into vertices, so that records of one input
+ * split can be parsed by several threads (see
+ * {@link org.apache.giraph.conf.GiraphConstants#NUM_INPUT_PARSING_THREADS}).
+ * {@link #nextRecord()} is only called by the thread reading the split,
+ * {@link #parseRecord(Object)} can be called concurrently from other
+ * threads, so it must not use state changed by other calls.
+ *
+ * @param <I> Vertex id
+ * @param <V> Vertex data
+ * @param <E> Edge data
+ * @param <R> Raw record
+ */
+@SuppressWarnings("rawtypes")
+public interface PipelinedVertexReader<I extends WritableComparable,
+    V extends Writable, E extends Writable, R> {
+  /**
+   * Read the next record, which mustn't be reused by the reader.
+   *
+   * @return Next record, or null if there are no more records
+   * @throws IOException
+   * @throws InterruptedException
+   */
+  R nextRecord() throws IOException, InterruptedException;
+
+  /**
+   * Parse a record into a vertex.
+   *
+   * @param record Record returned by {@link #nextRecord()}
+   * @return Vertex
+   * @throws IOException
+   */
+  Vertex<I, V, E, ?> parseRecord(R record) throws IOException;
+}
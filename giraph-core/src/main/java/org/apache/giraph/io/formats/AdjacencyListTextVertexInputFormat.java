@@ -50,6 +50,8 @@ public abstract class AdjacencyListTextVertexInputFormat<I extends
 
   /**
    * Utility for doing any cleaning of each line before it is tokenized.
+   * Readers declaring {@link org.apache.giraph.io.PipelinedVertexReader}
+   * call it from several threads, so it must be thread-safe.
    */
   public interface LineSanitizer {
     /**
@@ -67,6 +69,9 @@ public abstract class AdjacencyListTextVertexInputFormat<I extends
 
   /**
    * Vertex reader associated with {@link AdjacencyListTextVertexInputFormat}.
+   * It only reads the delimiter and the sanitizer while parsing a line, so
+   * subclasses whose decoders only depend on their arguments can declare
+   * {@link org.apache.giraph.io.PipelinedVertexReader}.
    */
   protected abstract class AdjacencyListTextVertexReader extends
     TextVertexReaderFromEachLineProcessed<String[]> {
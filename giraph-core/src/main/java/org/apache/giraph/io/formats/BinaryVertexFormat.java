@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.io.formats;
+
+import org.apache.giraph.conf.IntConfOption;
+
+import java.nio.ByteOrder;
+
+/**
+ * Keeps the layout constants of the binary block vertex format, written by
+ * {@link BinaryVertexOutputFormat} and read by
+ * {@link BinaryVertexInputFormat}.
+ *
+ * A file starts with a header (magic number, version, whether the blocks
+ * use unsafe serialization and in which byte order, and the
+ * {@link org.apache.giraph.edge.VertexEdges} class of the edges), followed
+ * by blocks.  A block holds the number of its vertices, the byte sizes of
+ * its three columns, and the columns themselves: the serialized ids, the
+ * serialized values and the serialized vertex edges of all its vertices.
+ */
+public class BinaryVertexFormat {
+  /** Number of vertices buffered in a block before it is written */
+  public static final IntConfOption VERTICES_PER_BLOCK =
+      new IntConfOption("giraph.binaryVertexFormat.verticesPerBlock", 10000);
+  /** Magic number at the start of every file ("GBIN") */
+  public static final int MAGIC = 0x4742494E;
+  /** Version of the layout */
+  public static final int VERSION = 1;
+  /** Extension of the files */
+  public static final String FILE_EXTENSION = ".gbin";
+  /** Whether this machine is big-endian (matters for unsafe blocks) */
+  public static final boolean NATIVE_BIG_ENDIAN =
+      ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN;
+
+  /**
+   * Don't construct.
+   */
+  private BinaryVertexFormat() { }
+}
@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.io.formats;
+
+import org.apache.giraph.edge.VertexEdges;
+import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.io.VertexInputFormat;
+import org.apache.giraph.io.VertexReader;
+import org.apache.giraph.utils.ExtendedByteArrayDataInput;
+import org.apache.giraph.utils.ExtendedDataInput;
+import org.apache.giraph.utils.ReflectionUtils;
+import org.apache.giraph.utils.UnsafeByteArrayInputStream;
+import org.apache.hadoop.fs.BlockLocation;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+
+import com.google.common.collect.Lists;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Loads a graph saved by {@link BinaryVertexOutputFormat}.  Blocks are
+ * read whole and vertices are deserialized straight from their columns,
+ * so there is no text to parse.  When the file was written with the
+ * {@link VertexEdges} class of this job, the edges are read directly into
+ * it (e.g. the primitive arrays of
+ * {@link org.apache.giraph.edge.LongNullArrayEdges}), otherwise they are
+ * converted.  Every file is a single input split, empty files are
+ * skipped.
+ *
+ * @param <I> Vertex id
+ * @param <V> Vertex value
+ * @param <E> Edge value
+ */
+@SuppressWarnings("rawtypes")
+public class BinaryVertexInputFormat<I extends WritableComparable,
+    V extends Writable, E extends Writable>
+    extends VertexInputFormat<I, V, E> {
+  /** Only used to list the input files, the blocks are read here */
+  private final GiraphTextInputFormat fileInputFormat =
+      new GiraphTextInputFormat();
+
+  @Override
+  public List<InputSplit> getSplits(JobContext context, int minSplitCountHint)
+    throws IOException, InterruptedException {
+    // Blocks can't be found from an arbitrary offset, so the number of
+    // splits is the number of files
+    List<FileStatus> files = fileInputFormat.listVertexStatus(context);
+    List<InputSplit> splits = Lists.newArrayListWithCapacity(files.size());
+    for (FileStatus file : files) {
+      Path path = file.getPath();
+      String[] hosts = new String[0];
+      if (file.getLen() != 0) {
+        BlockLocation[] blockLocations = path.getFileSystem(
+            context.getConfiguration()).getFileBlockLocations(
+            file, 0, file.getLen());
+        hosts = blockLocations[0].getHosts();
+      }
+      splits.add(new FileSplit(path, 0, file.getLen(), hosts));
+    }
+    context.getConfiguration().setLong(
+        GiraphFileInputFormat.NUM_VERTEX_INPUT_FILES, files.size());
+    return splits;
+  }
+
+  @Override
+  public VertexReader<I, V, E> createVertexReader(InputSplit split,
+      TaskAttemptContext context) throws IOException {
+    return new BinaryVertexReader();
+  }
+
+  /**
+   * Reads a file block by block and creates the vertices from the columns
+   * of the current block.
+   */
+  private class BinaryVertexReader extends VertexReader<I, V, E> {
+    /** File being read */
+    private FSDataInputStream input;
+    /** Length of the file */
+    private long fileLength;
+    /** Whether the blocks use unsafe serialization */
+    private boolean unsafe;
+    /** Vertex edges class of the file */
+    private Class<? extends VertexEdges<I, E>> fileEdgesClass;
+    /** Whether the file uses the vertex edges class of this job */
+    private boolean jobEdgesClass;
+    /** Bytes of the current block, reused across blocks */
+    private byte[] block = new byte[0];
+    /** Column of the ids of the current block */
+    private ExtendedDataInput ids;
+    /** Column of the values of the current block */
+    private ExtendedDataInput values;
+    /** Column of the edges of the current block */
+    private ExtendedDataInput edges;
+    /** Vertices of the current block not read yet */
+    private int blockVerticesLeft;
+    /** Current vertex */
+    private Vertex<I, V, E, ?> vertex;
+
+    @Override
+    public void initialize(InputSplit inputSplit, TaskAttemptContext context)
+      throws IOException, InterruptedException {
+      FileSplit fileSplit = (FileSplit) inputSplit;
+      Path file = fileSplit.getPath();
+      input = file.getFileSystem(context.getConfiguration()).open(file);
+      fileLength = fileSplit.getLength();
+      // Empty files (e.g. the job's _SUCCESS marker) hold no vertices
+      if (fileLength == 0) {
+        return;
+      }
+
+      if (input.readInt() != BinaryVertexFormat.MAGIC) {
+        throw new IllegalStateException("initialize: " + file +
+            " is not a binary vertex file");
+      }
+      int version = input.readInt();
+      if (version != BinaryVertexFormat.VERSION) {
+        throw new IllegalStateException("initialize: " + file +
+            " has version " + version + ", only version " +
+            BinaryVertexFormat.VERSION + " is supported");
+      }
+      unsafe = input.readBoolean();
+      if (input.readBoolean() != BinaryVertexFormat.NATIVE_BIG_ENDIAN &&
+          unsafe) {
+        throw new IllegalStateException("initialize: " + file +
+            " was written with unsafe serialization by a machine with " +
+            "another byte order");
+      }
+      String edgesClassName = input.readUTF();
+      try {
+        fileEdgesClass = (Class<? extends VertexEdges<I, E>>)
+            getConf().getClassByName(edgesClassName);
+      } catch (ClassNotFoundException e) {
+        throw new IllegalStateException("initialize: Vertex edges class " +
+            edgesClassName + " of " + file + " not found", e);
+      }
+      jobEdgesClass = fileEdgesClass == getConf().getVertexEdgesClass();
+    }
+
+    /**
+     * Read the next block of the file.
+     *
+     * @throws IOException
+     */
+    private void readBlock() throws IOException {
+      blockVerticesLeft = input.readInt();
+      int idBytes = input.readInt();
+      int valueBytes = input.readInt();
+      int edgeBytes = input.readInt();
+      int blockBytes = idBytes + valueBytes + edgeBytes;
+      if (block.length < blockBytes) {
+        block = new byte[blockBytes];
+      }
+      input.readFully(block, 0, blockBytes);
+      ids = createColumnInput(0, idBytes);
+      values = createColumnInput(idBytes, valueBytes);
+      edges = createColumnInput(idBytes + valueBytes, edgeBytes);
+    }
+
+    /**
+     * Create the input for a column of the current block.
+     *
+     * @param offset Offset of the column in the block
+     * @param length Length of the column
+     * @return Input of the column
+     */
+    private ExtendedDataInput createColumnInput(int offset, int length) {
+      if (unsafe) {
+        return new UnsafeByteArrayInputStream(block, offset, length);
+      } else {
+        return new ExtendedByteArrayDataInput(block, offset, length);
+      }
+    }
+
+    @Override
+    public boolean nextVertex() throws IOException, InterruptedException {
+      if (blockVerticesLeft == 0) {
+        if (input.getPos() >= fileLength) {
+          return false;
+        }
+        readBlock();
+      }
+      --blockVerticesLeft;
+
+      I id = getConf().createVertexId();
+      id.readFields(ids);
+      V value = getConf().createVertexValue();
+      value.readFields(values);
+      VertexEdges<I, E> vertexEdges;
+      if (jobEdgesClass) {
+        vertexEdges = getConf().createVertexEdges();
+        vertexEdges.readFields(edges);
+      } else {
+        VertexEdges<I, E> fileEdges =
+            ReflectionUtils.newInstance(fileEdgesClass, getConf());
+        fileEdges.readFields(edges);
+        vertexEdges = getConf().createAndInitializeVertexEdges(fileEdges);
+      }
+      Vertex<I, V, E, ?> nextVertex = getConf().createVertex();
+      nextVertex.initialize(id, value, vertexEdges);
+      vertex = nextVertex;
+      return true;
+    }
+
+    @Override
+    public Vertex<I, V, E, ?> getCurrentVertex() throws IOException,
+        InterruptedException {
+      return vertex;
+    }
+
+    @Override
+    public void close() throws IOException {
+      input.close();
+    }
+
+    @Override
+    public float getProgress() throws IOException, InterruptedException {
+      return fileLength == 0 ? 1f : input.getPos() / (float) fileLength;
+    }
+  }
+}
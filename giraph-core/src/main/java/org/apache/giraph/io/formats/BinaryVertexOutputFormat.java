@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.io.formats;
+
+import org.apache.giraph.edge.Edge;
+import org.apache.giraph.edge.VertexEdges;
+import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.io.VertexOutputFormat;
+import org.apache.giraph.io.VertexWriter;
+import org.apache.giraph.utils.ExtendedDataOutput;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.OutputCommitter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes the graph in the binary block format described in
+ * {@link BinaryVertexFormat}, so that a later job can load it with
+ * {@link BinaryVertexInputFormat} without parsing any text.  Every vertex
+ * writer creates its own file, hence several writers can be used in
+ * parallel.
+ *
+ * @param <I> Vertex id
+ * @param <V> Vertex value
+ * @param <E> Edge value
+ */
+@SuppressWarnings("rawtypes")
+public class BinaryVertexOutputFormat<I extends WritableComparable,
+    V extends Writable, E extends Writable>
+    extends VertexOutputFormat<I, V, E> {
+  /**
+   * Only used for the output specs, the committer and the file names, the
+   * blocks are written here
+   */
+  private final TextOutputFormat<NullWritable, NullWritable> fileOutputFormat =
+      new TextOutputFormat<NullWritable, NullWritable>();
+  /** Number of vertex writers created, to give each its own file */
+  private final AtomicInteger numWriters = new AtomicInteger();
+
+  @Override
+  public VertexWriter<I, V, E> createVertexWriter(TaskAttemptContext context)
+    throws IOException, InterruptedException {
+    return new BinaryVertexWriter();
+  }
+
+  @Override
+  public void checkOutputSpecs(JobContext context)
+    throws IOException, InterruptedException {
+    fileOutputFormat.checkOutputSpecs(context);
+  }
+
+  @Override
+  public OutputCommitter getOutputCommitter(TaskAttemptContext context)
+    throws IOException, InterruptedException {
+    return fileOutputFormat.getOutputCommitter(context);
+  }
+
+  /**
+   * Buffers the columns of a block of vertices and writes the block to the
+   * file once it is full.
+   */
+  private class BinaryVertexWriter extends VertexWriter<I, V, E> {
+    /** File being written */
+    private FSDataOutputStream output;
+    /** Vertex edges class of the file */
+    private Class<? extends VertexEdges<I, E>> edgesClass;
+    /** Number of vertices in a full block */
+    private int verticesPerBlock;
+    /** Column of the ids of the current block */
+    private ExtendedDataOutput ids;
+    /** Column of the values of the current block */
+    private ExtendedDataOutput values;
+    /** Column of the edges of the current block */
+    private ExtendedDataOutput edges;
+    /** Number of vertices in the current block */
+    private int blockVertices;
+
+    @Override
+    public void initialize(TaskAttemptContext context) throws IOException,
+        InterruptedException {
+      Path file = fileOutputFormat.getDefaultWorkFile(context,
+          "-" + numWriters.getAndIncrement() +
+              BinaryVertexFormat.FILE_EXTENSION);
+      output = file.getFileSystem(context.getConfiguration()).create(
+          file, false);
+      edgesClass = getConf().getVertexEdgesClass();
+      verticesPerBlock = BinaryVertexFormat.VERTICES_PER_BLOCK.get(getConf());
+      ids = getConf().createExtendedDataOutput();
+      values = getConf().createExtendedDataOutput();
+      edges = getConf().createExtendedDataOutput();
+
+      output.writeInt(BinaryVertexFormat.MAGIC);
+      output.writeInt(BinaryVertexFormat.VERSION);
+      output.writeBoolean(getConf().useUnsafeSerialization());
+      output.writeBoolean(BinaryVertexFormat.NATIVE_BIG_ENDIAN);
+      output.writeUTF(edgesClass.getName());
+    }
+
+    @Override
+    public void writeVertex(Vertex<I, V, E, ?> vertex) throws IOException,
+        InterruptedException {
+      vertex.getId().write(ids);
+      vertex.getValue().write(values);
+      Iterable<Edge<I, E>> vertexEdges = vertex.getEdges();
+      // Partitions may hand out views of their own, which cannot be read
+      // back, so anything but the configured class is copied first
+      if (vertexEdges.getClass() != edgesClass) {
+        vertexEdges = getConf().createAndInitializeVertexEdges(vertexEdges);
+      }
+      ((VertexEdges<I, E>) vertexEdges).write(edges);
+      if (++blockVertices == verticesPerBlock) {
+        writeBlock();
+      }
+    }
+
+    /**
+     * Write the buffered block to the file and start a new one.
+     *
+     * @throws IOException
+     */
+    private void writeBlock() throws IOException {
+      output.writeInt(blockVertices);
+      output.writeInt(ids.getPos());
+      output.writeInt(values.getPos());
+      output.writeInt(edges.getPos());
+      output.write(ids.getByteArray(), 0, ids.getPos());
+      output.write(values.getByteArray(), 0, values.getPos());
+      output.write(edges.getByteArray(), 0, edges.getPos());
+      ids.reset();
+      values.reset();
+      edges.reset();
+      blockVertices = 0;
+    }
+
+    @Override
+    public void close(TaskAttemptContext context) throws IOException,
+        InterruptedException {
+      if (blockVertices > 0) {
+        writeBlock();
+      }
+      output.close();
+    }
+  }
+}
@@ -21,6 +21,7 @@ package org.apache.giraph.io.formats;
 import com.google.common.collect.Lists;
 import org.apache.giraph.edge.Edge;
 import org.apache.giraph.edge.EdgeFactory;
+import org.apache.giraph.io.PipelinedVertexReader;
 import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
@@ -51,29 +52,24 @@ public class IntIntNullTextInputFormat extends
 
   /**
    * Vertex reader associated with {@link IntIntNullTextInputFormat}.
+   * Keeps no state between lines, so lines can be parsed concurrently.
    */
   public class IntIntNullIntVertexReader extends
-    TextVertexReaderFromEachLineProcessed<String[]> {
-    /**
-     * Cached vertex id for the current line
-     */
-    private IntWritable id;
-
+    TextVertexReaderFromEachLineProcessed<String[]> implements
+    PipelinedVertexReader<IntWritable, IntWritable, NullWritable, Text> {
     @Override
     protected String[] preprocessLine(Text line) throws IOException {
-      String[] tokens = SEPARATOR.split(line.toString());
-      id = new IntWritable(Integer.parseInt(tokens[0]));
-      return tokens;
+      return SEPARATOR.split(line.toString());
     }
 
     @Override
     protected IntWritable getId(String[] tokens) throws IOException {
-      return id;
+      return new IntWritable(Integer.parseInt(tokens[0]));
     }
 
     @Override
     protected IntWritable getValue(String[] tokens) throws IOException {
-      return id;
+      return new IntWritable(Integer.parseInt(tokens[0]));
     }
 
     @Override
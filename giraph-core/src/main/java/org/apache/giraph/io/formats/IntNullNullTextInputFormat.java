@@ -19,6 +19,7 @@ package org.apache.giraph.io.formats;
 
 import com.google.common.collect.ImmutableList;
 import org.apache.giraph.edge.Edge;
+import org.apache.giraph.io.PipelinedVertexReader;
 import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
@@ -42,22 +43,20 @@ public class IntNullNullTextInputFormat extends TextVertexInputFormat<
   }
 
   /**
-   * Reader for this InputFormat.
+   * Reader for this InputFormat.  Keeps no state between lines, so lines
+   * can be parsed concurrently.
    */
   public class IntNullNullNullVertexReader extends
-      TextVertexReaderFromEachLineProcessed<String> {
-    /** Cached vertex id */
-    private IntWritable id;
-
+      TextVertexReaderFromEachLineProcessed<String> implements
+      PipelinedVertexReader<IntWritable, NullWritable, NullWritable, Text> {
     @Override
     protected String preprocessLine(Text line) throws IOException {
-      id = new IntWritable(Integer.parseInt(line.toString()));
       return line.toString();
     }
 
     @Override
     protected IntWritable getId(String line) throws IOException {
-      return id;
+      return new IntWritable(Integer.parseInt(line));
     }
 
     @Override
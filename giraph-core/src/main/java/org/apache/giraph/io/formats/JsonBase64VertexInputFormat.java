@@ -22,6 +22,7 @@ import com.google.common.collect.Lists;
 import net.iharder.Base64;
 import org.apache.giraph.edge.Edge;
 import org.apache.giraph.edge.EdgeFactory;
+import org.apache.giraph.io.PipelinedVertexReader;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.io.WritableComparable;
@@ -59,10 +60,12 @@ public class JsonBase64VertexInputFormat<I extends WritableComparable,
   }
 
   /**
-   * Simple reader that supports {@link JsonBase64VertexInputFormat}
+   * Simple reader that supports {@link JsonBase64VertexInputFormat}.
+   * Keeps no state between lines, so lines can be parsed concurrently.
    */
   protected class JsonBase64VertexReader extends
-    TextVertexReaderFromEachLineProcessed<JSONObject> {
+    TextVertexReaderFromEachLineProcessed<JSONObject> implements
+    PipelinedVertexReader<I, V, E, Text> {
 
 
     @Override
@@ -21,6 +21,7 @@ import com.google.common.collect.Lists;
 import org.apache.giraph.edge.Edge;
 import org.apache.giraph.edge.EdgeFactory;
 import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.io.PipelinedVertexReader;
 import org.apache.hadoop.io.DoubleWritable;
 import org.apache.hadoop.io.FloatWritable;
 import org.apache.hadoop.io.LongWritable;
@@ -58,10 +59,12 @@ public class JsonLongDoubleFloatDoubleVertexInputFormat extends
   * First edge has a destination vertex 2, edge value 2.1.
   * Second edge has a destination vertex 3, edge value 0.7.
   * [1,4.3,[[2,2.1],[3,0.7]]]
+  * Keeps no state between lines, so lines can be parsed concurrently.
   */
   class JsonLongDoubleFloatDoubleVertexReader extends
     TextVertexReaderFromEachLineProcessedHandlingExceptions<JSONArray,
-    JSONException> {
+    JSONException> implements PipelinedVertexReader<LongWritable,
+    DoubleWritable, FloatWritable, Text> {
 
     @Override
     protected JSONArray preprocessLine(Text line) throws JSONException {
@@ -19,8 +19,10 @@ package org.apache.giraph.io.formats;
 
 import org.apache.giraph.edge.Edge;
 import org.apache.giraph.edge.EdgeFactory;
+import org.apache.giraph.io.PipelinedVertexReader;
 import org.apache.hadoop.io.DoubleWritable;
 import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 
@@ -44,10 +46,13 @@ public class LongDoubleDoubleAdjacencyListVertexInputFormat
 
   /**
    * VertexReader associated with
-   * {@link LongDoubleDoubleAdjacencyListVertexInputFormat}.
+   * {@link LongDoubleDoubleAdjacencyListVertexInputFormat}.  Its decoders
+   * keep no state, so lines can be parsed concurrently.
    */
   protected class LongDoubleDoubleAdjacencyListVertexReader extends
-      AdjacencyListTextVertexReader {
+      AdjacencyListTextVertexReader implements
+      PipelinedVertexReader<LongWritable, DoubleWritable, DoubleWritable,
+          Text> {
 
     /**
      * Constructor with {@link LineSanitizer}.
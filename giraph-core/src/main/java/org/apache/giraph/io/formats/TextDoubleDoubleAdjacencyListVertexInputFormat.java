@@ -19,6 +19,7 @@ package org.apache.giraph.io.formats;
 
 import org.apache.giraph.edge.Edge;
 import org.apache.giraph.edge.EdgeFactory;
+import org.apache.giraph.io.PipelinedVertexReader;
 import org.apache.hadoop.io.DoubleWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.Writable;
@@ -44,10 +45,12 @@ public class TextDoubleDoubleAdjacencyListVertexInputFormat<M extends Writable>
 
   /**
    * Vertex reader used with
-   * {@link TextDoubleDoubleAdjacencyListVertexInputFormat}
+   * {@link TextDoubleDoubleAdjacencyListVertexInputFormat}.  Its decoders
+   * keep no state, so lines can be parsed concurrently.
    */
   protected class TextDoubleDoubleAdjacencyListVertexReader extends
-      AdjacencyListTextVertexReader {
+      AdjacencyListTextVertexReader implements
+      PipelinedVertexReader<Text, DoubleWritable, DoubleWritable, Text> {
 
     /**
      * Constructor with {@link LineSanitizer}.
@@ -144,11 +144,29 @@ public abstract class TextVertexInputFormat<I extends WritableComparable,
     protected TaskAttemptContext getContext() {
       return context;
     }
+
+    /**
+     * Read the next line, copied so that it can be parsed while further
+     * lines are read.  Together with the parseRecord() method of the
+     * per-line readers, this lets subclasses implement
+     * {@link org.apache.giraph.io.PipelinedVertexReader} once they keep
+     * no state between lines.
+     *
+     * @return Next line, or null if there are no more lines
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public Text nextRecord() throws IOException, InterruptedException {
+      return lineRecordReader.nextKeyValue() ?
+          new Text(lineRecordReader.getCurrentValue()) : null;
+    }
   }
 
   /**
    * Abstract class to be implemented by the user to read a vertex from each
-   * text line.
+   * text line.  Subclasses whose getters only depend on their argument can
+   * declare {@link org.apache.giraph.io.PipelinedVertexReader} to have
+   * lines parsed by several threads.
    */
   protected abstract class TextVertexReaderFromEachLine extends
     TextVertexReader {
@@ -156,7 +174,18 @@ public abstract class TextVertexInputFormat<I extends WritableComparable,
     @Override
     public final Vertex<I, V, E, ?> getCurrentVertex() throws IOException,
     InterruptedException {
-      Text line = getRecordReader().getCurrentValue();
+      return parseRecord(getRecordReader().getCurrentValue());
+    }
+
+    /**
+     * Parse a line into a vertex.
+     *
+     * @param line Line
+     * @return Vertex
+     * @throws IOException
+     */
+    public final Vertex<I, V, E, ?> parseRecord(Text line)
+      throws IOException {
       Vertex<I, V, E, ?> vertex = getConf().createVertex();
       vertex.initialize(getId(line), getValue(line), getEdges(line));
       return vertex;
@@ -208,7 +237,10 @@ public abstract class TextVertexInputFormat<I extends WritableComparable,
 
   /**
    * Abstract class to be implemented by the user to read a vertex from each
-   * text line after preprocessing it.
+   * text line after preprocessing it.  Subclasses whose preprocessing and
+   * getters only depend on their argument can declare
+   * {@link org.apache.giraph.io.PipelinedVertexReader} to have lines
+   * parsed by several threads.
    *
    * @param <T>
    *          The resulting type of preprocessing.
@@ -224,7 +256,18 @@ public abstract class TextVertexInputFormat<I extends WritableComparable,
     @Override
     public final Vertex<I, V, E, ?> getCurrentVertex() throws IOException,
     InterruptedException {
-      Text line = getRecordReader().getCurrentValue();
+      return parseRecord(getRecordReader().getCurrentValue());
+    }
+
+    /**
+     * Parse a line into a vertex.
+     *
+     * @param line Line
+     * @return Vertex
+     * @throws IOException
+     */
+    public final Vertex<I, V, E, ?> parseRecord(Text line)
+      throws IOException {
       Vertex<I, V, E, ?> vertex;
       T processed = preprocessLine(line);
       vertex = getConf().createVertex();
@@ -288,7 +331,10 @@ public abstract class TextVertexInputFormat<I extends WritableComparable,
   // CHECKSTYLE: stop RedundantThrows
   /**
    * Abstract class to be implemented by the user to read a vertex from each
-   * text line after preprocessing it with exception handling.
+   * text line after preprocessing it with exception handling.  Subclasses
+   * whose preprocessing and getters only depend on their argument can
+   * declare {@link org.apache.giraph.io.PipelinedVertexReader} to have
+   * lines parsed by several threads.
    *
    * @param <T>
    *          The resulting type of preprocessing.
@@ -304,12 +350,23 @@ public abstract class TextVertexInputFormat<I extends WritableComparable,
       return getRecordReader().nextKeyValue();
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public final Vertex<I, V, E, ?> getCurrentVertex() throws IOException,
         InterruptedException {
       // Note we are reading from value only since key is the line number
-      Text line = getRecordReader().getCurrentValue();
+      return parseRecord(getRecordReader().getCurrentValue());
+    }
+
+    /**
+     * Parse a line into a vertex.
+     *
+     * @param line Line
+     * @return Vertex
+     * @throws IOException
+     */
+    @SuppressWarnings("unchecked")
+    public final Vertex<I, V, E, ?> parseRecord(Text line)
+      throws IOException {
       Vertex<I, V, E, ?> vertex;
       T processed = null;
       try {
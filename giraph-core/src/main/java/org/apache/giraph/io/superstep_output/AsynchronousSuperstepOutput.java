@@ -0,0 +1,249 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.io.superstep_output;
+
+import org.apache.giraph.conf.GiraphConstants;
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.io.SimpleVertexWriter;
+import org.apache.giraph.utils.ExtendedDataInput;
+import org.apache.giraph.utils.ExtendedDataOutput;
+import org.apache.giraph.utils.LogStacktraceCallable;
+import org.apache.giraph.utils.ProgressableUtils;
+import org.apache.giraph.utils.WritableUtils;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.log4j.Logger;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class to use as {@link SuperstepOutput} when output during computation
+ * shouldn't be done by compute threads. Compute threads serialize vertices
+ * into batches, which are put into a bounded buffer and written by dedicated
+ * writer threads through the wrapped {@link SuperstepOutput}.
+ *
+ * @param <I> Vertex id
+ * @param <V> Vertex value
+ * @param <E> Edge value
+ */
+public class AsynchronousSuperstepOutput<I extends WritableComparable,
+    V extends Writable, E extends Writable> implements
+    SuperstepOutput<I, V, E> {
+  /** Class logger */
+  private static final Logger LOG =
+      Logger.getLogger(AsynchronousSuperstepOutput.class);
+  /** How long to wait for space in the buffer before checking writers */
+  private static final int WAIT_FOR_BUFFER_MSECS = 1000;
+  /** Mapper context */
+  private final Mapper<?, ?, ?, ?>.Context context;
+  /** Configuration */
+  private final ImmutableClassesGiraphConfiguration<I, V, E, Writable>
+  configuration;
+  /** Superstep output which writer threads write vertices to */
+  private final SuperstepOutput<I, V, E> superstepOutput;
+  /** Bounded buffer of serialized vertex batches waiting to be written */
+  private final BlockingQueue<ExtendedDataOutput> batchQueue;
+  /** Marker telling a writer thread there is nothing more to write */
+  private final ExtendedDataOutput endOfOutput;
+  /** Batch size in bytes after which it is handed over to writers */
+  private final int batchSize;
+  /** Futures of writer threads */
+  private final List<Future<Long>> writerFutures;
+  /** First failure of any of the writer threads */
+  private volatile Throwable writerFailure;
+
+  /**
+   * Constructor
+   *
+   * @param conf            Configuration
+   * @param context         Mapper context
+   * @param superstepOutput Superstep output to write the vertices to
+   */
+  @SuppressWarnings("unchecked")
+  public AsynchronousSuperstepOutput(
+      ImmutableClassesGiraphConfiguration<I, V, E, ?> conf,
+      Mapper<?, ?, ?, ?>.Context context,
+      SuperstepOutput<I, V, E> superstepOutput) {
+    this.configuration =
+        (ImmutableClassesGiraphConfiguration<I, V, E, Writable>) conf;
+    this.context = context;
+    this.superstepOutput = superstepOutput;
+    batchSize = GiraphConstants.ASYNC_OUTPUT_BATCH_SIZE.get(conf);
+    batchQueue = new ArrayBlockingQueue<ExtendedDataOutput>(
+        GiraphConstants.ASYNC_OUTPUT_BUFFER_BATCHES.get(conf));
+    endOfOutput = conf.createExtendedDataOutput(0);
+
+    int numWriterThreads = conf.getNumOutputThreads();
+    ExecutorService writerExecutor =
+        Executors.newFixedThreadPool(numWriterThreads,
+            new ThreadFactoryBuilder().setNameFormat("output-writer-%d")
+                .setDaemon(true).build());
+    writerFutures = Lists.newArrayListWithCapacity(numWriterThreads);
+    for (int i = 0; i < numWriterThreads; i++) {
+      writerFutures.add(writerExecutor.submit(
+          new LogStacktraceCallable<Long>(new WriterCallable())));
+    }
+    writerExecutor.shutdown();
+    if (LOG.isInfoEnabled()) {
+      LOG.info("AsynchronousSuperstepOutput: Started " + numWriterThreads +
+          " writer threads, batch size " + batchSize + " bytes");
+    }
+  }
+
+  /**
+   * Fail if any of the writer threads failed.
+   */
+  private void checkWriters() {
+    if (writerFailure != null) {
+      throw new IllegalStateException("checkWriters: " +
+          "Writing output failed", writerFailure);
+    }
+  }
+
+  /**
+   * Put a batch into the buffer, waiting for space if it's full.
+   *
+   * @param batch Batch of serialized vertices
+   */
+  private void putBatch(ExtendedDataOutput batch) {
+    try {
+      while (!batchQueue.offer(
+          batch, WAIT_FOR_BUFFER_MSECS, TimeUnit.MILLISECONDS)) {
+        checkWriters();
+        context.progress();
+      }
+    } catch (InterruptedException e) {
+      throw new IllegalStateException("putBatch: " +
+          "InterruptedException occurred", e);
+    }
+  }
+
+  @Override
+  public SimpleVertexWriter<I, V, E> getVertexWriter() {
+    checkWriters();
+    return new BatchingVertexWriter();
+  }
+
+  @Override
+  public void returnVertexWriter(SimpleVertexWriter<I, V, E> vertexWriter) {
+    ((BatchingVertexWriter) vertexWriter).flush();
+  }
+
+  @Override
+  public void postApplication() throws IOException, InterruptedException {
+    for (int i = 0; i < writerFutures.size(); i++) {
+      putBatch(endOfOutput);
+    }
+    long vertexCount = 0;
+    for (Future<Long> writerFuture : writerFutures) {
+      vertexCount += ProgressableUtils.getFutureResult(writerFuture, context);
+    }
+    if (LOG.isInfoEnabled()) {
+      LOG.info("postApplication: Writer threads wrote " + vertexCount +
+          " vertices");
+    }
+    superstepOutput.postApplication();
+  }
+
+  /**
+   * Writer used by compute threads, serializes vertices into batches.
+   */
+  private class BatchingVertexWriter implements SimpleVertexWriter<I, V, E> {
+    /** Batch currently being filled */
+    private ExtendedDataOutput batch =
+        configuration.createExtendedDataOutput(batchSize);
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void writeVertex(Vertex<I, V, E, ?> vertex) throws IOException,
+        InterruptedException {
+      WritableUtils.writeVertexToDataOutput(batch,
+          (Vertex<I, V, E, Writable>) vertex, configuration);
+      if (batch.getPos() >= batchSize) {
+        flush();
+      }
+    }
+
+    /**
+     * Hand the current batch over to writer threads, if it's not empty.
+     */
+    public void flush() {
+      if (batch.getPos() > 0) {
+        putBatch(batch);
+        batch = configuration.createExtendedDataOutput(batchSize);
+      }
+    }
+  }
+
+  /**
+   * Callable which takes batches from the buffer and writes them.
+   * Returns the number of written vertices.
+   */
+  private class WriterCallable implements Callable<Long> {
+    @Override
+    public Long call() throws Exception {
+      SimpleVertexWriter<I, V, E> vertexWriter =
+          superstepOutput.getVertexWriter();
+      Vertex<I, V, E, Writable> vertex = configuration.createVertex();
+      vertex.initialize(configuration.createVertexId(),
+          configuration.createVertexValue(),
+          configuration.createVertexEdges());
+      long vertexCount = 0;
+      try {
+        while (true) {
+          ExtendedDataOutput batch = batchQueue.take();
+          if (batch == endOfOutput) {
+            break;
+          }
+          ExtendedDataInput input = configuration.createExtendedDataInput(
+              batch.getByteArray(), 0, batch.getPos());
+          while (input.available() > 0) {
+            WritableUtils.reinitializeVertexFromDataInput(
+                input, vertex, configuration);
+            vertexWriter.writeVertex(vertex);
+            ++vertexCount;
+          }
+        }
+        // Remember the failure so compute threads don't wait on a full
+        // buffer forever
+        // CHECKSTYLE: stop IllegalCatch
+      } catch (Exception e) {
+        // CHECKSTYLE: resume IllegalCatch
+        writerFailure = e;
+        throw e;
+      } finally {
+        superstepOutput.returnVertexWriter(vertexWriter);
+      }
+      return vertexCount;
+    }
+  }
+}
@@ -36,12 +36,14 @@ import org.apache.giraph.graph.GlobalStats;
 import org.apache.giraph.graph.AddressesAndPartitionsWritable;
 import org.apache.giraph.graph.GraphFunctions;
 import org.apache.giraph.graph.InputSplitEvents;
+import org.apache.giraph.graph.InputSplitSchedule;
 import org.apache.giraph.bsp.BspService;
 import org.apache.giraph.io.EdgeInputFormat;
 import org.apache.giraph.io.GiraphInputFormat;
 import org.apache.giraph.graph.GraphTaskManager;
 import org.apache.giraph.io.VertexInputFormat;
 import org.apache.giraph.partition.MasterGraphPartitioner;
+import org.apache.giraph.partition.PartitionCheckpointLocation;
 import org.apache.giraph.partition.PartitionOwner;
 import org.apache.giraph.partition.PartitionStats;
 import org.apache.giraph.partition.PartitionUtils;
@@ -108,6 +110,7 @@ import java.util.concurrent.TimeUnit;
 import static org.apache.giraph.conf.GiraphConstants.INPUT_SPLIT_SAMPLE_PERCENT;
 import static org.apache.giraph.conf.GiraphConstants.KEEP_ZOOKEEPER_DATA;
 import static org.apache.giraph.conf.GiraphConstants.PARTITION_LONG_TAIL_MIN_PRINT;
+import static org.apache.giraph.conf.GiraphConstants.SCHEDULE_INPUT_SPLITS;
 import static org.apache.giraph.conf.GiraphConstants.USE_INPUT_SPLIT_LOCALITY;
 
 /**
@@ -662,10 +665,29 @@ public class BspServiceMaster<I extends WritableComparable,
       LOG.info(logPrefix + ": Done writing input split data to zookeeper");
     }
 
+    // The plan of which worker reads which split goes along with the
+    // notification that the splits are ready
+    byte[] scheduleData = null;
+    if (SCHEDULE_INPUT_SPLITS.get(conf)) {
+      try {
+        scheduleData = WritableUtils.writeToByteArray(
+            InputSplitSchedule.create(splitList, healthyWorkerInfoList));
+      } catch (IOException e) {
+        throw new IllegalStateException(logPrefix + ": IOException", e);
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(
+            logPrefix + ": InterruptedException", e);
+      }
+      if (LOG.isInfoEnabled()) {
+        LOG.info(logPrefix + ": Scheduled " + splitList.size() +
+            " input splits on " + healthyWorkerInfoList.size() + " workers");
+      }
+    }
+
     // Let workers know they can start trying to load the input splits
     try {
       getZkExt().createExt(inputSplitPaths.getAllReadyPath(),
-          null,
+          scheduleData,
           Ids.OPEN_ACL_UNSAFE,
           CreateMode.PERSISTENT,
           false);
@@ -775,12 +797,14 @@ public class BspServiceMaster<I extends WritableComparable,
       DataInputStream metadataStream = fs.open(metadataPath);
       long partitions = metadataStream.readInt();
       for (long i = 0; i < partitions; ++i) {
-        long dataPos = metadataStream.readLong();
-        int partitionId = metadataStream.readInt();
+        PartitionCheckpointLocation location =
+            new PartitionCheckpointLocation();
+        location.readFields(metadataStream);
+        int partitionId = location.getPartitionId();
         PartitionOwner partitionOwner = idOwnerMap.get(partitionId);
         if (LOG.isInfoEnabled()) {
           LOG.info("prepareSuperstepRestart: File " + metadataPath +
-              " with position " + dataPos +
+              " with location " + location +
               ", partition id = " + partitionId +
               " assigned to " + partitionOwner);
         }
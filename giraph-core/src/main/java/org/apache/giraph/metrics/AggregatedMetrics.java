@@ -35,6 +35,10 @@ public class AggregatedMetrics {
 
   /** Mapping from name to aggregated metric */
   private Map<String, AggregatedMetric> metrics = Maps.newHashMap();
+  /** Expensive vertices of all the workers */
+  private HotVertices hotVertices = new HotVertices();
+  /** Request accounting summed over all the workers */
+  private RequestTypeMetrics requestTypeMetrics = new RequestTypeMetrics();
 
   /**
    * Add value from hostname for a metric.
@@ -74,6 +78,8 @@ public class AggregatedMetrics {
         workerMetrics.getWaitRequestsTimer(), hostname);
     add(USER_COMPUTE_MS,
         workerMetrics.getUserComputeTime(), hostname);
+    hotVertices.add(workerMetrics.getHotVertices(), 0);
+    requestTypeMetrics.add(workerMetrics.getRequestTypeMetrics());
     return this;
   }
 
@@ -100,6 +106,8 @@ public class AggregatedMetrics {
     printAggregatedMetric(out, "network communication time", "ms", commTime);
     printAggregatedMetric(out, "time to first message", "us", timeToFirstMsg);
     printAggregatedMetric(out, "wait requests time", "us", waitRequestsMicros);
+    hotVertices.print(out);
+    requestTypeMetrics.print(out);
 
     return this;
   }
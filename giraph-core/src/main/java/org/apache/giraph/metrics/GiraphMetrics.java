@@ -18,11 +18,12 @@
 package org.apache.giraph.metrics;
 
 import org.apache.giraph.conf.GiraphConfiguration;
-
-import com.google.common.collect.Lists;
+import org.apache.giraph.conf.GiraphConstants;
+import org.apache.giraph.utils.ReflectionUtils;
 
 import java.io.PrintStream;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static org.apache.giraph.bsp.BspService.INPUT_SUPERSTEP;
 
@@ -42,9 +43,15 @@ public class GiraphMetrics {
   /** registry for required per-job metrics */
   private final GiraphMetricsRegistry perJobRequired;
 
-  /** observer for per-superstep metrics re-initialization */
+  /** reporter exposing the registries while running (null if none) */
+  private GiraphMetricsReporter reporter;
+
+  /**
+   * observer for per-superstep metrics re-initialization (the master and
+   * the worker can register while the other resets, e.g. in local jobs)
+   */
   private final List<ResetSuperstepMetricsObserver> observers =
-      Lists.newArrayList();
+      new CopyOnWriteArrayList<ResetSuperstepMetricsObserver>();
 
   /**
    * Initialize no-op registry that creates no-op metrics.
@@ -76,12 +83,30 @@ public class GiraphMetrics {
   }
 
   /**
-   * Initialize singleton instance of GiraphMetrics.
+   * Initialize singleton instance of GiraphMetrics and start the configured
+   * reporter, if metrics are enabled.
    *
    * @param conf GiraphConfiguration to use.
    */
   public static void init(GiraphConfiguration conf) {
+    INSTANCE.stopReporter();
     INSTANCE = new GiraphMetrics(conf);
+    Class<? extends GiraphMetricsReporter> reporterClass =
+        GiraphConstants.METRICS_REPORTER_CLASS.get(conf);
+    if (conf.metricsEnabled() && reporterClass != null) {
+      INSTANCE.reporter = ReflectionUtils.newInstance(reporterClass, null);
+      INSTANCE.reporter.start(conf);
+    }
+  }
+
+  /**
+   * Stop the reporter of the metrics, if any.
+   */
+  public void stopReporter() {
+    if (reporter != null) {
+      reporter.stop();
+      reporter = null;
+    }
   }
 
   /**
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.metrics;
+
+import org.apache.giraph.conf.GiraphConfiguration;
+
+/**
+ * Exposes the metrics registries of {@link GiraphMetrics} while the task
+ * is running (the registries are exported to JMX in any case).  Started
+ * by {@link GiraphMetrics#init(GiraphConfiguration)} when metrics are
+ * enabled and stopped at the end of the task.
+ */
+public interface GiraphMetricsReporter {
+  /**
+   * Start reporting the metrics of {@link GiraphMetrics#get()}.
+   *
+   * @param conf Configuration
+   */
+  void start(GiraphConfiguration conf);
+
+  /**
+   * Stop reporting, releasing the resources used.
+   */
+  void stop();
+}
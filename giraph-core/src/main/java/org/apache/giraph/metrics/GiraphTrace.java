@@ -0,0 +1,429 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.metrics;
+
+import org.apache.giraph.conf.GiraphConfiguration;
+import org.apache.giraph.conf.GiraphConstants;
+import org.apache.giraph.time.SystemTime;
+import org.apache.giraph.time.Time;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.log4j.Logger;
+import org.json.JSONObject;
+
+import com.google.common.base.Charsets;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Timeline of what every thread of a task was doing, written at the end
+ * of the job in the Chrome trace-event format (load it in
+ * chrome://tracing).  Every thread records its events in a ring buffer,
+ * which keeps only the latest events.  A thread takes over the buffer of a
+ * dead thread of the same name, so the thread pools recreated every
+ * superstep keep one buffer per pool thread instead of adding new ones.
+ * A disabled trace records nothing, so the calls are cheap enough to be
+ * left in place.
+ */
+public class GiraphTrace {
+  /** Category of the computation events */
+  public static final String COMPUTE = "compute";
+  /** Category of the flushing of the outgoing requests */
+  public static final String FLUSH = "flush";
+  /** Category of the requests sent */
+  public static final String NETTY_SEND = "netty-send";
+  /** Category of the requests received */
+  public static final String NETTY_RECEIVE = "netty-receive";
+  /** Category of the waits for the other tasks */
+  public static final String BARRIER = "barrier";
+  /** Category of the garbage collections */
+  public static final String GC = "gc";
+  /** Category of the partitions moved to and from disk */
+  public static final String OUT_OF_CORE = "out-of-core";
+
+  /** Class logger */
+  private static final Logger LOG = Logger.getLogger(GiraphTrace.class);
+  /** Initial number of events of a thread buffer, which grows as needed */
+  private static final int INITIAL_EVENTS_PER_THREAD = 256;
+  /** Milliseconds between two checks of the garbage collectors */
+  private static final long GC_POLL_MS = 50;
+  /** Singleton instance for everyone to use */
+  private static volatile GiraphTrace INSTANCE =
+      new GiraphTrace(false, 0, SystemTime.get());
+
+  /** Whether events are recorded */
+  private final boolean enabled;
+  /** Number of events kept for every thread */
+  private final int eventsPerThread;
+  /** Clock of the events */
+  private final Time time;
+  /** Time the trace was started, in nanoseconds of the clock */
+  private final long startNanos;
+  /** Time the trace was started, in microseconds since the epoch */
+  private final long startEpochMicros;
+  /** Event buffers of all the threads, added while holding its lock */
+  private final List<EventBuffer> buffers =
+      new CopyOnWriteArrayList<EventBuffer>();
+  /** Event buffer of the current thread */
+  private final ThreadLocal<EventBuffer> threadBuffer =
+      new ThreadLocal<EventBuffer>() {
+        @Override
+        protected EventBuffer initialValue() {
+          Thread thread = Thread.currentThread();
+          synchronized (buffers) {
+            for (EventBuffer buffer : buffers) {
+              if (buffer.takeOver(thread)) {
+                return buffer;
+              }
+            }
+            EventBuffer buffer = new EventBuffer(eventsPerThread, thread);
+            buffers.add(buffer);
+            return buffer;
+          }
+        }
+      };
+  /** Thread recording the garbage collections (null if disabled) */
+  private final Thread gcThread;
+
+  /**
+   * Constructor.
+   *
+   * @param enabled Whether events are recorded
+   * @param eventsPerThread Number of events kept for every thread
+   * @param time Clock of the events
+   */
+  GiraphTrace(boolean enabled, int eventsPerThread, Time time) {
+    this.enabled = enabled;
+    this.eventsPerThread = eventsPerThread;
+    this.time = time;
+    startNanos = time.getNanoseconds();
+    startEpochMicros = time.getMilliseconds() * Time.US_PER_MS;
+    if (enabled) {
+      gcThread = new Thread(new GcRecorder(), "trace-gc");
+      gcThread.setDaemon(true);
+      gcThread.start();
+    } else {
+      gcThread = null;
+    }
+  }
+
+  /**
+   * Get singleton instance of GiraphTrace.
+   *
+   * @return GiraphTrace singleton instance
+   */
+  public static GiraphTrace get() {
+    return INSTANCE;
+  }
+
+  /**
+   * Initialize singleton instance of GiraphTrace.
+   *
+   * @param conf Configuration
+   */
+  public static void init(GiraphConfiguration conf) {
+    INSTANCE.stop();
+    INSTANCE = new GiraphTrace(GiraphConstants.TRACE_ENABLED.get(conf),
+        Math.max(1, GiraphConstants.TRACE_EVENTS_PER_THREAD.get(conf)),
+        SystemTime.get());
+  }
+
+  /**
+   * Are events recorded?
+   *
+   * @return True if events are recorded
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Get the start time of an event.
+   *
+   * @return Current time in nanoseconds, 0 if the trace is disabled
+   */
+  public long start() {
+    return enabled ? time.getNanoseconds() : 0;
+  }
+
+  /**
+   * Record an event of the current thread ending now.
+   *
+   * @param category Category of the event
+   * @param name Name of the event
+   * @param eventStartNanos Time the event started, see {@link #start()}
+   */
+  public void complete(String category, String name, long eventStartNanos) {
+    complete(category, name, eventStartNanos, null, 0);
+  }
+
+  /**
+   * Record an event of the current thread ending now, with an argument.
+   *
+   * @param category Category of the event
+   * @param name Name of the event
+   * @param eventStartNanos Time the event started, see {@link #start()}
+   * @param argName Name of the argument
+   * @param argValue Value of the argument
+   */
+  public void complete(String category, String name, long eventStartNanos,
+      String argName, long argValue) {
+    if (!enabled) {
+      return;
+    }
+    threadBuffer.get().add(category, name, eventStartNanos,
+        time.getNanoseconds() - eventStartNanos, argName, argValue);
+  }
+
+  /**
+   * Stop recording the garbage collections.
+   */
+  public void stop() {
+    if (gcThread != null) {
+      gcThread.interrupt();
+    }
+  }
+
+  /**
+   * Write the events in the trace-event format.
+   *
+   * @param outputStream Stream to write to
+   * @param processId Id of the process in the trace
+   * @throws IOException
+   */
+  public void write(OutputStream outputStream, int processId)
+    throws IOException {
+    Writer writer = new BufferedWriter(
+        new OutputStreamWriter(outputStream, Charsets.UTF_8));
+    writer.write("{\"traceEvents\":[\n");
+    writer.write("{\"name\":\"process_name\",\"ph\":\"M\",\"pid\":" +
+        processId + ",\"args\":{\"name\":\"task " + processId + "\"}}");
+    for (EventBuffer buffer : buffers) {
+      buffer.write(writer, processId);
+    }
+    writer.write("\n],\"displayTimeUnit\":\"ms\"}\n");
+    writer.flush();
+  }
+
+  /**
+   * Write the events of this task to the trace directory, if enabled.
+   * Failures are only logged, the trace is not worth failing the job.
+   *
+   * @param conf Configuration
+   */
+  public void writeTaskTrace(GiraphConfiguration conf) {
+    if (!enabled) {
+      return;
+    }
+    stop();
+    Path path = new Path(GiraphConstants.TRACE_DIRECTORY.get(conf) + "/" +
+        conf.get("mapred.job.id", "Unknown Job"),
+        "trace_" + conf.getTaskPartition() + ".json");
+    try {
+      FileSystem fileSystem = path.getFileSystem(conf);
+      OutputStream outputStream = fileSystem.create(path, true);
+      try {
+        write(outputStream, conf.getTaskPartition());
+      } finally {
+        outputStream.close();
+      }
+      if (LOG.isInfoEnabled()) {
+        LOG.info("writeTaskTrace: Wrote the trace to " + path);
+      }
+    } catch (IOException e) {
+      LOG.error("writeTaskTrace: Failed to write the trace to " + path, e);
+    }
+  }
+
+  /**
+   * Ring buffer of the latest events of the threads of a name.  It starts
+   * small, since many threads only record a few events, and grows up to its
+   * capacity.
+   */
+  private class EventBuffer {
+    /** Name of the threads */
+    private final String threadName;
+    /** Id of the first thread, which all the events are shown under */
+    private final long threadId;
+    /** Thread currently recording in this buffer */
+    private Thread owner;
+    /** Maximum number of events kept */
+    private final int capacity;
+    /** Categories of the events */
+    private String[] categories;
+    /** Names of the events */
+    private String[] names;
+    /** Start times of the events */
+    private long[] starts;
+    /** Durations of the events */
+    private long[] durations;
+    /** Names of the event arguments (null if none) */
+    private String[] argNames;
+    /** Values of the event arguments */
+    private long[] argValues;
+    /** Number of events recorded, including the overwritten ones */
+    private long count;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity Maximum number of events kept
+     * @param owner Thread recording in this buffer
+     */
+    EventBuffer(int capacity, Thread owner) {
+      this.capacity = capacity;
+      this.owner = owner;
+      threadName = owner.getName();
+      threadId = owner.getId();
+      resize(Math.min(capacity, INITIAL_EVENTS_PER_THREAD));
+    }
+
+    /**
+     * Let a thread record in this buffer, if the thread that did died and
+     * had the same name.
+     *
+     * @param thread Thread looking for a buffer
+     * @return True if the thread now owns this buffer
+     */
+    synchronized boolean takeOver(Thread thread) {
+      if (owner.isAlive() || !threadName.equals(thread.getName())) {
+        return false;
+      }
+      owner = thread;
+      return true;
+    }
+
+    /**
+     * Resize the buffer, keeping the events.
+     *
+     * @param size New number of events
+     */
+    private void resize(int size) {
+      categories = (categories == null) ? new String[size] :
+          Arrays.copyOf(categories, size);
+      names = (names == null) ? new String[size] : Arrays.copyOf(names, size);
+      starts = (starts == null) ? new long[size] :
+          Arrays.copyOf(starts, size);
+      durations = (durations == null) ? new long[size] :
+          Arrays.copyOf(durations, size);
+      argNames = (argNames == null) ? new String[size] :
+          Arrays.copyOf(argNames, size);
+      argValues = (argValues == null) ? new long[size] :
+          Arrays.copyOf(argValues, size);
+    }
+
+    /**
+     * Add an event, overwriting the oldest one if the buffer is full.
+     *
+     * @param category Category of the event
+     * @param name Name of the event
+     * @param start Start time of the event
+     * @param duration Duration of the event
+     * @param argName Name of the argument (null if none)
+     * @param argValue Value of the argument
+     */
+    synchronized void add(String category, String name, long start,
+        long duration, String argName, long argValue) {
+      if (count == categories.length && count < capacity) {
+        // Only grows before the first event is overwritten
+        resize((int) Math.min(capacity, count * 2));
+      }
+      int index = (int) (count % categories.length);
+      categories[index] = category;
+      names[index] = name;
+      starts[index] = start;
+      durations[index] = duration;
+      argNames[index] = argName;
+      argValues[index] = argValue;
+      ++count;
+    }
+
+    /**
+     * Write the events, oldest first.
+     *
+     * @param writer Writer to write to
+     * @param processId Id of the process in the trace
+     * @throws IOException
+     */
+    synchronized void write(Writer writer, int processId)
+      throws IOException {
+      writer.write(",\n{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":" +
+          processId + ",\"tid\":" + threadId + ",\"args\":{\"name\":" +
+          JSONObject.quote(threadName) + "}}");
+      long first = Math.max(0, count - categories.length);
+      for (long i = first; i < count; ++i) {
+        int index = (int) (i % categories.length);
+        writer.write(",\n{\"cat\":\"" + categories[index] +
+            "\",\"name\":" + JSONObject.quote(names[index]) +
+            ",\"ph\":\"X\",\"pid\":" + processId + ",\"tid\":" + threadId +
+            ",\"ts\":" + (startEpochMicros +
+                (starts[index] - startNanos) / Time.NS_PER_US) +
+            ",\"dur\":" + durations[index] / Time.NS_PER_US);
+        if (argNames[index] != null) {
+          writer.write(",\"args\":{\"" + argNames[index] + "\":" +
+              argValues[index] + "}");
+        }
+        writer.write("}");
+      }
+    }
+  }
+
+  /**
+   * Records the time spent in garbage collection by polling the collectors,
+   * as one event per poll interval in which a collector ran.
+   */
+  private class GcRecorder implements Runnable {
+    @Override
+    public void run() {
+      List<GarbageCollectorMXBean> collectors =
+          ManagementFactory.getGarbageCollectorMXBeans();
+      long[] collectionMs = new long[collectors.size()];
+      for (int i = 0; i < collectors.size(); ++i) {
+        collectionMs[i] = collectors.get(i).getCollectionTime();
+      }
+      while (!Thread.currentThread().isInterrupted()) {
+        try {
+          Thread.sleep(GC_POLL_MS);
+        } catch (InterruptedException e) {
+          return;
+        }
+        long now = time.getNanoseconds();
+        for (int i = 0; i < collectors.size(); ++i) {
+          long currentMs = collectors.get(i).getCollectionTime();
+          if (currentMs > collectionMs[i]) {
+            // Only the duration is known, the pause ended before now
+            long durationNanos = (currentMs - collectionMs[i]) * Time.NS_PER_MS;
+            threadBuffer.get().add(GC, collectors.get(i).getName(),
+                now - durationNanos, durationNanos, null, 0);
+            collectionMs[i] = currentMs;
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.metrics;
+
+import org.apache.giraph.conf.GiraphConstants;
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.time.Time;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableUtils;
+
+import java.util.PriorityQueue;
+
+/**
+ * Finds the expensive vertices computed by one thread in a superstep.
+ * The compute time and the number of messages sent are known for every
+ * computed vertex, so the top vertices are kept exactly.  Messages are
+ * counted by destination on the sender side, where a destination is seen
+ * many times, so receivers are estimated from one in every sampleRate
+ * messages with a {@link SpaceSavingSketch}.  Not thread-safe.
+ *
+ * @param <I> Vertex id
+ */
+public class HotVertexSampler<I extends WritableComparable> {
+  /** Number of vertices kept in every list */
+  private final int topN;
+  /** One in this many sent messages is counted */
+  private final int sampleRate;
+  /** Slowest vertices, smallest compute time first */
+  private final PriorityQueue<VertexValue> slowest;
+  /** Top senders, smallest number of messages first */
+  private final PriorityQueue<VertexValue> senders;
+  /** Top receivers of the sampled messages */
+  private final SpaceSavingSketch<I> receivers;
+  /** Messages sent since the last sampled message */
+  private int messagesSinceSample = 0;
+  /** Messages sent by the vertex being computed */
+  private long vertexMessagesSent = 0;
+
+  /**
+   * Constructor.
+   *
+   * @param conf Configuration
+   */
+  public HotVertexSampler(
+      final ImmutableClassesGiraphConfiguration<I, ?, ?, ?> conf) {
+    topN = GiraphConstants.HOT_VERTICES_TOP_N.get(conf);
+    sampleRate =
+        Math.max(1, GiraphConstants.HOT_VERTICES_SAMPLE_RATE.get(conf));
+    slowest = new PriorityQueue<VertexValue>(topN + 1);
+    senders = new PriorityQueue<VertexValue>(topN + 1);
+    // More counters than reported items make the top estimates accurate
+    receivers = new SpaceSavingSketch<I>(4 * topN) {
+      @Override
+      protected I copyItem(I item) {
+        return WritableUtils.clone(item, conf);
+      }
+    };
+  }
+
+  /**
+   * Should the hot vertices be sampled?
+   *
+   * @param conf Configuration
+   * @return True if metrics are enabled and vertices are reported
+   */
+  public static boolean isEnabled(
+      ImmutableClassesGiraphConfiguration<?, ?, ?, ?> conf) {
+    return conf.metricsEnabled() &&
+        GiraphConstants.HOT_VERTICES_TOP_N.get(conf) > 0;
+  }
+
+  /**
+   * Record the computation of a vertex.  The messages sent since the
+   * previous computed vertex are attributed to this one.
+   *
+   * @param id Vertex id
+   * @param computeNanos Time spent in compute()
+   */
+  public void vertexComputed(I id, long computeNanos) {
+    addIfTop(slowest, id, computeNanos);
+    if (vertexMessagesSent > 0) {
+      addIfTop(senders, id, vertexMessagesSent);
+      vertexMessagesSent = 0;
+    }
+  }
+
+  /**
+   * Record a message sent by the vertex being computed.
+   *
+   * @param destinationId Destination vertex id
+   */
+  public void messageSent(I destinationId) {
+    ++vertexMessagesSent;
+    if (++messagesSinceSample >= sampleRate) {
+      messagesSinceSample = 0;
+      receivers.offer(destinationId, sampleRate);
+    }
+  }
+
+  /**
+   * Add the sampled vertices to a report.
+   *
+   * @param hotVertices Report of the worker
+   */
+  public void addTo(HotVertices hotVertices) {
+    HotVertices threadHotVertices = new HotVertices();
+    for (VertexValue vertexValue : slowest) {
+      threadHotVertices.addComputeTime(
+          vertexValue.id, vertexValue.value / Time.NS_PER_US);
+    }
+    for (VertexValue vertexValue : senders) {
+      threadHotVertices.addMessagesSent(vertexValue.id, vertexValue.value);
+    }
+    for (I id : receivers.getTopItems(topN)) {
+      threadHotVertices.addMessagesReceived(
+          id.toString(), receivers.getCount(id));
+    }
+    hotVertices.add(threadHotVertices, topN);
+  }
+
+  /**
+   * Add a vertex to a min-heap of the topN vertices if its value is large
+   * enough.  The id is only converted when the vertex is added.
+   *
+   * @param top Min-heap of the top vertices
+   * @param id Vertex id
+   * @param value Value of the vertex
+   */
+  private void addIfTop(PriorityQueue<VertexValue> top, I id, long value) {
+    if (top.size() < topN) {
+      top.add(new VertexValue(id.toString(), value));
+    } else if (top.peek().value < value) {
+      top.poll();
+      top.add(new VertexValue(id.toString(), value));
+    }
+  }
+
+  /**
+   * Vertex id with a value, ordered by value.
+   */
+  private static class VertexValue implements Comparable<VertexValue> {
+    /** Vertex id */
+    private final String id;
+    /** Value of the vertex */
+    private final long value;
+
+    /**
+     * Constructor.
+     *
+     * @param id Vertex id
+     * @param value Value of the vertex
+     */
+    VertexValue(String id, long value) {
+      this.id = id;
+      this.value = value;
+    }
+
+    @Override
+    public int compareTo(VertexValue other) {
+      return (value < other.value) ? -1 : ((value == other.value) ? 0 : 1);
+    }
+  }
+}
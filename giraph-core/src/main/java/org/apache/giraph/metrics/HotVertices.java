@@ -0,0 +1,280 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.metrics;
+
+import org.apache.hadoop.io.Writable;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Report of the most expensive vertices of a superstep: the vertices with
+ * the slowest compute() calls, the vertices sending the most messages and
+ * the vertices receiving the most messages.  Reports of the compute
+ * threads and of the workers are merged by adding the values of the same
+ * vertex, and only the top entries are kept.  Vertex ids are kept as
+ * strings since the master does not know the vertex id class.
+ */
+public class HotVertices implements Writable {
+  /** Number of vertices kept in every list */
+  private int topN;
+  /** Compute time in microseconds of the slowest vertices */
+  private final Map<String, Long> slowest = Maps.newHashMap();
+  /** Number of messages sent by the top senders */
+  private final Map<String, Long> senders = Maps.newHashMap();
+  /** (Estimated) number of messages received by the top receivers */
+  private final Map<String, Long> receivers = Maps.newHashMap();
+
+  /**
+   * Add the compute time of a vertex.
+   *
+   * @param id Vertex id
+   * @param computeMicros Compute time in microseconds
+   */
+  public synchronized void addComputeTime(String id, long computeMicros) {
+    addValue(slowest, id, computeMicros);
+  }
+
+  /**
+   * Add the number of messages sent by a vertex.
+   *
+   * @param id Vertex id
+   * @param messages Number of messages sent
+   */
+  public synchronized void addMessagesSent(String id, long messages) {
+    addValue(senders, id, messages);
+  }
+
+  /**
+   * Add the number of messages received by a vertex.
+   *
+   * @param id Vertex id
+   * @param messages Number of messages received
+   */
+  public synchronized void addMessagesReceived(String id, long messages) {
+    addValue(receivers, id, messages);
+  }
+
+  /**
+   * Merge another report into this one, keeping the top entries.
+   *
+   * @param other Report to merge
+   * @param maxVertices Number of vertices kept in every list
+   */
+  public synchronized void add(HotVertices other, int maxVertices) {
+    topN = Math.max(topN, maxVertices);
+    synchronized (other) {
+      topN = Math.max(topN, other.topN);
+      addValues(slowest, other.slowest);
+      addValues(senders, other.senders);
+      addValues(receivers, other.receivers);
+    }
+    trim(slowest);
+    trim(senders);
+    trim(receivers);
+  }
+
+  /**
+   * Is there anything to report?
+   *
+   * @return True if no vertex was added
+   */
+  public synchronized boolean isEmpty() {
+    return slowest.isEmpty() && senders.isEmpty() && receivers.isEmpty();
+  }
+
+  /**
+   * Get the slowest vertices.
+   *
+   * @return Vertex ids and compute times in microseconds, slowest first
+   */
+  public synchronized List<Map.Entry<String, Long>> getSlowest() {
+    return sortedEntries(slowest);
+  }
+
+  /**
+   * Get the vertices sending the most messages.
+   *
+   * @return Vertex ids and messages sent, largest first
+   */
+  public synchronized List<Map.Entry<String, Long>> getTopSenders() {
+    return sortedEntries(senders);
+  }
+
+  /**
+   * Get the vertices receiving the most messages.
+   *
+   * @return Vertex ids and estimated messages received, largest first
+   */
+  public synchronized List<Map.Entry<String, Long>> getTopReceivers() {
+    return sortedEntries(receivers);
+  }
+
+  /**
+   * Human readable dump of the report.
+   *
+   * @param out PrintStream to write to
+   */
+  public synchronized void print(PrintStream out) {
+    printEntries(out, "slowest vertices", "us", slowest);
+    printEntries(out, "top message senders", "messages", senders);
+    printEntries(out, "top message receivers (sampled)", "messages",
+        receivers);
+  }
+
+  /**
+   * Print one list of the report.
+   *
+   * @param out PrintStream to write to
+   * @param header Name of the list
+   * @param unit Unit of the values
+   * @param values Values of the vertices
+   */
+  private static void printEntries(PrintStream out, String header,
+      String unit, Map<String, Long> values) {
+    if (values.isEmpty()) {
+      return;
+    }
+    out.println("  " + header + ":");
+    for (Map.Entry<String, Long> entry : sortedEntries(values)) {
+      out.println("    " + entry.getKey() + ": " + entry.getValue() + " " +
+          unit);
+    }
+  }
+
+  /**
+   * Add a value to the value of a vertex.
+   *
+   * @param values Values of the vertices
+   * @param id Vertex id
+   * @param value Value to add
+   */
+  private static void addValue(Map<String, Long> values, String id,
+      long value) {
+    Long current = values.get(id);
+    values.put(id, (current == null) ? value : current + value);
+  }
+
+  /**
+   * Add all the values of other vertices.
+   *
+   * @param values Values to add to
+   * @param otherValues Values to add
+   */
+  private static void addValues(Map<String, Long> values,
+      Map<String, Long> otherValues) {
+    for (Map.Entry<String, Long> entry : otherValues.entrySet()) {
+      addValue(values, entry.getKey(), entry.getValue());
+    }
+  }
+
+  /**
+   * Only keep the topN largest values.
+   *
+   * @param values Values of the vertices
+   */
+  private void trim(Map<String, Long> values) {
+    if (values.size() <= topN) {
+      return;
+    }
+    List<Map.Entry<String, Long>> entries = sortedEntries(values);
+    for (Map.Entry<String, Long> entry :
+        entries.subList(topN, entries.size())) {
+      values.remove(entry.getKey());
+    }
+  }
+
+  /**
+   * Get the entries ordered by decreasing value.
+   *
+   * @param values Values of the vertices
+   * @return Sorted copy of the entries
+   */
+  private static List<Map.Entry<String, Long>> sortedEntries(
+      Map<String, Long> values) {
+    List<Map.Entry<String, Long>> entries =
+        Lists.newArrayList(Maps.newHashMap(values).entrySet());
+    Collections.sort(entries, new Comparator<Map.Entry<String, Long>>() {
+      @Override
+      public int compare(Map.Entry<String, Long> first,
+          Map.Entry<String, Long> second) {
+        return second.getValue().compareTo(first.getValue());
+      }
+    });
+    return entries;
+  }
+
+  @Override
+  public synchronized void write(DataOutput output) throws IOException {
+    output.writeInt(topN);
+    writeValues(output, slowest);
+    writeValues(output, senders);
+    writeValues(output, receivers);
+  }
+
+  /**
+   * Write the values of the vertices.
+   *
+   * @param output Output to write to
+   * @param values Values of the vertices
+   * @throws IOException
+   */
+  private static void writeValues(DataOutput output, Map<String, Long> values)
+    throws IOException {
+    output.writeInt(values.size());
+    for (Map.Entry<String, Long> entry : values.entrySet()) {
+      output.writeUTF(entry.getKey());
+      output.writeLong(entry.getValue());
+    }
+  }
+
+  @Override
+  public synchronized void readFields(DataInput input) throws IOException {
+    topN = input.readInt();
+    readValues(input, slowest);
+    readValues(input, senders);
+    readValues(input, receivers);
+  }
+
+  /**
+   * Read the values of the vertices.
+   *
+   * @param input Input to read from
+   * @param values Map to fill in
+   * @throws IOException
+   */
+  private static void readValues(DataInput input, Map<String, Long> values)
+    throws IOException {
+    values.clear();
+    int size = input.readInt();
+    for (int i = 0; i < size; ++i) {
+      String id = input.readUTF();
+      values.put(id, input.readLong());
+    }
+  }
+}
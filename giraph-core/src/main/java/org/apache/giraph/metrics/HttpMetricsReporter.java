@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.metrics;
+
+import org.apache.giraph.conf.GiraphConfiguration;
+import org.apache.giraph.conf.GiraphConstants;
+import org.apache.log4j.Logger;
+import org.jboss.netty.bootstrap.ServerBootstrap;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelException;
+import org.jboss.netty.channel.ChannelFutureListener;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.channel.ChannelPipelineFactory;
+import org.jboss.netty.channel.Channels;
+import org.jboss.netty.channel.ExceptionEvent;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.SimpleChannelUpstreamHandler;
+import org.jboss.netty.channel.socket.nio.NioServerSocketChannelFactory;
+import org.jboss.netty.handler.codec.http.DefaultHttpResponse;
+import org.jboss.netty.handler.codec.http.HttpHeaders;
+import org.jboss.netty.handler.codec.http.HttpRequest;
+import org.jboss.netty.handler.codec.http.HttpRequestDecoder;
+import org.jboss.netty.handler.codec.http.HttpResponse;
+import org.jboss.netty.handler.codec.http.HttpResponseEncoder;
+import org.jboss.netty.handler.codec.http.HttpResponseStatus;
+import org.jboss.netty.handler.codec.http.HttpVersion;
+
+import com.google.common.base.Charsets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves the metrics over HTTP in the Prometheus text exposition format
+ * (see {@link MetricsTextFormat}) at /metrics, on port
+ * giraph.metrics.http.initialPort + task partition.  The metrics are read
+ * on every request, so they are updated during the superstep.  If the
+ * port cannot be bound, the task runs without the endpoint.
+ */
+public class HttpMetricsReporter implements GiraphMetricsReporter {
+  /** Path of the metrics */
+  public static final String METRICS_PATH = "/metrics";
+  /** Content type of the text exposition format */
+  private static final String CONTENT_TYPE = "text/plain; version=0.0.4";
+  /** Class logger */
+  private static final Logger LOG =
+      Logger.getLogger(HttpMetricsReporter.class);
+  /** Server bootstrap (null if not started) */
+  private ServerBootstrap bootstrap;
+  /** Server channel (null if not bound) */
+  private Channel serverChannel;
+
+  @Override
+  public void start(GiraphConfiguration conf) {
+    int port = GiraphConstants.METRICS_HTTP_INITIAL_PORT.get(conf) +
+        conf.getTaskPartition();
+    bootstrap = new ServerBootstrap(new NioServerSocketChannelFactory(
+        Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+            .setNameFormat("metrics-http-boss-%d").setDaemon(true).build()),
+        Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+            .setNameFormat("metrics-http-worker-%d").setDaemon(true).build()),
+        1));
+    bootstrap.setPipelineFactory(new ChannelPipelineFactory() {
+      @Override
+      public ChannelPipeline getPipeline() {
+        return Channels.pipeline(new HttpRequestDecoder(),
+            new HttpResponseEncoder(), new MetricsHandler());
+      }
+    });
+    try {
+      serverChannel = bootstrap.bind(new InetSocketAddress(port));
+      if (LOG.isInfoEnabled()) {
+        LOG.info("start: Serving metrics on port " + port + METRICS_PATH);
+      }
+    } catch (ChannelException e) {
+      LOG.warn("start: Failed to bind port " + port +
+          ", metrics are not served over HTTP", e);
+      bootstrap.releaseExternalResources();
+      bootstrap = null;
+    }
+  }
+
+  /**
+   * Get the port the metrics are served on.
+   *
+   * @return Port, -1 if not serving
+   */
+  public int getPort() {
+    return (serverChannel == null) ? -1 :
+        ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+  }
+
+  @Override
+  public void stop() {
+    if (serverChannel != null) {
+      serverChannel.close().awaitUninterruptibly();
+      serverChannel = null;
+    }
+    if (bootstrap != null) {
+      bootstrap.releaseExternalResources();
+      bootstrap = null;
+    }
+  }
+
+  /**
+   * Answers every request with the current metrics.
+   */
+  private static class MetricsHandler extends SimpleChannelUpstreamHandler {
+    @Override
+    public void messageReceived(ChannelHandlerContext ctx, MessageEvent e)
+      throws IOException {
+      HttpRequest request = (HttpRequest) e.getMessage();
+      HttpResponse response;
+      if (request.getUri().equals(METRICS_PATH) ||
+          request.getUri().startsWith(METRICS_PATH + "?")) {
+        StringWriter writer = new StringWriter();
+        MetricsTextFormat.write(GiraphMetrics.get(), writer);
+        response = new DefaultHttpResponse(
+            HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        response.setHeader(HttpHeaders.Names.CONTENT_TYPE, CONTENT_TYPE);
+        response.setContent(ChannelBuffers.copiedBuffer(
+            writer.toString(), Charsets.UTF_8));
+      } else {
+        response = new DefaultHttpResponse(
+            HttpVersion.HTTP_1_1, HttpResponseStatus.NOT_FOUND);
+      }
+      HttpHeaders.setContentLength(response,
+          response.getContent().readableBytes());
+      e.getChannel().write(response).addListener(ChannelFutureListener.CLOSE);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, ExceptionEvent e) {
+      LOG.warn("exceptionCaught: Failed to serve metrics", e.getCause());
+      e.getChannel().close();
+    }
+  }
+}
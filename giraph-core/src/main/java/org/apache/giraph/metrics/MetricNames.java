@@ -68,9 +68,18 @@ public interface MetricNames {
   /** Counter of messages sent in superstep */
   String MESSAGES_SENT = "messages-sent";
 
+  /** Counter of partitions migrated by the master for the superstep */
+  String PARTITIONS_MIGRATED = "partitions-migrated";
+  /** Counter of milliseconds the migrated partitions should save */
+  String PREDICTED_MIGRATION_GAIN_MS = "predicted-migration-gain-ms";
+
   /** Histogram for vertices in mutations requests */
   String VERTICES_IN_MUTATION_REQUEST = "vertices-per-mutations-request";
 
+  /** Histogram for bytes in bulk edge mutations requests */
+  String BYTES_IN_EDGE_MUTATIONS_REQUEST =
+      "bytes-per-edge-mutations-request";
+
   /** Number of bytes sent in superstep */
   String SENT_BYTES = "sent-bytes";
   /** Number of bytes received in superstep */
@@ -78,4 +87,7 @@ public interface MetricNames {
 
   /** PercentGauge of memory free */
   String MEMORY_FREE_PERCENT = "memory-free-pct";
+
+  /** Gauge of requests sent and not acknowledged yet */
+  String OPEN_REQUESTS = "open-requests";
 }
@@ -0,0 +1,295 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.metrics;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.yammer.metrics.core.Counter;
+import com.yammer.metrics.core.Gauge;
+import com.yammer.metrics.core.Histogram;
+import com.yammer.metrics.core.Metered;
+import com.yammer.metrics.core.Metric;
+import com.yammer.metrics.core.MetricName;
+import com.yammer.metrics.core.MetricProcessor;
+import com.yammer.metrics.core.Sampling;
+import com.yammer.metrics.core.Summarizable;
+import com.yammer.metrics.core.Timer;
+import com.yammer.metrics.stats.Snapshot;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Writes the Giraph metrics registries in the Prometheus text exposition
+ * format.  Every metric becomes a family named giraph_&lt;metric name&gt;
+ * with the group and type (job or superstep number) of the metric as
+ * labels.  Only the metrics of the current superstep are written from the
+ * per-superstep registry.  Histograms and timers are written as summaries,
+ * meters as a count and rates.
+ */
+public class MetricsTextFormat {
+  /** Quantiles written for histograms and timers */
+  private static final double[] QUANTILES = {0.5, 0.75, 0.95, 0.99, 0.999};
+
+  /** Do not instantiate. */
+  private MetricsTextFormat() { }
+
+  /**
+   * Write all the metrics of the registries.
+   *
+   * @param metrics Registries to write
+   * @param writer Writer to write to
+   * @throws IOException
+   */
+  public static void write(GiraphMetrics metrics, Writer writer)
+    throws IOException {
+    SortedMap<String, Family> families = Maps.newTreeMap();
+    addRegistry(metrics.perJobRequired(), null, families);
+    addRegistry(metrics.perJobOptional(), null, families);
+    SuperstepMetricsRegistry perSuperstep = metrics.perSuperstep();
+    addRegistry(perSuperstep, perSuperstep.getType(), families);
+    for (Map.Entry<String, Family> entry : families.entrySet()) {
+      writer.write("# TYPE " + entry.getKey() + " " +
+          entry.getValue().type + "\n");
+      for (String sample : entry.getValue().samples) {
+        writer.write(sample);
+      }
+    }
+    writer.flush();
+  }
+
+  /**
+   * Add the samples of all the metrics of a registry.
+   *
+   * @param registry Registry
+   * @param type Only add the metrics of this type (null for all)
+   * @param families Families to add the samples to
+   */
+  private static void addRegistry(GiraphMetricsRegistry registry,
+      String type, SortedMap<String, Family> families) {
+    SampleWriter sampleWriter = new SampleWriter();
+    for (Map.Entry<MetricName, Metric> entry : registry.getAll().entrySet()) {
+      if (type != null && !type.equals(entry.getKey().getType())) {
+        continue;
+      }
+      try {
+        entry.getValue().processWith(sampleWriter, entry.getKey(), families);
+        // CHECKSTYLE: stop IllegalCatch
+      } catch (Exception e) {
+        // CHECKSTYLE: resume IllegalCatch
+        // processWith() declares Exception but the writer does not throw
+        throw new IllegalStateException("addRegistry: Failed on " +
+            entry.getKey(), e);
+      }
+    }
+  }
+
+  /**
+   * Convert a metric name to a family name.
+   *
+   * @param name Metric name
+   * @return Family name with only the allowed characters
+   */
+  static String familyName(MetricName name) {
+    return "giraph_" + name.getName().replaceAll("[^a-zA-Z0-9_]", "_");
+  }
+
+  /**
+   * Get the labels of a metric.
+   *
+   * @param name Metric name
+   * @param extraLabel Additional label (e.g. quantile), null if none
+   * @return Labels including the braces
+   */
+  private static String labels(MetricName name, String extraLabel) {
+    StringBuilder labels = new StringBuilder("{group=\"")
+        .append(escape(name.getGroup())).append("\",type=\"")
+        .append(escape(name.getType())).append('"');
+    if (extraLabel != null) {
+      labels.append(',').append(extraLabel);
+    }
+    return labels.append('}').toString();
+  }
+
+  /**
+   * Escape a label value.
+   *
+   * @param value Label value
+   * @return Escaped value
+   */
+  private static String escape(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"")
+        .replace("\n", "\\n");
+  }
+
+  /**
+   * Format a sample value.
+   *
+   * @param value Value
+   * @return Value in the exposition format
+   */
+  private static String format(double value) {
+    if (Double.isNaN(value)) {
+      return "NaN";
+    } else if (Double.isInfinite(value)) {
+      return value > 0 ? "+Inf" : "-Inf";
+    } else {
+      return Double.toString(value);
+    }
+  }
+
+  /**
+   * Add a sample to a family.
+   *
+   * @param families All the families
+   * @param family Family name
+   * @param type Family type
+   * @param sample Sample name and labels
+   * @param value Sample value
+   */
+  private static void addSample(SortedMap<String, Family> families,
+      String family, String type, String sample, double value) {
+    Family samples = families.get(family);
+    if (samples == null) {
+      samples = new Family(type);
+      families.put(family, samples);
+    }
+    samples.samples.add(sample + " " + format(value) + "\n");
+  }
+
+  /**
+   * Samples of a metric family.
+   */
+  private static class Family {
+    /** Family type */
+    private final String type;
+    /** Sample lines */
+    private final List<String> samples = Lists.newArrayList();
+
+    /**
+     * Constructor.
+     *
+     * @param type Family type
+     */
+    Family(String type) {
+      this.type = type;
+    }
+  }
+
+  /**
+   * Converts every kind of metric to samples.
+   */
+  private static class SampleWriter
+      implements MetricProcessor<SortedMap<String, Family>> {
+    @Override
+    public void processMeter(MetricName name, Metered meter,
+        SortedMap<String, Family> families) {
+      String family = familyName(name) + "_count";
+      addSample(families, family, "untyped", family + labels(name, null),
+          meter.count());
+      addRates(name, meter, families);
+    }
+
+    @Override
+    public void processCounter(MetricName name, Counter counter,
+        SortedMap<String, Family> families) {
+      String family = familyName(name);
+      addSample(families, family, "untyped", family + labels(name, null),
+          counter.count());
+    }
+
+    @Override
+    public void processHistogram(MetricName name, Histogram histogram,
+        SortedMap<String, Family> families) {
+      addSummary(familyName(name), name, histogram, histogram,
+          histogram.count(), families);
+    }
+
+    @Override
+    public void processTimer(MetricName name, Timer timer,
+        SortedMap<String, Family> families) {
+      String family = familyName(name) + "_" +
+          timer.durationUnit().toString().toLowerCase(Locale.ENGLISH);
+      addSummary(family, name, timer, timer, timer.count(), families);
+      addRates(name, timer, families);
+    }
+
+    @Override
+    public void processGauge(MetricName name, Gauge<?> gauge,
+        SortedMap<String, Family> families) {
+      String family = familyName(name);
+      Object value = gauge.value();
+      if (value instanceof Number) {
+        addSample(families, family, "gauge", family + labels(name, null),
+            ((Number) value).doubleValue());
+      } else if (value instanceof Boolean) {
+        addSample(families, family, "gauge", family + labels(name, null),
+            ((Boolean) value) ? 1 : 0);
+      }
+    }
+
+    /**
+     * Add the rates of a meter.
+     *
+     * @param name Metric name
+     * @param meter Meter
+     * @param families Families to add the samples to
+     */
+    private void addRates(MetricName name, Metered meter,
+        SortedMap<String, Family> families) {
+      String family = familyName(name) + "_per_" +
+          meter.rateUnit().toString().toLowerCase(Locale.ENGLISH);
+      addSample(families, family, "gauge",
+          family + labels(name, "window=\"mean\""), meter.meanRate());
+      addSample(families, family, "gauge",
+          family + labels(name, "window=\"1m\""), meter.oneMinuteRate());
+      addSample(families, family, "gauge",
+          family + labels(name, "window=\"5m\""), meter.fiveMinuteRate());
+    }
+
+    /**
+     * Add a summary of sampled values.
+     *
+     * @param family Family name
+     * @param name Metric name
+     * @param sampling Sampled values
+     * @param summary Summary of all values
+     * @param count Number of values
+     * @param families Families to add the samples to
+     */
+    private void addSummary(String family, MetricName name,
+        Sampling sampling, Summarizable summary, long count,
+        SortedMap<String, Family> families) {
+      Snapshot snapshot = sampling.getSnapshot();
+      for (double quantile : QUANTILES) {
+        addSample(families, family, "summary",
+            family + labels(name, "quantile=\"" + quantile + "\""),
+            snapshot.getValue(quantile));
+      }
+      addSample(families, family, "summary",
+          family + "_sum" + labels(name, null), summary.sum());
+      addSample(families, family, "summary",
+          family + "_count" + labels(name, null), count);
+    }
+  }
+}
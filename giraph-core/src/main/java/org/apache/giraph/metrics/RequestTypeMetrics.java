@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.metrics;
+
+import org.apache.giraph.comm.requests.RequestType;
+import org.apache.giraph.time.Time;
+import org.apache.hadoop.io.Writable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Network and serialization accounting of a superstep for every
+ * {@link RequestType}: requests and bytes sent and received, time spent
+ * encoding, writing, decoding and processing the requests.  Updated
+ * concurrently by the netty handlers, and summed over the workers by the
+ * master.
+ */
+public class RequestTypeMetrics implements Writable {
+  /**
+   * What is accounted for every request type.
+   */
+  public enum Stat {
+    /** Requests sent */
+    SENT_REQUESTS,
+    /** Encoded bytes sent */
+    SENT_BYTES,
+    /** Time serializing the requests sent */
+    ENCODE_NANOS,
+    /**
+     * Time from the write of a request until it is on the socket,
+     * including encoding and queuing
+     */
+    WRITE_NANOS,
+    /** Requests received */
+    RECEIVED_REQUESTS,
+    /** Encoded bytes received */
+    RECEIVED_BYTES,
+    /** Time deserializing the requests received */
+    DECODE_NANOS,
+    /** Time processing the requests received on the server */
+    PROCESS_NANOS
+  }
+
+  /** Number of stats per request type */
+  private static final int NUM_STATS = Stat.values().length;
+  /** Request types */
+  private static final RequestType[] TYPES = RequestType.values();
+
+  /** Stats, indexed by request type ordinal * NUM_STATS + stat ordinal */
+  private final AtomicLongArray stats =
+      new AtomicLongArray(TYPES.length * NUM_STATS);
+
+  /**
+   * Add to a stat of a request type.
+   *
+   * @param type Request type
+   * @param stat Stat
+   * @param value Value to add
+   */
+  private void add(RequestType type, Stat stat, long value) {
+    stats.addAndGet(type.ordinal() * NUM_STATS + stat.ordinal(), value);
+  }
+
+  /**
+   * Get a stat of a request type.
+   *
+   * @param type Request type
+   * @param stat Stat
+   * @return Value of the stat
+   */
+  public long get(RequestType type, Stat stat) {
+    return stats.get(type.ordinal() * NUM_STATS + stat.ordinal());
+  }
+
+  /**
+   * Account for an encoded request.
+   *
+   * @param type Request type
+   * @param bytes Encoded size
+   * @param encodeNanos Time spent encoding
+   */
+  public void requestEncoded(RequestType type, int bytes, long encodeNanos) {
+    add(type, Stat.SENT_REQUESTS, 1);
+    add(type, Stat.SENT_BYTES, bytes);
+    add(type, Stat.ENCODE_NANOS, encodeNanos);
+  }
+
+  /**
+   * Account for a request written to the socket.
+   *
+   * @param type Request type
+   * @param writeNanos Time from the write until it was written
+   */
+  public void requestWritten(RequestType type, long writeNanos) {
+    add(type, Stat.WRITE_NANOS, writeNanos);
+  }
+
+  /**
+   * Account for a decoded request.
+   *
+   * @param type Request type
+   * @param bytes Encoded size
+   * @param decodeNanos Time spent decoding
+   */
+  public void requestDecoded(RequestType type, int bytes, long decodeNanos) {
+    add(type, Stat.RECEIVED_REQUESTS, 1);
+    add(type, Stat.RECEIVED_BYTES, bytes);
+    add(type, Stat.DECODE_NANOS, decodeNanos);
+  }
+
+  /**
+   * Account for a processed request.
+   *
+   * @param type Request type
+   * @param processNanos Time spent processing
+   */
+  public void requestProcessed(RequestType type, long processNanos) {
+    add(type, Stat.PROCESS_NANOS, processNanos);
+  }
+
+  /**
+   * Add all the stats of other metrics (e.g. of another worker).
+   *
+   * @param other Metrics to add
+   */
+  public void add(RequestTypeMetrics other) {
+    for (int i = 0; i < stats.length(); ++i) {
+      stats.addAndGet(i, other.stats.get(i));
+    }
+  }
+
+  /**
+   * Human readable dump of the request types used.
+   *
+   * @param out PrintStream to write to
+   */
+  public void print(PrintStream out) {
+    boolean printedHeader = false;
+    for (RequestType type : TYPES) {
+      long sent = get(type, Stat.SENT_REQUESTS);
+      long received = get(type, Stat.RECEIVED_REQUESTS);
+      if (sent == 0 && received == 0) {
+        continue;
+      }
+      if (!printedHeader) {
+        out.println("  requests by type:");
+        printedHeader = true;
+      }
+      out.println("    " + type + ":");
+      if (sent > 0) {
+        out.println("      sent " + sent + " requests, " +
+            get(type, Stat.SENT_BYTES) + " bytes, encode " +
+            get(type, Stat.ENCODE_NANOS) / Time.NS_PER_US + " us, write " +
+            get(type, Stat.WRITE_NANOS) / Time.NS_PER_US + " us");
+      }
+      if (received > 0) {
+        out.println("      received " + received + " requests, " +
+            get(type, Stat.RECEIVED_BYTES) + " bytes, decode " +
+            get(type, Stat.DECODE_NANOS) / Time.NS_PER_US + " us, process " +
+            get(type, Stat.PROCESS_NANOS) / Time.NS_PER_US + " us");
+      }
+    }
+  }
+
+  @Override
+  public void write(DataOutput output) throws IOException {
+    // The handlers keep updating the stats, so the count of the used types
+    // and the types written have to come from the same values
+    long[] snapshot = new long[stats.length()];
+    for (int i = 0; i < snapshot.length; ++i) {
+      snapshot[i] = stats.get(i);
+    }
+    int usedTypes = 0;
+    for (RequestType type : TYPES) {
+      if (isUsed(snapshot, type)) {
+        ++usedTypes;
+      }
+    }
+    output.writeInt(usedTypes);
+    for (RequestType type : TYPES) {
+      if (isUsed(snapshot, type)) {
+        output.writeByte(type.ordinal());
+        for (int stat = 0; stat < NUM_STATS; ++stat) {
+          output.writeLong(snapshot[type.ordinal() * NUM_STATS + stat]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Was a request type sent or received?
+   *
+   * @param snapshot Values of the stats
+   * @param type Request type
+   * @return True if any stat is not 0
+   */
+  private static boolean isUsed(long[] snapshot, RequestType type) {
+    for (int stat = 0; stat < NUM_STATS; ++stat) {
+      if (snapshot[type.ordinal() * NUM_STATS + stat] != 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public void readFields(DataInput input) throws IOException {
+    for (int i = 0; i < stats.length(); ++i) {
+      stats.set(i, 0);
+    }
+    int usedTypes = input.readInt();
+    for (int i = 0; i < usedTypes; ++i) {
+      RequestType type = TYPES[input.readByte()];
+      for (Stat stat : Stat.values()) {
+        stats.set(type.ordinal() * NUM_STATS + stat.ordinal(),
+            input.readLong());
+      }
+    }
+  }
+}
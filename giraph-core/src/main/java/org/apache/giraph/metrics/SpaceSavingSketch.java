@@ -0,0 +1,237 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.metrics;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-saving sketch (Metwally et al.) keeping the approximate top items
+ * of a weighted stream with a fixed number of counters.  When all the
+ * counters are used, a new item replaces the item with the smallest count
+ * and inherits its count, which is an upper bound of the overestimation.
+ * The counters are kept in a min-heap so every update is logarithmic.
+ * Not thread-safe.
+ *
+ * @param <T> Item type, must not be modified once offered
+ */
+public class SpaceSavingSketch<T> {
+  /** Maximum number of counted items */
+  private final int capacity;
+  /** Heap position of every counted item */
+  private final Map<T, Integer> positions;
+  /** Counted items, min-heap ordered by count */
+  private final Object[] items;
+  /** Count of every item */
+  private final long[] counts;
+  /** Maximum overestimation of every count */
+  private final long[] errors;
+  /** Number of counted items */
+  private int size;
+
+  /**
+   * Constructor.
+   *
+   * @param capacity Maximum number of counted items
+   */
+  public SpaceSavingSketch(int capacity) {
+    this.capacity = capacity;
+    positions = Maps.newHashMapWithExpectedSize(capacity);
+    items = new Object[capacity];
+    counts = new long[capacity];
+    errors = new long[capacity];
+  }
+
+  /**
+   * Add an occurrence of an item.
+   *
+   * @param item Item to count
+   * @param weight Number of occurrences
+   */
+  public void offer(T item, long weight) {
+    Integer position = positions.get(item);
+    if (position != null) {
+      counts[position] += weight;
+      siftDown(position);
+    } else if (size < capacity) {
+      set(size, copyItem(item), weight, 0);
+      siftUp(size++);
+    } else if (capacity > 0) {
+      // Replace the least counted item
+      long minCount = counts[0];
+      positions.remove(items[0]);
+      set(0, copyItem(item), minCount + weight, minCount);
+      siftDown(0);
+    }
+  }
+
+  /**
+   * Copy an item before it gets counted, for mutable items which are
+   * reused by the caller.
+   *
+   * @param item Item offered
+   * @return Item to keep
+   */
+  protected T copyItem(T item) {
+    return item;
+  }
+
+  /**
+   * Get the number of counted items.
+   *
+   * @return Number of counted items
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Get the (over-estimated) count of an item.
+   *
+   * @param item Item
+   * @return Count of the item, 0 if it is not counted
+   */
+  public long getCount(T item) {
+    Integer position = positions.get(item);
+    return (position == null) ? 0 : counts[position];
+  }
+
+  /**
+   * Get the maximum overestimation of the count of an item.
+   *
+   * @param item Item
+   * @return Maximum overestimation, 0 if it is not counted
+   */
+  public long getError(T item) {
+    Integer position = positions.get(item);
+    return (position == null) ? 0 : errors[position];
+  }
+
+  /**
+   * Get the items with the largest counts.
+   *
+   * @param n Maximum number of items
+   * @return Items ordered by decreasing count
+   */
+  public List<T> getTopItems(int n) {
+    List<Integer> order = Lists.newArrayListWithCapacity(size);
+    for (int i = 0; i < size; ++i) {
+      order.add(i);
+    }
+    Collections.sort(order, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer first, Integer second) {
+        long firstCount = counts[first];
+        long secondCount = counts[second];
+        return (firstCount > secondCount) ? -1 :
+            ((firstCount == secondCount) ? 0 : 1);
+      }
+    });
+    List<T> topItems = Lists.newArrayListWithCapacity(Math.min(n, size));
+    for (int i = 0; i < n && i < size; ++i) {
+      topItems.add(getItem(order.get(i)));
+    }
+    return topItems;
+  }
+
+  /**
+   * Get the item at a heap position.
+   *
+   * @param position Heap position
+   * @return Item
+   */
+  @SuppressWarnings("unchecked")
+  private T getItem(int position) {
+    return (T) items[position];
+  }
+
+  /**
+   * Store a counter at a heap position.
+   *
+   * @param position Heap position
+   * @param item Item
+   * @param count Count of the item
+   * @param error Maximum overestimation of the count
+   */
+  private void set(int position, Object item, long count, long error) {
+    items[position] = item;
+    counts[position] = count;
+    errors[position] = error;
+    positions.put(getItem(position), position);
+  }
+
+  /**
+   * Move a counter up the heap until its parent is not larger.
+   *
+   * @param position Heap position of the counter
+   */
+  private void siftUp(int position) {
+    while (position > 0) {
+      int parent = (position - 1) / 2;
+      if (counts[parent] <= counts[position]) {
+        break;
+      }
+      swap(position, parent);
+      position = parent;
+    }
+  }
+
+  /**
+   * Move a counter down the heap until its children are not smaller.
+   *
+   * @param position Heap position of the counter
+   */
+  private void siftDown(int position) {
+    while (true) {
+      int smallest = position;
+      int left = 2 * position + 1;
+      int right = left + 1;
+      if (left < size && counts[left] < counts[smallest]) {
+        smallest = left;
+      }
+      if (right < size && counts[right] < counts[smallest]) {
+        smallest = right;
+      }
+      if (smallest == position) {
+        break;
+      }
+      swap(position, smallest);
+      position = smallest;
+    }
+  }
+
+  /**
+   * Swap two counters of the heap.
+   *
+   * @param first Heap position of the first counter
+   * @param second Heap position of the second counter
+   */
+  private void swap(int first, int second) {
+    Object item = items[first];
+    long count = counts[first];
+    long error = errors[first];
+    set(first, items[second], counts[second], errors[second]);
+    set(second, item, count, error);
+  }
+}
@@ -32,6 +32,10 @@ import java.io.PrintStream;
 public class SuperstepMetricsRegistry extends GiraphMetricsRegistry {
   /** Number of superstep to use for group of metrics created */
   private long superstep = BspService.INPUT_SUPERSTEP;
+  /** Expensive vertices of the superstep */
+  private HotVertices hotVertices = new HotVertices();
+  /** Network and serialization accounting of the superstep */
+  private RequestTypeMetrics requestTypeMetrics = new RequestTypeMetrics();
 
   /**
    * Constructor
@@ -91,6 +95,26 @@ public class SuperstepMetricsRegistry extends GiraphMetricsRegistry {
   public void setSuperstep(long superstep) {
     super.setType(String.valueOf(superstep));
     this.superstep = superstep;
+    hotVertices = new HotVertices();
+    requestTypeMetrics = new RequestTypeMetrics();
+  }
+
+  /**
+   * Get the report of the expensive vertices of this superstep.
+   *
+   * @return Expensive vertices, filled in by the compute threads
+   */
+  public HotVertices getHotVertices() {
+    return hotVertices;
+  }
+
+  /**
+   * Get the accounting of the requests of this superstep.
+   *
+   * @return Request metrics, filled in by the netty handlers
+   */
+  public RequestTypeMetrics getRequestTypeMetrics() {
+    return requestTypeMetrics;
   }
 
   /**
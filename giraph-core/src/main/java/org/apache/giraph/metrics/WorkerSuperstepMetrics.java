@@ -46,6 +46,10 @@ public class WorkerSuperstepMetrics implements Writable {
   private LongAndTimeUnit waitRequestsTimer;
   /** Time spent in Vertex#compute */
   private LongAndTimeUnit userComputeTime;
+  /** Expensive vertices */
+  private HotVertices hotVertices;
+  /** Network and serialization accounting by request type */
+  private RequestTypeMetrics requestTypeMetrics;
 
   /**
    * Constructor
@@ -60,6 +64,8 @@ public class WorkerSuperstepMetrics implements Writable {
     // Note this one is not backed by a GiraphTimer, but rather a real Timer
     userComputeTime = new LongAndTimeUnit();
     userComputeTime.setTimeUnit(TimeUnit.MILLISECONDS);
+    hotVertices = new HotVertices();
+    requestTypeMetrics = new RequestTypeMetrics();
   }
 
   /**
@@ -75,6 +81,8 @@ public class WorkerSuperstepMetrics implements Writable {
     readGiraphTimer(GraphTaskManager.TIMER_SUPERSTEP_TIME, superstepTimer);
     readGiraphTimer(BspServiceWorker.TIMER_WAIT_REQUESTS, waitRequestsTimer);
     userComputeTime.setValue((long) ssm.getTimer(TimerDesc.COMPUTE_ONE).sum());
+    hotVertices = ssm.getHotVertices();
+    requestTypeMetrics = ssm.getRequestTypeMetrics();
     return this;
   }
 
@@ -112,6 +120,8 @@ public class WorkerSuperstepMetrics implements Writable {
     out.println("  network communication time: " + commTimer);
     out.println("  time to first message: " + timeToFirstMsg);
     out.println("  wait on requests time: " + waitRequestsTimer);
+    hotVertices.print(out);
+    requestTypeMetrics.print(out);
     return this;
   }
 
@@ -157,6 +167,20 @@ public class WorkerSuperstepMetrics implements Writable {
     return userComputeTime.getValue();
   }
 
+  /**
+   * @return expensive vertices of the superstep
+   */
+  public HotVertices getHotVertices() {
+    return hotVertices;
+  }
+
+  /**
+   * @return network and serialization accounting by request type
+   */
+  public RequestTypeMetrics getRequestTypeMetrics() {
+    return requestTypeMetrics;
+  }
+
   @Override
   public void readFields(DataInput dataInput) throws IOException {
     commTimer.setValue(dataInput.readLong());
@@ -165,6 +189,8 @@ public class WorkerSuperstepMetrics implements Writable {
     superstepTimer.setValue(dataInput.readLong());
     waitRequestsTimer.setValue(dataInput.readLong());
     userComputeTime.setValue(dataInput.readLong());
+    hotVertices.readFields(dataInput);
+    requestTypeMetrics.readFields(dataInput);
   }
 
   @Override
@@ -175,5 +201,7 @@ public class WorkerSuperstepMetrics implements Writable {
     dataOutput.writeLong(superstepTimer.getValue());
     dataOutput.writeLong(waitRequestsTimer.getValue());
     dataOutput.writeLong(userComputeTime.getValue());
+    hotVertices.write(dataOutput);
+    requestTypeMetrics.write(dataOutput);
   }
 }
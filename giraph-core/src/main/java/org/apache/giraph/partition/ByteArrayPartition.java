@@ -18,6 +18,9 @@
 package org.apache.giraph.partition;
 
 import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.utils.ExtendedByteArrayDataInput;
+import org.apache.giraph.utils.ExtendedDataInput;
+import org.apache.giraph.utils.ExtendedDataOutput;
 import org.apache.giraph.utils.UnsafeByteArrayInputStream;
 import org.apache.giraph.utils.WritableUtils;
 import org.apache.hadoop.io.Writable;
@@ -30,6 +33,7 @@ import com.google.common.primitives.Ints;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
@@ -114,6 +118,79 @@ public class ByteArrayPartition<I extends WritableComparable,
     return representativeVertex;
   }
 
+  /**
+   * Add vertices serialized one after the other, each as its size followed
+   * by its data (as stored in this partition), without creating vertex
+   * objects.  Only the ids are deserialized.
+   *
+   * @param vertexBytes Buffer of the serialized vertices
+   * @param length Number of bytes used in the buffer
+   */
+  public void putVertexBytes(byte[] vertexBytes, int length) {
+    int pos = 0;
+    while (pos < length) {
+      int vertexDataSize = getVertexDataSize(vertexBytes, pos);
+      byte[] vertexData =
+          Arrays.copyOfRange(vertexBytes, pos, pos + vertexDataSize);
+      ExtendedDataInput vertexInput;
+      if (useUnsafeSerialization) {
+        vertexInput = new UnsafeByteArrayInputStream(vertexData);
+      } else {
+        vertexInput = new ExtendedByteArrayDataInput(vertexData);
+      }
+      I vertexId = getConf().createVertexId();
+      try {
+        vertexInput.readInt();
+        vertexId.readFields(vertexInput);
+      } catch (IOException e) {
+        throw new IllegalStateException("putVertexBytes: IOException", e);
+      }
+      vertexMap.put(vertexId, vertexData);
+      pos += vertexDataSize;
+    }
+  }
+
+  /**
+   * Move serialized vertices out of this partition, each preceded by its
+   * size as {@link #putVertexBytes(byte[], int)} expects them, until the
+   * output holds at least a given number of bytes.  The memory of the
+   * vertices moved is released.
+   *
+   * @param output Output to write the vertices to
+   * @param maxBytes Number of bytes of the output after which to stop
+   * @return True if any vertex was moved
+   * @throws IOException
+   */
+  public boolean removeVertexBytes(ExtendedDataOutput output, int maxBytes)
+    throws IOException {
+    boolean moved = false;
+    Iterator<byte[]> vertexDataIterator = vertexMap.values().iterator();
+    while (vertexDataIterator.hasNext() && output.getPos() < maxBytes) {
+      byte[] vertexData = vertexDataIterator.next();
+      // The buffer may be larger than the vertex
+      output.write(vertexData, 0, getVertexDataSize(vertexData, 0));
+      vertexDataIterator.remove();
+      moved = true;
+    }
+    return moved;
+  }
+
+  /**
+   * Get the size of a serialized vertex, stored in its first bytes.
+   *
+   * @param vertexBytes Buffer of serialized vertices
+   * @param pos Position of the vertex in the buffer
+   * @return Size of the vertex, including the size
+   */
+  private int getVertexDataSize(byte[] vertexBytes, int pos) {
+    if (useUnsafeSerialization) {
+      return UnsafeByteArrayInputStream.getInt(vertexBytes, pos);
+    } else {
+      return Ints.fromBytes(vertexBytes[pos], vertexBytes[pos + 1],
+          vertexBytes[pos + 2], vertexBytes[pos + 3]);
+    }
+  }
+
   @Override
   public void addPartition(Partition<I, V, E, M> partition) {
     // Only work with other ByteArrayPartition instances
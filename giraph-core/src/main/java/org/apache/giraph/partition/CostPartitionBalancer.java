@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.partition;
+
+import org.apache.giraph.conf.GiraphConstants;
+import org.apache.giraph.metrics.GiraphMetrics;
+import org.apache.giraph.metrics.MetricNames;
+import org.apache.giraph.metrics.SuperstepMetricsRegistry;
+import org.apache.giraph.worker.WorkerInfo;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.log4j.Logger;
+
+import com.google.common.collect.Maps;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Balances the partitions across workers by their measured cost in the
+ * previous superstep: the time spent computing them, plus an estimate for
+ * the messages they sent and received.  Partitions are moved one at a
+ * time from the most loaded worker to the least loaded one, as long as the
+ * predicted reduction of the superstep time, over the expected number of
+ * supersteps, is larger than the estimated time to move the partition.
+ * Partitions stay where they are otherwise.
+ */
+public class CostPartitionBalancer {
+  /** Class logger */
+  private static final Logger LOG =
+      Logger.getLogger(CostPartitionBalancer.class);
+  /** Nanoseconds in a millisecond */
+  private static final double NS_PER_MS = 1000000d;
+
+  /**
+   * Do not construct this class.
+   */
+  private CostPartitionBalancer() { }
+
+  /**
+   * Get the cost of a partition.
+   *
+   * @param partitionStats Stats of the partition
+   * @param nsPerMessageSent Estimated cost of a message sent
+   * @param nsPerMessageByteReceived Estimated cost of a byte of messages
+   *        received
+   * @return Cost in milliseconds
+   */
+  public static double getCost(PartitionStats partitionStats,
+      float nsPerMessageSent, float nsPerMessageByteReceived) {
+    return (partitionStats.getComputeNanos() +
+        partitionStats.getMessagesSentCount() * nsPerMessageSent +
+            partitionStats.getMessageBytesReceived() *
+                nsPerMessageByteReceived) / NS_PER_MS;
+  }
+
+  /**
+   * Get the worker with the highest or lowest load.
+   *
+   * @param workerLoads Load of every worker
+   * @param highest Whether to get the highest load
+   * @return Worker
+   */
+  private static WorkerInfo getExtremeWorker(
+      Map<WorkerInfo, Double> workerLoads, boolean highest) {
+    WorkerInfo extremeWorker = null;
+    double extremeLoad = 0;
+    for (Map.Entry<WorkerInfo, Double> entry : workerLoads.entrySet()) {
+      if (extremeWorker == null ||
+          (highest ? entry.getValue() > extremeLoad :
+              entry.getValue() < extremeLoad)) {
+        extremeWorker = entry.getKey();
+        extremeLoad = entry.getValue();
+      }
+    }
+    return extremeWorker;
+  }
+
+  /**
+   * Move a partition to another worker.
+   *
+   * @param partitionOwner Owner of the partition
+   * @param workerInfo Worker to move the partition to
+   */
+  private static void movePartition(PartitionOwner partitionOwner,
+      WorkerInfo workerInfo) {
+    if (partitionOwner.getPreviousWorkerInfo() == null) {
+      partitionOwner.setPreviousWorkerInfo(partitionOwner.getWorkerInfo());
+    }
+    partitionOwner.setWorkerInfo(workerInfo);
+    if (workerInfo.equals(partitionOwner.getPreviousWorkerInfo())) {
+      // Back where it was
+      partitionOwner.setPreviousWorkerInfo(null);
+    }
+  }
+
+  /**
+   * Balance the partitions by their measured cost.
+   *
+   * @param conf Configuration with the cost estimates
+   * @param partitionOwners All the owners of all partitions
+   * @param allPartitionStats All the partition stats
+   * @param availableWorkerInfos All the available workers
+   * @return Balanced partition owners
+   */
+  public static Collection<PartitionOwner> balancePartitionsAcrossWorkers(
+      Configuration conf,
+      Collection<PartitionOwner> partitionOwners,
+      Collection<PartitionStats> allPartitionStats,
+      Collection<WorkerInfo> availableWorkerInfos) {
+    float nsPerMessageSent =
+        GiraphConstants.COST_BALANCER_NS_PER_MESSAGE_SENT.get(conf);
+    float nsPerMessageByteReceived =
+        GiraphConstants.COST_BALANCER_NS_PER_MESSAGE_BYTE_RECEIVED.get(conf);
+    float nsPerElementMoved =
+        GiraphConstants.COST_BALANCER_NS_PER_ELEMENT_MOVED.get(conf);
+    int gainSupersteps =
+        GiraphConstants.COST_BALANCER_GAIN_SUPERSTEPS.get(conf);
+
+    Map<Integer, PartitionStats> idStatMap = Maps.newHashMap();
+    for (PartitionStats partitionStats : allPartitionStats) {
+      idStatMap.put(partitionStats.getPartitionId(), partitionStats);
+    }
+    Map<WorkerInfo, Double> workerLoads = Maps.newHashMap();
+    for (WorkerInfo workerInfo : availableWorkerInfos) {
+      workerLoads.put(workerInfo, 0d);
+    }
+    Map<PartitionOwner, Double> ownerCosts = Maps.newHashMap();
+    for (PartitionOwner partitionOwner : partitionOwners) {
+      PartitionStats partitionStats =
+          idStatMap.get(partitionOwner.getPartitionId());
+      if (partitionStats == null) {
+        throw new IllegalStateException(
+            "balancePartitionsAcrossWorkers: Missing partition " +
+                "stats for " + partitionOwner);
+      }
+      double cost = getCost(
+          partitionStats, nsPerMessageSent, nsPerMessageByteReceived);
+      ownerCosts.put(partitionOwner, cost);
+      // Only the moves decided now are exchanged
+      partitionOwner.setPreviousWorkerInfo(null);
+      if (!workerLoads.containsKey(partitionOwner.getWorkerInfo())) {
+        // The worker is gone, the partition has to move
+        movePartition(partitionOwner, getExtremeWorker(workerLoads, false));
+      }
+      workerLoads.put(partitionOwner.getWorkerInfo(),
+          workerLoads.get(partitionOwner.getWorkerInfo()) + cost);
+    }
+
+    int migrations = 0;
+    double totalGain = 0;
+    for (int i = 0; i < partitionOwners.size(); ++i) {
+      WorkerInfo busiestWorker = getExtremeWorker(workerLoads, true);
+      WorkerInfo idlestWorker = getExtremeWorker(workerLoads, false);
+      if (busiestWorker == null || busiestWorker.equals(idlestWorker)) {
+        break;
+      }
+      double busiestLoad = workerLoads.get(busiestWorker);
+      double idlestLoad = workerLoads.get(idlestWorker);
+      double otherMaxLoad = 0;
+      for (Map.Entry<WorkerInfo, Double> entry : workerLoads.entrySet()) {
+        if (!entry.getKey().equals(busiestWorker) &&
+            !entry.getKey().equals(idlestWorker)) {
+          otherMaxLoad = Math.max(otherMaxLoad, entry.getValue());
+        }
+      }
+
+      PartitionOwner bestOwner = null;
+      double bestGain = 0;
+      double bestBenefit = 0;
+      for (PartitionOwner partitionOwner : partitionOwners) {
+        if (!partitionOwner.getWorkerInfo().equals(busiestWorker)) {
+          continue;
+        }
+        double cost = ownerCosts.get(partitionOwner);
+        double newMaxLoad = Math.max(otherMaxLoad,
+            Math.max(busiestLoad - cost, idlestLoad + cost));
+        double gain = busiestLoad - newMaxLoad;
+        PartitionStats partitionStats =
+            idStatMap.get(partitionOwner.getPartitionId());
+        double transferMs = (partitionStats.getVertexCount() +
+            partitionStats.getEdgeCount()) * nsPerElementMoved / NS_PER_MS;
+        double benefit = gain * gainSupersteps - transferMs;
+        if (benefit > bestBenefit) {
+          bestOwner = partitionOwner;
+          bestGain = gain;
+          bestBenefit = benefit;
+        }
+      }
+      if (bestOwner == null) {
+        break;
+      }
+
+      if (LOG.isInfoEnabled()) {
+        LOG.info("balancePartitionsAcrossWorkers: Moving partition " +
+            bestOwner.getPartitionId() + " (cost " +
+            ownerCosts.get(bestOwner) + " ms) from " + busiestWorker +
+            " (load " + busiestLoad + " ms) to " + idlestWorker +
+            " (load " + idlestLoad + " ms), predicted gain " + bestGain +
+            " ms per superstep");
+      }
+      double cost = ownerCosts.get(bestOwner);
+      movePartition(bestOwner, idlestWorker);
+      workerLoads.put(busiestWorker, busiestLoad - cost);
+      workerLoads.put(idlestWorker, idlestLoad + cost);
+      ++migrations;
+      totalGain += bestGain;
+    }
+
+    SuperstepMetricsRegistry metrics = GiraphMetrics.get().perSuperstep();
+    metrics.getCounter(MetricNames.PARTITIONS_MIGRATED).inc(migrations);
+    metrics.getCounter(MetricNames.PREDICTED_MIGRATION_GAIN_MS).inc(
+        (long) totalGain);
+    if (LOG.isInfoEnabled()) {
+      LOG.info("balancePartitionsAcrossWorkers: Moving " + migrations +
+          " partitions, predicted gain " + totalGain + " ms per superstep");
+    }
+    return partitionOwners;
+  }
+}
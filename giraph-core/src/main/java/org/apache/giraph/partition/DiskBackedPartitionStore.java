@@ -21,6 +21,7 @@ package org.apache.giraph.partition;
 import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
 import org.apache.giraph.edge.VertexEdges;
 import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.metrics.GiraphTrace;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.io.WritableComparable;
 import org.apache.hadoop.mapreduce.Mapper;
@@ -438,6 +439,7 @@ public class DiskBackedPartitionStore<I extends WritableComparable,
    */
   private Partition<I, V, E, M> loadPartition(Integer id, int numVertices)
     throws IOException {
+    long traceStartNanos = GiraphTrace.get().start();
     Partition<I, V, E, M> partition =
         conf.createPartition(id, context);
     File file = new File(getVerticesPath(id));
@@ -463,6 +465,8 @@ public class DiskBackedPartitionStore<I extends WritableComparable,
     if (!conf.isStaticGraph()) {
       file.delete();
     }
+    GiraphTrace.get().complete(GiraphTrace.OUT_OF_CORE, "load-partition",
+        traceStartNanos, "partition", id);
     return partition;
   }
 
@@ -474,6 +478,7 @@ public class DiskBackedPartitionStore<I extends WritableComparable,
    */
   private void offloadPartition(Partition<I, V, E, M> partition)
     throws IOException {
+    long traceStartNanos = GiraphTrace.get().start();
     File file = new File(getVerticesPath(partition.getId()));
     file.getParentFile().mkdirs();
     file.createNewFile();
@@ -505,6 +510,8 @@ public class DiskBackedPartitionStore<I extends WritableComparable,
       }
       outputStream.close();
     }
+    GiraphTrace.get().complete(GiraphTrace.OUT_OF_CORE, "offload-partition",
+        traceStartNanos, "partition", partition.getId());
   }
 
   /**
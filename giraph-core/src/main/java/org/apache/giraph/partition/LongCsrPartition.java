@@ -0,0 +1,732 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.partition;
+
+import org.apache.giraph.conf.GiraphConstants;
+import org.apache.giraph.edge.Edge;
+import org.apache.giraph.edge.ReusableEdge;
+import org.apache.giraph.edge.ReuseObjectsVertexEdges;
+import org.apache.giraph.edge.VertexEdges;
+import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.utils.ExtendedDataInput;
+import org.apache.giraph.utils.ExtendedDataOutput;
+import org.apache.giraph.utils.WritableUtils;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.util.Progressable;
+import org.apache.log4j.Logger;
+
+import com.google.common.collect.UnmodifiableIterator;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Partition for static graphs (see
+ * {@link org.apache.giraph.conf.GiraphConstants#STATIC_GRAPH}) with long
+ * vertex ids, storing the graph in compressed sparse row format: one sorted
+ * array of vertex ids, one array of edge offsets and one array of edge
+ * targets for the whole partition, plus serialized edge values unless they
+ * are {@link org.apache.hadoop.io.NullWritable}.  Vertex values are the only
+ * per-vertex objects.
+ *
+ * During iteration, vertices are exposed through a reused vertex object
+ * whose edges are a view on the arrays.  Vertices which are added or whose
+ * edges change are kept serialized until the next iteration, when the arrays
+ * are rebuilt, so mutations work but are expensive.  Nothing stops a job
+ * that isn't declared static from using this partition, but each superstep
+ * with mutations then pays for a full rebuild, and a warning is logged.
+ *
+ * @param <V> Vertex value
+ * @param <E> Edge value
+ * @param <M> Message data
+ */
+public class LongCsrPartition<V extends Writable, E extends Writable,
+    M extends Writable> extends BasicPartition<LongWritable, V, E, M>
+    implements ReusesObjectsPartition<LongWritable, V, E, M> {
+  /** Class logger */
+  private static final Logger LOG = Logger.getLogger(LongCsrPartition.class);
+  /** Sorted ids of the vertices in the arrays */
+  private long[] ids;
+  /** Vertex values, in the order of {@link #ids} */
+  private V[] values;
+  /** Which of the vertices in the arrays are halted */
+  private BitSet halted;
+  /** Which of the vertices in the arrays were removed or replaced */
+  private BitSet removed;
+  /** Number of vertices set in {@link #removed} */
+  private int numRemoved;
+  /** Edges of vertex i are at [edgeOffsets[i], edgeOffsets[i + 1]) */
+  private int[] edgeOffsets;
+  /** Targets of all edges */
+  private long[] targets;
+  /** Serialized values of all edges, null if edges have no values */
+  private byte[] edgeValues;
+  /**
+   * Edge values of vertex i are at
+   * [edgeValueOffsets[i], edgeValueOffsets[i + 1]) in {@link #edgeValues}
+   */
+  private int[] edgeValueOffsets;
+  /** Vertices not in the arrays yet, serialized */
+  private Long2ObjectOpenHashMap<byte[]> pendingVertices;
+  /** Representative vertex */
+  private Vertex<LongWritable, V, E, M> representativeVertex;
+  /** Use unsafe serialization */
+  private boolean useUnsafeSerialization;
+  /** The current arrays, as seen by iterators and edges */
+  private Layout layout;
+
+  /**
+   * Constructor for reflection.
+   */
+  public LongCsrPartition() { }
+
+  @Override
+  public void initialize(int partitionId, Progressable progressable) {
+    super.initialize(partitionId, progressable);
+    initializeStructures();
+    setArrays(new long[0], createValues(0), new BitSet(), new int[] {0},
+        new long[0], new byte[0], new int[] {0});
+  }
+
+  /**
+   * Initialize everything other than the arrays.
+   */
+  private void initializeStructures() {
+    if (!LongWritable.class.equals(getConf().getVertexIdClass())) {
+      throw new IllegalArgumentException("initializeStructures: " +
+          "LongCsrPartition requires LongWritable vertex ids, got " +
+          getConf().getVertexIdClass());
+    }
+    if (!getConf().isStaticGraph()) {
+      LOG.warn("initializeStructures: Graph isn't declared static (" +
+          GiraphConstants.STATIC_GRAPH.getKey() + "), mutations will " +
+          "rebuild the partition arrays");
+    }
+    pendingVertices = new Long2ObjectOpenHashMap<byte[]>();
+    representativeVertex = getConf().createVertex();
+    representativeVertex.initialize(
+        getConf().createVertexId(),
+        getConf().createVertexValue(),
+        getConf().createVertexEdges());
+    useUnsafeSerialization = getConf().useUnsafeSerialization();
+  }
+
+  /**
+   * Create an array of vertex values.
+   *
+   * @param size Size of the array
+   * @return Array of vertex values
+   */
+  @SuppressWarnings("unchecked")
+  private V[] createValues(int size) {
+    return (V[]) new Writable[size];
+  }
+
+  /**
+   * Replace the arrays, all vertices in them become present.
+   *
+   * @param newIds Sorted vertex ids
+   * @param newValues Vertex values
+   * @param newHalted Halted vertices
+   * @param newEdgeOffsets Edge offsets
+   * @param newTargets Edge targets
+   * @param newEdgeValues Serialized edge values
+   * @param newEdgeValueOffsets Edge value offsets
+   */
+  private void setArrays(long[] newIds, V[] newValues, BitSet newHalted,
+      int[] newEdgeOffsets, long[] newTargets, byte[] newEdgeValues,
+      int[] newEdgeValueOffsets) {
+    ids = newIds;
+    values = newValues;
+    halted = newHalted;
+    removed = new BitSet();
+    numRemoved = 0;
+    edgeOffsets = newEdgeOffsets;
+    targets = newTargets;
+    if (getConf().isEdgeValueNullWritable()) {
+      edgeValues = null;
+      edgeValueOffsets = null;
+    } else {
+      edgeValues = newEdgeValues;
+      edgeValueOffsets = newEdgeValueOffsets;
+    }
+    layout = new Layout();
+  }
+
+  /**
+   * Find a present vertex in the arrays.
+   *
+   * @param vertexId Vertex id
+   * @return Index in the arrays, or -1 if not there
+   */
+  private int indexOf(long vertexId) {
+    int index = Arrays.binarySearch(ids, vertexId);
+    return (index >= 0 && !removed.get(index)) ? index : -1;
+  }
+
+  /**
+   * Mark a vertex in the arrays as removed.
+   *
+   * @param index Index in the arrays
+   */
+  private void markRemoved(int index) {
+    removed.set(index);
+    values[index] = null;
+    ++numRemoved;
+  }
+
+  /**
+   * Iterate over the edges of a vertex in the arrays.
+   *
+   * @param arrays Arrays holding the vertex
+   * @param index Index of the vertex in the arrays
+   * @param reuseObjects Whether to return the same edge object every time
+   * @return Iterator over the edges
+   */
+  private Iterator<Edge<LongWritable, E>> edgeIterator(final Layout arrays,
+      final int index, final boolean reuseObjects) {
+    return new UnmodifiableIterator<Edge<LongWritable, E>>() {
+      /** Position of the next edge */
+      private int offset = arrays.edgeOffsets[index];
+      /** Position after the last edge */
+      private final int end = arrays.edgeOffsets[index + 1];
+      /** Input for edge values, null if there are none */
+      private final ExtendedDataInput valuesInput =
+          arrays.edgeValues == null ? null :
+          getConf().createExtendedDataInput(arrays.edgeValues,
+              arrays.edgeValueOffsets[index],
+              arrays.edgeValueOffsets[index + 1] -
+                  arrays.edgeValueOffsets[index]);
+      /** Representative edge object */
+      private final ReusableEdge<LongWritable, E> representativeEdge =
+          getConf().createReusableEdge();
+
+      @Override
+      public boolean hasNext() {
+        return offset < end;
+      }
+
+      @Override
+      public Edge<LongWritable, E> next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        ReusableEdge<LongWritable, E> edge = reuseObjects ?
+            representativeEdge : getConf().createReusableEdge();
+        edge.getTargetVertexId().set(arrays.targets[offset++]);
+        if (valuesInput != null) {
+          try {
+            edge.getValue().readFields(valuesInput);
+          } catch (IOException e) {
+            throw new IllegalStateException("next: IOException", e);
+          }
+        }
+        return edge;
+      }
+    };
+  }
+
+  /**
+   * Copy the edges of a vertex in the arrays into a new
+   * {@link VertexEdges} of the configured class.
+   *
+   * @param arrays Arrays holding the vertex
+   * @param index Index of the vertex in the arrays
+   * @return Edges of the vertex
+   */
+  private VertexEdges<LongWritable, E> copyEdges(Layout arrays, int index) {
+    VertexEdges<LongWritable, E> edges =
+        getConf().createAndInitializeVertexEdges(
+            arrays.edgeOffsets[index + 1] - arrays.edgeOffsets[index]);
+    Iterator<Edge<LongWritable, E>> iterator =
+        edgeIterator(arrays, index, false);
+    while (iterator.hasNext()) {
+      edges.add(iterator.next());
+    }
+    return edges;
+  }
+
+  /**
+   * Make the representative vertex hold a copy of a vertex in the arrays.
+   *
+   * @param index Index of the vertex in the arrays
+   * @return Representative vertex
+   */
+  private Vertex<LongWritable, V, E, M> readVertex(int index) {
+    V value = getConf().createVertexValue();
+    WritableUtils.readFieldsFromByteArray(
+        WritableUtils.writeToByteArray(values[index]), value);
+    representativeVertex.initialize(new LongWritable(ids[index]), value,
+        copyEdges(layout, index));
+    if (halted.get(index)) {
+      representativeVertex.voteToHalt();
+    } else {
+      representativeVertex.wakeUp();
+    }
+    return representativeVertex;
+  }
+
+  /**
+   * Make the representative vertex hold a serialized vertex.
+   *
+   * @param vertexData Serialized vertex
+   * @return Representative vertex
+   */
+  private Vertex<LongWritable, V, E, M> readVertex(byte[] vertexData) {
+    WritableUtils.reinitializeVertexFromByteArray(
+        vertexData, representativeVertex, useUnsafeSerialization, getConf());
+    return representativeVertex;
+  }
+
+  @Override
+  public synchronized Vertex<LongWritable, V, E, M> getVertex(
+      LongWritable vertexIndex) {
+    byte[] vertexData = pendingVertices.get(vertexIndex.get());
+    if (vertexData != null) {
+      return readVertex(vertexData);
+    }
+    int index = indexOf(vertexIndex.get());
+    return index < 0 ? null : readVertex(index);
+  }
+
+  @Override
+  public synchronized Vertex<LongWritable, V, E, M> putVertex(
+      Vertex<LongWritable, V, E, M> vertex) {
+    byte[] vertexData = WritableUtils.writeVertexToByteArray(
+        vertex, useUnsafeSerialization, getConf());
+    byte[] oldVertexData =
+        pendingVertices.put(vertex.getId().get(), vertexData);
+    if (oldVertexData != null) {
+      return readVertex(oldVertexData);
+    }
+    int index = indexOf(vertex.getId().get());
+    if (index < 0) {
+      return null;
+    }
+    Vertex<LongWritable, V, E, M> oldVertex = readVertex(index);
+    markRemoved(index);
+    return oldVertex;
+  }
+
+  @Override
+  public synchronized Vertex<LongWritable, V, E, M> removeVertex(
+      LongWritable vertexIndex) {
+    byte[] oldVertexData = pendingVertices.remove(vertexIndex.get());
+    if (oldVertexData != null) {
+      return readVertex(oldVertexData);
+    }
+    int index = indexOf(vertexIndex.get());
+    if (index < 0) {
+      return null;
+    }
+    Vertex<LongWritable, V, E, M> oldVertex = readVertex(index);
+    markRemoved(index);
+    return oldVertex;
+  }
+
+  @Override
+  public synchronized void addPartition(
+      Partition<LongWritable, V, E, M> partition) {
+    // Only work with other LongCsrPartition instances
+    if (!(partition instanceof LongCsrPartition)) {
+      throw new IllegalStateException("addPartition: Cannot add partition " +
+          "of type " + partition.getClass());
+    }
+    for (Vertex<LongWritable, V, E, M> vertex : partition) {
+      putVertex(vertex);
+    }
+  }
+
+  @Override
+  public synchronized long getVertexCount() {
+    return ids.length - numRemoved + pendingVertices.size();
+  }
+
+  @Override
+  public synchronized long getEdgeCount() {
+    long edges = 0;
+    for (int i = 0; i < ids.length; ++i) {
+      if (!removed.get(i)) {
+        edges += edgeOffsets[i + 1] - edgeOffsets[i];
+      }
+    }
+    for (byte[] vertexData : pendingVertices.values()) {
+      edges += readVertex(vertexData).getNumEdges();
+    }
+    return edges;
+  }
+
+  @Override
+  public synchronized void saveVertex(Vertex<LongWritable, V, E, M> vertex) {
+    if (vertex.getEdges() instanceof LongCsrPartition<?, ?, ?>.CsrEdges) {
+      CsrEdges edges = (CsrEdges) vertex.getEdges();
+      // Only if the arrays weren't rebuilt since the vertex was read
+      if (edges.getLayout() == layout && !edges.isModified() &&
+          ids[edges.getIndex()] == vertex.getId().get() &&
+          !removed.get(edges.getIndex())) {
+        values[edges.getIndex()] = vertex.getValue();
+        if (vertex.isHalted()) {
+          halted.set(edges.getIndex());
+        } else {
+          halted.clear(edges.getIndex());
+        }
+        return;
+      }
+    }
+    putVertex(vertex);
+  }
+
+  /**
+   * Rebuild the arrays so that they hold all the vertices, including the
+   * pending ones and without the removed ones.
+   */
+  private void compact() {
+    if (pendingVertices.isEmpty() && numRemoved == 0) {
+      return;
+    }
+    try {
+      rebuildArrays();
+    } catch (IOException e) {
+      throw new IllegalStateException("compact: IOException", e);
+    }
+  }
+
+  /**
+   * Merge the arrays and the pending vertices into new arrays.
+   *
+   * @throws IOException
+   */
+  private void rebuildArrays() throws IOException {
+    long[] pendingIds = pendingVertices.keySet().toLongArray();
+    LongArrays.radixSort(pendingIds);
+    int numVertices = ids.length - numRemoved + pendingIds.length;
+    long[] newIds = new long[numVertices];
+    V[] newValues = createValues(numVertices);
+    BitSet newHalted = new BitSet(numVertices);
+    int[] newEdgeOffsets = new int[numVertices + 1];
+    LongArrayList newTargets = new LongArrayList(targets.length);
+    ExtendedDataOutput newEdgeValues = getConf().createExtendedDataOutput(
+        edgeValues == null ? 0 : edgeValues.length);
+    int[] newEdgeValueOffsets = new int[numVertices + 1];
+
+    int index = 0;
+    int pendingIndex = 0;
+    for (int i = 0; i < numVertices; ++i) {
+      while (index < ids.length && removed.get(index)) {
+        ++index;
+      }
+      if (pendingIndex >= pendingIds.length ||
+          (index < ids.length && ids[index] < pendingIds[pendingIndex])) {
+        // Vertex from the arrays
+        newIds[i] = ids[index];
+        newValues[i] = values[index];
+        newHalted.set(i, halted.get(index));
+        newTargets.addElements(newTargets.size(), targets,
+            edgeOffsets[index], edgeOffsets[index + 1] - edgeOffsets[index]);
+        if (edgeValues != null) {
+          newEdgeValues.write(edgeValues, edgeValueOffsets[index],
+              edgeValueOffsets[index + 1] - edgeValueOffsets[index]);
+        }
+        ++index;
+      } else {
+        // Pending vertex, needs its own objects
+        Vertex<LongWritable, V, E, M> vertex = getConf().createVertex();
+        vertex.initialize(getConf().createVertexId(),
+            getConf().createVertexValue(), getConf().createVertexEdges());
+        WritableUtils.reinitializeVertexFromByteArray(
+            pendingVertices.get(pendingIds[pendingIndex]), vertex,
+            useUnsafeSerialization, getConf());
+        newIds[i] = pendingIds[pendingIndex];
+        newValues[i] = vertex.getValue();
+        newHalted.set(i, vertex.isHalted());
+        for (Edge<LongWritable, E> edge : vertex.getEdges()) {
+          newTargets.add(edge.getTargetVertexId().get());
+          if (edgeValues != null) {
+            edge.getValue().write(newEdgeValues);
+          }
+        }
+        ++pendingIndex;
+      }
+      newEdgeOffsets[i + 1] = newTargets.size();
+      newEdgeValueOffsets[i + 1] = newEdgeValues.getPos();
+      progress();
+    }
+    pendingVertices.clear();
+    pendingVertices.trim();
+    setArrays(newIds, newValues, newHalted, newEdgeOffsets,
+        newTargets.toLongArray(), newEdgeValues.toByteArray(),
+        newEdgeValueOffsets);
+  }
+
+  @Override
+  public synchronized void write(DataOutput output) throws IOException {
+    super.write(output);
+    compact();
+    output.writeInt(ids.length);
+    for (int i = 0; i < ids.length; ++i) {
+      output.writeLong(ids[i]);
+      values[i].write(output);
+      output.writeBoolean(halted.get(i));
+      output.writeInt(edgeOffsets[i + 1]);
+    }
+    output.writeInt(targets.length);
+    for (long target : targets) {
+      output.writeLong(target);
+    }
+    if (edgeValues != null) {
+      for (int i = 0; i < ids.length; ++i) {
+        output.writeInt(edgeValueOffsets[i + 1]);
+      }
+      output.writeInt(edgeValues.length);
+      output.write(edgeValues);
+    }
+    progress();
+  }
+
+  @Override
+  public synchronized void readFields(DataInput input) throws IOException {
+    super.readFields(input);
+    initializeStructures();
+    int numVertices = input.readInt();
+    long[] newIds = new long[numVertices];
+    V[] newValues = createValues(numVertices);
+    BitSet newHalted = new BitSet(numVertices);
+    int[] newEdgeOffsets = new int[numVertices + 1];
+    for (int i = 0; i < numVertices; ++i) {
+      newIds[i] = input.readLong();
+      newValues[i] = getConf().createVertexValue();
+      newValues[i].readFields(input);
+      newHalted.set(i, input.readBoolean());
+      newEdgeOffsets[i + 1] = input.readInt();
+    }
+    long[] newTargets = new long[input.readInt()];
+    for (int i = 0; i < newTargets.length; ++i) {
+      newTargets[i] = input.readLong();
+    }
+    int[] newEdgeValueOffsets = null;
+    byte[] newEdgeValues = null;
+    if (!getConf().isEdgeValueNullWritable()) {
+      newEdgeValueOffsets = new int[numVertices + 1];
+      for (int i = 0; i < numVertices; ++i) {
+        newEdgeValueOffsets[i + 1] = input.readInt();
+      }
+      newEdgeValues = new byte[input.readInt()];
+      input.readFully(newEdgeValues);
+    }
+    setArrays(newIds, newValues, newHalted, newEdgeOffsets, newTargets,
+        newEdgeValues, newEdgeValueOffsets);
+    progress();
+  }
+
+  @Override
+  public synchronized Iterator<Vertex<LongWritable, V, E, M>> iterator() {
+    compact();
+    return new CsrVertexIterator();
+  }
+
+  /**
+   * The arrays at the time they were last set.  Iterators and edges keep
+   * the one they started with, so rebuilding the arrays while they are in
+   * use doesn't mix up old indices with new arrays.
+   */
+  private class Layout {
+    /** Sorted vertex ids */
+    private final long[] ids = LongCsrPartition.this.ids;
+    /** Vertex values */
+    private final V[] values = LongCsrPartition.this.values;
+    /** Halted vertices */
+    private final BitSet halted = LongCsrPartition.this.halted;
+    /** Removed vertices */
+    private final BitSet removed = LongCsrPartition.this.removed;
+    /** Edge offsets */
+    private final int[] edgeOffsets = LongCsrPartition.this.edgeOffsets;
+    /** Edge targets */
+    private final long[] targets = LongCsrPartition.this.targets;
+    /** Serialized edge values, null if edges have no values */
+    private final byte[] edgeValues = LongCsrPartition.this.edgeValues;
+    /** Edge value offsets */
+    private final int[] edgeValueOffsets =
+        LongCsrPartition.this.edgeValueOffsets;
+  }
+
+  /**
+   * Iterator over the vertices in the arrays, reusing one vertex object
+   * whose edges are a view on the arrays.
+   */
+  private class CsrVertexIterator extends
+      UnmodifiableIterator<Vertex<LongWritable, V, E, M>> {
+    /** Arrays being iterated over, in case they get rebuilt */
+    private final Layout arrays = layout;
+    /** Representative vertex */
+    private final Vertex<LongWritable, V, E, M> vertex =
+        getConf().createVertex();
+    /** Representative vertex id */
+    private final LongWritable vertexId = new LongWritable();
+    /** Position of the next vertex */
+    private int index = 0;
+
+    @Override
+    public boolean hasNext() {
+      while (index < arrays.ids.length && arrays.removed.get(index)) {
+        ++index;
+      }
+      return index < arrays.ids.length;
+    }
+
+    @Override
+    public Vertex<LongWritable, V, E, M> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      vertexId.set(arrays.ids[index]);
+      vertex.initialize(vertexId, arrays.values[index],
+          new CsrEdges(arrays, index));
+      if (arrays.halted.get(index)) {
+        vertex.voteToHalt();
+      } else {
+        vertex.wakeUp();
+      }
+      ++index;
+      return vertex;
+    }
+  }
+
+  /**
+   * Edges of a vertex in the arrays.  Changing them makes a copy, which the
+   * partition picks up as a pending vertex when the vertex is saved.
+   */
+  private class CsrEdges
+      implements ReuseObjectsVertexEdges<LongWritable, E> {
+    /** Arrays holding the vertex */
+    private final Layout arrays;
+    /** Index of the vertex in the arrays */
+    private final int index;
+    /** Copy of the edges, once they were changed */
+    private VertexEdges<LongWritable, E> copy;
+
+    /**
+     * Constructor
+     *
+     * @param arrays Arrays holding the vertex
+     * @param index Index of the vertex in the arrays
+     */
+    public CsrEdges(Layout arrays, int index) {
+      this.arrays = arrays;
+      this.index = index;
+    }
+
+    /**
+     * Get the arrays holding these edges.
+     *
+     * @return Arrays
+     */
+    public Layout getLayout() {
+      return arrays;
+    }
+
+    /**
+     * Get the index of the vertex in the arrays.
+     *
+     * @return Index of the vertex
+     */
+    public int getIndex() {
+      return index;
+    }
+
+    /**
+     * Whether the edges were changed and don't match the arrays anymore.
+     *
+     * @return True iff the edges were changed
+     */
+    public boolean isModified() {
+      return copy != null;
+    }
+
+    /**
+     * Make sure there is a copy of the edges to change.
+     *
+     * @return Copy of the edges
+     */
+    private VertexEdges<LongWritable, E> getCopy() {
+      if (copy == null) {
+        copy = copyEdges(arrays, index);
+      }
+      return copy;
+    }
+
+    @Override
+    public void initialize(Iterable<Edge<LongWritable, E>> edges) {
+      copy = getConf().createAndInitializeVertexEdges(edges);
+    }
+
+    @Override
+    public void initialize(int capacity) {
+      copy = getConf().createAndInitializeVertexEdges(capacity);
+    }
+
+    @Override
+    public void initialize() {
+      copy = getConf().createAndInitializeVertexEdges();
+    }
+
+    @Override
+    public void add(Edge<LongWritable, E> edge) {
+      getCopy().add(edge);
+    }
+
+    @Override
+    public void remove(LongWritable targetVertexId) {
+      getCopy().remove(targetVertexId);
+    }
+
+    @Override
+    public int size() {
+      return copy != null ? copy.size() :
+          arrays.edgeOffsets[index + 1] - arrays.edgeOffsets[index];
+    }
+
+    @Override
+    public Iterator<Edge<LongWritable, E>> iterator() {
+      return copy != null ? copy.iterator() :
+          edgeIterator(arrays, index, true);
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+      // Written in the format of the configured edges class
+      (copy != null ? copy : copyEdges(arrays, index)).write(out);
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+      copy = getConf().createVertexEdges();
+      copy.readFields(in);
+    }
+  }
+}
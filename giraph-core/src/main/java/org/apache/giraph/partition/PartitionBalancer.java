@@ -49,6 +49,12 @@ public class PartitionBalancer {
   /** Rebalance across supersteps by vertices */
   public static final String VERTICES_BALANCE_ALGORITHM =
     "vertices";
+  /**
+   * Rebalance across supersteps by measured cost, see
+   * {@link CostPartitionBalancer}
+   */
+  public static final String COST_BALANCE_ALGORITHM =
+    "cost";
   /** Class logger */
   private static Logger LOG = Logger.getLogger(PartitionBalancer.class);
 
@@ -214,6 +220,9 @@ public class PartitionBalancer {
       balanceValue = BalanceValue.EDGES;
     } else if (balanceAlgorithm.equals(VERTICES_BALANCE_ALGORITHM)) {
       balanceValue = BalanceValue.VERTICES;
+    } else if (balanceAlgorithm.equals(COST_BALANCE_ALGORITHM)) {
+      return CostPartitionBalancer.balancePartitionsAcrossWorkers(conf,
+          partitionOwners, allPartitionStats, availableWorkerInfos);
     } else {
       throw new IllegalArgumentException(
           "balancePartitionsAcrossWorkers: Illegal balance " +
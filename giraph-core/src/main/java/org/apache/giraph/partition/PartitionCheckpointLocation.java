@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.partition;
+
+import org.apache.hadoop.io.Writable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Where the data of a {@link Partition} was stored by a checkpoint. Vertices
+ * and messages are located separately, so that an incremental checkpoint can
+ * refer to vertices written by an earlier checkpoint.
+ */
+public class PartitionCheckpointLocation implements Writable {
+  /** Id of the partition */
+  private int partitionId = -1;
+  /** File which holds the vertices of the partition */
+  private String verticesFile;
+  /** Position of the vertices in {@link #verticesFile} */
+  private long verticesPos;
+  /** File which holds the messages of the partition */
+  private String messagesFile;
+  /** Position of the messages in {@link #messagesFile} */
+  private long messagesPos;
+
+  /**
+   * Default constructor for reflection.
+   */
+  public PartitionCheckpointLocation() { }
+
+  /**
+   * Constructor
+   *
+   * @param partitionId Id of the partition
+   */
+  public PartitionCheckpointLocation(int partitionId) {
+    this.partitionId = partitionId;
+  }
+
+  /**
+   * Get the partition id.
+   *
+   * @return Partition id
+   */
+  public int getPartitionId() {
+    return partitionId;
+  }
+
+  /**
+   * Get the file which holds the vertices.
+   *
+   * @return File holding the vertices
+   */
+  public String getVerticesFile() {
+    return verticesFile;
+  }
+
+  /**
+   * Get the position of the vertices in their file.
+   *
+   * @return Position of the vertices
+   */
+  public long getVerticesPos() {
+    return verticesPos;
+  }
+
+  /**
+   * Set where the vertices of the partition are stored.
+   *
+   * @param verticesFile File which holds the vertices
+   * @param verticesPos Position of the vertices in the file
+   */
+  public void setVertices(String verticesFile, long verticesPos) {
+    this.verticesFile = verticesFile;
+    this.verticesPos = verticesPos;
+  }
+
+  /**
+   * Get the file which holds the messages.
+   *
+   * @return File holding the messages
+   */
+  public String getMessagesFile() {
+    return messagesFile;
+  }
+
+  /**
+   * Get the position of the messages in their file.
+   *
+   * @return Position of the messages
+   */
+  public long getMessagesPos() {
+    return messagesPos;
+  }
+
+  /**
+   * Set where the messages of the partition are stored.
+   *
+   * @param messagesFile File which holds the messages
+   * @param messagesPos Position of the messages in the file
+   */
+  public void setMessages(String messagesFile, long messagesPos) {
+    this.messagesFile = messagesFile;
+    this.messagesPos = messagesPos;
+  }
+
+  @Override
+  public void readFields(DataInput input) throws IOException {
+    partitionId = input.readInt();
+    verticesFile = input.readUTF();
+    verticesPos = input.readLong();
+    messagesFile = input.readUTF();
+    messagesPos = input.readLong();
+  }
+
+  @Override
+  public void write(DataOutput output) throws IOException {
+    output.writeInt(partitionId);
+    output.writeUTF(verticesFile);
+    output.writeLong(verticesPos);
+    output.writeUTF(messagesFile);
+    output.writeLong(messagesPos);
+  }
+
+  @Override
+  public String toString() {
+    return "(id=" + partitionId + ",vertices=" + verticesFile + ":" +
+        verticesPos + ",messages=" + messagesFile + ":" + messagesPos + ")";
+  }
+}
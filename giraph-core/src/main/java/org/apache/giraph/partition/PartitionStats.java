@@ -38,6 +38,10 @@ public class PartitionStats implements Writable {
   private long edgeCount = 0;
   /** Messages sent from this partition */
   private long messagesSentCount = 0;
+  /** Bytes of the messages received by this partition */
+  private long messageBytesReceived = 0;
+  /** Nanoseconds spent computing this partition */
+  private long computeNanos = 0;
 
   /**
    * Default constructor for reflection.
@@ -151,6 +155,42 @@ public class PartitionStats implements Writable {
     return messagesSentCount;
   }
 
+  /**
+   * Set the bytes of the messages received.
+   *
+   * @param messageBytesReceived Bytes of the messages received
+   */
+  public void setMessageBytesReceived(long messageBytesReceived) {
+    this.messageBytesReceived = messageBytesReceived;
+  }
+
+  /**
+   * Get the bytes of the messages received.
+   *
+   * @return Bytes of the messages received
+   */
+  public long getMessageBytesReceived() {
+    return messageBytesReceived;
+  }
+
+  /**
+   * Set the time spent computing.
+   *
+   * @param computeNanos Nanoseconds spent computing
+   */
+  public void setComputeNanos(long computeNanos) {
+    this.computeNanos = computeNanos;
+  }
+
+  /**
+   * Get the time spent computing.
+   *
+   * @return Nanoseconds spent computing
+   */
+  public long getComputeNanos() {
+    return computeNanos;
+  }
+
   @Override
   public void readFields(DataInput input) throws IOException {
     partitionId = input.readInt();
@@ -158,6 +198,8 @@ public class PartitionStats implements Writable {
     finishedVertexCount = input.readLong();
     edgeCount = input.readLong();
     messagesSentCount = input.readLong();
+    messageBytesReceived = input.readLong();
+    computeNanos = input.readLong();
   }
 
   @Override
@@ -167,12 +209,15 @@ public class PartitionStats implements Writable {
     output.writeLong(finishedVertexCount);
     output.writeLong(edgeCount);
     output.writeLong(messagesSentCount);
+    output.writeLong(messageBytesReceived);
+    output.writeLong(computeNanos);
   }
 
   @Override
   public String toString() {
     return "(id=" + partitionId + ",vtx=" + vertexCount + ",finVtx=" +
         finishedVertexCount + ",edges=" + edgeCount + ",msgsSent=" +
-        messagesSentCount + ")";
+        messagesSentCount + ",msgBytesRcvd=" + messageBytesReceived +
+        ",computeNanos=" + computeNanos + ")";
   }
 }
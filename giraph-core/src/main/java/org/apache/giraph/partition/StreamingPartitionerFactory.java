@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.partition;
+
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+
+/**
+ * Assigns the vertices to partitions while loading the input, keeping
+ * neighbors together to cut the number of messages crossing the network.
+ * Partitions are assigned to workers by the master the same way as with
+ * {@link HashPartitionerFactory}.  See {@link StreamingWorkerPartitioner}.
+ *
+ * Only works with a vertex input format, and without checkpoints, since
+ * the assignments are only made while loading the vertices.
+ *
+ * @param <I> Vertex index value
+ * @param <V> Vertex value
+ * @param <E> Edge value
+ * @param <M> Message value
+ */
+@SuppressWarnings("rawtypes")
+public class StreamingPartitionerFactory<I extends WritableComparable,
+    V extends Writable, E extends Writable, M extends Writable>
+    implements GraphPartitionerFactory<I, V, E, M> {
+  /** Saved configuration */
+  private ImmutableClassesGiraphConfiguration<I, V, E, M> conf;
+
+  @Override
+  public MasterGraphPartitioner<I, V, E, M> createMasterGraphPartitioner() {
+    return new HashMasterPartitioner<I, V, E, M>(getConf());
+  }
+
+  @Override
+  public WorkerGraphPartitioner<I, V, E, M> createWorkerGraphPartitioner() {
+    return new StreamingWorkerPartitioner<I, V, E, M>(getConf());
+  }
+
+  @Override
+  public ImmutableClassesGiraphConfiguration<I, V, E, M> getConf() {
+    return conf;
+  }
+
+  @Override
+  public void setConf(ImmutableClassesGiraphConfiguration conf) {
+    if (conf.hasEdgeInputFormat()) {
+      throw new IllegalStateException("setConf: StreamingPartitionerFactory " +
+          "does not support edge input formats");
+    }
+    if (conf.useCheckpointing()) {
+      throw new IllegalStateException("setConf: StreamingPartitionerFactory " +
+          "does not support checkpointing");
+    }
+    this.conf = conf;
+  }
+}
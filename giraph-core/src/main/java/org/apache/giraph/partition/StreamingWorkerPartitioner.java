@@ -0,0 +1,605 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.partition;
+
+import org.apache.giraph.conf.GiraphConstants;
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.edge.Edge;
+import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.utils.ExtendedDataInput;
+import org.apache.giraph.utils.ExtendedDataOutput;
+import org.apache.giraph.worker.WorkerInfo;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.log4j.Logger;
+
+import it.unimi.dsi.fastutil.Swapper;
+import it.unimi.dsi.fastutil.ints.AbstractIntComparator;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Assigns the vertices loaded from the input to partitions with a streaming
+ * heuristic that keeps neighbors together, either linear deterministic
+ * greedy (LDG) or Fennel.  A vertex goes to the partition holding most of
+ * its already assigned neighbors, penalized by the size of the partition.
+ * Every worker streams through its own input splits, so only the
+ * assignments made locally are known while loading, which works best when
+ * neighbors are close together in the input.
+ *
+ * The assignments are sent to all the workers at the end of the input
+ * superstep.  Vertices that were not assigned (e.g. created later by
+ * messages or mutations) are hash partitioned.
+ *
+ * With integer or long vertex ids, only the assignments made locally are
+ * kept in a map while loading.  The chunks received from the other workers
+ * are sorted as they arrive and merged into a logarithmic number of sorted
+ * shards, taking 12 bytes per vertex.  Once the input is loaded, the shards
+ * are merged into a {@link VertexPartitionTable}, which takes 20 bytes per
+ * range of keys assigned to the same partition.  Every worker must be able
+ * to find the partition of any vertex, so when the input splits are not
+ * sorted by key this is still 20 bytes per vertex of the whole graph, and
+ * twice the size of the shards while merging.  Other ids are kept in a
+ * map.  While loading, lookups of numeric ids only share a read lock, so
+ * that routing messages and edges doesn't wait for other lookups.
+ *
+ * @param <I> Vertex index value
+ * @param <V> Vertex value
+ * @param <E> Edge value
+ * @param <M> Message value
+ */
+@SuppressWarnings("rawtypes")
+public class StreamingWorkerPartitioner<I extends WritableComparable,
+    V extends Writable, E extends Writable, M extends Writable>
+    extends HashWorkerPartitioner<I, V, E, M> {
+  /** Class logger */
+  private static final Logger LOG =
+      Logger.getLogger(StreamingWorkerPartitioner.class);
+  /** Exponent of the partition size penalty of Fennel */
+  private static final double FENNEL_GAMMA = 1.5;
+  /** Vertices a partition may always hold before it is considered full */
+  private static final int MIN_PARTITION_CAPACITY = 100;
+  /** Size in bytes after which a new chunk of assignments is started */
+  private static final int ASSIGNMENT_CHUNK_SIZE = 512 * 1024;
+  /** Configuration */
+  private final ImmutableClassesGiraphConfiguration<I, V, E, M> conf;
+  /** Whether to use Fennel instead of LDG */
+  private final boolean fennel;
+  /** How much larger than the average a partition may grow */
+  private final float balanceSlack;
+  /** Whether the vertex ids are integers or longs */
+  private final boolean numericIds;
+  /**
+   * Lock for the assignments of numeric ids while loading, only written
+   * when adding assignments
+   */
+  private final ReadWriteLock assignmentsLock = new ReentrantReadWriteLock();
+  /**
+   * Partition id of every vertex key assigned by this worker while loading,
+   * with numeric ids
+   */
+  private Long2IntOpenHashMap keyPartitions = new Long2IntOpenHashMap();
+  /**
+   * Assignments received from the other workers while loading, with
+   * numeric ids.  Every shard is at most half as large as the one before.
+   */
+  private List<KeyPartitionShard> receivedShards = Lists.newArrayList();
+  /** Partition id of every assigned vertex key once loaded */
+  private volatile VertexPartitionTable partitionTable;
+  /** Partition id of every assigned vertex, with other ids */
+  private final ConcurrentMap<I, Integer> idPartitions =
+      Maps.newConcurrentMap();
+  /** Partition owners indexed by partition id */
+  private volatile PartitionOwner[] partitionOwnersById = new PartitionOwner[0];
+  /** Vertices assigned by this worker to every partition */
+  private long[] partitionSizes = new long[0];
+  /** Assigned neighbors of the vertex being assigned, per partition */
+  private long[] neighborCounts = new long[0];
+  /** Vertices assigned by this worker */
+  private long assignedVertices;
+  /** Edges of the vertices assigned by this worker */
+  private long assignedEdges;
+  /** Serialized assignments of this worker, not sent yet */
+  private final List<ExtendedDataOutput> localAssignments =
+      Lists.newArrayList();
+
+  /**
+   * Constructor.
+   *
+   * @param conf Configuration
+   */
+  public StreamingWorkerPartitioner(
+      ImmutableClassesGiraphConfiguration<I, V, E, M> conf) {
+    this.conf = conf;
+    String heuristic =
+        GiraphConstants.STREAMING_PARTITIONER_HEURISTIC.get(conf);
+    if ("fennel".equalsIgnoreCase(heuristic)) {
+      fennel = true;
+    } else if ("ldg".equalsIgnoreCase(heuristic)) {
+      fennel = false;
+    } else {
+      throw new IllegalArgumentException("StreamingWorkerPartitioner: " +
+          "Unknown heuristic " + heuristic + ", expected ldg or fennel");
+    }
+    balanceSlack = GiraphConstants.STREAMING_PARTITIONER_BALANCE_SLACK.get(
+        conf);
+    numericIds = IntWritable.class.equals(conf.getVertexIdClass()) ||
+        LongWritable.class.equals(conf.getVertexIdClass());
+    keyPartitions.defaultReturnValue(-1);
+  }
+
+  /**
+   * Get the key of a numeric vertex id.
+   *
+   * @param vertexId Integer or long vertex id
+   * @return Key
+   */
+  private static long getVertexKey(WritableComparable vertexId) {
+    if (vertexId instanceof LongWritable) {
+      return ((LongWritable) vertexId).get();
+    }
+    return ((IntWritable) vertexId).get();
+  }
+
+  /**
+   * Get the partition assigned to a vertex.
+   *
+   * @param vertexId Vertex id
+   * @return Partition id, or -1 if not assigned
+   */
+  private int getAssignedPartition(I vertexId) {
+    if (!numericIds) {
+      Integer partitionId = idPartitions.get(vertexId);
+      return partitionId == null ? -1 : partitionId;
+    }
+    long key = getVertexKey(vertexId);
+    VertexPartitionTable table = partitionTable;
+    if (table != null) {
+      return table.getPartition(key);
+    }
+    assignmentsLock.readLock().lock();
+    try {
+      if (partitionTable != null) {
+        return partitionTable.getPartition(key);
+      }
+      int partitionId = keyPartitions.get(key);
+      for (KeyPartitionShard shard : receivedShards) {
+        int shardPartitionId = shard.getPartition(key);
+        if (shardPartitionId != -1 &&
+            (partitionId == -1 || shardPartitionId < partitionId)) {
+          partitionId = shardPartitionId;
+        }
+      }
+      return partitionId;
+    } finally {
+      assignmentsLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Record the partition of a vertex.  When two workers assigned the same
+   * vertex, the lowest partition id wins on every worker.
+   *
+   * @param vertexId Vertex id, not reused by the caller
+   * @param partitionId Partition id
+   */
+  private void putAssignedPartition(I vertexId, int partitionId) {
+    if (!numericIds) {
+      Integer previous = idPartitions.putIfAbsent(vertexId, partitionId);
+      while (previous != null && previous > partitionId &&
+          !idPartitions.replace(vertexId, previous, partitionId)) {
+        previous = idPartitions.putIfAbsent(vertexId, partitionId);
+      }
+      return;
+    }
+    putAssignedPartition(getVertexKey(vertexId), partitionId);
+  }
+
+  /**
+   * Record the partition of a vertex key assigned by this worker, with
+   * numeric ids.
+   *
+   * @param key Vertex key
+   * @param partitionId Partition id
+   */
+  private void putAssignedPartition(long key, int partitionId) {
+    assignmentsLock.writeLock().lock();
+    try {
+      if (partitionTable != null) {
+        throw new IllegalStateException("putAssignedPartition: Cannot " +
+            "assign vertex " + key + " after the input was loaded");
+      }
+      int previous = keyPartitions.get(key);
+      if (previous == -1 || previous > partitionId) {
+        keyPartitions.put(key, partitionId);
+      }
+    } finally {
+      assignmentsLock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public PartitionOwner getPartitionOwner(I vertexId) {
+    int partitionId = getAssignedPartition(vertexId);
+    if (partitionId == -1) {
+      return super.getPartitionOwner(vertexId);
+    }
+    return partitionOwnersById[partitionId];
+  }
+
+  @Override
+  public PartitionExchange updatePartitionOwners(
+      WorkerInfo myWorkerInfo,
+      Collection<? extends PartitionOwner> masterSetPartitionOwners,
+      PartitionStore<I, V, E, M> partitionStore) {
+    PartitionExchange partitionExchange = super.updatePartitionOwners(
+        myWorkerInfo, masterSetPartitionOwners, partitionStore);
+    synchronized (this) {
+      int maxPartitionId = -1;
+      for (PartitionOwner partitionOwner : partitionOwnerList) {
+        maxPartitionId =
+            Math.max(maxPartitionId, partitionOwner.getPartitionId());
+      }
+      PartitionOwner[] ownersById = new PartitionOwner[maxPartitionId + 1];
+      for (PartitionOwner partitionOwner : partitionOwnerList) {
+        ownersById[partitionOwner.getPartitionId()] = partitionOwner;
+      }
+      partitionOwnersById = ownersById;
+      if (partitionSizes.length != ownersById.length) {
+        partitionSizes = Arrays.copyOf(partitionSizes, ownersById.length);
+        neighborCounts = new long[ownersById.length];
+      }
+    }
+    return partitionExchange;
+  }
+
+  /**
+   * Assign a vertex loaded from the input to a partition.  A vertex that
+   * was already assigned keeps its partition.
+   *
+   * @param vertex Vertex to assign, only read
+   * @return Owner of the partition of the vertex
+   */
+  public synchronized PartitionOwner assignVertex(
+      Vertex<I, V, E, M> vertex) {
+    int assignedPartition = getAssignedPartition(vertex.getId());
+    if (assignedPartition != -1) {
+      return partitionOwnersById[assignedPartition];
+    }
+
+    for (Edge<I, E> edge : vertex.getEdges()) {
+      int neighborPartition = getAssignedPartition(edge.getTargetVertexId());
+      if (neighborPartition != -1) {
+        ++neighborCounts[neighborPartition];
+      }
+    }
+
+    int numPartitions = partitionOwnerList.size();
+    // A partition is full once it holds more than its share of the
+    // vertices assigned so far, plus the slack
+    double capacity = Math.max(MIN_PARTITION_CAPACITY,
+        (1 + balanceSlack) * (assignedVertices + 1) / numPartitions);
+    double sizePenalty = 0;
+    if (fennel) {
+      // Fennel's alpha = sqrt(k) * m / n^gamma, estimated from the vertices
+      // assigned so far but at least at the minimum capacity
+      double numVertices = Math.max(assignedVertices + 1,
+          (double) MIN_PARTITION_CAPACITY * numPartitions);
+      double averageDegree =
+          (double) assignedEdges / Math.max(1, assignedVertices);
+      sizePenalty = FENNEL_GAMMA * Math.sqrt(numPartitions) *
+          averageDegree * numVertices / Math.pow(numVertices, FENNEL_GAMMA);
+    }
+    int bestPartition = -1;
+    boolean bestFull = true;
+    double bestScore = 0;
+    for (int partitionId = 0; partitionId < partitionOwnersById.length;
+         ++partitionId) {
+      if (partitionOwnersById[partitionId] == null) {
+        continue;
+      }
+      long size = partitionSizes[partitionId];
+      // Full partitions are only used if all of them are
+      boolean full = size >= capacity;
+      double score;
+      if (fennel) {
+        score = neighborCounts[partitionId] -
+            sizePenalty * Math.pow(size, FENNEL_GAMMA - 1);
+      } else {
+        score = neighborCounts[partitionId] * (1 - size / capacity);
+      }
+      if (bestPartition == -1 || (bestFull && !full) ||
+          (bestFull == full && (score > bestScore ||
+              (score == bestScore && size < partitionSizes[bestPartition])))) {
+        bestPartition = partitionId;
+        bestFull = full;
+        bestScore = score;
+      }
+    }
+    Arrays.fill(neighborCounts, 0);
+
+    I vertexId = vertex.getId();
+    if (!numericIds) {
+      // The reader may reuse the id object
+      vertexId = WritableUtils.clone(vertexId, conf);
+    }
+    putAssignedPartition(vertexId, bestPartition);
+    ++partitionSizes[bestPartition];
+    ++assignedVertices;
+    assignedEdges += vertex.getNumEdges();
+
+    ExtendedDataOutput assignments = localAssignments.isEmpty() ? null :
+        localAssignments.get(localAssignments.size() - 1);
+    if (assignments == null || assignments.getPos() >= ASSIGNMENT_CHUNK_SIZE) {
+      assignments = conf.createExtendedDataOutput();
+      localAssignments.add(assignments);
+    }
+    try {
+      if (numericIds) {
+        assignments.writeLong(getVertexKey(vertexId));
+      } else {
+        vertexId.write(assignments);
+      }
+      assignments.writeInt(bestPartition);
+    } catch (IOException e) {
+      throw new IllegalStateException("assignVertex: IOException", e);
+    }
+    return partitionOwnersById[bestPartition];
+  }
+
+  /**
+   * Get the assignments made by this worker since the last call, to be
+   * sent to the other workers.
+   *
+   * @return Chunks of serialized (vertex id or key, partition id) pairs
+   */
+  public synchronized List<ExtendedDataOutput> removeLocalAssignments() {
+    if (LOG.isInfoEnabled()) {
+      StringBuilder sizes = new StringBuilder();
+      for (int partitionId = 0; partitionId < partitionSizes.length;
+           ++partitionId) {
+        if (partitionOwnersById[partitionId] != null) {
+          sizes.append(' ').append(partitionSizes[partitionId]);
+        }
+      }
+      LOG.info("removeLocalAssignments: Assigned " + assignedVertices +
+          " vertices to partitions of sizes" + sizes);
+    }
+    List<ExtendedDataOutput> assignments =
+        Lists.newArrayList(localAssignments);
+    localAssignments.clear();
+    return assignments;
+  }
+
+  /**
+   * Add the assignments made by another worker.
+   *
+   * @param input Serialized (vertex id or key, partition id) pairs
+   * @throws IOException
+   */
+  public void addAssignments(ExtendedDataInput input) throws IOException {
+    if (!numericIds) {
+      while (input.available() > 0) {
+        I vertexId = conf.createVertexId();
+        vertexId.readFields(input);
+        putAssignedPartition(vertexId, input.readInt());
+      }
+      return;
+    }
+    // Every assignment is a long key and an int partition id
+    int size = input.available() / 12;
+    long[] keys = new long[size];
+    int[] partitions = new int[size];
+    for (int i = 0; i < size; ++i) {
+      keys[i] = input.readLong();
+      partitions[i] = input.readInt();
+    }
+    addShard(KeyPartitionShard.sort(keys, partitions));
+  }
+
+  /**
+   * Add a shard of assignments, merging it with the smaller shards so that
+   * there is a logarithmic number of them.
+   *
+   * @param shard Shard to add
+   */
+  private void addShard(KeyPartitionShard shard) {
+    assignmentsLock.writeLock().lock();
+    try {
+      if (partitionTable != null) {
+        throw new IllegalStateException("addShard: Cannot add " +
+            shard.size + " assignments after the input was loaded");
+      }
+      receivedShards.add(shard);
+      int numShards = receivedShards.size();
+      while (numShards > 1 && receivedShards.get(numShards - 2).size <=
+          2 * receivedShards.get(numShards - 1).size) {
+        KeyPartitionShard merged = KeyPartitionShard.merge(
+            receivedShards.remove(numShards - 2),
+            receivedShards.remove(numShards - 2));
+        receivedShards.add(merged);
+        --numShards;
+      }
+    } finally {
+      assignmentsLock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Called once the assignments of all workers were added, to compact
+   * them into a {@link VertexPartitionTable}.  No vertices can be assigned
+   * anymore.
+   */
+  public void finishAssignments() {
+    if (!numericIds) {
+      return;
+    }
+    assignmentsLock.writeLock().lock();
+    try {
+      if (partitionTable != null) {
+        return;
+      }
+      long[] localKeys = keyPartitions.keySet().toLongArray();
+      int[] localPartitions = new int[localKeys.length];
+      for (int i = 0; i < localKeys.length; ++i) {
+        localPartitions[i] = keyPartitions.get(localKeys[i]);
+      }
+      keyPartitions = null;
+      KeyPartitionShard merged =
+          KeyPartitionShard.sort(localKeys, localPartitions);
+      for (KeyPartitionShard shard : receivedShards) {
+        merged = KeyPartitionShard.merge(merged, shard);
+      }
+      receivedShards = null;
+      partitionTable = VertexPartitionTable.create(
+          merged.keys, merged.partitions, merged.size);
+      if (LOG.isInfoEnabled()) {
+        LOG.info("finishAssignments: Compacted " + merged.size +
+            " vertex partitions into " + partitionTable.getNumRanges() +
+            " ranges and " + partitionTable.getNumExceptions() +
+            " exceptions");
+      }
+    } finally {
+      assignmentsLock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Sorted partitions of vertex keys, with numeric ids.  When a key was
+   * assigned more than once, only its lowest partition is kept.
+   */
+  private static class KeyPartitionShard {
+    /** Distinct keys in increasing order */
+    private final long[] keys;
+    /** Partition of every key */
+    private final int[] partitions;
+    /** Number of keys */
+    private final int size;
+
+    /**
+     * Constructor.
+     *
+     * @param keys Distinct keys in increasing order
+     * @param partitions Partition of every key
+     * @param size Number of keys
+     */
+    private KeyPartitionShard(long[] keys, int[] partitions, int size) {
+      this.keys = keys;
+      this.partitions = partitions;
+      this.size = size;
+    }
+
+    /**
+     * Create a shard from unsorted assignments.
+     *
+     * @param keys Keys, sorted in place
+     * @param partitions Partition of every key, sorted in place
+     * @return Shard
+     */
+    public static KeyPartitionShard sort(final long[] keys,
+        final int[] partitions) {
+      // Sorting by partition as well puts the lowest partition of a key
+      // first
+      it.unimi.dsi.fastutil.Arrays.quickSort(0, keys.length,
+          new AbstractIntComparator() {
+            @Override
+            public int compare(int i, int j) {
+              if (keys[i] != keys[j]) {
+                return keys[i] < keys[j] ? -1 : 1;
+              }
+              return partitions[i] - partitions[j];
+            }
+          }, new Swapper() {
+            @Override
+            public void swap(int i, int j) {
+              long key = keys[i];
+              keys[i] = keys[j];
+              keys[j] = key;
+              int partition = partitions[i];
+              partitions[i] = partitions[j];
+              partitions[j] = partition;
+            }
+          });
+      int size = 0;
+      for (int i = 0; i < keys.length; ++i) {
+        if (size == 0 || keys[i] != keys[size - 1]) {
+          keys[size] = keys[i];
+          partitions[size] = partitions[i];
+          ++size;
+        }
+      }
+      return new KeyPartitionShard(keys, partitions, size);
+    }
+
+    /**
+     * Merge two shards.
+     *
+     * @param first First shard
+     * @param second Second shard
+     * @return Shard with the keys of both
+     */
+    public static KeyPartitionShard merge(KeyPartitionShard first,
+        KeyPartitionShard second) {
+      long[] keys = new long[first.size + second.size];
+      int[] partitions = new int[keys.length];
+      int size = 0;
+      int i = 0;
+      int j = 0;
+      while (i < first.size || j < second.size) {
+        if (j == second.size ||
+            (i < first.size && first.keys[i] < second.keys[j])) {
+          keys[size] = first.keys[i];
+          partitions[size++] = first.partitions[i++];
+        } else if (i == first.size || second.keys[j] < first.keys[i]) {
+          keys[size] = second.keys[j];
+          partitions[size++] = second.partitions[j++];
+        } else {
+          keys[size] = first.keys[i];
+          partitions[size++] =
+              Math.min(first.partitions[i++], second.partitions[j++]);
+        }
+      }
+      return new KeyPartitionShard(keys, partitions, size);
+    }
+
+    /**
+     * Get the partition of a key.
+     *
+     * @param key Vertex key
+     * @return Partition id, or -1 if the key is not in the shard
+     */
+    public int getPartition(long key) {
+      int index = Arrays.binarySearch(keys, 0, size, key);
+      return index < 0 ? -1 : partitions[index];
+    }
+  }
+}
@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.partition;
+
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+
+import java.util.Arrays;
+
+/**
+ * Immutable and compact mapping of vertex keys to partition ids.  Sorted
+ * keys that map to the same partition are stored as a single range.  A short
+ * run of keys with another partition in the middle of a range does not
+ * break it up, but is stored as exceptions instead.  Keys outside of all
+ * ranges are not in the table, while keys inside a range that were not in
+ * the mapping get the partition of the range.
+ *
+ * A mapping that follows the order of the keys, e.g. from loading sorted
+ * input splits, takes 20 bytes per range instead of a map entry per
+ * vertex.  A mapping that does not follow the order of the keys degrades
+ * to a range per vertex, i.e. 20 bytes per vertex of the whole graph.
+ */
+public class VertexPartitionTable {
+  /** Longest run of keys that is stored as exceptions */
+  private static final int MAX_EXCEPTION_RUN = 2;
+  /** First key of every range, sorted */
+  private final long[] rangeStarts;
+  /** Last key of every range */
+  private final long[] rangeEnds;
+  /** Partition of every range */
+  private final int[] rangePartitions;
+  /** Partitions of keys that differ from their range */
+  private final Long2IntOpenHashMap exceptions;
+
+  /**
+   * Constructor.
+   *
+   * @param rangeStarts First key of every range, sorted
+   * @param rangeEnds Last key of every range
+   * @param rangePartitions Partition of every range
+   * @param exceptions Partitions of keys that differ from their range
+   */
+  private VertexPartitionTable(long[] rangeStarts, long[] rangeEnds,
+      int[] rangePartitions, Long2IntOpenHashMap exceptions) {
+    this.rangeStarts = rangeStarts;
+    this.rangeEnds = rangeEnds;
+    this.rangePartitions = rangePartitions;
+    this.exceptions = exceptions;
+  }
+
+  /**
+   * Create the table of a mapping.
+   *
+   * @param keyPartitions Partition of every key
+   * @return Table
+   */
+  public static VertexPartitionTable create(Long2IntMap keyPartitions) {
+    final long[] keys = keyPartitions.keySet().toLongArray();
+    long[] partitions = new long[keys.length];
+    for (int i = 0; i < keys.length; ++i) {
+      partitions[i] = keyPartitions.get(keys[i]);
+    }
+    LongArrays.radixSort(keys, partitions);
+    int[] intPartitions = new int[keys.length];
+    for (int i = 0; i < keys.length; ++i) {
+      intPartitions[i] = (int) partitions[i];
+    }
+    return create(keys, intPartitions, keys.length);
+  }
+
+  /**
+   * Create the table of a mapping given by sorted keys.  Only the run
+   * boundaries are kept, so the arrays can be dropped afterwards.
+   *
+   * @param keys Distinct keys in increasing order
+   * @param partitions Partition of every key
+   * @param length Number of keys
+   * @return Table
+   */
+  public static VertexPartitionTable create(long[] keys, int[] partitions,
+      int length) {
+    // Split the sorted keys in runs of the same partition
+    int numRuns = 0;
+    int[] runStarts = new int[length + 1];
+    for (int i = 0; i < length; ++i) {
+      if (i == 0 || partitions[i] != partitions[i - 1]) {
+        runStarts[numRuns++] = i;
+      }
+    }
+    runStarts[numRuns] = length;
+
+    // Merge short runs between two runs of the same partition into ranges
+    long[] rangeStarts = new long[numRuns];
+    long[] rangeEnds = new long[numRuns];
+    int[] rangePartitions = new int[numRuns];
+    Long2IntOpenHashMap exceptions = new Long2IntOpenHashMap();
+    int numRanges = 0;
+    int run = 0;
+    while (run < numRuns) {
+      int partition = partitions[runStarts[run]];
+      rangeStarts[numRanges] = keys[runStarts[run]];
+      int lastRun = run;
+      while (lastRun + 2 < numRuns &&
+          runStarts[lastRun + 2] - runStarts[lastRun + 1] <=
+              MAX_EXCEPTION_RUN &&
+          partitions[runStarts[lastRun + 2]] == partition) {
+        for (int i = runStarts[lastRun + 1]; i < runStarts[lastRun + 2];
+             ++i) {
+          exceptions.put(keys[i], partitions[i]);
+        }
+        lastRun += 2;
+      }
+      rangeEnds[numRanges] = keys[runStarts[lastRun + 1] - 1];
+      rangePartitions[numRanges] = partition;
+      ++numRanges;
+      run = lastRun + 1;
+    }
+    exceptions.trim();
+    return new VertexPartitionTable(
+        Arrays.copyOf(rangeStarts, numRanges),
+        Arrays.copyOf(rangeEnds, numRanges),
+        Arrays.copyOf(rangePartitions, numRanges), exceptions);
+  }
+
+  /**
+   * Get the partition of a key.
+   *
+   * @param key Vertex key
+   * @return Partition id, or -1 if the key is not in the table
+   */
+  public int getPartition(long key) {
+    int range = Arrays.binarySearch(rangeStarts, key);
+    if (range < 0) {
+      // Range starting before the key
+      range = -range - 2;
+      if (range < 0 || key > rangeEnds[range]) {
+        return -1;
+      }
+    }
+    if (!exceptions.isEmpty() && exceptions.containsKey(key)) {
+      return exceptions.get(key);
+    }
+    return rangePartitions[range];
+  }
+
+  /**
+   * Get the number of ranges.
+   *
+   * @return Number of ranges
+   */
+  public int getNumRanges() {
+    return rangeStarts.length;
+  }
+
+  /**
+   * Get the number of keys stored as exceptions to their range.
+   *
+   * @return Number of exceptions
+   */
+  public int getNumExceptions() {
+    return exceptions.size();
+  }
+}
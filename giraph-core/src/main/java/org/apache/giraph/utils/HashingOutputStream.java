@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.utils;
+
+import org.apache.hadoop.io.Writable;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream which feeds everything written to it into a
+ * {@link Hasher}, so that serialized data can be hashed without keeping it
+ * in memory.
+ */
+public class HashingOutputStream extends OutputStream {
+  /** Hasher receiving the bytes */
+  private final Hasher hasher;
+
+  /**
+   * Constructor
+   *
+   * @param hasher Hasher receiving the bytes
+   */
+  public HashingOutputStream(Hasher hasher) {
+    this.hasher = hasher;
+  }
+
+  /**
+   * Hash the serialized form of a writable.
+   *
+   * @param hashFunction Hash function to use
+   * @param writable Writable to hash
+   * @return Hash of the bytes written by {@link Writable#write}
+   * @throws IOException
+   */
+  public static HashCode hashWritable(HashFunction hashFunction,
+      Writable writable) throws IOException {
+    Hasher hasher = hashFunction.newHasher();
+    DataOutputStream output =
+        new DataOutputStream(new HashingOutputStream(hasher));
+    writable.write(output);
+    output.flush();
+    return hasher.hash();
+  }
+
+  @Override
+  public void write(int b) {
+    hasher.putByte((byte) b);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) {
+    hasher.putBytes(b, off, len);
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.utils;
+
+import org.apache.hadoop.io.Writable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Sorted array of long ids, e.g. a neighbor list sent as a message.
+ * Serialized as variable-length deltas, so that clustered ids take about a
+ * byte each, and deserialized into a reused primitive array.
+ */
+public class SortedLongArrayWritable implements Writable {
+  /** Sorted ids, the array can be longer than the number of ids */
+  private long[] ids = new long[0];
+  /** Number of ids */
+  private int size;
+  /** Whether {@link #ids} was given by the caller, so it can't be reused */
+  private boolean callerIds;
+
+  /**
+   * Constructor for reflection.
+   */
+  public SortedLongArrayWritable() { }
+
+  /**
+   * Constructor
+   *
+   * @param sortedIds Sorted ids, used without copying
+   * @param size Number of ids to use from the array
+   */
+  public SortedLongArrayWritable(long[] sortedIds, int size) {
+    set(sortedIds, size);
+  }
+
+  /**
+   * Set the ids.  The array is not reused by {@link #readFields}.
+   *
+   * @param sortedIds Sorted ids, used without copying
+   * @param size Number of ids to use from the array
+   */
+  public void set(long[] sortedIds, int size) {
+    ids = sortedIds;
+    this.size = size;
+    callerIds = true;
+  }
+
+  /**
+   * Get the array with the ids, which can be longer than the number of ids.
+   *
+   * @return Sorted ids
+   */
+  public long[] getIds() {
+    return ids;
+  }
+
+  /**
+   * Get the number of ids.
+   *
+   * @return Number of ids
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Count the ids which are also in another array.  Every copy of an id of
+   * this array is counted, copies in the other array are not.
+   *
+   * @param otherIds Other sorted ids
+   * @param otherLength Number of ids to use from the other array
+   * @return Number of ids of this array which are in the other one
+   */
+  public int intersectionSize(long[] otherIds, int otherLength) {
+    return SortedLongArrays.intersectionSize(ids, size, otherIds,
+        otherLength);
+  }
+
+  @Override
+  public void write(DataOutput out) throws IOException {
+    org.apache.hadoop.io.WritableUtils.writeVInt(out, size);
+    long previous = 0;
+    for (int i = 0; i < size; ++i) {
+      // Deltas are non-negative, except maybe for the first id
+      org.apache.hadoop.io.WritableUtils.writeVLong(out, ids[i] - previous);
+      previous = ids[i];
+    }
+  }
+
+  @Override
+  public void readFields(DataInput in) throws IOException {
+    size = org.apache.hadoop.io.WritableUtils.readVInt(in);
+    if (callerIds || ids.length < size) {
+      ids = new long[size];
+      callerIds = false;
+    }
+    long previous = 0;
+    for (int i = 0; i < size; ++i) {
+      previous += org.apache.hadoop.io.WritableUtils.readVLong(in);
+      ids[i] = previous;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return Arrays.toString(Arrays.copyOf(ids, size));
+  }
+}
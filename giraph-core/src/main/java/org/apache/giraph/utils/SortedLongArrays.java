@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.utils;
+
+/**
+ * Intersection of sorted arrays of long ids, e.g. neighbor lists.
+ * Merges arrays of similar sizes, and gallops through the larger array
+ * (exponential then binary search) when one is much smaller.
+ */
+public class SortedLongArrays {
+  /**
+   * Size ratio above which the smaller array is searched in the larger one
+   * instead of merging them.
+   */
+  public static final int GALLOP_RATIO = 16;
+
+  /** Do not instantiate. */
+  private SortedLongArrays() { }
+
+  /**
+   * Find the first position in a sorted range whose value is not smaller
+   * than the key, searching with exponentially growing steps.
+   *
+   * @param array Sorted array
+   * @param from First position of the range
+   * @param to Position after the last one of the range
+   * @param key Key to search for
+   * @return First position with a value not smaller than the key, or to
+   */
+  public static int gallop(long[] array, int from, int to, long key) {
+    int step = 1;
+    int low = from;
+    int high = from;
+    while (high < to && array[high] < key) {
+      low = high + 1;
+      high += step;
+      step <<= 1;
+    }
+    if (high > to) {
+      high = to;
+    }
+    // Binary search in [low, high)
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (array[middle] < key) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Count the ids of the first array which are also in the second one.
+   * Every copy of an id of the first array is counted, copies in the
+   * second array are not, whichever of the two arrays is the smaller one.
+   *
+   * @param ids Sorted ids
+   * @param length Number of ids to use from the first array
+   * @param otherIds Other sorted ids
+   * @param otherLength Number of ids to use from the other array
+   * @return Number of ids which are in both arrays
+   */
+  public static int intersectionSize(long[] ids, int length,
+      long[] otherIds, int otherLength) {
+    return intersect(ids, length, otherIds, otherLength, null);
+  }
+
+  /**
+   * Find the ids of the first array which are also in the second one.
+   * The smaller array is walked and, if it is more than
+   * {@link #GALLOP_RATIO} times smaller, the other one galloped through,
+   * whichever of the two arrays is the smaller one.
+   *
+   * @param ids Sorted ids
+   * @param length Number of ids to use from the first array
+   * @param otherIds Other sorted ids
+   * @param otherLength Number of ids to use from the other array
+   * @param result Array to store the common ids in, at least as long as
+   *               the first array, or null to only count them
+   * @return Number of ids which are in both arrays
+   */
+  public static int intersect(long[] ids, int length,
+      long[] otherIds, int otherLength, long[] result) {
+    if ((long) otherLength * GALLOP_RATIO < length) {
+      return gallopIntersect(ids, length, otherIds, otherLength, result);
+    }
+    int count = 0;
+    int otherPosition = 0;
+    boolean gallop = (long) length * GALLOP_RATIO < otherLength;
+    for (int i = 0; i < length && otherPosition < otherLength; ++i) {
+      long id = ids[i];
+      if (gallop) {
+        otherPosition = gallop(otherIds, otherPosition, otherLength, id);
+      } else {
+        while (otherPosition < otherLength && otherIds[otherPosition] < id) {
+          ++otherPosition;
+        }
+      }
+      if (otherPosition < otherLength && otherIds[otherPosition] == id) {
+        if (result != null) {
+          result[count] = id;
+        }
+        ++count;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Find the ids of a large array which are also in a much smaller one, by
+   * walking the small array and galloping through the large one.  Every
+   * copy of a common id in the large array is counted, as when walking the
+   * large array.
+   *
+   * @param ids Sorted ids
+   * @param length Number of ids to use from the first array
+   * @param otherIds Other sorted ids, much fewer than the first ones
+   * @param otherLength Number of ids to use from the other array
+   * @param result Array to store the common ids in, or null
+   * @return Number of ids of the first array which are in both arrays
+   */
+  private static int gallopIntersect(long[] ids, int length,
+      long[] otherIds, int otherLength, long[] result) {
+    int count = 0;
+    int position = 0;
+    for (int i = 0; i < otherLength && position < length; ++i) {
+      long id = otherIds[i];
+      if (i > 0 && otherIds[i - 1] == id) {
+        continue;
+      }
+      position = gallop(ids, position, length, id);
+      while (position < length && ids[position] == id) {
+        if (result != null) {
+          result[count] = id;
+        }
+        ++count;
+        ++position;
+      }
+    }
+    return count;
+  }
+}
@@ -76,13 +76,13 @@ public class UnsafeByteArrayInputStream implements ExtendedDataInput {
    * Constructor.
    *
    * @param buf Buffer to read from
-   * @param offset Offsetin the buffer to start reading from
+   * @param offset Offset in the buffer to start reading from
    * @param length Max length of the buffer to read
    */
   public UnsafeByteArrayInputStream(byte[] buf, int offset, int length) {
     this.buf = buf;
     this.pos = offset;
-    this.bufLength = length;
+    this.bufLength = offset + length;
   }
 
   /**
@@ -536,4 +536,30 @@ public class WritableUtils {
     ((VertexEdges<I, E>) vertex.getEdges()).write(output);
     output.writeBoolean(vertex.isHalted());
   }
+
+  /**
+   * Writes a vertex to an extended data output, preceded by its size
+   * (including the size), the way
+   * {@link org.apache.giraph.partition.ByteArrayPartition} stores it.
+   *
+   * @param output the output stream
+   * @param vertex The vertex to serialize
+   * @param conf Configuration
+   * @param <I> Vertex id
+   * @param <V> Vertex value
+   * @param <E> Edge value
+   * @param <M> Message value
+   * @throws IOException
+   */
+  public static <I extends WritableComparable, V extends Writable,
+  E extends Writable, M extends Writable> void writeVertexWithSize(
+      ExtendedDataOutput output,
+      Vertex<I, V, E, M> vertex,
+      ImmutableClassesGiraphConfiguration<I, V, E, M> conf)
+    throws IOException {
+    int start = output.getPos();
+    output.writeInt(-1);
+    writeVertexToDataOutput(output, vertex, conf);
+    output.writeInt(start, output.getPos() - start);
+  }
 }
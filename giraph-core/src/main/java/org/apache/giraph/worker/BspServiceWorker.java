@@ -21,6 +21,7 @@ package org.apache.giraph.worker;
 
 import org.apache.giraph.bsp.ApplicationState;
 import org.apache.giraph.bsp.CentralizedServiceWorker;
+import org.apache.giraph.comm.MirroredVertices;
 import org.apache.giraph.comm.ServerData;
 import org.apache.giraph.comm.WorkerClient;
 import org.apache.giraph.comm.WorkerClientRequestProcessor;
@@ -30,6 +31,7 @@ import org.apache.giraph.comm.netty.NettyWorkerAggregatorRequestProcessor;
 import org.apache.giraph.comm.netty.NettyWorkerClient;
 import org.apache.giraph.comm.netty.NettyWorkerClientRequestProcessor;
 import org.apache.giraph.comm.netty.NettyWorkerServer;
+import org.apache.giraph.comm.requests.SendVertexPartitionsRequest;
 import org.apache.giraph.conf.GiraphConstants;
 import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
 import org.apache.giraph.graph.GraphState;
@@ -38,25 +40,31 @@ import org.apache.giraph.graph.GraphTaskManager;
 import org.apache.giraph.graph.VertexEdgeCount;
 import org.apache.giraph.graph.InputSplitPaths;
 import org.apache.giraph.graph.InputSplitEvents;
+import org.apache.giraph.graph.InputSplitSchedule;
 import org.apache.giraph.graph.FinishedSuperstepStats;
 import org.apache.giraph.graph.AddressesAndPartitionsWritable;
 import org.apache.giraph.graph.GlobalStats;
 import org.apache.giraph.io.superstep_output.SuperstepOutput;
 import org.apache.giraph.utils.CallableFactory;
+import org.apache.giraph.utils.ExtendedDataOutput;
+import org.apache.giraph.utils.HashingOutputStream;
 import org.apache.giraph.utils.JMapHistoDumper;
 import org.apache.giraph.graph.Vertex;
 import org.apache.giraph.io.VertexOutputFormat;
 import org.apache.giraph.io.VertexWriter;
 import org.apache.giraph.partition.Partition;
+import org.apache.giraph.partition.PartitionCheckpointLocation;
 import org.apache.giraph.partition.PartitionExchange;
 import org.apache.giraph.partition.PartitionOwner;
 import org.apache.giraph.partition.PartitionStats;
 import org.apache.giraph.partition.PartitionStore;
+import org.apache.giraph.partition.StreamingWorkerPartitioner;
 import org.apache.giraph.partition.WorkerGraphPartitioner;
 import org.apache.giraph.master.MasterInfo;
 import org.apache.giraph.metrics.GiraphMetrics;
 import org.apache.giraph.metrics.GiraphTimer;
 import org.apache.giraph.metrics.GiraphTimerContext;
+import org.apache.giraph.metrics.GiraphTrace;
 import org.apache.giraph.metrics.ResetSuperstepMetricsObserver;
 import org.apache.giraph.metrics.SuperstepMetricsRegistry;
 import org.apache.giraph.metrics.WorkerSuperstepMetrics;
@@ -66,6 +74,7 @@ import org.apache.giraph.utils.ProgressableUtils;
 import org.apache.giraph.utils.WritableUtils;
 import org.apache.giraph.zk.BspEvent;
 import org.apache.giraph.zk.PredicateLock;
+import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.Writable;
@@ -84,13 +93,13 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import net.iharder.Base64;
 
-import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
-import java.io.DataOutput;
-import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -100,8 +109,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * ZooKeeper-based implementation of {@link CentralizedServiceWorker}.
@@ -151,6 +165,20 @@ public class BspServiceWorker<I extends WritableComparable,
   /** Superstep output */
   private SuperstepOutput<I, V, E> superstepOutput;
 
+  /**
+   * Locations of partitions in the latest checkpoint of this worker, used by
+   * incremental checkpointing
+   */
+  private final ConcurrentMap<Integer, PartitionCheckpointLocation>
+  lastCheckpointLocations = new ConcurrentHashMap<Integer,
+      PartitionCheckpointLocation>();
+  /**
+   * Hashes of the vertices data which the latest checkpoint of this worker
+   * refers to, used by incremental checkpointing
+   */
+  private final ConcurrentMap<Integer, HashCode> lastCheckpointHashes =
+      new ConcurrentHashMap<Integer, HashCode>();
+
   /** array of observers to call back to */
   private final WorkerObserver[] observers;
 
@@ -285,6 +313,35 @@ public class BspServiceWorker<I extends WritableComparable,
   }
 
 
+  /**
+   * Create the organizer of the input splits, following the schedule of
+   * the master if there is one.
+   *
+   * @param inputSplitPaths Input split paths
+   * @param inputSplitPathList Paths of the input splits
+   * @return Input split path organizer
+   */
+  private InputSplitPathOrganizer createInputSplitPathOrganizer(
+      InputSplitPaths inputSplitPaths, List<String> inputSplitPathList)
+    throws KeeperException, InterruptedException {
+    byte[] scheduleData = getZkExt().getData(
+        inputSplitPaths.getAllReadyPath(), false, null);
+    if (scheduleData != null && scheduleData.length > 0) {
+      InputSplitSchedule schedule = new InputSplitSchedule();
+      WritableUtils.readFieldsFromByteArray(scheduleData, schedule);
+      if (schedule.getNumSplits() == inputSplitPathList.size()) {
+        return new InputSplitPathOrganizer(getZkExt(), inputSplitPathList,
+            schedule, getWorkerInfo().getTaskId());
+      }
+      LOG.warn("createInputSplitPathOrganizer: Ignoring the schedule of " +
+          schedule.getNumSplits() + " input splits, found " +
+          inputSplitPathList.size());
+    }
+    return new InputSplitPathOrganizer(getZkExt(),
+        inputSplitPathList, getWorkerInfo().getHostname(),
+        getConfiguration().useInputSplitLocality());
+  }
+
   /**
    * Load the vertices from the user-defined {@link VertexReader}
    *
@@ -300,10 +357,8 @@ public class BspServiceWorker<I extends WritableComparable,
         INPUT_SUPERSTEP, 0, 0, getContext(), getGraphTaskManager(),
         null, null);
 
-    InputSplitPathOrganizer splitOrganizer =
-        new InputSplitPathOrganizer(getZkExt(),
-            inputSplitPathList, getWorkerInfo().getHostname(),
-            getConfiguration().useInputSplitLocality());
+    InputSplitPathOrganizer splitOrganizer = createInputSplitPathOrganizer(
+        vertexInputSplitsPaths, inputSplitPathList);
     InputSplitsHandler splitsHandler = new InputSplitsHandler(
         splitOrganizer,
         getZkExt(),
@@ -323,6 +378,29 @@ public class BspServiceWorker<I extends WritableComparable,
     return loadInputSplits(inputSplitPathList, inputSplitsCallableFactory);
   }
 
+  /**
+   * Send the partitions this worker assigned to the vertices it loaded to
+   * all the other workers, if the partitioner assigns them while loading.
+   */
+  private void sendVertexPartitions() {
+    if (!(workerGraphPartitioner instanceof StreamingWorkerPartitioner)) {
+      return;
+    }
+    List<ExtendedDataOutput> assignments =
+        ((StreamingWorkerPartitioner<I, V, E, M>) workerGraphPartitioner).
+            removeLocalAssignments();
+    for (WorkerInfo worker : getWorkerInfoList()) {
+      if (worker.equals(getWorkerInfo())) {
+        continue;
+      }
+      for (ExtendedDataOutput assignmentChunk : assignments) {
+        workerClient.sendWritableRequest(worker.getTaskId(),
+            new SendVertexPartitionsRequest<I, V, E, M>(assignmentChunk));
+      }
+    }
+    workerClient.waitAllRequests();
+  }
+
   /**
    * Load the edges from the user-defined {@link EdgeReader}.
    *
@@ -337,10 +415,8 @@ public class BspServiceWorker<I extends WritableComparable,
         INPUT_SUPERSTEP, 0, 0, getContext(), getGraphTaskManager(),
         null, null);
 
-    InputSplitPathOrganizer splitOrganizer =
-        new InputSplitPathOrganizer(getZkExt(),
-            inputSplitPathList, getWorkerInfo().getHostname(),
-            getConfiguration().useInputSplitLocality());
+    InputSplitPathOrganizer splitOrganizer = createInputSplitPathOrganizer(
+        edgeInputSplitsPaths, inputSplitPathList);
     InputSplitsHandler splitsHandler = new InputSplitsHandler(
         splitOrganizer,
         getZkExt(),
@@ -511,6 +587,7 @@ else[HADOOP_NON_SECURE]*/
         throw new IllegalStateException(
             "setup: loadVertices failed with KeeperException", e);
       }
+      sendVertexPartitions();
       getContext().progress();
     } else {
       vertexEdgeCount = new VertexEdgeCount();
@@ -546,6 +623,12 @@ else[HADOOP_NON_SECURE]*/
       waitForOtherWorkers(edgeInputSplitsPaths, edgeInputSplitsEvents);
     }
 
+    if (workerGraphPartitioner instanceof StreamingWorkerPartitioner) {
+      // All the vertex partitions were received from the other workers
+      ((StreamingWorkerPartitioner<I, V, E, M>) workerGraphPartitioner).
+          finishAssignments();
+    }
+
     // Create remaining partitions owned by this worker.
     for (PartitionOwner partitionOwner : masterSetPartitionOwners) {
       if (partitionOwner.getWorkerInfo().equals(getWorkerInfo()) &&
@@ -563,6 +646,13 @@ else[HADOOP_NON_SECURE]*/
       getServerData().getEdgeStore().moveEdgesToVertices();
     }
 
+    int mirrorMinDegree = getConfiguration().getMirrorVerticesMinDegree();
+    if (mirrorMinDegree > 0 && getConfiguration().useCombiner()) {
+      getServerData().setMirroredVertices(
+          MirroredVertices.findMirroredVertices(
+              getConfiguration(), getPartitionStore(), mirrorMinDegree));
+    }
+
     // Generate the partition stats for the input superstep and process
     // if necessary
     List<PartitionStats> partitionStatsList =
@@ -826,7 +916,10 @@ else[HADOOP_NON_SECURE]*/
           MemoryUtils.getRuntimeMemoryStats());
     }
     GiraphTimerContext timerContext = waitRequestsTimer.time();
+    long traceStartNanos = GiraphTrace.get().start();
     workerClient.waitAllRequests();
+    GiraphTrace.get().complete(GiraphTrace.BARRIER, "wait-requests",
+        traceStartNanos, "superstep", getSuperstep());
     timerContext.stop();
   }
 
@@ -836,11 +929,14 @@ else[HADOOP_NON_SECURE]*/
    * @param superstepFinishedNode ZooKeeper path to wait on.
    */
   private void waitForOtherWorkers(String superstepFinishedNode) {
+    long traceStartNanos = GiraphTrace.get().start();
     try {
       while (getZkExt().exists(superstepFinishedNode, true) == null) {
         getSuperstepFinishedEvent().waitForever();
         getSuperstepFinishedEvent().reset();
       }
+      GiraphTrace.get().complete(GiraphTrace.BARRIER, "superstep-barrier",
+          traceStartNanos, "superstep", getSuperstep());
     } catch (KeeperException e) {
       throw new IllegalStateException(
           "finishSuperstep: Failed while waiting for master to " +
@@ -910,7 +1006,7 @@ else[HADOOP_NON_SECURE]*/
    * @param numLocalVertices Number of local vertices
    * @throws InterruptedException
    */
-  private void saveVertices(long numLocalVertices) throws IOException,
+  private void saveVertices(final long numLocalVertices) throws IOException,
       InterruptedException {
     if (getConfiguration().getVertexOutputFormatClass() == null) {
       LOG.warn("saveVertices: " +
@@ -934,6 +1030,13 @@ else[HADOOP_NON_SECURE]*/
             "using " + numThreads + " threads");
     final VertexOutputFormat<I, V, E> vertexOutputFormat =
         getConfiguration().createVertexOutputFormat();
+    // Each partition is written exactly once, by whichever thread takes it
+    final BlockingQueue<Integer> partitionIdQueue =
+        new ArrayBlockingQueue<Integer>(
+            Math.max(1, getPartitionStore().getNumPartitions()));
+    Iterables.addAll(partitionIdQueue, getPartitionStore().getPartitionIds());
+    final int numPartitions = partitionIdQueue.size();
+    final AtomicLong totalVerticesWritten = new AtomicLong();
     CallableFactory<Void> callableFactory = new CallableFactory<Void>() {
       @Override
       public Callable<Void> newCallable(int callableId) {
@@ -949,30 +1052,37 @@ else[HADOOP_NON_SECURE]*/
             long verticesWritten = 0;
             long nextPrintVertices = 0;
             long nextPrintMsecs = System.currentTimeMillis() + 15000;
-            int partitionIndex = 0;
-            int numPartitions = getPartitionStore().getNumPartitions();
-            for (Integer partitionId : getPartitionStore().getPartitionIds()) {
+            while (true) {
+              Integer partitionId = partitionIdQueue.poll();
+              if (partitionId == null) {
+                break;
+              }
               Partition<I, V, E, M> partition =
                   getPartitionStore().getPartition(partitionId);
-              for (Vertex<I, V, E, M> vertex : partition) {
-                vertexWriter.writeVertex(vertex);
-                ++verticesWritten;
-
-                // Update status at most every 250k vertices or 15 seconds
-                if (verticesWritten > nextPrintVertices &&
-                    System.currentTimeMillis() > nextPrintMsecs) {
-                  LoggerUtils.setStatusAndLog(getContext(), LOG, Level.INFO,
-                      "saveVertices: Saved " + verticesWritten + " out of " +
-                          partition.getVertexCount() + " partition vertices, " +
-                          "on partition " + partitionIndex +
-                          " out of " + numPartitions);
-                  nextPrintMsecs = System.currentTimeMillis() + 15000;
-                  nextPrintVertices = verticesWritten + 250000;
+              try {
+                for (Vertex<I, V, E, M> vertex : partition) {
+                  vertexWriter.writeVertex(vertex);
+                  ++verticesWritten;
+
+                  // Update status at most every 250k vertices or 15 seconds
+                  if (verticesWritten > nextPrintVertices &&
+                      System.currentTimeMillis() > nextPrintMsecs) {
+                    LoggerUtils.setStatusAndLog(getContext(), LOG, Level.INFO,
+                        "saveVertices: Saved " +
+                            (totalVerticesWritten.get() + verticesWritten) +
+                            " out of " + numLocalVertices + " vertices, " +
+                            partitionIdQueue.size() + " out of " +
+                            numPartitions + " partitions remaining");
+                    nextPrintMsecs = System.currentTimeMillis() + 15000;
+                    nextPrintVertices = verticesWritten + 250000;
+                  }
                 }
+              } finally {
+                getPartitionStore().putPartition(partition);
               }
-              ++partitionIndex;
             }
             vertexWriter.close(getContext()); // the temp results are saved now
+            totalVerticesWritten.addAndGet(verticesWritten);
             return null;
           }
         };
@@ -982,7 +1092,8 @@ else[HADOOP_NON_SECURE]*/
         "save-vertices-%d", getContext());
 
     LoggerUtils.setStatusAndLog(getContext(), LOG, Level.INFO,
-      "saveVertices: Done saving vertices.");
+      "saveVertices: Done saving " + totalVerticesWritten.get() +
+          " vertices.");
     // YARN: must complete the commit the "task" output, Hadoop isn't there.
     if (getConfiguration().isPureYarnJob() &&
       getConfiguration().getVertexOutputFormatClass() != null) {
@@ -1070,15 +1181,13 @@ else[HADOOP_NON_SECURE]*/
             ", Superstep=" + getSuperstep());
 
     // Algorithm:
-    // For each partition, dump vertices and messages
+    // Several threads take partitions and dump their vertices and messages,
+    // each thread to its own file.  The metadata file tells where every
+    // partition is stored.
     Path metadataFilePath =
         new Path(getCheckpointBasePath(getSuperstep()) + "." +
             getHostnamePartitionId() +
             CHECKPOINT_METADATA_POSTFIX);
-    Path verticesFilePath =
-        new Path(getCheckpointBasePath(getSuperstep()) + "." +
-            getHostnamePartitionId() +
-            CHECKPOINT_VERTICES_POSTFIX);
     Path validFilePath =
         new Path(getCheckpointBasePath(getSuperstep()) + "." +
             getHostnamePartitionId() +
@@ -1094,49 +1203,90 @@ else[HADOOP_NON_SECURE]*/
       LOG.warn("storeCheckpoint: Removed metadata file " +
           metadataFilePath);
     }
-    if (getFs().delete(verticesFilePath, false)) {
-      LOG.warn("storeCheckpoint: Removed file " + verticesFilePath);
-    }
 
-    FSDataOutputStream verticesOutputStream =
-        getFs().create(verticesFilePath);
-    ByteArrayOutputStream metadataByteStream = new ByteArrayOutputStream();
-    DataOutput metadataOutput = new DataOutputStream(metadataByteStream);
-    for (Integer partitionId : getPartitionStore().getPartitionIds()) {
-      Partition<I, V, E, M> partition =
-          getPartitionStore().getPartition(partitionId);
-      long startPos = verticesOutputStream.getPos();
-      partition.write(verticesOutputStream);
-      // write messages
-      getServerData().getCurrentMessageStore().writePartition(
-          verticesOutputStream, partition.getId());
-      // Write the metadata for this partition
-      // Format:
-      // <index count>
-      //   <index 0 start pos><partition id>
-      //   <index 1 start pos><partition id>
-      metadataOutput.writeLong(startPos);
-      metadataOutput.writeInt(partition.getId());
-      if (LOG.isDebugEnabled()) {
-        LOG.debug("storeCheckpoint: Vertex file starting " +
-            "offset = " + startPos + ", length = " +
-            (verticesOutputStream.getPos() - startPos) +
-            ", partition = " + partition.toString());
+    final BlockingQueue<Integer> partitionIdQueue =
+        new ArrayBlockingQueue<Integer>(
+            Math.max(1, getPartitionStore().getNumPartitions()));
+    Iterables.addAll(partitionIdQueue, getPartitionStore().getPartitionIds());
+    final boolean incremental =
+        GiraphConstants.CHECKPOINT_INCREMENTAL.get(getConfiguration());
+    final AtomicLong reusedPartitions = new AtomicLong();
+    int numThreads = Math.min(
+        GiraphConstants.NUM_CHECKPOINT_IO_THREADS.get(getConfiguration()),
+        partitionIdQueue.size());
+    List<PartitionCheckpointLocation> locations = Lists.newArrayList();
+    if (numThreads > 0) {
+      CallableFactory<List<PartitionCheckpointLocation>> callableFactory =
+          new CallableFactory<List<PartitionCheckpointLocation>>() {
+            @Override
+            public Callable<List<PartitionCheckpointLocation>> newCallable(
+                final int callableId) {
+              return new Callable<List<PartitionCheckpointLocation>>() {
+                @Override
+                public List<PartitionCheckpointLocation> call()
+                  throws Exception {
+                  Path verticesFilePath =
+                      new Path(getCheckpointBasePath(getSuperstep()) + "." +
+                          getHostnamePartitionId() + "." + callableId +
+                          CHECKPOINT_VERTICES_POSTFIX);
+                  FSDataOutputStream verticesOutputStream =
+                      getFs().create(verticesFilePath, true);
+                  List<PartitionCheckpointLocation> threadLocations =
+                      Lists.newArrayList();
+                  while (true) {
+                    Integer partitionId = partitionIdQueue.poll();
+                    if (partitionId == null) {
+                      break;
+                    }
+                    Partition<I, V, E, M> partition =
+                        getPartitionStore().getPartition(partitionId);
+                    try {
+                      PartitionCheckpointLocation location =
+                          checkpointPartition(partition, verticesOutputStream,
+                              verticesFilePath.toString(), incremental);
+                      if (!location.getVerticesFile().equals(
+                          verticesFilePath.toString())) {
+                        reusedPartitions.incrementAndGet();
+                      }
+                      threadLocations.add(location);
+                    } finally {
+                      getPartitionStore().putPartition(partition);
+                    }
+                    getContext().progress();
+                  }
+                  verticesOutputStream.close();
+                  return threadLocations;
+                }
+              };
+            }
+          };
+      for (List<PartitionCheckpointLocation> threadLocations :
+          ProgressableUtils.getResultsWithNCallables(callableFactory,
+              numThreads, "checkpoint-vertices-%d", getContext())) {
+        locations.addAll(threadLocations);
       }
-      getPartitionStore().putPartition(partition);
-      getContext().progress();
     }
-    // Metadata is buffered and written at the end since it's small and
-    // needs to know how many partitions this worker owns
+
+    // Metadata is written at the end since it needs to know where all the
+    // partitions ended up
+    // Format:
+    // <index count>
+    //   <partition checkpoint location 0>
+    //   <partition checkpoint location 1>
     FSDataOutputStream metadataOutputStream =
         getFs().create(metadataFilePath);
-    metadataOutputStream.writeInt(getPartitionStore().getNumPartitions());
-    metadataOutputStream.write(metadataByteStream.toByteArray());
+    metadataOutputStream.writeInt(locations.size());
+    for (PartitionCheckpointLocation location : locations) {
+      location.write(metadataOutputStream);
+    }
     metadataOutputStream.close();
-    verticesOutputStream.close();
     if (LOG.isInfoEnabled()) {
       LOG.info("storeCheckpoint: Finished metadata (" +
-          metadataFilePath + ") and vertices (" + verticesFilePath + ").");
+          metadataFilePath + ") and vertices of " + locations.size() +
+          " partitions using " + numThreads + " threads" +
+          (incremental ? ", " + reusedPartitions.get() +
+              " partitions unchanged since the previous checkpoint" : "") +
+          ".");
     }
 
     getFs().createNewFile(validFilePath);
@@ -1164,6 +1314,60 @@ else[HADOOP_NON_SECURE]*/
     }
   }
 
+  /**
+   * Write a partition and its messages into a checkpoint.  With incremental
+   * checkpointing, vertices which didn't change since the previous
+   * checkpoint aren't written again, the location of the earlier copy is
+   * returned instead.
+   *
+   * @param partition Partition to write
+   * @param verticesOutputStream Stream of the checkpoint file
+   * @param verticesFile Name of the checkpoint file
+   * @param incremental Whether to do incremental checkpointing
+   * @return Location of the partition data
+   * @throws IOException
+   */
+  private PartitionCheckpointLocation checkpointPartition(
+      Partition<I, V, E, M> partition,
+      FSDataOutputStream verticesOutputStream, String verticesFile,
+      boolean incremental) throws IOException {
+    int partitionId = partition.getId();
+    PartitionCheckpointLocation location =
+        new PartitionCheckpointLocation(partitionId);
+    if (incremental) {
+      // Hashing is streamed so the partition isn't held twice in memory,
+      // at the cost of serializing it a second time if it changed
+      HashCode hash = HashingOutputStream.hashWritable(
+          Hashing.murmur3_128(), partition);
+      PartitionCheckpointLocation previousLocation =
+          lastCheckpointLocations.get(partitionId);
+      if (previousLocation != null &&
+          hash.equals(lastCheckpointHashes.get(partitionId))) {
+        location.setVertices(previousLocation.getVerticesFile(),
+            previousLocation.getVerticesPos());
+      } else {
+        location.setVertices(verticesFile, verticesOutputStream.getPos());
+        partition.write(verticesOutputStream);
+        lastCheckpointHashes.put(partitionId, hash);
+      }
+    } else {
+      location.setVertices(verticesFile, verticesOutputStream.getPos());
+      partition.write(verticesOutputStream);
+    }
+    // Messages are always written, they change every superstep
+    location.setMessages(verticesFile, verticesOutputStream.getPos());
+    getServerData().getCurrentMessageStore().writePartition(
+        verticesOutputStream, partitionId);
+    if (incremental) {
+      lastCheckpointLocations.put(partitionId, location);
+    }
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("checkpointPartition: Stored " + location + " for " +
+          "partition = " + partition.toString());
+    }
+    return location;
+  }
+
   @Override
   public VertexEdgeCount loadCheckpoint(long superstep) {
     try {
@@ -1179,7 +1383,6 @@ else[HADOOP_NON_SECURE]*/
     // Examine all the partition owners and load the ones
     // that match my hostname and id from the master designated checkpoint
     // prefixes.
-    long startPos = 0;
     int loadedPartitions = 0;
     for (PartitionOwner partitionOwner :
       workerGraphPartitioner.getPartitionOwners()) {
@@ -1187,42 +1390,43 @@ else[HADOOP_NON_SECURE]*/
         String metadataFile =
             partitionOwner.getCheckpointFilesPrefix() +
             CHECKPOINT_METADATA_POSTFIX;
-        String partitionsFile =
-            partitionOwner.getCheckpointFilesPrefix() +
-            CHECKPOINT_VERTICES_POSTFIX;
         try {
-          int partitionId = -1;
+          PartitionCheckpointLocation location = null;
           DataInputStream metadataStream =
               getFs().open(new Path(metadataFile));
           int partitions = metadataStream.readInt();
           for (int i = 0; i < partitions; ++i) {
-            startPos = metadataStream.readLong();
-            partitionId = metadataStream.readInt();
-            if (partitionId == partitionOwner.getPartitionId()) {
+            PartitionCheckpointLocation currentLocation =
+                new PartitionCheckpointLocation();
+            currentLocation.readFields(metadataStream);
+            if (currentLocation.getPartitionId() ==
+                partitionOwner.getPartitionId()) {
+              location = currentLocation;
               break;
             }
           }
-          if (partitionId != partitionOwner.getPartitionId()) {
+          metadataStream.close();
+          if (location == null) {
             throw new IllegalStateException(
                 "loadCheckpoint: " + partitionOwner +
                 " not found!");
           }
-          metadataStream.close();
+          int partitionId = location.getPartitionId();
           Partition<I, V, E, M> partition =
               getConfiguration().createPartition(partitionId, getContext());
-          DataInputStream partitionsStream =
-              getFs().open(new Path(partitionsFile));
-          if (partitionsStream.skip(startPos) != startPos) {
-            throw new IllegalStateException(
-                "loadCheckpoint: Failed to skip " + startPos +
-                " on " + partitionsFile);
-          }
-          partition.readFields(partitionsStream);
-          if (partitionsStream.readBoolean()) {
+          FSDataInputStream verticesStream =
+              getFs().open(new Path(location.getVerticesFile()));
+          verticesStream.seek(location.getVerticesPos());
+          partition.readFields(verticesStream);
+          verticesStream.close();
+          FSDataInputStream messagesStream =
+              getFs().open(new Path(location.getMessagesFile()));
+          messagesStream.seek(location.getMessagesPos());
+          if (messagesStream.readBoolean()) {
             getServerData().getCurrentMessageStore().readFieldsForPartition(
-                partitionsStream, partitionId);
+                messagesStream, partitionId);
           }
-          partitionsStream.close();
+          messagesStream.close();
           if (LOG.isInfoEnabled()) {
             LOG.info("loadCheckpoint: Loaded partition " +
                 partition);
@@ -1289,6 +1493,8 @@ else[HADOOP_NON_SECURE]*/
     WorkerClientRequestProcessor<I, V, E, M> workerClientRequestProcessor =
         new NettyWorkerClientRequestProcessor<I, V, E, M>(getContext(),
             getConfiguration(), this);
+    boolean streamPartitions =
+        GiraphConstants.STREAM_PARTITION_EXCHANGE.get(getConfiguration());
     for (Entry<WorkerInfo, List<Integer>> workerPartitionList :
       randomEntryList) {
       for (Integer partitionId : workerPartitionList.getValue()) {
@@ -1305,9 +1511,15 @@ else[HADOOP_NON_SECURE]*/
               workerPartitionList.getKey() + " partition " +
               partitionId);
         }
-        workerClientRequestProcessor.sendPartitionRequest(
-            workerPartitionList.getKey(),
-            partition);
+        if (streamPartitions) {
+          workerClientRequestProcessor.sendPartitionInChunks(
+              workerPartitionList.getKey(),
+              partition);
+        } else {
+          workerClientRequestProcessor.sendPartitionRequest(
+              workerPartitionList.getKey(),
+              partition);
+        }
       }
     }
 
@@ -1480,6 +1692,28 @@ else[HADOOP_NON_SECURE]*/
     return workerGraphPartitioner.getPartitionOwners();
   }
 
+  @Override
+  public WorkerGraphPartitioner<I, V, E, M> getWorkerGraphPartitioner() {
+    return workerGraphPartitioner;
+  }
+
+  /**
+   * Get the owner of a vertex loaded from the input.  A
+   * {@link StreamingWorkerPartitioner} decides on the partition of the
+   * vertex here.
+   *
+   * @param vertex Vertex loaded from the input
+   * @return Owner of the partition of the vertex
+   */
+  public PartitionOwner getInputVertexPartitionOwner(
+      Vertex<I, V, E, M> vertex) {
+    if (workerGraphPartitioner instanceof StreamingWorkerPartitioner) {
+      return ((StreamingWorkerPartitioner<I, V, E, M>)
+          workerGraphPartitioner).assignVertex(vertex);
+    }
+    return getVertexPartitionOwner(vertex.getId());
+  }
+
   @Override
   public Integer getPartitionId(I vertexId) {
     PartitionOwner partitionOwner = getVertexPartitionOwner(vertexId);
@@ -19,6 +19,7 @@ package org.apache.giraph.worker;
 
 import com.google.common.collect.Lists;
 
+import org.apache.giraph.graph.InputSplitSchedule;
 import org.apache.giraph.zk.ZooKeeperExt;
 import org.apache.hadoop.io.Text;
 import org.apache.zookeeper.KeeperException;
@@ -86,6 +87,23 @@ public class InputSplitPathOrganizer {
     }
   }
 
+  /**
+   * Constructor for input splits scheduled by the master
+   *
+   * @param zooKeeper the worker's ZkExt
+   * @param inputSplitPathList path of input splits to read from
+   * @param schedule schedule of the input splits
+   * @param taskId the worker's task id
+   */
+  public InputSplitPathOrganizer(
+      final ZooKeeperExt zooKeeper, final List<String> inputSplitPathList,
+      final InputSplitSchedule schedule, final int taskId) {
+    this.zooKeeper = zooKeeper;
+    // Locality was already taken into account by the master
+    this.pathList = schedule.orderPaths(inputSplitPathList, taskId);
+    this.hostName = null;
+  }
+
   /**
   * Re-order list of InputSplits so files local to this worker node's
   * disk are the first it will iterate over when attempting to claim
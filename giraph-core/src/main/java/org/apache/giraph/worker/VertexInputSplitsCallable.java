@@ -18,14 +18,17 @@
 
 package org.apache.giraph.worker;
 
+import org.apache.giraph.conf.GiraphConstants;
 import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
 import org.apache.giraph.graph.GraphState;
 import org.apache.giraph.graph.VertexEdgeCount;
+import org.apache.giraph.io.PipelinedVertexReader;
 import org.apache.giraph.io.VertexInputFormat;
 import org.apache.giraph.io.VertexReader;
 import org.apache.giraph.partition.PartitionOwner;
 import org.apache.giraph.utils.LoggerUtils;
 import org.apache.giraph.utils.MemoryUtils;
+import org.apache.giraph.utils.ProgressableUtils;
 import org.apache.giraph.graph.Vertex;
 import org.apache.giraph.zk.ZooKeeperExt;
 import org.apache.hadoop.io.Writable;
@@ -35,9 +38,18 @@ import org.apache.hadoop.mapreduce.Mapper;
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.yammer.metrics.core.Meter;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Load as many vertex input splits as possible.
@@ -54,6 +66,8 @@ public class VertexInputSplitsCallable<I extends WritableComparable,
     extends InputSplitsCallable<I, V, E, M> {
   /** How often to update metrics and print info */
   public static final int VERTICES_UPDATE_PERIOD = 250000;
+  /** Number of records parsed together by a parsing thread */
+  public static final int PARSING_BATCH_SIZE = 1000;
   /** Class logger */
   private static final Logger LOG =
       Logger.getLogger(VertexInputSplitsCallable.class);
@@ -61,6 +75,19 @@ public class VertexInputSplitsCallable<I extends WritableComparable,
   private final long inputSplitMaxVertices;
   /** Bsp service worker (only use thread-safe methods) */
   private final BspServiceWorker<I, V, E, M> bspServiceWorker;
+  /** Number of threads parsing records of a split, 0 to parse here */
+  private final int numParsingThreads;
+  /**
+   * Threads parsing the records of the input splits of this callable,
+   * created with the first pipelined vertex reader
+   */
+  private ExecutorService parsingExecutor;
+  /** Vertices loaded from the current input split */
+  private long inputSplitVerticesLoaded;
+  /** Edges loaded from the current input split, not counted in metrics */
+  private long edgesSinceLastUpdate;
+  /** Edges loaded from the current input split, counted in metrics */
+  private long inputSplitEdgesLoaded;
 
   // Metrics
   /** number of vertices loaded meter across all readers */
@@ -90,12 +117,148 @@ public class VertexInputSplitsCallable<I extends WritableComparable,
 
     inputSplitMaxVertices = configuration.getInputSplitMaxVertices();
     this.bspServiceWorker = bspServiceWorker;
+    numParsingThreads =
+        GiraphConstants.NUM_INPUT_PARSING_THREADS.get(configuration);
 
     // Initialize Metrics
     totalVerticesMeter = getTotalVerticesLoadedMeter();
     totalEdgesMeter = getTotalEdgesLoadedMeter();
   }
 
+  /**
+   * Send a vertex read from the input split to its owner.
+   *
+   * @param vertex Vertex returned by the vertex reader
+   * @param graphState Current graph state
+   * @return False iff no more vertices should be read from the split
+   */
+  private boolean loadVertex(Vertex<I, V, E, ?> vertex,
+      GraphState<I, V, E, M> graphState) {
+    Vertex<I, V, E, M> readerVertex = (Vertex<I, V, E, M>) vertex;
+    if (readerVertex.getId() == null) {
+      throw new IllegalArgumentException(
+          "readInputSplit: Vertex reader returned a vertex " +
+              "without an id!  - " + readerVertex);
+    }
+    if (readerVertex.getValue() == null) {
+      readerVertex.setValue(configuration.createVertexValue());
+    }
+    readerVertex.setConf(configuration);
+    readerVertex.setGraphState(graphState);
+
+    PartitionOwner partitionOwner =
+        bspServiceWorker.getInputVertexPartitionOwner(readerVertex);
+    graphState.getWorkerClientRequestProcessor().sendVertexRequest(
+        partitionOwner, readerVertex);
+    context.progress(); // do this before potential data transfer
+    ++inputSplitVerticesLoaded;
+    edgesSinceLastUpdate += readerVertex.getNumEdges();
+
+    // Update status every VERTICES_UPDATE_PERIOD vertices
+    if (inputSplitVerticesLoaded % VERTICES_UPDATE_PERIOD == 0) {
+      totalVerticesMeter.mark(VERTICES_UPDATE_PERIOD);
+      totalEdgesMeter.mark(edgesSinceLastUpdate);
+      inputSplitEdgesLoaded += edgesSinceLastUpdate;
+      edgesSinceLastUpdate = 0;
+
+      LoggerUtils.setStatusAndLog(
+          context, LOG, Level.INFO,
+          "readVertexInputSplit: Loaded " +
+              totalVerticesMeter.count() + " vertices at " +
+              totalVerticesMeter.meanRate() + " vertices/sec " +
+              totalEdgesMeter.count() + " edges at " +
+              totalEdgesMeter.meanRate() + " edges/sec " +
+              MemoryUtils.getRuntimeMemoryStats());
+    }
+
+    // For sampling, or to limit outlier input splits, the number of
+    // records per input split can be limited
+    if (inputSplitMaxVertices > 0 &&
+        inputSplitVerticesLoaded >= inputSplitMaxVertices) {
+      if (LOG.isInfoEnabled()) {
+        LOG.info("readInputSplit: Leaving the input " +
+            "split early, reached maximum vertices " +
+            inputSplitVerticesLoaded);
+      }
+      return false;
+    }
+    return true;
+  }
+
+  @Override
+  public VertexEdgeCount call() {
+    try {
+      return super.call();
+    } finally {
+      if (parsingExecutor != null) {
+        parsingExecutor.shutdownNow();
+      }
+    }
+  }
+
+  /**
+   * Read the records of the input split on this thread, and have them
+   * parsed in batches by a pool of threads.  The parsed vertices are sent
+   * from this thread, in the order of the batches.
+   *
+   * @param vertexReader Vertex reader
+   * @param graphState Current graph state
+   * @throws IOException
+   * @throws InterruptedException
+   */
+  private void readRecordsInParallel(
+      final PipelinedVertexReader<I, V, E, Object> vertexReader,
+      GraphState<I, V, E, M> graphState)
+    throws IOException, InterruptedException {
+    if (parsingExecutor == null) {
+      parsingExecutor = Executors.newFixedThreadPool(numParsingThreads,
+          new ThreadFactoryBuilder().setNameFormat("input-parser-%d")
+              .setDaemon(true).build());
+    }
+    // Limit the batches in memory to a couple per parsing thread
+    int maxPendingBatches = 2 * numParsingThreads;
+    Queue<Future<List<Vertex<I, V, E, ?>>>> pendingBatches =
+        new ArrayDeque<Future<List<Vertex<I, V, E, ?>>>>(maxPendingBatches);
+    long recordsRead = 0;
+    boolean moreRecords = true;
+    while (moreRecords) {
+      final List<Object> records =
+          Lists.newArrayListWithCapacity(PARSING_BATCH_SIZE);
+      while (records.size() < PARSING_BATCH_SIZE) {
+        Object record = vertexReader.nextRecord();
+        // Every record is one vertex
+        if (record == null || (inputSplitMaxVertices > 0 &&
+            recordsRead >= inputSplitMaxVertices)) {
+          moreRecords = false;
+          break;
+        }
+        records.add(record);
+        ++recordsRead;
+      }
+      if (!records.isEmpty()) {
+        pendingBatches.add(parsingExecutor.submit(
+            new Callable<List<Vertex<I, V, E, ?>>>() {
+              @Override
+              public List<Vertex<I, V, E, ?>> call() throws Exception {
+                List<Vertex<I, V, E, ?>> vertices =
+                    Lists.newArrayListWithCapacity(records.size());
+                for (Object record : records) {
+                  vertices.add(vertexReader.parseRecord(record));
+                }
+                return vertices;
+              }
+            }));
+      }
+      while (pendingBatches.size() >= maxPendingBatches ||
+          (!moreRecords && !pendingBatches.isEmpty())) {
+        for (Vertex<I, V, E, ?> vertex : ProgressableUtils.getFutureResult(
+            pendingBatches.remove(), context)) {
+          loadVertex(vertex, graphState);
+        }
+      }
+    }
+  }
+
   /**
    * Read vertices from input split.  If testing, the user may request a
    * maximum number of vertices to be read from an input split.
@@ -118,58 +281,18 @@ public class VertexInputSplitsCallable<I extends WritableComparable,
     vertexReader.setConf(
         (ImmutableClassesGiraphConfiguration<I, V, E, Writable>) configuration);
     vertexReader.initialize(inputSplit, context);
-    long inputSplitVerticesLoaded = 0;
-    long edgesSinceLastUpdate = 0;
-    long inputSplitEdgesLoaded = 0;
-    while (vertexReader.nextVertex()) {
-      Vertex<I, V, E, M> readerVertex =
-          (Vertex<I, V, E, M>) vertexReader.getCurrentVertex();
-      if (readerVertex.getId() == null) {
-        throw new IllegalArgumentException(
-            "readInputSplit: Vertex reader returned a vertex " +
-                "without an id!  - " + readerVertex);
-      }
-      if (readerVertex.getValue() == null) {
-        readerVertex.setValue(configuration.createVertexValue());
-      }
-      readerVertex.setConf(configuration);
-      readerVertex.setGraphState(graphState);
-
-      PartitionOwner partitionOwner =
-          bspServiceWorker.getVertexPartitionOwner(readerVertex.getId());
-      graphState.getWorkerClientRequestProcessor().sendVertexRequest(
-          partitionOwner, readerVertex);
-      context.progress(); // do this before potential data transfer
-      ++inputSplitVerticesLoaded;
-      edgesSinceLastUpdate += readerVertex.getNumEdges();
-
-      // Update status every VERTICES_UPDATE_PERIOD vertices
-      if (inputSplitVerticesLoaded % VERTICES_UPDATE_PERIOD == 0) {
-        totalVerticesMeter.mark(VERTICES_UPDATE_PERIOD);
-        totalEdgesMeter.mark(edgesSinceLastUpdate);
-        inputSplitEdgesLoaded += edgesSinceLastUpdate;
-        edgesSinceLastUpdate = 0;
-
-        LoggerUtils.setStatusAndLog(
-            context, LOG, Level.INFO,
-            "readVertexInputSplit: Loaded " +
-                totalVerticesMeter.count() + " vertices at " +
-                totalVerticesMeter.meanRate() + " vertices/sec " +
-                totalEdgesMeter.count() + " edges at " +
-                totalEdgesMeter.meanRate() + " edges/sec " +
-                MemoryUtils.getRuntimeMemoryStats());
-      }
-
-      // For sampling, or to limit outlier input splits, the number of
-      // records per input split can be limited
-      if (inputSplitMaxVertices > 0 &&
-          inputSplitVerticesLoaded >= inputSplitMaxVertices) {
-        if (LOG.isInfoEnabled()) {
-          LOG.info("readInputSplit: Leaving the input " +
-              "split early, reached maximum vertices " +
-              inputSplitVerticesLoaded);
+    inputSplitVerticesLoaded = 0;
+    edgesSinceLastUpdate = 0;
+    inputSplitEdgesLoaded = 0;
+    if (numParsingThreads > 0 &&
+        vertexReader instanceof PipelinedVertexReader) {
+      readRecordsInParallel(
+          (PipelinedVertexReader<I, V, E, Object>) vertexReader, graphState);
+    } else {
+      while (vertexReader.nextVertex()) {
+        if (!loadVertex(vertexReader.getCurrentVertex(), graphState)) {
+          break;
         }
-        break;
       }
     }
     vertexReader.close();
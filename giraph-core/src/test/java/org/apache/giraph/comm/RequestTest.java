@@ -18,23 +18,36 @@
 
 package org.apache.giraph.comm;
 
+import org.apache.giraph.bsp.BspService;
+import org.apache.giraph.bsp.CentralizedServiceWorker;
+import org.apache.giraph.comm.mutations.MutationStore;
 import org.apache.giraph.comm.netty.NettyClient;
 import org.apache.giraph.comm.netty.NettyServer;
+import org.apache.giraph.comm.netty.NettyWorkerClientRequestProcessor;
 import org.apache.giraph.comm.netty.handler.WorkerRequestServerHandler;
 import org.apache.giraph.comm.requests.SendPartitionMutationsRequest;
+import org.apache.giraph.comm.requests.SendVertexBytesRequest;
 import org.apache.giraph.comm.requests.SendVertexRequest;
+import org.apache.giraph.comm.requests.SendWorkerEdgeMutationsRequest;
 import org.apache.giraph.comm.requests.SendWorkerMessagesRequest;
+import org.apache.giraph.comm.requests.SendWorkerOneMessageToManyRequest;
+import org.apache.giraph.comm.requests.WritableRequest;
 import org.apache.giraph.conf.GiraphConfiguration;
 import org.apache.giraph.conf.GiraphConstants;
 import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
 import org.apache.giraph.edge.Edge;
 import org.apache.giraph.edge.EdgeFactory;
+import org.apache.giraph.graph.GiraphTransferRegulator;
 import org.apache.giraph.graph.Vertex;
 import org.apache.giraph.graph.VertexMutations;
 import org.apache.giraph.metrics.GiraphMetrics;
+import org.apache.giraph.partition.BasicPartitionOwner;
 import org.apache.giraph.partition.Partition;
+import org.apache.giraph.partition.PartitionOwner;
 import org.apache.giraph.partition.PartitionStore;
+import org.apache.giraph.utils.ByteArrayVertexIdEdges;
 import org.apache.giraph.utils.ByteArrayVertexIdMessages;
+import org.apache.giraph.utils.ExtendedDataOutput;
 import org.apache.giraph.utils.MockUtils;
 import org.apache.giraph.utils.PairList;
 import org.apache.giraph.worker.WorkerInfo;
@@ -42,17 +55,23 @@ import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.mapreduce.Mapper.Context;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 import java.io.IOException;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.concurrent.ConcurrentHashMap;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -147,6 +166,149 @@ public class RequestTest {
     partitionStore.shutdown();
   }
 
+  @Test
+  public void sendVertexBytesRequest() throws IOException {
+    // Cache the vertices serialized, five per transfer
+    GiraphConfiguration cacheConf = new GiraphConfiguration(conf);
+    cacheConf.setInt(GiraphTransferRegulator.MAX_VERTICES_PER_TRANSFER, 5);
+    SendVertexBytesCache<IntWritable, IntWritable, IntWritable, IntWritable>
+        cache = new SendVertexBytesCache<IntWritable, IntWritable,
+            IntWritable, IntWritable>(
+            new ImmutableClassesGiraphConfiguration<IntWritable, IntWritable,
+                IntWritable, IntWritable>(cacheConf));
+    int partitionId = 7;
+    PartitionOwner owner = new BasicPartitionOwner(partitionId, workerInfo);
+    Vertex<IntWritable, IntWritable, IntWritable, IntWritable> vertex =
+        conf.createVertex();
+    ExtendedDataOutput vertexBytes = null;
+    for (int i = 0; i < 5; ++i) {
+      assertNull(vertexBytes);
+      // The same vertex object is reused, as the input readers do
+      vertex.initialize(new IntWritable(i), new IntWritable(i * 10),
+          Lists.newArrayList(EdgeFactory.create(new IntWritable(i + 1),
+              new IntWritable(i))));
+      vertexBytes = cache.addVertex(owner, vertex);
+    }
+    assertNotNull(vertexBytes);
+    assertTrue(cache.getOwnerVertexBytesMap().isEmpty());
+
+    // Send the request
+    SendVertexBytesRequest<IntWritable, IntWritable, IntWritable,
+        IntWritable> request = new SendVertexBytesRequest<IntWritable,
+            IntWritable, IntWritable, IntWritable>(partitionId, vertexBytes);
+    client.sendWritableRequest(workerInfo.getTaskId(), request);
+    client.waitAllRequests();
+
+    // Stop the service
+    client.stop();
+    server.stop();
+
+    // Check the output
+    PartitionStore<IntWritable, IntWritable,
+        IntWritable, IntWritable> partitionStore =
+        serverData.getPartitionStore();
+    assertTrue(partitionStore.hasPartition(partitionId));
+    Partition<IntWritable, IntWritable, IntWritable, IntWritable> partition =
+        partitionStore.getPartition(partitionId);
+    assertEquals(5, partition.getVertexCount());
+    for (int i = 0; i < 5; ++i) {
+      Vertex<IntWritable, IntWritable, IntWritable, IntWritable>
+          receivedVertex = partition.getVertex(new IntWritable(i));
+      assertEquals(i * 10, receivedVertex.getValue().get());
+      assertEquals(i, receivedVertex.getEdgeValue(
+          new IntWritable(i + 1)).get());
+    }
+    partitionStore.putPartition(partition);
+    partitionStore.shutdown();
+  }
+
+  @Test
+  public void sendPartitionInChunks() throws IOException {
+    // Small chunks, waiting for them every other chunk
+    GiraphConfiguration chunkConf = new GiraphConfiguration(conf);
+    GiraphConstants.PARTITION_EXCHANGE_CHUNK_SIZE.set(chunkConf, 64);
+    GiraphConstants.PARTITION_EXCHANGE_MAX_OPEN_CHUNKS.set(chunkConf, 2);
+    ImmutableClassesGiraphConfiguration<IntWritable, IntWritable,
+        IntWritable, IntWritable> exchangeConf =
+        new ImmutableClassesGiraphConfiguration<IntWritable, IntWritable,
+            IntWritable, IntWritable>(chunkConf);
+
+    // The sending worker goes through the Netty client
+    WorkerClient<IntWritable, IntWritable, IntWritable, IntWritable>
+        workerClient = mock(WorkerClient.class);
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) {
+        client.sendWritableRequest((Integer) invocation.getArguments()[0],
+            (WritableRequest) invocation.getArguments()[1]);
+        return null;
+      }
+    }).when(workerClient).sendWritableRequest(
+        anyInt(), any(WritableRequest.class));
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) {
+        client.waitAllRequests();
+        return null;
+      }
+    }).when(workerClient).waitAllRequests();
+    WorkerInfo senderInfo = new WorkerInfo();
+    senderInfo.setTaskId(workerInfo.getTaskId() + 1);
+    ServerData<IntWritable, IntWritable, IntWritable, IntWritable>
+        senderServerData = MockUtils.createNewServerData(exchangeConf, null);
+    CentralizedServiceWorker<IntWritable, IntWritable, IntWritable,
+        IntWritable> serviceWorker = mock(CentralizedServiceWorker.class);
+    when(serviceWorker.getWorkerClient()).thenReturn(workerClient);
+    when(serviceWorker.getWorkerInfo()).thenReturn(senderInfo);
+    when(serviceWorker.getServerData()).thenReturn(senderServerData);
+    doReturn(Lists.newArrayList()).when(serviceWorker).getPartitionOwners();
+    when(serviceWorker.getSuperstep()).thenReturn(BspService.INPUT_SUPERSTEP);
+    NettyWorkerClientRequestProcessor<IntWritable, IntWritable, IntWritable,
+        IntWritable> processor = new NettyWorkerClientRequestProcessor<
+            IntWritable, IntWritable, IntWritable, IntWritable>(
+            null, exchangeConf, serviceWorker);
+
+    // Send a partition spanning several chunks, and an empty one
+    int partitionId = 7;
+    int emptyPartitionId = 8;
+    Partition<IntWritable, IntWritable, IntWritable, IntWritable> partition =
+        exchangeConf.createPartition(partitionId, null);
+    for (int i = 0; i < 20; ++i) {
+      Vertex<IntWritable, IntWritable, IntWritable, IntWritable> vertex =
+          exchangeConf.createVertex();
+      vertex.initialize(new IntWritable(i), new IntWritable(i * 10));
+      partition.putVertex(vertex);
+    }
+    processor.sendPartitionInChunks(workerInfo, partition);
+    processor.sendPartitionInChunks(workerInfo,
+        exchangeConf.createPartition(emptyPartitionId, null));
+    client.waitAllRequests();
+
+    // Stop the service
+    client.stop();
+    server.stop();
+
+    // Check the output
+    PartitionStore<IntWritable, IntWritable,
+        IntWritable, IntWritable> partitionStore =
+        serverData.getPartitionStore();
+    assertTrue(partitionStore.hasPartition(emptyPartitionId));
+    Partition<IntWritable, IntWritable, IntWritable, IntWritable>
+        emptyPartition = partitionStore.getPartition(emptyPartitionId);
+    assertEquals(0, emptyPartition.getVertexCount());
+    partitionStore.putPartition(emptyPartition);
+    assertTrue(partitionStore.hasPartition(partitionId));
+    Partition<IntWritable, IntWritable, IntWritable, IntWritable>
+        receivedPartition = partitionStore.getPartition(partitionId);
+    assertEquals(20, receivedPartition.getVertexCount());
+    for (int i = 0; i < 20; ++i) {
+      assertEquals(i * 10, receivedPartition.getVertex(
+          new IntWritable(i)).getValue().get());
+    }
+    partitionStore.putPartition(receivedPartition);
+    partitionStore.shutdown();
+  }
+
   @Test
   public void sendWorkerMessagesRequest() throws IOException {
     // Data to send
@@ -198,6 +360,47 @@ public class RequestTest {
     assertEquals(35, messageSum);
   }
 
+  @Test
+  public void sendWorkerOneMessageToManyRequest() throws IOException {
+    // Data to send
+    ExtendedDataOutput messageAndTargets = conf.createExtendedDataOutput();
+    new IntWritable(7).write(messageAndTargets);
+    for (int i = 1; i < 7; ++i) {
+      messageAndTargets.writeInt(0);
+      new IntWritable(i).write(messageAndTargets);
+    }
+
+    // Send the request
+    SendWorkerOneMessageToManyRequest<IntWritable, IntWritable, IntWritable,
+    IntWritable> request =
+      new SendWorkerOneMessageToManyRequest<IntWritable, IntWritable,
+      IntWritable, IntWritable>(messageAndTargets);
+    client.sendWritableRequest(workerInfo.getTaskId(), request);
+    client.waitAllRequests();
+
+    // Stop the service
+    client.stop();
+    server.stop();
+
+    // Check the output
+    Iterable<IntWritable> vertices =
+        serverData.getIncomingMessageStore().getDestinationVertices();
+    int keySum = 0;
+    int messageSum = 0;
+    for (IntWritable vertexId : vertices) {
+      keySum += vertexId.get();
+      Iterable<IntWritable> messages =
+          serverData.getIncomingMessageStore().getVertexMessages(vertexId);
+      synchronized (messages) {
+        for (IntWritable message : messages) {
+          messageSum += message.get();
+        }
+      }
+    }
+    assertEquals(21, keySum);
+    assertEquals(42, messageSum);
+  }
+
   @Test
   public void sendPartitionMutationsRequest() throws IOException {
     // Data to send
@@ -242,30 +445,83 @@ public class RequestTest {
     server.stop();
 
     // Check the output
-    ConcurrentHashMap<IntWritable, VertexMutations<IntWritable, IntWritable,
-    IntWritable, IntWritable>> inVertexIdMutations =
-        serverData.getVertexMutations();
+    MutationStore<IntWritable, IntWritable, IntWritable, IntWritable>
+        inMutationStore = serverData.getMutationStore();
     int keySum = 0;
-    for (Entry<IntWritable, VertexMutations<IntWritable, IntWritable,
-        IntWritable, IntWritable>> entry :
-          inVertexIdMutations.entrySet()) {
-      synchronized (entry.getValue()) {
-        keySum += entry.getKey().get();
-        int vertexValueSum = 0;
-        for (Vertex<IntWritable, IntWritable, IntWritable, IntWritable>
-        vertex : entry.getValue().getAddedVertexList()) {
-          vertexValueSum += vertex.getValue().get();
-        }
-        assertEquals(3, vertexValueSum);
-        assertEquals(2, entry.getValue().getRemovedVertexCount());
-        int removeEdgeValueSum = 0;
-        for (Edge<IntWritable, IntWritable> edge :
-            entry.getValue().getAddedEdgeList()) {
-          removeEdgeValueSum += edge.getValue().get();
-        }
-        assertEquals(20, removeEdgeValueSum);
+    for (IntWritable vertexId :
+        inMutationStore.getPartitionMutatedVertices(partitionId)) {
+      VertexMutations<IntWritable, IntWritable, IntWritable, IntWritable>
+          vertexMutations =
+          inMutationStore.getVertexMutations(partitionId, vertexId);
+      keySum += vertexId.get();
+      int vertexValueSum = 0;
+      for (Vertex<IntWritable, IntWritable, IntWritable, IntWritable>
+          vertex : vertexMutations.getAddedVertexList()) {
+        vertexValueSum += vertex.getValue().get();
+      }
+      assertEquals(3, vertexValueSum);
+      assertEquals(2, vertexMutations.getRemovedVertexCount());
+      int removeEdgeValueSum = 0;
+      for (Edge<IntWritable, IntWritable> edge :
+          vertexMutations.getAddedEdgeList()) {
+        removeEdgeValueSum += edge.getValue().get();
       }
+      assertEquals(20, removeEdgeValueSum);
     }
     assertEquals(55, keySum);
   }
+
+  @Test
+  public void sendWorkerEdgeMutationsRequest() throws IOException {
+    // Data to send
+    PairList<Integer, ByteArrayVertexIdEdges<IntWritable, IntWritable>>
+        dataToSend = new PairList<Integer,
+        ByteArrayVertexIdEdges<IntWritable, IntWritable>>();
+    dataToSend.initialize();
+    int partitionId = 17;
+    ByteArrayVertexIdEdges<IntWritable, IntWritable> vertexIdEdges =
+        new ByteArrayVertexIdEdges<IntWritable, IntWritable>();
+    vertexIdEdges.setConf(conf);
+    vertexIdEdges.initialize();
+    dataToSend.add(partitionId, vertexIdEdges);
+    for (int i = 1; i < 7; ++i) {
+      IntWritable vertexId = new IntWritable(i);
+      for (int j = 0; j < i; ++j) {
+        vertexIdEdges.add(vertexId,
+            EdgeFactory.create(new IntWritable(j), new IntWritable(j)));
+      }
+    }
+
+    // Send the request
+    SendWorkerEdgeMutationsRequest<IntWritable, IntWritable> request =
+        new SendWorkerEdgeMutationsRequest<IntWritable, IntWritable>(
+            dataToSend);
+    GiraphMetrics.init(conf);
+    client.sendWritableRequest(workerInfo.getTaskId(), request);
+    client.waitAllRequests();
+
+    // Stop the service
+    client.stop();
+    server.stop();
+
+    // Check the output
+    MutationStore<IntWritable, IntWritable, IntWritable, IntWritable>
+        inMutationStore = serverData.getMutationStore();
+    int keySum = 0;
+    int edgeValueSum = 0;
+    for (IntWritable vertexId :
+        inMutationStore.getPartitionMutatedVertices(partitionId)) {
+      keySum += vertexId.get();
+      VertexMutations<IntWritable, IntWritable, IntWritable, IntWritable>
+          vertexMutations =
+          inMutationStore.getVertexMutations(partitionId, vertexId);
+      assertEquals(vertexId.get(), vertexMutations.getAddedEdgeList().size());
+      for (Edge<IntWritable, IntWritable> edge :
+          vertexMutations.getAddedEdgeList()) {
+        edgeValueSum += edge.getValue().get();
+      }
+    }
+    assertEquals(21, keySum);
+    assertEquals(35, edgeValueSum);
+  }
 }
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.comm;
+
+import org.apache.giraph.conf.GiraphConfiguration;
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.edge.ByteArrayEdges;
+import org.apache.giraph.edge.Edge;
+import org.apache.giraph.edge.EdgeFactory;
+import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.partition.Partition;
+import org.apache.giraph.partition.PartitionStore;
+import org.apache.giraph.partition.SimplePartitionStore;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Test case for {@link MirroredVertices}.
+ */
+public class TestMirroredVertices {
+  public static class MyVertex extends Vertex<IntWritable, NullWritable,
+      NullWritable, IntWritable> {
+    @Override
+    public void compute(Iterable<IntWritable> messages) throws IOException { }
+  }
+
+  @Test
+  public void testFindMirroredVertices() {
+    GiraphConfiguration configuration = new GiraphConfiguration();
+    configuration.setVertexClass(MyVertex.class);
+    // The edge iterators of byte array edges reuse the target ids
+    configuration.setVertexEdgesClass(ByteArrayEdges.class);
+    ImmutableClassesGiraphConfiguration<IntWritable, NullWritable,
+        NullWritable, IntWritable> conf =
+        new ImmutableClassesGiraphConfiguration<IntWritable, NullWritable,
+            NullWritable, IntWritable>(configuration);
+    Mapper.Context context = mock(Mapper.Context.class);
+    PartitionStore<IntWritable, NullWritable, NullWritable, IntWritable>
+        partitionStore = new SimplePartitionStore<IntWritable, NullWritable,
+            NullWritable, IntWritable>(conf, context);
+
+    // Every vertex points to 100, the first two also to 200 and the third
+    // also to 300
+    for (int partitionId = 0; partitionId < 2; ++partitionId) {
+      Partition<IntWritable, NullWritable, NullWritable, IntWritable>
+          partition = conf.createPartition(partitionId, context);
+      for (int id = partitionId * 3; id < partitionId * 3 + 3; ++id) {
+        List<Edge<IntWritable, NullWritable>> edges = Lists.newArrayList();
+        edges.add(EdgeFactory.create(new IntWritable(100)));
+        if (id < 2) {
+          edges.add(EdgeFactory.create(new IntWritable(200)));
+        } else if (id == 2) {
+          edges.add(EdgeFactory.create(new IntWritable(300)));
+        }
+        Vertex<IntWritable, NullWritable, NullWritable, IntWritable> vertex =
+            conf.createVertex();
+        vertex.initialize(new IntWritable(id), NullWritable.get(), edges);
+        partition.putVertex(vertex);
+      }
+      partitionStore.addPartition(partition);
+    }
+
+    MirroredVertices<IntWritable> mirroredVertices =
+        MirroredVertices.findMirroredVertices(conf, partitionStore, 2);
+    assertEquals(2, mirroredVertices.size());
+    Set<Integer> mirroredIds = Sets.newHashSet();
+    for (int i = 0; i < mirroredVertices.size(); ++i) {
+      IntWritable id = mirroredVertices.getId(i);
+      assertEquals(i, mirroredVertices.getIndex(id));
+      mirroredIds.add(id.get());
+    }
+    assertEquals(Sets.newHashSet(100, 200), mirroredIds);
+    assertEquals(-1, mirroredVertices.getIndex(new IntWritable(300)));
+    assertEquals(-1, mirroredVertices.getIndex(new IntWritable(0)));
+    partitionStore.shutdown();
+  }
+}
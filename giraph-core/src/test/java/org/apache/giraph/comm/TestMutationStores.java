@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.comm;
+
+import org.apache.giraph.comm.mutations.LongMutationStore;
+import org.apache.giraph.comm.mutations.MutationStore;
+import org.apache.giraph.comm.mutations.SimpleMutationStore;
+import org.apache.giraph.conf.GiraphConfiguration;
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.edge.EdgeFactory;
+import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.graph.VertexMutations;
+import org.apache.giraph.utils.ByteArrayVertexIdEdges;
+import org.apache.hadoop.io.DoubleWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/** Test for different types of mutation stores */
+public class TestMutationStores {
+  /** Configuration */
+  private ImmutableClassesGiraphConfiguration<LongWritable, DoubleWritable,
+      DoubleWritable, DoubleWritable> conf;
+
+  /** Dummy vertex */
+  public static class LongVertex extends Vertex<LongWritable, DoubleWritable,
+      DoubleWritable, DoubleWritable> {
+    @Override
+    public void compute(Iterable<DoubleWritable> messages) throws IOException {
+    }
+  }
+
+  @Before
+  public void setUp() {
+    GiraphConfiguration initConf = new GiraphConfiguration();
+    initConf.setVertexClass(LongVertex.class);
+    conf = new ImmutableClassesGiraphConfiguration<LongWritable,
+        DoubleWritable, DoubleWritable, DoubleWritable>(initConf);
+  }
+
+  @Test
+  public void testSimpleMutationStore() {
+    testMutationStore(new SimpleMutationStore<LongWritable, DoubleWritable,
+        DoubleWritable, DoubleWritable>(conf));
+  }
+
+  @Test
+  public void testLongMutationStore() {
+    testMutationStore(new LongMutationStore<DoubleWritable, DoubleWritable,
+        DoubleWritable>(conf));
+  }
+
+  private VertexMutations<LongWritable, DoubleWritable, DoubleWritable,
+      DoubleWritable> createMutations(long targetId) {
+    VertexMutations<LongWritable, DoubleWritable, DoubleWritable,
+        DoubleWritable> mutations = new VertexMutations<LongWritable,
+        DoubleWritable, DoubleWritable, DoubleWritable>();
+    mutations.addEdge(EdgeFactory.create(
+        new LongWritable(targetId), new DoubleWritable(targetId)));
+    mutations.removeVertex();
+    return mutations;
+  }
+
+  private void testMutationStore(MutationStore<LongWritable, DoubleWritable,
+      DoubleWritable, DoubleWritable> store) {
+    // Two requests for partition 1 touching the same vertex
+    for (int i = 0; i < 2; i++) {
+      Map<LongWritable, VertexMutations<LongWritable, DoubleWritable,
+          DoubleWritable, DoubleWritable>> vertexIdMutations =
+          Maps.newHashMap();
+      vertexIdMutations.put(new LongWritable(10), createMutations(i));
+      vertexIdMutations.put(new LongWritable(11 + i), createMutations(i));
+      store.addPartitionMutations(1, vertexIdMutations);
+    }
+    // Bulk edges for partition 1 (existing and new vertex) and 2
+    ByteArrayVertexIdEdges<LongWritable, DoubleWritable> vertexIdEdges =
+        new ByteArrayVertexIdEdges<LongWritable, DoubleWritable>();
+    vertexIdEdges.setConf(conf);
+    vertexIdEdges.initialize();
+    for (long target = 100; target < 103; target++) {
+      vertexIdEdges.add(new LongWritable(10), EdgeFactory.create(
+          new LongWritable(target), new DoubleWritable(target)));
+      vertexIdEdges.add(new LongWritable(13), EdgeFactory.create(
+          new LongWritable(target), new DoubleWritable(target)));
+    }
+    store.addPartitionEdges(1, vertexIdEdges);
+    ByteArrayVertexIdEdges<LongWritable, DoubleWritable> otherEdges =
+        new ByteArrayVertexIdEdges<LongWritable, DoubleWritable>();
+    otherEdges.setConf(conf);
+    otherEdges.initialize();
+    otherEdges.add(new LongWritable(20), EdgeFactory.create(
+        new LongWritable(1), new DoubleWritable(1)));
+    store.addPartitionEdges(2, otherEdges);
+
+    assertEquals(2, Iterables.size(store.getPartitionIds()));
+    assertEquals(4, Iterables.size(store.getPartitionMutatedVertices(1)));
+    VertexMutations<LongWritable, DoubleWritable, DoubleWritable,
+        DoubleWritable> mutations =
+        store.getVertexMutations(1, new LongWritable(10));
+    assertEquals(2, mutations.getRemovedVertexCount());
+    assertEquals(5, mutations.getAddedEdgeList().size());
+    mutations = store.getVertexMutations(1, new LongWritable(13));
+    assertEquals(0, mutations.getRemovedVertexCount());
+    assertEquals(3, mutations.getAddedEdgeList().size());
+    double targetSum = 0;
+    for (int i = 0; i < mutations.getAddedEdgeList().size(); i++) {
+      targetSum += mutations.getAddedEdgeList().get(i).getValue().get();
+    }
+    assertEquals(303, targetSum, 0d);
+    assertNull(store.getVertexMutations(1, new LongWritable(14)));
+
+    store.clearPartition(1);
+    assertFalse(store.isEmpty());
+    assertEquals(1, Iterables.size(store.getPartitionMutatedVertices(2)));
+    assertEquals(1, store.getNumberOfMutatedVertices());
+    store.clearPartition(2);
+    assertTrue(store.isEmpty());
+  }
+}
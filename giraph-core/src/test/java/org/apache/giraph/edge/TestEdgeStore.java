@@ -0,0 +1,303 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.edge;
+
+import org.apache.giraph.bsp.CentralizedServiceWorker;
+import org.apache.giraph.combiner.DoubleSumCombiner;
+import org.apache.giraph.conf.GiraphConfiguration;
+import org.apache.giraph.conf.GiraphConstants;
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.partition.Partition;
+import org.apache.giraph.partition.PartitionStore;
+import org.apache.giraph.partition.SimplePartitionStore;
+import org.apache.giraph.utils.ByteArrayVertexIdEdges;
+import org.apache.hadoop.io.DoubleWritable;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests {@link EdgeStore}.
+ */
+public class TestEdgeStore {
+  public static class MyVertex extends Vertex<LongWritable, DoubleWritable,
+      DoubleWritable, DoubleWritable> {
+    @Override
+    public void compute(Iterable<DoubleWritable> messages)
+        throws IOException { }
+  }
+
+  @Test
+  public void testMoveEdges() {
+    testMoveEdges(false);
+  }
+
+  @Test
+  public void testMoveSortedEdges() {
+    testMoveEdges(true);
+  }
+
+  public static class IntVertex extends Vertex<IntWritable, IntWritable,
+      NullWritable, NullWritable> {
+    @Override
+    public void compute(Iterable<NullWritable> messages)
+        throws IOException { }
+  }
+
+  @Test
+  public void testMoveSortedIntEdges() {
+    GiraphConfiguration configuration = new GiraphConfiguration();
+    GiraphConstants.SORT_INPUT_EDGES.set(configuration, true);
+    // Sources -1, 0 and 1 interleaved over three buffers
+    int[][][] edges = new int[3][6][];
+    for (int buffer = 0; buffer < 3; ++buffer) {
+      for (int i = 0; i < 6; ++i) {
+        edges[buffer][i] = new int[] {i % 3 - 1, buffer * 10 + i};
+      }
+    }
+    Partition<IntWritable, IntWritable, NullWritable, NullWritable>
+        partition = moveIntEdges(configuration, edges);
+    assertEquals(3, partition.getVertexCount());
+    assertEquals(18, partition.getEdgeCount());
+    for (Vertex<IntWritable, IntWritable, NullWritable, NullWritable>
+        vertex : partition) {
+      // Edges of a vertex keep their input order
+      int previousTarget = -1;
+      for (Edge<IntWritable, NullWritable> edge : vertex.getEdges()) {
+        int target = edge.getTargetVertexId().get();
+        assertEquals(vertex.getId().get(), target % 10 % 3 - 1);
+        assertTrue(target > previousTarget);
+        previousTarget = target;
+      }
+    }
+  }
+
+  @Test
+  public void testCanonicalIntEdges() {
+    GiraphConfiguration configuration = new GiraphConfiguration();
+    GiraphConstants.INPUT_EDGES_REMOVE_SELF_LOOPS.set(configuration, true);
+    GiraphConstants.INPUT_EDGES_REMOVE_DUPLICATES.set(configuration, true);
+    int[][][] edges = {
+        {{1, 300}, {2, 1}, {1, 1}, {1, 2}},
+        {{1, 2}, {2, 1}, {1, 300}, {2, 2}, {1, -1}}};
+    Partition<IntWritable, IntWritable, NullWritable, NullWritable>
+        partition = moveIntEdges(configuration, edges);
+    assertEquals(2, partition.getVertexCount());
+    assertEquals(4, partition.getEdgeCount());
+    Vertex<IntWritable, IntWritable, NullWritable, NullWritable> vertex =
+        partition.getVertex(new IntWritable(1));
+    assertEquals(3, vertex.getNumEdges());
+    for (Edge<IntWritable, NullWritable> edge : vertex.getEdges()) {
+      assertTrue(edge.getTargetVertexId().get() != 1);
+    }
+    assertEquals(1, partition.getVertex(new IntWritable(2)).getNumEdges());
+  }
+
+  /**
+   * Move edges with int ids to the vertices of one partition.
+   *
+   * @param configuration Configuration with the edge store options
+   * @param edges Buffers of (source, target) pairs
+   * @return Partition after moving the edges
+   */
+  private Partition<IntWritable, IntWritable, NullWritable,
+      NullWritable> moveIntEdges(GiraphConfiguration configuration,
+      int[][][] edges) {
+    configuration.setVertexClass(IntVertex.class);
+    configuration.setVertexEdgesClass(IntNullArrayEdges.class);
+    ImmutableClassesGiraphConfiguration<IntWritable, IntWritable,
+        NullWritable, NullWritable> conf =
+        new ImmutableClassesGiraphConfiguration<IntWritable, IntWritable,
+            NullWritable, NullWritable>(configuration);
+    Mapper<?, ?, ?, ?>.Context context = mock(Mapper.Context.class);
+    PartitionStore<IntWritable, IntWritable, NullWritable, NullWritable>
+        partitionStore = new SimplePartitionStore<IntWritable, IntWritable,
+            NullWritable, NullWritable>(conf, context);
+    partitionStore.addPartition(conf.createPartition(0, context));
+    CentralizedServiceWorker<IntWritable, IntWritable, NullWritable,
+        NullWritable> service = mock(CentralizedServiceWorker.class);
+    when(service.getPartitionStore()).thenReturn(partitionStore);
+    EdgeStore<IntWritable, IntWritable, NullWritable, NullWritable>
+        edgeStore = new EdgeStore<IntWritable, IntWritable, NullWritable,
+            NullWritable>(service, conf, context);
+    for (int[][] buffer : edges) {
+      ByteArrayVertexIdEdges<IntWritable, NullWritable> bufferEdges =
+          new ByteArrayVertexIdEdges<IntWritable, NullWritable>();
+      bufferEdges.setConf(conf);
+      bufferEdges.initialize();
+      for (int[] edge : buffer) {
+        bufferEdges.add(new IntWritable(edge[0]),
+            EdgeFactory.create(new IntWritable(edge[1])));
+      }
+      edgeStore.addPartitionEdges(0, bufferEdges);
+    }
+    edgeStore.moveEdgesToVertices();
+    return partitionStore.getPartition(0);
+  }
+
+  @Test
+  public void testCanonicalEdges() {
+    GiraphConfiguration configuration = new GiraphConfiguration();
+    GiraphConstants.INPUT_EDGES_REMOVE_SELF_LOOPS.set(configuration, true);
+    GiraphConstants.INPUT_EDGE_VALUE_COMBINER_CLASS.set(configuration,
+        DoubleSumCombiner.class);
+    Vertex<LongWritable, DoubleWritable, DoubleWritable, DoubleWritable>
+        vertex = moveCanonicalEdges(configuration);
+    assertEquals(2, vertex.getNumEdges());
+    assertEquals(6, vertex.getEdgeValue(new LongWritable(2)).get(), 0d);
+    assertEquals(4, vertex.getEdgeValue(new LongWritable(3)).get(), 0d);
+
+    configuration = new GiraphConfiguration();
+    GiraphConstants.INPUT_EDGES_REMOVE_DUPLICATES.set(configuration, true);
+    vertex = moveCanonicalEdges(configuration);
+    assertEquals(3, vertex.getNumEdges());
+    assertEquals(1, vertex.getEdgeValue(new LongWritable(1)).get(), 0d);
+    assertEquals(1, vertex.getEdgeValue(new LongWritable(2)).get(), 0d);
+  }
+
+  /**
+   * Move duplicate edges and a self loop of vertex 1 to the vertices.
+   *
+   * @param configuration Configuration with the canonicalization options
+   * @return Vertex 1
+   */
+  private Vertex<LongWritable, DoubleWritable, DoubleWritable,
+      DoubleWritable> moveCanonicalEdges(GiraphConfiguration configuration) {
+    configuration.setVertexClass(MyVertex.class);
+    configuration.setVertexEdgesClass(LongDoubleArrayEdges.class);
+    ImmutableClassesGiraphConfiguration<LongWritable, DoubleWritable,
+        DoubleWritable, DoubleWritable> conf =
+        new ImmutableClassesGiraphConfiguration<LongWritable, DoubleWritable,
+            DoubleWritable, DoubleWritable>(configuration);
+    Mapper<?, ?, ?, ?>.Context context = mock(Mapper.Context.class);
+    PartitionStore<LongWritable, DoubleWritable, DoubleWritable,
+        DoubleWritable> partitionStore =
+        new SimplePartitionStore<LongWritable, DoubleWritable,
+            DoubleWritable, DoubleWritable>(conf, context);
+    partitionStore.addPartition(conf.createPartition(0, context));
+    CentralizedServiceWorker<LongWritable, DoubleWritable, DoubleWritable,
+        DoubleWritable> service = mock(CentralizedServiceWorker.class);
+    when(service.getPartitionStore()).thenReturn(partitionStore);
+    EdgeStore<LongWritable, DoubleWritable, DoubleWritable, DoubleWritable>
+        edgeStore = new EdgeStore<LongWritable, DoubleWritable,
+            DoubleWritable, DoubleWritable>(service, conf, context);
+
+    long[][] targetsAndValues = {{1, 1}, {2, 1}, {2, 2}, {3, 4}, {2, 3}};
+    for (int buffer = 0; buffer < 2; ++buffer) {
+      ByteArrayVertexIdEdges<LongWritable, DoubleWritable> edges =
+          new ByteArrayVertexIdEdges<LongWritable, DoubleWritable>();
+      edges.setConf(conf);
+      edges.initialize();
+      for (int i = buffer * 3; i < Math.min(buffer * 3 + 3, 5); ++i) {
+        edges.add(new LongWritable(1), EdgeFactory.create(
+            new LongWritable(targetsAndValues[i][0]),
+            new DoubleWritable(targetsAndValues[i][1])));
+      }
+      edgeStore.addPartitionEdges(0, edges);
+    }
+    edgeStore.moveEdgesToVertices();
+    return partitionStore.getPartition(0).getVertex(new LongWritable(1));
+  }
+
+  /**
+   * Add edges to two partitions, one of which already has a vertex, and
+   * check the vertices after moving the edges.
+   *
+   * @param sortInputEdges Whether to sort the input edges
+   */
+  private void testMoveEdges(boolean sortInputEdges) {
+    GiraphConfiguration configuration = new GiraphConfiguration();
+    configuration.setVertexClass(MyVertex.class);
+    configuration.setVertexEdgesClass(LongDoubleArrayEdges.class);
+    GiraphConstants.SORT_INPUT_EDGES.set(configuration, sortInputEdges);
+    ImmutableClassesGiraphConfiguration<LongWritable, DoubleWritable,
+        DoubleWritable, DoubleWritable> conf =
+        new ImmutableClassesGiraphConfiguration<LongWritable, DoubleWritable,
+            DoubleWritable, DoubleWritable>(configuration);
+    Mapper<?, ?, ?, ?>.Context context = mock(Mapper.Context.class);
+
+    PartitionStore<LongWritable, DoubleWritable, DoubleWritable,
+        DoubleWritable> partitionStore =
+        new SimplePartitionStore<LongWritable, DoubleWritable,
+            DoubleWritable, DoubleWritable>(conf, context);
+    Partition<LongWritable, DoubleWritable, DoubleWritable, DoubleWritable>
+        partition = conf.createPartition(0, context);
+    Vertex<LongWritable, DoubleWritable, DoubleWritable, DoubleWritable>
+        vertex = conf.createVertex();
+    vertex.initialize(new LongWritable(-5), new DoubleWritable(7));
+    partition.putVertex(vertex);
+    partitionStore.addPartition(partition);
+    partitionStore.addPartition(conf.createPartition(1, context));
+    CentralizedServiceWorker<LongWritable, DoubleWritable, DoubleWritable,
+        DoubleWritable> service = mock(CentralizedServiceWorker.class);
+    when(service.getPartitionStore()).thenReturn(partitionStore);
+
+    EdgeStore<LongWritable, DoubleWritable, DoubleWritable, DoubleWritable>
+        edgeStore = new EdgeStore<LongWritable, DoubleWritable,
+            DoubleWritable, DoubleWritable>(service, conf, context);
+    // Vertex 3 has edges in two buffers and (i % 3 - 1) * 3 is -3, 0 or 3
+    for (int buffer = 0; buffer < 2; ++buffer) {
+      ByteArrayVertexIdEdges<LongWritable, DoubleWritable> edges =
+          new ByteArrayVertexIdEdges<LongWritable, DoubleWritable>();
+      edges.setConf(conf);
+      edges.initialize();
+      for (int i = 0; i < 6; ++i) {
+        edges.add(new LongWritable((i % 3 - 1) * 3),
+            EdgeFactory.create(new LongWritable(buffer * 10 + i),
+                new DoubleWritable(i)));
+      }
+      edgeStore.addPartitionEdges(1, edges);
+    }
+    ByteArrayVertexIdEdges<LongWritable, DoubleWritable> edges =
+        new ByteArrayVertexIdEdges<LongWritable, DoubleWritable>();
+    edges.setConf(conf);
+    edges.initialize();
+    edges.add(new LongWritable(-5), EdgeFactory.create(new LongWritable(1),
+        new DoubleWritable(2)));
+    edgeStore.addPartitionEdges(0, edges);
+    edgeStore.moveEdgesToVertices();
+
+    partition = partitionStore.getPartition(0);
+    assertEquals(1, partition.getVertexCount());
+    vertex = partition.getVertex(new LongWritable(-5));
+    assertEquals(7, vertex.getValue().get(), 0d);
+    assertEquals(2, vertex.getEdgeValue(new LongWritable(1)).get(), 0d);
+    partitionStore.putPartition(partition);
+
+    partition = partitionStore.getPartition(1);
+    assertEquals(3, partition.getVertexCount());
+    assertEquals(12, partition.getEdgeCount());
+    vertex = partition.getVertex(new LongWritable(3));
+    assertEquals(4, vertex.getNumEdges());
+    assertEquals(5, vertex.getEdgeValue(new LongWritable(15)).get(), 0d);
+    assertNull(vertex.getEdgeValue(new LongWritable(0)));
+    partitionStore.putPartition(partition);
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.edge;
+
+import com.google.common.collect.Lists;
+import org.apache.giraph.utils.UnsafeByteArrayInputStream;
+import org.apache.giraph.utils.UnsafeByteArrayOutputStream;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link LongNullCompressedEdges}.
+ */
+public class TestLongNullCompressedEdges {
+  /**
+   * Check that the edges hold exactly the given targets, in sorted order.
+   *
+   * @param targets Expected targets
+   * @param edges Edges to check
+   */
+  private void checkEdges(List<Long> targets,
+                          LongNullCompressedEdges edges) {
+    List<Long> sortedTargets = Lists.newArrayList(targets);
+    Collections.sort(sortedTargets);
+    assertEquals(sortedTargets.size(), edges.size());
+    int i = 0;
+    for (Edge<LongWritable, NullWritable> edge : edges) {
+      assertEquals(sortedTargets.get(i++).longValue(),
+          edge.getTargetVertexId().get());
+    }
+    for (long target : sortedTargets) {
+      assertTrue(edges.contains(target));
+      assertEquals(sortedTargets.contains(target + 1),
+          edges.contains(target + 1));
+    }
+  }
+
+  @Test
+  public void testEdges() throws IOException {
+    Random random = new Random(42);
+    List<Long> targets = Lists.newArrayList();
+    List<Edge<LongWritable, NullWritable>> initialEdges =
+        Lists.newArrayList();
+    for (int i = 0; i < 1000; ++i) {
+      long target = random.nextInt(5000) - 100;
+      targets.add(target);
+      initialEdges.add(EdgeFactory.create(new LongWritable(target)));
+    }
+    targets.add(Long.MIN_VALUE);
+    initialEdges.add(EdgeFactory.create(new LongWritable(Long.MIN_VALUE)));
+    targets.add(Long.MAX_VALUE);
+    initialEdges.add(EdgeFactory.create(new LongWritable(Long.MAX_VALUE)));
+
+    LongNullCompressedEdges edges = new LongNullCompressedEdges();
+    edges.initialize(initialEdges);
+    checkEdges(targets, edges);
+    assertNull(edges.getEdgeValue(new LongWritable(5000)));
+
+    // Add edges in and out of order
+    for (int i = 0; i < 200; ++i) {
+      long target = random.nextInt(10000);
+      targets.add(target);
+      edges.add(EdgeFactory.create(new LongWritable(target)));
+    }
+    checkEdges(targets, edges);
+
+    // Remove all edges to a target
+    long removed = targets.get(0);
+    while (targets.remove(Long.valueOf(removed))) { }
+    edges.remove(new LongWritable(removed));
+    assertFalse(edges.contains(removed));
+    checkEdges(targets, edges);
+
+    UnsafeByteArrayOutputStream outputStream =
+        new UnsafeByteArrayOutputStream();
+    edges.write(outputStream);
+    LongNullCompressedEdges readEdges = new LongNullCompressedEdges();
+    readEdges.readFields(new UnsafeByteArrayInputStream(
+        outputStream.getByteArray(), 0, outputStream.getPos()));
+    checkEdges(targets, readEdges);
+    readEdges.add(EdgeFactory.create(new LongWritable(Long.MAX_VALUE)));
+    targets.add(Long.MAX_VALUE);
+    checkEdges(targets, readEdges);
+  }
+
+  @Test
+  public void testIntersection() {
+    LongNullCompressedEdges edges = new LongNullCompressedEdges();
+    edges.initialize();
+    // Multiples of 3 up to 3000
+    for (long i = 0; i <= 1000; ++i) {
+      edges.add(EdgeFactory.create(new LongWritable(i * 3)));
+    }
+    assertEquals(1001, edges.getSortedTargets().length);
+    // Few ids are looked up, many are merged
+    long[] fewIds = {-3, 0, 7, 9, 2999, 3000, 3003};
+    long[] result = new long[fewIds.length];
+    assertEquals(3, edges.intersect(fewIds, fewIds.length, result));
+    assertEquals(0, result[0]);
+    assertEquals(9, result[1]);
+    assertEquals(3000, result[2]);
+    long[] manyIds = new long[1000];
+    for (int i = 0; i < manyIds.length; ++i) {
+      // Multiples of 2 up to 1998, a third of them are multiples of 6
+      manyIds[i] = i * 2;
+    }
+    assertEquals(334, edges.intersectionSize(manyIds, manyIds.length));
+    assertEquals(2, edges.intersectionSize(manyIds, 4));
+    // Few targets are galloped through many ids
+    LongNullCompressedEdges fewEdges = new LongNullCompressedEdges();
+    fewEdges.initialize();
+    fewEdges.add(EdgeFactory.create(new LongWritable(6)));
+    fewEdges.add(EdgeFactory.create(new LongWritable(7)));
+    fewEdges.add(EdgeFactory.create(new LongWritable(600)));
+    result = new long[manyIds.length];
+    assertEquals(2, fewEdges.intersect(manyIds, manyIds.length, result));
+    assertEquals(6, result[0]);
+    assertEquals(600, result[1]);
+  }
+
+  @Test
+  public void testIncrementalAdd() {
+    LongNullCompressedEdges edges = new LongNullCompressedEdges();
+    edges.initialize(10);
+    List<Long> targets = Lists.newArrayList();
+    for (long i = 300; i > 0; --i) {
+      targets.add(i * 3);
+      edges.add(EdgeFactory.create(new LongWritable(i * 3)));
+    }
+    checkEdges(targets, edges);
+    assertEquals(NullWritable.get(),
+        edges.getEdgeValue(new LongWritable(600)));
+  }
+}
@@ -44,6 +44,7 @@ public class TestMultiGraphEdges {
     edgesClasses.add(ArrayListEdges.class);
     edgesClasses.add(HashMultimapEdges.class);
     edgesClasses.add(LongDoubleArrayEdges.class);
+    edgesClasses.add(LongDoubleAdaptiveEdges.class);
   }
 
   /**
@@ -36,13 +36,18 @@ import static org.junit.Assert.assertEquals;
  */
 public class TestNullValueEdges {
   /** {@link VertexEdges} classes to be tested. */
-  private Collection<Class<? extends MutableVertexEdges>>
+  private Collection<Class<? extends VertexEdges>>
       edgesClasses = Lists.newArrayList();
+  /** {@link MutableVertexEdges} classes to be tested. */
+  private Collection<Class<? extends MutableVertexEdges>>
+      mutableEdgesClasses = Lists.newArrayList();
 
   @Before
   public void setUp() {
-    edgesClasses.add(LongNullArrayEdges.class);
-    edgesClasses.add(LongNullHashSetEdges.class);
+    mutableEdgesClasses.add(LongNullArrayEdges.class);
+    mutableEdgesClasses.add(LongNullHashSetEdges.class);
+    edgesClasses.addAll(mutableEdgesClasses);
+    edgesClasses.add(LongNullCompressedEdges.class);
   }
 
   @Test
@@ -79,7 +84,8 @@ public class TestNullValueEdges {
    */
   @Test
   public void testMutateEdges() {
-    for (Class<? extends MutableVertexEdges> edgesClass : edgesClasses) {
+    for (Class<? extends MutableVertexEdges> edgesClass :
+        mutableEdgesClasses) {
       testMutateEdgesClass(edgesClass);
     }
   }
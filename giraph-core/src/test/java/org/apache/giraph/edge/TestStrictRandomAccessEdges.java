@@ -43,6 +43,7 @@ public class TestStrictRandomAccessEdges {
     public void setUp() {
       edgesClasses.add(HashMapEdges.class);
       edgesClasses.add(LongDoubleHashMapEdges.class);
+      edgesClasses.add(LongDoubleAdaptiveEdges.class);
     }
 
     /**
@@ -78,4 +79,38 @@ public class TestStrictRandomAccessEdges {
       edges.setEdgeValue(new LongWritable(2), new DoubleWritable(33.0));
       assertEquals(33.0, edges.getEdgeValue(new LongWritable(2)).get(), 0);
     }
+
+    /**
+     * Ensures that {@link LongDoubleAdaptiveEdges} keeps returning correct
+     * edge values once it indexes the edges.
+     */
+    @Test
+    public void testAdaptiveEdgesIndex() {
+      LongDoubleAdaptiveEdges edges = new LongDoubleAdaptiveEdges();
+      edges.initialize();
+      int numEdges = 2 * LongDoubleAdaptiveEdges.INDEX_THRESHOLD;
+      for (int i = 0; i < numEdges; ++i) {
+        edges.add(EdgeFactory.create(new LongWritable(i),
+            new DoubleWritable(i)));
+        assertEquals(i, edges.getEdgeValue(new LongWritable(i)).get(), 0);
+      }
+      // Parallel edge, the first one is used
+      edges.add(EdgeFactory.create(new LongWritable(3),
+          new DoubleWritable(30)));
+      assertEquals(3.0, edges.getEdgeValue(new LongWritable(3)).get(), 0);
+      assertNull(edges.getEdgeValue(new LongWritable(numEdges)));
+
+      edges.remove(new LongWritable(3));
+      assertNull(edges.getEdgeValue(new LongWritable(3)));
+      edges.setEdgeValue(new LongWritable(numEdges - 1),
+          new DoubleWritable(-1));
+      assertEquals(-1.0,
+          edges.getEdgeValue(new LongWritable(numEdges - 1)).get(), 0);
+      assertEquals(numEdges - 1, edges.size());
+      for (int i = 0; i < numEdges; ++i) {
+        if (i != 3 && i != numEdges - 1) {
+          assertEquals(i, edges.getEdgeValue(new LongWritable(i)).get(), 0);
+        }
+      }
+    }
 }
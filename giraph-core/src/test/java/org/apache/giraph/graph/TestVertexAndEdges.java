@@ -27,6 +27,7 @@ import org.apache.giraph.edge.EdgeFactory;
 import org.apache.giraph.edge.HashMapEdges;
 import org.apache.giraph.edge.HashMultimapEdges;
 import org.apache.giraph.edge.LongDoubleArrayEdges;
+import org.apache.giraph.edge.LongDoubleAdaptiveEdges;
 import org.apache.giraph.edge.LongDoubleHashMapEdges;
 import org.apache.giraph.edge.MutableEdge;
 import org.apache.giraph.edge.VertexEdges;
@@ -158,6 +159,7 @@ public class TestVertexAndEdges {
     edgesClasses.add(HashMultimapEdges.class);
     edgesClasses.add(LongDoubleArrayEdges.class);
     edgesClasses.add(LongDoubleHashMapEdges.class);
+    edgesClasses.add(LongDoubleAdaptiveEdges.class);
   }
 
   private Vertex<LongWritable, FloatWritable, DoubleWritable, LongWritable>
@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.io;
+
+import org.apache.giraph.conf.GiraphConfiguration;
+import org.apache.giraph.conf.GiraphConstants;
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.edge.EdgeFactory;
+import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.io.superstep_output.AsynchronousSuperstepOutput;
+import org.apache.giraph.io.superstep_output.SuperstepOutput;
+import org.apache.hadoop.io.DoubleWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/** Test for {@link AsynchronousSuperstepOutput} */
+public class TestAsynchronousSuperstepOutput {
+  /** Number of compute threads writing vertices */
+  private static final int NUM_COMPUTE_THREADS = 4;
+  /** Number of vertices written by each compute thread */
+  private static final int VERTICES_PER_THREAD = 1000;
+  /** Configuration */
+  private ImmutableClassesGiraphConfiguration<LongWritable, DoubleWritable,
+      DoubleWritable, DoubleWritable> conf;
+  /** Mapper context */
+  private Mapper.Context context;
+
+  /** Dummy vertex */
+  public static class LongVertex extends Vertex<LongWritable, DoubleWritable,
+      DoubleWritable, DoubleWritable> {
+    @Override
+    public void compute(Iterable<DoubleWritable> messages) throws IOException {
+    }
+  }
+
+  /** Superstep output which remembers what was written to it */
+  private static class CollectingSuperstepOutput implements
+      SuperstepOutput<LongWritable, DoubleWritable, DoubleWritable> {
+    /** Written vertex values and number of edges, by vertex id */
+    private final Map<Long, String> written = Maps.newHashMap();
+    /** Whether writing should fail */
+    private final boolean fail;
+    /** Whether postApplication was called */
+    private volatile boolean closed = false;
+
+    /**
+     * Constructor
+     *
+     * @param fail Whether writing should fail
+     */
+    CollectingSuperstepOutput(boolean fail) {
+      this.fail = fail;
+    }
+
+    @Override
+    public SimpleVertexWriter<LongWritable, DoubleWritable, DoubleWritable>
+    getVertexWriter() {
+      return new SimpleVertexWriter<LongWritable, DoubleWritable,
+          DoubleWritable>() {
+        @Override
+        public void writeVertex(Vertex<LongWritable, DoubleWritable,
+            DoubleWritable, ?> vertex) throws IOException {
+          if (fail) {
+            throw new IOException("writeVertex: Failing on purpose");
+          }
+          synchronized(written) {
+            written.put(vertex.getId().get(),
+                vertex.getValue().get() + "," + vertex.getNumEdges() + "," +
+                    vertex.isHalted());
+          }
+        }
+      };
+    }
+
+    @Override
+    public void returnVertexWriter(SimpleVertexWriter<LongWritable,
+        DoubleWritable, DoubleWritable> vertexWriter) {
+    }
+
+    @Override
+    public void postApplication() {
+      closed = true;
+    }
+  }
+
+  @Before
+  public void setUp() {
+    GiraphConfiguration initConf = new GiraphConfiguration();
+    initConf.setVertexClass(LongVertex.class);
+    initConf.setVertexOutputFormatThreadSafe(true);
+    initConf.setNumOutputThreads(3);
+    GiraphConstants.ASYNC_OUTPUT_BATCH_SIZE.set(initConf, 100);
+    GiraphConstants.ASYNC_OUTPUT_BUFFER_BATCHES.set(initConf, 2);
+    conf = new ImmutableClassesGiraphConfiguration<LongWritable,
+        DoubleWritable, DoubleWritable, DoubleWritable>(initConf);
+    context = mock(Mapper.Context.class);
+  }
+
+  /**
+   * Write vertices from several compute threads.
+   *
+   * @param output Superstep output to write to
+   */
+  private void writeVertices(
+      final SuperstepOutput<LongWritable, DoubleWritable, DoubleWritable>
+          output) throws Exception {
+    ExecutorService executor =
+        Executors.newFixedThreadPool(NUM_COMPUTE_THREADS);
+    List<Future<Void>> futures = Lists.newArrayList();
+    for (int t = 0; t < NUM_COMPUTE_THREADS; t++) {
+      final int thread = t;
+      futures.add(executor.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          SimpleVertexWriter<LongWritable, DoubleWritable, DoubleWritable>
+              writer = output.getVertexWriter();
+          Vertex<LongWritable, DoubleWritable, DoubleWritable,
+              DoubleWritable> vertex = conf.createVertex();
+          for (int i = 0; i < VERTICES_PER_THREAD; i++) {
+            long id = thread * VERTICES_PER_THREAD + i;
+            vertex.initialize(new LongWritable(id), new DoubleWritable(id),
+                Lists.newArrayList(EdgeFactory.create(
+                    new LongWritable(id + 1), new DoubleWritable(1))));
+            if (id % 2 == 0) {
+              vertex.voteToHalt();
+            } else {
+              vertex.wakeUp();
+            }
+            writer.writeVertex(vertex);
+          }
+          output.returnVertexWriter(writer);
+          return null;
+        }
+      }));
+    }
+    executor.shutdown();
+    for (Future<Void> future : futures) {
+      future.get();
+    }
+  }
+
+  @Test
+  public void testAllVerticesWritten() throws Exception {
+    CollectingSuperstepOutput collectingOutput =
+        new CollectingSuperstepOutput(false);
+    AsynchronousSuperstepOutput<LongWritable, DoubleWritable, DoubleWritable>
+        output = new AsynchronousSuperstepOutput<LongWritable, DoubleWritable,
+        DoubleWritable>(conf, context, collectingOutput);
+    writeVertices(output);
+    output.postApplication();
+
+    assertTrue(collectingOutput.closed);
+    assertEquals(NUM_COMPUTE_THREADS * VERTICES_PER_THREAD,
+        collectingOutput.written.size());
+    for (long id = 0; id < NUM_COMPUTE_THREADS * VERTICES_PER_THREAD; id++) {
+      assertEquals((double) id + ",1," + (id % 2 == 0),
+          collectingOutput.written.get(id));
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testWriterFailurePropagates() throws Exception {
+    AsynchronousSuperstepOutput<LongWritable, DoubleWritable, DoubleWritable>
+        output = new AsynchronousSuperstepOutput<LongWritable, DoubleWritable,
+        DoubleWritable>(conf, context, new CollectingSuperstepOutput(true));
+    try {
+      writeVertices(output);
+    } catch (Exception e) {
+      // Compute threads may already notice the failure
+      throw new IllegalStateException(e);
+    }
+    output.postApplication();
+  }
+}
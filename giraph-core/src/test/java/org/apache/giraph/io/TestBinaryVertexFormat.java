@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.io;
+
+import org.apache.giraph.BspCase;
+import org.apache.giraph.benchmark.WeightedPageRankVertex;
+import org.apache.giraph.conf.GiraphConfiguration;
+import org.apache.giraph.edge.ByteArrayEdges;
+import org.apache.giraph.edge.LongDoubleArrayEdges;
+import org.apache.giraph.io.formats.BinaryVertexFormat;
+import org.apache.giraph.io.formats.BinaryVertexInputFormat;
+import org.apache.giraph.io.formats.BinaryVertexOutputFormat;
+import org.apache.giraph.io.formats.GiraphFileInputFormat;
+import org.apache.giraph.io.formats.JsonBase64VertexOutputFormat;
+import org.apache.giraph.io.formats.PseudoRandomInputFormatConstants;
+import org.apache.giraph.io.formats.PseudoRandomVertexInputFormat;
+import org.apache.giraph.job.GiraphJob;
+import org.apache.hadoop.fs.Path;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test out the binary block vertex format.
+ */
+public class TestBinaryVertexFormat extends BspCase {
+  /**
+   * Constructor.
+   */
+  public TestBinaryVertexFormat() {
+    super(TestBinaryVertexFormat.class.getName());
+  }
+
+  /**
+   * Save a generated graph in several blocks, then load it back in jobs
+   * using the same and a different vertex edges class.
+   *
+   * @throws IOException
+   * @throws ClassNotFoundException
+   * @throws InterruptedException
+   */
+  @Test
+  public void testSaveAndLoad()
+      throws IOException, InterruptedException, ClassNotFoundException {
+    Path binaryPath = getTempPath(getCallingMethodName());
+    GiraphConfiguration conf = new GiraphConfiguration();
+    conf.setVertexClass(WeightedPageRankVertex.class);
+    conf.setVertexEdgesClass(LongDoubleArrayEdges.class);
+    conf.setVertexInputFormatClass(PseudoRandomVertexInputFormat.class);
+    conf.setVertexOutputFormatClass(BinaryVertexOutputFormat.class);
+    BinaryVertexFormat.VERTICES_PER_BLOCK.set(conf, 7);
+    GiraphJob job = prepareJob(getCallingMethodName(), conf, binaryPath);
+    job.getConfiguration().setLong(
+        PseudoRandomInputFormatConstants.AGGREGATE_VERTICES, 101);
+    job.getConfiguration().setLong(
+        PseudoRandomInputFormatConstants.EDGES_PER_VERTEX, 2);
+    job.getConfiguration().setInt(WeightedPageRankVertex.SUPERSTEP_COUNT, 2);
+    assertTrue(job.run(true));
+
+    Path sameEdgesPath = getTempPath(getCallingMethodName() + "2");
+    conf = new GiraphConfiguration();
+    conf.setVertexClass(WeightedPageRankVertex.class);
+    conf.setVertexEdgesClass(LongDoubleArrayEdges.class);
+    conf.setVertexInputFormatClass(BinaryVertexInputFormat.class);
+    conf.setVertexOutputFormatClass(JsonBase64VertexOutputFormat.class);
+    job = prepareJob(getCallingMethodName(), conf, sameEdgesPath);
+    job.getConfiguration().setInt(WeightedPageRankVertex.SUPERSTEP_COUNT, 3);
+    GiraphFileInputFormat.addVertexInputPath(
+        job.getInternalJob().getConfiguration(), binaryPath);
+    assertTrue(job.run(true));
+
+    Path otherEdgesPath = getTempPath(getCallingMethodName() + "3");
+    conf = new GiraphConfiguration();
+    conf.setVertexClass(WeightedPageRankVertex.class);
+    conf.setVertexEdgesClass(ByteArrayEdges.class);
+    conf.setVertexInputFormatClass(BinaryVertexInputFormat.class);
+    conf.setVertexOutputFormatClass(JsonBase64VertexOutputFormat.class);
+    job = prepareJob(getCallingMethodName(), conf, otherEdgesPath);
+    job.getConfiguration().setInt(WeightedPageRankVertex.SUPERSTEP_COUNT, 3);
+    GiraphFileInputFormat.addVertexInputPath(
+        job.getInternalJob().getConfiguration(), binaryPath);
+    assertTrue(job.run(true));
+
+    conf = job.getConfiguration();
+    assertEquals(101, getNumResults(conf, sameEdgesPath));
+    assertEquals(101, getNumResults(conf, otherEdgesPath));
+  }
+}
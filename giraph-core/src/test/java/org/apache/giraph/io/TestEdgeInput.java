@@ -20,6 +20,7 @@ package org.apache.giraph.io;
 
 import org.apache.giraph.BspCase;
 import org.apache.giraph.conf.GiraphConfiguration;
+import org.apache.giraph.conf.GiraphConstants;
 import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
 import org.apache.giraph.edge.ByteArrayEdges;
 import org.apache.giraph.edge.Edge;
@@ -110,6 +111,33 @@ public class TestEdgeInput extends BspCase {
     assertEquals(2, (int) values.get(4));
   }
 
+  // It should build the same graph when sorting the buffered input edges.
+  @Test
+  public void testSortedEdgesWithReverse() throws Exception {
+    String[] edges = new String[] {
+        "1 2",
+        "2 3",
+        "2 4",
+        "4 1"
+    };
+
+    GiraphConfiguration conf = new GiraphConfiguration();
+    conf.setVertexClass(TestVertexWithNumEdges.class);
+    conf.setVertexEdgesClass(ByteArrayEdges.class);
+    conf.setEdgeInputFormatClass(IntNullReverseTextEdgeInputFormat.class);
+    conf.setVertexOutputFormatClass(IdWithValueTextOutputFormat.class);
+    GiraphConstants.SORT_INPUT_EDGES.set(conf, true);
+    Iterable<String> results = InternalVertexRunner.run(conf, null, edges);
+
+    Map<Integer, Integer> values = parseResults(results);
+
+    assertEquals(4, values.size());
+    assertEquals(2, (int) values.get(1));
+    assertEquals(3, (int) values.get(2));
+    assertEquals(1, (int) values.get(3));
+    assertEquals(2, (int) values.get(4));
+  }
+
   // It should be able to build a graph by specifying vertex data and edges
   // as separate input formats.
   @Test
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.giraph.io;
+
+import org.apache.giraph.BspCase;
+import org.apache.giraph.conf.GiraphConfiguration;
+import org.apache.giraph.conf.GiraphConstants;
+import org.apache.giraph.edge.ByteArrayEdges;
+import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.io.formats.IdWithValueTextOutputFormat;
+import org.apache.giraph.io.formats.IntIntNullTextInputFormat;
+import org.apache.giraph.io.formats.IntNullNullTextInputFormat;
+import org.apache.giraph.io.formats.LongDoubleDoubleAdjacencyListVertexInputFormat;
+import org.apache.giraph.io.formats.TextDoubleDoubleAdjacencyListVertexInputFormat;
+import org.apache.giraph.utils.InternalVertexRunner;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests parsing vertex input records on several threads.
+ */
+public class TestPipelinedVertexInput extends BspCase {
+  /** Number of input lines, more than a parsing batch */
+  private static final int NUM_VERTICES = 5000;
+
+  public TestPipelinedVertexInput() {
+    super(TestPipelinedVertexInput.class.getName());
+  }
+
+  @Test
+  public void testReadersOptIn() throws IOException {
+    assertTrue(new IntIntNullTextInputFormat().createVertexReader(null, null)
+        instanceof PipelinedVertexReader);
+    assertTrue(new IntNullNullTextInputFormat().createVertexReader(null,
+        null) instanceof PipelinedVertexReader);
+    assertTrue(new LongDoubleDoubleAdjacencyListVertexInputFormat()
+        .createVertexReader(null, null) instanceof PipelinedVertexReader);
+    assertTrue(new TextDoubleDoubleAdjacencyListVertexInputFormat()
+        .createVertexReader(null, null) instanceof PipelinedVertexReader);
+  }
+
+  @Test
+  public void testIntIntNullParsedInParallel() throws Exception {
+    // Vertex i has i % 3 edges
+    String[] graph = new String[NUM_VERTICES];
+    for (int i = 0; i < NUM_VERTICES; ++i) {
+      StringBuilder line = new StringBuilder(Integer.toString(i));
+      for (int j = 1; j <= i % 3; ++j) {
+        line.append(' ').append(i + j);
+      }
+      graph[i] = line.toString();
+    }
+
+    GiraphConfiguration conf = new GiraphConfiguration();
+    conf.setVertexClass(IdAndEdgesVertex.class);
+    conf.setVertexEdgesClass(ByteArrayEdges.class);
+    conf.setVertexInputFormatClass(IntIntNullTextInputFormat.class);
+    conf.setVertexOutputFormatClass(IdWithValueTextOutputFormat.class);
+    GiraphConstants.NUM_INPUT_PARSING_THREADS.set(conf, 4);
+    Iterable<String> results = InternalVertexRunner.run(conf, graph);
+
+    // Every vertex must have the id, value and edges of its own line
+    boolean[] seen = new boolean[NUM_VERTICES];
+    for (String line : results) {
+      String[] tokens = line.split("\\s+");
+      int id = Integer.parseInt(tokens[0]);
+      assertFalse(seen[id]);
+      seen[id] = true;
+      assertEquals(id * 10 + id % 3, Integer.parseInt(tokens[1]));
+    }
+    for (int i = 0; i < NUM_VERTICES; ++i) {
+      assertTrue(seen[i]);
+    }
+  }
+
+  /**
+   * Vertex which checks that its value matches its id and replaces it with
+   * ten times its id plus its number of edges.
+   */
+  public static class IdAndEdgesVertex extends Vertex<IntWritable,
+      IntWritable, NullWritable, NullWritable> {
+    @Override
+    public void compute(Iterable<NullWritable> messages) throws IOException {
+      assertEquals(getId().get(), getValue().get());
+      setValue(new IntWritable(getId().get() * 10 + getNumEdges()));
+      voteToHalt();
+    }
+  }
+}
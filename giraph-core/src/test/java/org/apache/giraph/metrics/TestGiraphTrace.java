@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.metrics;
+
+import org.apache.giraph.time.FakeTime;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import com.google.common.base.Charsets;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Test the events recorded by {@link GiraphTrace}.
+ */
+public class TestGiraphTrace {
+  @Test
+  public void testWriteEvents() throws IOException, JSONException,
+      InterruptedException {
+    FakeTime time = new FakeTime();
+    GiraphTrace trace = new GiraphTrace(true, 4, time);
+    try {
+      for (int i = 0; i < 6; ++i) {
+        long start = trace.start();
+        time.sleep(2);
+        trace.complete(GiraphTrace.COMPUTE, "compute-partition", start,
+            "partition", i);
+      }
+      JSONArray events = writeComputeEvents(trace, 3);
+      // Only the last four events of the thread are kept
+      assertEquals(4, events.length());
+      for (int i = 0; i < 4; ++i) {
+        JSONObject event = events.getJSONObject(i);
+        assertEquals("compute-partition", event.getString("name"));
+        assertEquals("X", event.getString("ph"));
+        assertEquals(3, event.getInt("pid"));
+        assertEquals(2000, event.getLong("dur"));
+        assertEquals(i + 2, event.getJSONObject("args").getInt("partition"));
+      }
+    } finally {
+      trace.stop();
+    }
+  }
+
+  @Test
+  public void testThreadsOfSameNameShareBuffer() throws IOException,
+      JSONException, InterruptedException {
+    final GiraphTrace trace = new GiraphTrace(true, 4, new FakeTime());
+    try {
+      // A pool thread recreated every superstep
+      for (int superstep = 0; superstep < 3; ++superstep) {
+        final int partition = superstep;
+        Thread thread = new Thread(new Runnable() {
+          @Override
+          public void run() {
+            trace.complete(GiraphTrace.COMPUTE, "compute-partition",
+                trace.start(), "partition", partition);
+          }
+        }, "compute-0");
+        thread.start();
+        thread.join();
+      }
+      trace.complete(GiraphTrace.COMPUTE, "compute-partition",
+          trace.start(), "partition", 3);
+
+      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      trace.write(outputStream, 0);
+      JSONArray events = new JSONObject(
+          new String(outputStream.toByteArray(), Charsets.UTF_8))
+          .getJSONArray("traceEvents");
+      int computeThreadNames = 0;
+      for (int i = 0; i < events.length(); ++i) {
+        JSONObject event = events.getJSONObject(i);
+        if ("thread_name".equals(event.getString("name")) &&
+            "compute-0".equals(
+                event.getJSONObject("args").getString("name"))) {
+          ++computeThreadNames;
+        }
+      }
+      assertEquals(1, computeThreadNames);
+      assertEquals(4, writeComputeEvents(trace, 0).length());
+    } finally {
+      trace.stop();
+    }
+  }
+
+  @Test
+  public void testDisabled() throws IOException, JSONException {
+    GiraphTrace trace = new GiraphTrace(false, 4, new FakeTime());
+    assertFalse(trace.isEnabled());
+    trace.complete(GiraphTrace.FLUSH, "flush", trace.start());
+    assertEquals(0, writeComputeEvents(trace, 0).length());
+  }
+
+  /**
+   * Write the trace and collect the complete events, skipping the
+   * metadata and garbage collection events.
+   *
+   * @param trace Trace to write
+   * @param processId Id of the process
+   * @return Complete events which are not garbage collections
+   */
+  private static JSONArray writeComputeEvents(GiraphTrace trace,
+      int processId) throws IOException, JSONException {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    trace.write(outputStream, processId);
+    JSONArray events = new JSONObject(
+        new String(outputStream.toByteArray(), Charsets.UTF_8))
+        .getJSONArray("traceEvents");
+    JSONArray result = new JSONArray();
+    for (int i = 0; i < events.length(); ++i) {
+      JSONObject event = events.getJSONObject(i);
+      if ("X".equals(event.getString("ph")) &&
+          !GiraphTrace.GC.equals(event.getString("cat"))) {
+        result.put(event);
+      }
+    }
+    return result;
+  }
+}
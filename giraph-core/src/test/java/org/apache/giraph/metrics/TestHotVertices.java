@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.metrics;
+
+import org.apache.giraph.conf.GiraphConfiguration;
+import org.apache.giraph.conf.GiraphConstants;
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.time.Time;
+import org.apache.giraph.utils.WritableUtils;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test {@link HotVertices} and {@link HotVertexSampler}.
+ */
+public class TestHotVertices {
+  public static class MyVertex extends Vertex<LongWritable, NullWritable,
+      NullWritable, NullWritable> {
+    @Override
+    public void compute(Iterable<NullWritable> messages) throws IOException { }
+  }
+
+  @Test
+  public void testMergeAndSerialize() {
+    HotVertices worker1 = new HotVertices();
+    worker1.addComputeTime("1", 30);
+    worker1.addComputeTime("2", 10);
+    worker1.addMessagesReceived("7", 16);
+    worker1.addMessagesSent("1", 5);
+    HotVertices worker2 = new HotVertices();
+    worker2.addComputeTime("3", 20);
+    worker2.addMessagesReceived("7", 32);
+    worker2.addMessagesReceived("8", 16);
+    worker2.addMessagesReceived("9", 1);
+
+    HotVertices merged = new HotVertices();
+    merged.add(worker1, 2);
+    merged.add(worker2, 2);
+
+    HotVertices master = new HotVertices();
+    WritableUtils.readFieldsFromByteArray(
+        WritableUtils.writeToByteArray(merged), master);
+
+    List<Map.Entry<String, Long>> slowest = master.getSlowest();
+    assertEquals(2, slowest.size());
+    assertEquals("1", slowest.get(0).getKey());
+    assertEquals("3", slowest.get(1).getKey());
+    List<Map.Entry<String, Long>> receivers = master.getTopReceivers();
+    assertEquals(2, receivers.size());
+    assertEquals("7", receivers.get(0).getKey());
+    assertEquals(48L, (long) receivers.get(0).getValue());
+    assertEquals("8", receivers.get(1).getKey());
+    assertEquals(1, master.getTopSenders().size());
+    assertTrue(new HotVertices().isEmpty());
+  }
+
+  @Test
+  public void testSampler() {
+    GiraphConfiguration configuration = new GiraphConfiguration();
+    configuration.setVertexClass(MyVertex.class);
+    GiraphConstants.HOT_VERTICES_TOP_N.set(configuration, 2);
+    GiraphConstants.HOT_VERTICES_SAMPLE_RATE.set(configuration, 1);
+    HotVertexSampler<LongWritable> sampler = new HotVertexSampler<LongWritable>(
+        new ImmutableClassesGiraphConfiguration<LongWritable, NullWritable,
+            NullWritable, NullWritable>(configuration));
+
+    // The destination id is reused, as the message caches may do
+    LongWritable destinationId = new LongWritable();
+    sendMessages(sampler, destinationId, 10, 3);
+    sampler.vertexComputed(new LongWritable(1), 5 * Time.NS_PER_US);
+    sendMessages(sampler, destinationId, 20, 1);
+    sampler.vertexComputed(new LongWritable(2), 30 * Time.NS_PER_US);
+    sendMessages(sampler, destinationId, 10, 2);
+    sampler.vertexComputed(new LongWritable(3), 1 * Time.NS_PER_US);
+
+    HotVertices hotVertices = new HotVertices();
+    sampler.addTo(hotVertices);
+    List<Map.Entry<String, Long>> slowest = hotVertices.getSlowest();
+    assertEquals(2, slowest.size());
+    assertEquals("2", slowest.get(0).getKey());
+    assertEquals(30L, (long) slowest.get(0).getValue());
+    assertEquals("1", slowest.get(1).getKey());
+    List<Map.Entry<String, Long>> senders = hotVertices.getTopSenders();
+    assertEquals(2, senders.size());
+    assertEquals("1", senders.get(0).getKey());
+    assertEquals(3L, (long) senders.get(0).getValue());
+    assertEquals("3", senders.get(1).getKey());
+    List<Map.Entry<String, Long>> receivers = hotVertices.getTopReceivers();
+    assertEquals(2, receivers.size());
+    assertEquals("10", receivers.get(0).getKey());
+    assertEquals(5L, (long) receivers.get(0).getValue());
+    assertEquals("20", receivers.get(1).getKey());
+    assertEquals(1L, (long) receivers.get(1).getValue());
+  }
+
+  /**
+   * Record messages sent to a vertex.
+   *
+   * @param sampler Sampler
+   * @param destinationId Destination id object to reuse
+   * @param destination Destination vertex
+   * @param messages Number of messages
+   */
+  private static void sendMessages(HotVertexSampler<LongWritable> sampler,
+      LongWritable destinationId, long destination, int messages) {
+    for (int i = 0; i < messages; ++i) {
+      destinationId.set(destination);
+      sampler.messageSent(destinationId);
+    }
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.metrics;
+
+import org.apache.giraph.conf.GiraphConfiguration;
+import org.apache.giraph.conf.GiraphConstants;
+import org.junit.After;
+import org.junit.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.CharStreams;
+import com.yammer.metrics.core.Timer;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringWriter;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test {@link MetricsTextFormat} and {@link HttpMetricsReporter}.
+ */
+public class TestHttpMetricsReporter {
+  /**
+   * Create metrics with a counter in the job registry and a counter and
+   * a timer in the superstep registry.
+   *
+   * @param conf Configuration
+   */
+  private static void initMetrics(GiraphConfiguration conf) {
+    GiraphConstants.METRICS_ENABLE.set(conf, true);
+    GiraphMetrics.init(conf);
+    GiraphMetrics.get().perJobOptional().getCounter("job-counter").inc(3);
+    GiraphMetrics.get().resetSuperstepMetrics(0);
+    GiraphMetrics.get().perSuperstep().getCounter(
+        MetricNames.MESSAGES_SENT).inc(5);
+    GiraphMetrics.get().resetSuperstepMetrics(1);
+    GiraphMetrics.get().perSuperstep().getCounter(
+        MetricNames.MESSAGES_SENT).inc(7);
+    Timer timer = GiraphMetrics.get().perSuperstep().getTimer(
+        "compute-one", TimeUnit.MILLISECONDS, TimeUnit.SECONDS);
+    timer.update(10, TimeUnit.MILLISECONDS);
+    timer.update(30, TimeUnit.MILLISECONDS);
+  }
+
+  @After
+  public void tearDown() {
+    GiraphMetrics.init(new GiraphConfiguration());
+  }
+
+  @Test
+  public void testTextFormat() throws IOException {
+    initMetrics(new GiraphConfiguration());
+    StringWriter writer = new StringWriter();
+    MetricsTextFormat.write(GiraphMetrics.get(), writer);
+    String text = writer.toString();
+    assertTrue(text.contains(
+        "giraph_job_counter{group=\"giraph\",type=\"job\"} 3.0\n"));
+    // Only the current superstep is written
+    assertTrue(text.contains("# TYPE giraph_messages_sent untyped\n" +
+        "giraph_messages_sent{group=\"giraph.superstep\",type=\"1\"} 7.0\n"));
+    assertFalse(text.contains("type=\"0\""));
+    assertTrue(text.contains("# TYPE giraph_compute_one_milliseconds " +
+        "summary\n"));
+    assertTrue(text.contains("giraph_compute_one_milliseconds_count" +
+        "{group=\"giraph.superstep\",type=\"1\"} 2.0\n"));
+    assertTrue(text.contains("giraph_compute_one_milliseconds_sum" +
+        "{group=\"giraph.superstep\",type=\"1\"} 40.0\n"));
+  }
+
+  @Test
+  public void testServeMetrics() throws IOException {
+    GiraphConfiguration conf = new GiraphConfiguration();
+    // Bind any free port
+    GiraphConstants.METRICS_HTTP_INITIAL_PORT.set(conf, 0);
+    conf.setInt("mapred.task.partition", 0);
+    HttpMetricsReporter reporter = new HttpMetricsReporter();
+    initMetrics(conf);
+    reporter.start(conf);
+    try {
+      assertTrue(reporter.getPort() > 0);
+      HttpURLConnection connection = (HttpURLConnection) new URL(
+          "http://localhost:" + reporter.getPort() +
+          HttpMetricsReporter.METRICS_PATH).openConnection();
+      assertEquals(200, connection.getResponseCode());
+      String text = CharStreams.toString(new InputStreamReader(
+          connection.getInputStream(), Charsets.UTF_8));
+      assertTrue(text.contains("giraph_messages_sent{"));
+
+      connection = (HttpURLConnection) new URL(
+          "http://localhost:" + reporter.getPort() + "/other")
+          .openConnection();
+      assertEquals(404, connection.getResponseCode());
+    } finally {
+      reporter.stop();
+    }
+    assertEquals(-1, reporter.getPort());
+  }
+}
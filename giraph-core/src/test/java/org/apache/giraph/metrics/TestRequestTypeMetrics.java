@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.metrics;
+
+import org.apache.giraph.comm.requests.RequestType;
+import org.apache.giraph.metrics.RequestTypeMetrics.Stat;
+import org.apache.giraph.utils.WritableUtils;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test {@link RequestTypeMetrics}.
+ */
+public class TestRequestTypeMetrics {
+  @Test
+  public void testAccountAndMerge() {
+    RequestTypeMetrics worker1 = new RequestTypeMetrics();
+    worker1.requestEncoded(RequestType.SEND_WORKER_MESSAGES_REQUEST, 100, 5);
+    worker1.requestEncoded(RequestType.SEND_WORKER_MESSAGES_REQUEST, 50, 3);
+    worker1.requestWritten(RequestType.SEND_WORKER_MESSAGES_REQUEST, 20);
+    worker1.requestDecoded(RequestType.SEND_VERTEX_REQUEST, 1000, 40);
+    worker1.requestProcessed(RequestType.SEND_VERTEX_REQUEST, 70);
+    RequestTypeMetrics worker2 = new RequestTypeMetrics();
+    worker2.requestDecoded(
+        RequestType.SEND_WORKER_MESSAGES_REQUEST, 150, 6);
+
+    // As sent to the master
+    RequestTypeMetrics received = new RequestTypeMetrics();
+    WritableUtils.readFieldsFromByteArray(
+        WritableUtils.writeToByteArray(worker1), received);
+    RequestTypeMetrics master = new RequestTypeMetrics();
+    master.add(received);
+    master.add(worker2);
+
+    RequestType messages = RequestType.SEND_WORKER_MESSAGES_REQUEST;
+    assertEquals(2, master.get(messages, Stat.SENT_REQUESTS));
+    assertEquals(150, master.get(messages, Stat.SENT_BYTES));
+    assertEquals(8, master.get(messages, Stat.ENCODE_NANOS));
+    assertEquals(20, master.get(messages, Stat.WRITE_NANOS));
+    assertEquals(1, master.get(messages, Stat.RECEIVED_REQUESTS));
+    assertEquals(150, master.get(messages, Stat.RECEIVED_BYTES));
+    assertEquals(6, master.get(messages, Stat.DECODE_NANOS));
+    RequestType vertices = RequestType.SEND_VERTEX_REQUEST;
+    assertEquals(1, master.get(vertices, Stat.RECEIVED_REQUESTS));
+    assertEquals(1000, master.get(vertices, Stat.RECEIVED_BYTES));
+    assertEquals(70, master.get(vertices, Stat.PROCESS_NANOS));
+    assertEquals(0, master.get(vertices, Stat.SENT_REQUESTS));
+    assertEquals(0, master.get(RequestType.SEND_WORKER_EDGES_REQUEST,
+        Stat.RECEIVED_BYTES));
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.metrics;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test {@link SpaceSavingSketch}.
+ */
+public class TestSpaceSavingSketch {
+  @Test
+  public void testExactWhenNotFull() {
+    SpaceSavingSketch<String> sketch = new SpaceSavingSketch<String>(4);
+    sketch.offer("a", 1);
+    sketch.offer("b", 5);
+    sketch.offer("a", 1);
+    sketch.offer("c", 3);
+    assertEquals(3, sketch.size());
+    assertEquals(Arrays.asList("b", "c", "a"), sketch.getTopItems(10));
+    assertEquals(Arrays.asList("b", "c"), sketch.getTopItems(2));
+    assertEquals(2, sketch.getCount("a"));
+    assertEquals(0, sketch.getError("a"));
+    assertEquals(0, sketch.getCount("d"));
+  }
+
+  @Test
+  public void testHeavyHittersSurvive() {
+    SpaceSavingSketch<Integer> sketch = new SpaceSavingSketch<Integer>(16);
+    // Two heavy items hidden in a stream of 1000 distinct light items
+    for (int i = 0; i < 1000; ++i) {
+      sketch.offer(1000 + i, 1);
+      if (i % 5 == 0) {
+        sketch.offer(1, 1);
+      }
+      if (i % 10 == 0) {
+        sketch.offer(2, 1);
+      }
+    }
+    assertEquals(16, sketch.size());
+    assertEquals(Lists.newArrayList(1, 2), sketch.getTopItems(2));
+    // Counts are never underestimated and the error is bounded
+    assertTrue(sketch.getCount(1) >= 200);
+    assertTrue(sketch.getCount(1) - sketch.getError(1) <= 200);
+    assertTrue(sketch.getCount(2) >= 100);
+    assertTrue(sketch.getCount(2) - sketch.getError(2) <= 100);
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.partition;
+
+import org.apache.giraph.conf.GiraphConfiguration;
+import org.apache.giraph.conf.GiraphConstants;
+import org.apache.giraph.time.Time;
+import org.apache.giraph.worker.WorkerInfo;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Test the partition balancer driven by measured cost.
+ */
+public class TestCostPartitionBalancer {
+  /** Configuration */
+  private GiraphConfiguration conf;
+  /** Workers */
+  private List<WorkerInfo> workers;
+
+  @Before
+  public void setUp() {
+    conf = new GiraphConfiguration();
+    workers = Lists.newArrayList();
+    for (int i = 0; i < 2; ++i) {
+      WorkerInfo workerInfo = new WorkerInfo();
+      workerInfo.setInetSocketAddress(new InetSocketAddress(1000 + i));
+      workerInfo.setTaskId(i);
+      workers.add(workerInfo);
+    }
+  }
+
+  /**
+   * Create the stats of a partition.
+   *
+   * @param partitionId Partition id
+   * @param elements Number of vertices and of edges
+   * @param computeMs Measured compute time
+   * @return Partition stats
+   */
+  private static PartitionStats createStats(int partitionId, long elements,
+      long computeMs) {
+    PartitionStats partitionStats =
+        new PartitionStats(partitionId, elements, 0, elements, 0);
+    partitionStats.setComputeNanos(computeMs * Time.NS_PER_MS);
+    return partitionStats;
+  }
+
+  /**
+   * Count the partitions owned by a worker.
+   *
+   * @param owners Partition owners
+   * @param workerInfo Worker
+   * @return Number of partitions owned by the worker
+   */
+  private static int countOwned(List<PartitionOwner> owners,
+      WorkerInfo workerInfo) {
+    int count = 0;
+    for (PartitionOwner owner : owners) {
+      if (owner.getWorkerInfo().equals(workerInfo)) {
+        ++count;
+      }
+    }
+    return count;
+  }
+
+  @Test
+  public void testSlowWorkerGivesAwayPartitions() {
+    List<PartitionOwner> owners = Lists.newArrayList();
+    List<PartitionStats> stats = Lists.newArrayList();
+    for (int i = 0; i < 4; ++i) {
+      owners.add(new BasicPartitionOwner(i, workers.get(0)));
+      stats.add(createStats(i, 10, 1000));
+    }
+    owners.add(new BasicPartitionOwner(4, workers.get(1)));
+    stats.add(createStats(4, 10, 1000));
+
+    CostPartitionBalancer.balancePartitionsAcrossWorkers(
+        conf, owners, stats, workers);
+    assertEquals(3, countOwned(owners, workers.get(0)));
+    assertEquals(2, countOwned(owners, workers.get(1)));
+    for (PartitionOwner owner : owners) {
+      if (owner.getWorkerInfo().equals(workers.get(1)) &&
+          owner.getPartitionId() != 4) {
+        assertEquals(workers.get(0), owner.getPreviousWorkerInfo());
+      } else {
+        assertNull(owner.getPreviousWorkerInfo());
+      }
+    }
+  }
+
+  @Test
+  public void testSubMillisecondPartitionsAddUp() {
+    List<PartitionOwner> owners = Lists.newArrayList();
+    List<PartitionStats> stats = Lists.newArrayList();
+    for (int i = 0; i < 5; ++i) {
+      owners.add(new BasicPartitionOwner(i,
+          workers.get(i == 4 ? 1 : 0)));
+      PartitionStats partitionStats = createStats(i, 1, 0);
+      partitionStats.setComputeNanos(600 * Time.NS_PER_US);
+      stats.add(partitionStats);
+    }
+
+    CostPartitionBalancer.balancePartitionsAcrossWorkers(
+        conf, owners, stats, workers);
+    assertEquals(3, countOwned(owners, workers.get(0)));
+    assertEquals(2, countOwned(owners, workers.get(1)));
+  }
+
+  @Test
+  public void testExpensiveTransferIsSkipped() {
+    List<PartitionOwner> owners = Lists.newArrayList();
+    List<PartitionStats> stats = Lists.newArrayList();
+    owners.add(new BasicPartitionOwner(0, workers.get(0)));
+    stats.add(createStats(0, 1000000, 10));
+    owners.add(new BasicPartitionOwner(1, workers.get(0)));
+    stats.add(createStats(1, 1000000, 10));
+
+    CostPartitionBalancer.balancePartitionsAcrossWorkers(
+        conf, owners, stats, workers);
+    assertEquals(2, countOwned(owners, workers.get(0)));
+
+    // Moving pays off when the gain is expected for long enough
+    GiraphConstants.COST_BALANCER_GAIN_SUPERSTEPS.set(conf, 1000);
+    CostPartitionBalancer.balancePartitionsAcrossWorkers(
+        conf, owners, stats, workers);
+    assertEquals(1, countOwned(owners, workers.get(0)));
+  }
+
+  @Test
+  public void testPartitionsLeaveUnavailableWorker() {
+    WorkerInfo goneWorker = new WorkerInfo();
+    goneWorker.setInetSocketAddress(new InetSocketAddress(2000));
+    goneWorker.setTaskId(2);
+    List<PartitionOwner> owners = Lists.newArrayList();
+    List<PartitionStats> stats = Lists.newArrayList();
+    owners.add(new BasicPartitionOwner(0, goneWorker));
+    stats.add(createStats(0, 1000000, 0));
+
+    CostPartitionBalancer.balancePartitionsAcrossWorkers(
+        conf, owners, stats, workers);
+    assertEquals(goneWorker, owners.get(0).getPreviousWorkerInfo());
+    assertEquals(1, countOwned(owners, workers.get(0)) +
+        countOwned(owners, workers.get(1)));
+  }
+}
@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.partition;
+
+import org.apache.giraph.conf.GiraphConfiguration;
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.edge.Edge;
+import org.apache.giraph.edge.EdgeFactory;
+import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.utils.UnsafeByteArrayInputStream;
+import org.apache.giraph.utils.UnsafeByteArrayOutputStream;
+import org.apache.hadoop.io.DoubleWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Test case for {@link LongCsrPartition}.
+ */
+public class TestLongCsrPartition {
+  private ImmutableClassesGiraphConfiguration<LongWritable, DoubleWritable,
+      DoubleWritable, DoubleWritable> conf;
+  private Mapper<?, ?, ?, ?>.Context context;
+
+  public static class MyVertex extends Vertex<LongWritable, DoubleWritable,
+      DoubleWritable, DoubleWritable> {
+    @Override
+    public void compute(Iterable<DoubleWritable> messages)
+        throws IOException { }
+  }
+
+  @Before
+  public void setUp() {
+    GiraphConfiguration configuration = new GiraphConfiguration();
+    configuration.setVertexClass(MyVertex.class);
+    configuration.setPartitionClass(LongCsrPartition.class);
+    conf = new ImmutableClassesGiraphConfiguration<LongWritable,
+        DoubleWritable, DoubleWritable, DoubleWritable>(configuration);
+    context = mock(Mapper.Context.class);
+  }
+
+  /**
+   * Create a vertex with edges to the given targets, with edge values equal
+   * to the targets.
+   *
+   * @param id Vertex id
+   * @param targets Edge targets
+   * @return Vertex
+   */
+  private Vertex<LongWritable, DoubleWritable, DoubleWritable,
+      DoubleWritable> createVertex(long id, long... targets) {
+    List<Edge<LongWritable, DoubleWritable>> edges = Lists.newArrayList();
+    for (long target : targets) {
+      edges.add(EdgeFactory.create(new LongWritable(target),
+          new DoubleWritable(target)));
+    }
+    Vertex<LongWritable, DoubleWritable, DoubleWritable, DoubleWritable>
+        vertex = conf.createVertex();
+    vertex.initialize(new LongWritable(id), new DoubleWritable(id), edges);
+    return vertex;
+  }
+
+  /**
+   * Create a partition holding vertices 3, 1 and 2.
+   *
+   * @return Partition
+   */
+  private Partition<LongWritable, DoubleWritable, DoubleWritable,
+      DoubleWritable> createPartition() {
+    Partition<LongWritable, DoubleWritable, DoubleWritable, DoubleWritable>
+        partition = conf.createPartition(7, context);
+    assertTrue(partition instanceof LongCsrPartition);
+    partition.putVertex(createVertex(3, 1, 2));
+    partition.putVertex(createVertex(1, 2));
+    partition.putVertex(createVertex(2));
+    return partition;
+  }
+
+  /**
+   * Check the vertices of a partition created by {@link #createPartition()}.
+   *
+   * @param partition Partition
+   * @param value3 Expected value of vertex 3
+   */
+  private void checkPartition(Partition<LongWritable, DoubleWritable,
+      DoubleWritable, DoubleWritable> partition, double value3) {
+    assertEquals(3, partition.getVertexCount());
+    assertEquals(3, partition.getEdgeCount());
+    long expectedId = 1;
+    for (Vertex<LongWritable, DoubleWritable, DoubleWritable, DoubleWritable>
+        vertex : partition) {
+      assertEquals(expectedId, vertex.getId().get());
+      ++expectedId;
+    }
+    Vertex<LongWritable, DoubleWritable, DoubleWritable, DoubleWritable>
+        vertex = partition.getVertex(new LongWritable(3));
+    assertEquals(value3, vertex.getValue().get(), 0d);
+    assertEquals(2, vertex.getNumEdges());
+    assertEquals(2d, vertex.getEdgeValue(new LongWritable(2)).get(), 0d);
+  }
+
+  @Test
+  public void testPutAndIterate() {
+    Partition<LongWritable, DoubleWritable, DoubleWritable, DoubleWritable>
+        partition = createPartition();
+    checkPartition(partition, 3);
+    assertNull(partition.getVertex(new LongWritable(4)));
+    partition.putVertex(createVertex(0, 3));
+    assertEquals(4, partition.getVertexCount());
+    assertEquals(4, partition.getEdgeCount());
+    assertEquals(1, partition.getVertex(new LongWritable(0)).getNumEdges());
+  }
+
+  @Test
+  public void testSaveVertex() {
+    Partition<LongWritable, DoubleWritable, DoubleWritable, DoubleWritable>
+        partition = createPartition();
+    for (Vertex<LongWritable, DoubleWritable, DoubleWritable, DoubleWritable>
+        vertex : partition) {
+      vertex.getValue().set(vertex.getValue().get() * 10);
+      if (vertex.getId().get() == 1) {
+        vertex.voteToHalt();
+      }
+      if (vertex.getId().get() == 2) {
+        vertex.addEdge(EdgeFactory.create(new LongWritable(1),
+            new DoubleWritable(5)));
+      }
+      partition.saveVertex(vertex);
+    }
+    assertEquals(3, partition.getVertexCount());
+    assertEquals(4, partition.getEdgeCount());
+    for (Vertex<LongWritable, DoubleWritable, DoubleWritable, DoubleWritable>
+        vertex : partition) {
+      assertEquals(vertex.getId().get() * 10, vertex.getValue().get(), 0d);
+      assertEquals(vertex.getId().get() == 1, vertex.isHalted());
+    }
+    assertEquals(5d, partition.getVertex(new LongWritable(2))
+        .getEdgeValue(new LongWritable(1)).get(), 0d);
+  }
+
+  @Test
+  public void testCompactWhileIterating() {
+    Partition<LongWritable, DoubleWritable, DoubleWritable, DoubleWritable>
+        partition = createPartition();
+    Iterator<Vertex<LongWritable, DoubleWritable, DoubleWritable,
+        DoubleWritable>> iterator = partition.iterator();
+    assertEquals(1, iterator.next().getId().get());
+    partition.removeVertex(new LongWritable(2));
+    partition.putVertex(createVertex(0, 3));
+    // Rebuilds the arrays under the first iterator
+    partition.iterator();
+    // The removed vertex is skipped, the added one comes with the new arrays
+    Vertex<LongWritable, DoubleWritable, DoubleWritable, DoubleWritable>
+        vertex = iterator.next();
+    assertEquals(3, vertex.getId().get());
+    assertEquals(3d, vertex.getValue().get(), 0d);
+    assertEquals(2, vertex.getNumEdges());
+    assertEquals(2d, vertex.getEdgeValue(new LongWritable(2)).get(), 0d);
+    assertFalse(iterator.hasNext());
+    // Saving a vertex read before the rebuild must not use stale indices
+    vertex.getValue().set(30);
+    partition.saveVertex(vertex);
+    assertEquals(3, partition.getVertexCount());
+    assertEquals(30d,
+        partition.getVertex(new LongWritable(3)).getValue().get(), 0d);
+    assertEquals(2, partition.getVertex(new LongWritable(3)).getNumEdges());
+  }
+
+  @Test
+  public void testRemoveVertex() {
+    Partition<LongWritable, DoubleWritable, DoubleWritable, DoubleWritable>
+        partition = createPartition();
+    assertEquals(1, partition.removeVertex(new LongWritable(1))
+        .getNumEdges());
+    assertNull(partition.removeVertex(new LongWritable(1)));
+    assertEquals(2, partition.getVertexCount());
+    assertEquals(2, partition.getEdgeCount());
+    for (Vertex<LongWritable, DoubleWritable, DoubleWritable, DoubleWritable>
+        vertex : partition) {
+      assertFalse(vertex.getId().get() == 1);
+    }
+  }
+
+  @Test
+  public void testWriteRead() throws IOException {
+    Partition<LongWritable, DoubleWritable, DoubleWritable, DoubleWritable>
+        partition = createPartition();
+    partition.getVertex(new LongWritable(3));
+    Vertex<LongWritable, DoubleWritable, DoubleWritable, DoubleWritable>
+        vertex = createVertex(3, 1, 2);
+    vertex.getValue().set(30);
+    partition.putVertex(vertex);
+    UnsafeByteArrayOutputStream outputStream =
+        new UnsafeByteArrayOutputStream();
+    partition.write(outputStream);
+    UnsafeByteArrayInputStream inputStream = new UnsafeByteArrayInputStream(
+        outputStream.getByteArray(), 0, outputStream.getPos());
+    Partition<LongWritable, DoubleWritable, DoubleWritable, DoubleWritable>
+        deserializedPartition = conf.createPartition(-1, context);
+    deserializedPartition.readFields(inputStream);
+    assertEquals(7, deserializedPartition.getId());
+    checkPartition(deserializedPartition, 30);
+  }
+
+  @Test
+  public void testAddPartition() {
+    Partition<LongWritable, DoubleWritable, DoubleWritable, DoubleWritable>
+        partition = createPartition();
+    Partition<LongWritable, DoubleWritable, DoubleWritable, DoubleWritable>
+        otherPartition = conf.createPartition(7, context);
+    otherPartition.putVertex(createVertex(5, 1, 2, 3));
+    partition.addPartition(otherPartition);
+    assertEquals(4, partition.getVertexCount());
+    assertEquals(6, partition.getEdgeCount());
+  }
+}
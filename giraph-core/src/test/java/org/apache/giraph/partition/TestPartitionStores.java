@@ -19,12 +19,15 @@
 package org.apache.giraph.partition;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.giraph.comm.SendVertexBytesCache;
 import org.apache.giraph.conf.GiraphConfiguration;
 import org.apache.giraph.conf.GiraphConstants;
 import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
 import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.utils.ExtendedDataOutput;
 import org.apache.giraph.utils.UnsafeByteArrayInputStream;
 import org.apache.giraph.utils.UnsafeByteArrayOutputStream;
+import org.apache.giraph.worker.WorkerInfo;
 import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.mapreduce.Mapper;
@@ -136,6 +139,74 @@ public class TestPartitionStores {
     assertEquals(7, deserializatedPartition.getVertexCount());
   }
 
+  @Test
+  public void testByteArrayPartitionVertexBytes() {
+    GiraphConfiguration configuration = new GiraphConfiguration();
+    configuration.setVertexClass(MyVertex.class);
+    configuration.setPartitionClass(ByteArrayPartition.class);
+    conf = new ImmutableClassesGiraphConfiguration<IntWritable, IntWritable,
+        NullWritable, IntWritable>(configuration);
+    SendVertexBytesCache<IntWritable, IntWritable, NullWritable, IntWritable>
+        cache = new SendVertexBytesCache<IntWritable, IntWritable,
+            NullWritable, IntWritable>(conf);
+    PartitionOwner owner = new BasicPartitionOwner(0, new WorkerInfo());
+    Vertex<IntWritable, IntWritable, NullWritable, IntWritable> vertex =
+        conf.createVertex();
+    for (int i = 1; i <= 5; ++i) {
+      // The same vertex object is reused, as the input readers do
+      vertex.initialize(new IntWritable(i), new IntWritable(i * 10));
+      cache.addVertex(owner, vertex);
+    }
+    ExtendedDataOutput vertexBytes = cache.getOwnerVertexBytesMap().get(owner);
+
+    ByteArrayPartition<IntWritable, IntWritable, NullWritable, IntWritable>
+        partition = (ByteArrayPartition<IntWritable, IntWritable,
+            NullWritable, IntWritable>) conf.createPartition(0, context);
+    partition.putVertexBytes(vertexBytes.getByteArray(), vertexBytes.getPos());
+    assertEquals(5, partition.getVertexCount());
+    for (int i = 1; i <= 5; ++i) {
+      assertEquals(i * 10,
+          partition.getVertex(new IntWritable(i)).getValue().get());
+    }
+  }
+
+  @Test
+  public void testByteArrayPartitionRemoveVertexBytes() throws IOException {
+    GiraphConfiguration configuration = new GiraphConfiguration();
+    configuration.setVertexClass(MyVertex.class);
+    configuration.setPartitionClass(ByteArrayPartition.class);
+    conf = new ImmutableClassesGiraphConfiguration<IntWritable, IntWritable,
+        NullWritable, IntWritable>(configuration);
+    ByteArrayPartition<IntWritable, IntWritable, NullWritable, IntWritable>
+        partition = (ByteArrayPartition<IntWritable, IntWritable,
+            NullWritable, IntWritable>) conf.createPartition(0, context);
+    for (int i = 1; i <= 5; ++i) {
+      Vertex<IntWritable, IntWritable, NullWritable, IntWritable> vertex =
+          conf.createVertex();
+      vertex.initialize(new IntWritable(i), new IntWritable(i * 10));
+      partition.putVertex(vertex);
+    }
+
+    // Move the vertices in chunks of at least one vertex
+    ByteArrayPartition<IntWritable, IntWritable, NullWritable, IntWritable>
+        copy = (ByteArrayPartition<IntWritable, IntWritable,
+            NullWritable, IntWritable>) conf.createPartition(0, context);
+    int chunks = 0;
+    ExtendedDataOutput chunk = conf.createExtendedDataOutput();
+    while (partition.removeVertexBytes(chunk, 20)) {
+      copy.putVertexBytes(chunk.getByteArray(), chunk.getPos());
+      chunk = conf.createExtendedDataOutput();
+      ++chunks;
+    }
+    assertTrue(chunks > 1);
+    assertEquals(0, partition.getVertexCount());
+    assertEquals(5, copy.getVertexCount());
+    for (int i = 1; i <= 5; ++i) {
+      assertEquals(i * 10,
+          copy.getVertex(new IntWritable(i)).getValue().get());
+    }
+  }
+
   @Test
   public void testDiskBackedPartitionStore() throws IOException {
     File directory = Files.createTempDir();
@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.partition;
+
+import org.apache.giraph.conf.GiraphConfiguration;
+import org.apache.giraph.conf.GiraphConstants;
+import org.apache.giraph.conf.ImmutableClassesGiraphConfiguration;
+import org.apache.giraph.edge.Edge;
+import org.apache.giraph.edge.EdgeFactory;
+import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.utils.ExtendedDataOutput;
+import org.apache.giraph.worker.WorkerInfo;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Test case for {@link StreamingWorkerPartitioner}.
+ */
+public class TestStreamingWorkerPartitioner {
+  /** Number of cliques in the test graph */
+  private static final int NUM_CLIQUES = 4;
+  /** Number of vertices of every clique */
+  private static final int CLIQUE_SIZE = 5;
+
+  public static class MyVertex extends Vertex<IntWritable, NullWritable,
+      NullWritable, NullWritable> {
+    @Override
+    public void compute(Iterable<NullWritable> messages) throws IOException { }
+  }
+
+  /**
+   * Create a partitioner with partitions spread over two workers.
+   *
+   * @param conf Configuration
+   * @return Partitioner
+   */
+  private StreamingWorkerPartitioner<IntWritable, NullWritable,
+      NullWritable, NullWritable> createPartitioner(
+      ImmutableClassesGiraphConfiguration<IntWritable, NullWritable,
+          NullWritable, NullWritable> conf) {
+    WorkerInfo worker0 = new WorkerInfo();
+    worker0.setTaskId(0);
+    WorkerInfo worker1 = new WorkerInfo();
+    worker1.setTaskId(1);
+    List<PartitionOwner> owners = Lists.newArrayList();
+    for (int i = 0; i < NUM_CLIQUES; ++i) {
+      owners.add(new BasicPartitionOwner(i, i % 2 == 0 ? worker0 : worker1));
+    }
+    StreamingWorkerPartitioner<IntWritable, NullWritable, NullWritable,
+        NullWritable> partitioner = new StreamingWorkerPartitioner<IntWritable,
+        NullWritable, NullWritable, NullWritable>(conf);
+    partitioner.updatePartitionOwners(worker0, owners,
+        mock(PartitionStore.class));
+    return partitioner;
+  }
+
+  /**
+   * Stream cliques through the partitioner, and check that every clique
+   * ends up in a partition of its own, also for another worker receiving
+   * the assignments.
+   *
+   * @param heuristic Heuristic to use
+   */
+  private void testCliques(String heuristic) throws IOException {
+    GiraphConfiguration configuration = new GiraphConfiguration();
+    configuration.setVertexClass(MyVertex.class);
+    GiraphConstants.STREAMING_PARTITIONER_HEURISTIC.set(configuration,
+        heuristic);
+    ImmutableClassesGiraphConfiguration<IntWritable, NullWritable,
+        NullWritable, NullWritable> conf =
+        new ImmutableClassesGiraphConfiguration<IntWritable, NullWritable,
+            NullWritable, NullWritable>(configuration);
+    StreamingWorkerPartitioner<IntWritable, NullWritable, NullWritable,
+        NullWritable> partitioner = createPartitioner(conf);
+
+    Set<Integer> cliquePartitions = Sets.newHashSet();
+    Vertex<IntWritable, NullWritable, NullWritable, NullWritable> vertex =
+        conf.createVertex();
+    for (int clique = 0; clique < NUM_CLIQUES; ++clique) {
+      int firstPartition = -1;
+      for (int i = 0; i < CLIQUE_SIZE; ++i) {
+        List<Edge<IntWritable, NullWritable>> edges = Lists.newArrayList();
+        for (int j = 0; j < CLIQUE_SIZE; ++j) {
+          if (j != i) {
+            edges.add(EdgeFactory.create(
+                new IntWritable(clique * CLIQUE_SIZE + j)));
+          }
+        }
+        // The same vertex object is reused, as the input readers do
+        vertex.initialize(new IntWritable(clique * CLIQUE_SIZE + i),
+            NullWritable.get(), edges);
+        int partition = partitioner.assignVertex(vertex).getPartitionId();
+        if (i == 0) {
+          firstPartition = partition;
+        } else {
+          assertEquals(firstPartition, partition);
+        }
+      }
+      cliquePartitions.add(firstPartition);
+    }
+    assertEquals(NUM_CLIQUES, cliquePartitions.size());
+
+    StreamingWorkerPartitioner<IntWritable, NullWritable, NullWritable,
+        NullWritable> otherPartitioner = createPartitioner(conf);
+    for (ExtendedDataOutput assignments :
+        partitioner.removeLocalAssignments()) {
+      otherPartitioner.addAssignments(conf.createExtendedDataInput(
+          assignments.getByteArray(), 0, assignments.getPos()));
+    }
+    otherPartitioner.finishAssignments();
+    for (int id = 0; id < NUM_CLIQUES * CLIQUE_SIZE; ++id) {
+      assertEquals(
+          partitioner.getPartitionOwner(new IntWritable(id)).getPartitionId(),
+          otherPartitioner.getPartitionOwner(
+              new IntWritable(id)).getPartitionId());
+    }
+    assertTrue(partitioner.removeLocalAssignments().isEmpty());
+  }
+
+  @Test
+  public void testLdg() throws IOException {
+    testCliques("ldg");
+  }
+
+  @Test
+  public void testFennel() throws IOException {
+    testCliques("fennel");
+  }
+
+  /**
+   * Check that unordered assignments received in many chunks resolve to
+   * the lowest partition of every key, both while and after loading.
+   */
+  @Test
+  public void testShardedAssignments() throws IOException {
+    GiraphConfiguration configuration = new GiraphConfiguration();
+    configuration.setVertexClass(MyVertex.class);
+    ImmutableClassesGiraphConfiguration<IntWritable, NullWritable,
+        NullWritable, NullWritable> conf =
+        new ImmutableClassesGiraphConfiguration<IntWritable, NullWritable,
+            NullWritable, NullWritable>(configuration);
+    StreamingWorkerPartitioner<IntWritable, NullWritable, NullWritable,
+        NullWritable> partitioner = createPartitioner(conf);
+
+    Random random = new Random(17);
+    Map<Integer, Integer> expected = Maps.newHashMap();
+    for (int chunk = 0; chunk < 20; ++chunk) {
+      ExtendedDataOutput assignments = conf.createExtendedDataOutput();
+      int chunkSize = 1 + random.nextInt(100);
+      for (int i = 0; i < chunkSize; ++i) {
+        int key = random.nextInt(1000);
+        int partition = random.nextInt(NUM_CLIQUES);
+        assignments.writeLong(key);
+        assignments.writeInt(partition);
+        Integer previous = expected.get(key);
+        if (previous == null || previous > partition) {
+          expected.put(key, partition);
+        }
+      }
+      partitioner.addAssignments(conf.createExtendedDataInput(
+          assignments.getByteArray(), 0, assignments.getPos()));
+    }
+    for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+      assertEquals((int) entry.getValue(), partitioner.getPartitionOwner(
+          new IntWritable(entry.getKey())).getPartitionId());
+    }
+    partitioner.finishAssignments();
+    for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+      assertEquals((int) entry.getValue(), partitioner.getPartitionOwner(
+          new IntWritable(entry.getKey())).getPartitionId());
+    }
+  }
+
+  /**
+   * Check that a vertex assigned by two workers ends up in the lowest of
+   * the two partitions on both, and that unassigned vertices are hash
+   * partitioned.
+   */
+  @Test
+  public void testConflictingAssignments() throws IOException {
+    GiraphConfiguration configuration = new GiraphConfiguration();
+    configuration.setVertexClass(MyVertex.class);
+    ImmutableClassesGiraphConfiguration<IntWritable, NullWritable,
+        NullWritable, NullWritable> conf =
+        new ImmutableClassesGiraphConfiguration<IntWritable, NullWritable,
+            NullWritable, NullWritable>(configuration);
+    StreamingWorkerPartitioner<IntWritable, NullWritable, NullWritable,
+        NullWritable> partitioner = createPartitioner(conf);
+    StreamingWorkerPartitioner<IntWritable, NullWritable, NullWritable,
+        NullWritable> otherPartitioner = createPartitioner(conf);
+
+    // Fill the first partitions of the other worker, so that it puts the
+    // shared vertex in a later partition
+    Vertex<IntWritable, NullWritable, NullWritable, NullWritable> vertex =
+        conf.createVertex();
+    List<Edge<IntWritable, NullWritable>> noEdges = Lists.newArrayList();
+    int sharedId = 1000;
+    int otherPartition = -1;
+    for (int id = sharedId; otherPartition < 1; ++id) {
+      vertex.initialize(new IntWritable(id), NullWritable.get(), noEdges);
+      otherPartition =
+          otherPartitioner.assignVertex(vertex).getPartitionId();
+      if (otherPartition < 1) {
+        sharedId = id + 1;
+      }
+    }
+    vertex.initialize(new IntWritable(sharedId), NullWritable.get(),
+        noEdges);
+    int partition = partitioner.assignVertex(vertex).getPartitionId();
+    assertTrue(partition < otherPartition);
+
+    for (ExtendedDataOutput assignments :
+        otherPartitioner.removeLocalAssignments()) {
+      partitioner.addAssignments(conf.createExtendedDataInput(
+          assignments.getByteArray(), 0, assignments.getPos()));
+    }
+    for (ExtendedDataOutput assignments :
+        partitioner.removeLocalAssignments()) {
+      otherPartitioner.addAssignments(conf.createExtendedDataInput(
+          assignments.getByteArray(), 0, assignments.getPos()));
+    }
+    partitioner.finishAssignments();
+    otherPartitioner.finishAssignments();
+    IntWritable id = new IntWritable(sharedId);
+    assertEquals(partition,
+        partitioner.getPartitionOwner(id).getPartitionId());
+    assertEquals(partition,
+        otherPartitioner.getPartitionOwner(id).getPartitionId());
+
+    IntWritable unassigned = new IntWritable(-7);
+    assertEquals(Math.abs(unassigned.hashCode() % NUM_CLIQUES),
+        partitioner.getPartitionOwner(unassigned).getPartitionId());
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.partition;
+
+import org.junit.Test;
+
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test case for {@link VertexPartitionTable}.
+ */
+public class TestVertexPartitionTable {
+  @Test
+  public void testRangesAndExceptions() {
+    Long2IntOpenHashMap keyPartitions = new Long2IntOpenHashMap();
+    for (long key = 0; key < 100; ++key) {
+      keyPartitions.put(key, 0);
+    }
+    for (long key = 100; key < 200; ++key) {
+      keyPartitions.put(key, key == 150 ? 2 : 1);
+    }
+    for (long key = 300; key < 310; ++key) {
+      keyPartitions.put(key, 0);
+    }
+    keyPartitions.put(1000, 3);
+
+    VertexPartitionTable table = VertexPartitionTable.create(keyPartitions);
+    assertEquals(4, table.getNumRanges());
+    assertEquals(1, table.getNumExceptions());
+    for (Long2IntMap.Entry entry : keyPartitions.long2IntEntrySet()) {
+      assertEquals(entry.getIntValue(),
+          table.getPartition(entry.getLongKey()));
+    }
+    assertEquals(-1, table.getPartition(-5));
+    assertEquals(-1, table.getPartition(250));
+    assertEquals(-1, table.getPartition(2000));
+  }
+
+  @Test
+  public void testRandomMapping() {
+    Random random = new Random(42);
+    Long2IntOpenHashMap keyPartitions = new Long2IntOpenHashMap();
+    for (int i = 0; i < 10000; ++i) {
+      keyPartitions.put(random.nextLong(), random.nextInt(10));
+    }
+    VertexPartitionTable table = VertexPartitionTable.create(keyPartitions);
+    for (Long2IntMap.Entry entry : keyPartitions.long2IntEntrySet()) {
+      assertEquals(entry.getIntValue(),
+          table.getPartition(entry.getLongKey()));
+    }
+  }
+
+  @Test
+  public void testEmpty() {
+    VertexPartitionTable table =
+        VertexPartitionTable.create(new Long2IntOpenHashMap());
+    assertEquals(0, table.getNumRanges());
+    assertEquals(-1, table.getPartition(0));
+  }
+}
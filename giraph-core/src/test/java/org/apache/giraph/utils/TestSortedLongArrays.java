@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.giraph.utils;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests {@link SortedLongArrays} and {@link SortedLongArrayWritable}.
+ */
+public class TestSortedLongArrays {
+  @Test
+  public void testIntersection() {
+    long[] small = {1, 5, 40, 41, 1000};
+    long[] large = new long[500];
+    for (int i = 0; i < large.length; ++i) {
+      large[i] = i * 2 + 1;
+    }
+    long[] result = new long[small.length];
+    // Merge when the sizes are similar, gallop otherwise
+    assertEquals(2, SortedLongArrays.intersect(small, small.length,
+        large, 3, result));
+    assertEquals(1, result[0]);
+    assertEquals(5, result[1]);
+    assertEquals(3, SortedLongArrays.intersect(small, small.length,
+        large, large.length, result));
+    assertEquals(41, result[2]);
+    assertEquals(3, SortedLongArrays.intersectionSize(large, large.length,
+        small, small.length));
+    assertEquals(0, SortedLongArrays.intersectionSize(small, 0,
+        large, large.length));
+    assertEquals(250, SortedLongArrays.gallop(large, 0, large.length, 500));
+    assertEquals(large.length,
+        SortedLongArrays.gallop(large, 10, large.length, 5000));
+  }
+
+  @Test
+  public void testGallopBothWays() {
+    long[] small = {-7, 3, 3, 64, 65, 2000};
+    long[] large = new long[1000];
+    for (int i = 0; i < large.length; ++i) {
+      // Every id twice, 0 to 499
+      large[i] = i / 2;
+    }
+    long[] result = new long[large.length];
+    assertEquals(4, SortedLongArrays.intersect(small, small.length,
+        large, large.length, result));
+    assertArrayEquals(new long[] {3, 3, 64, 65}, Arrays.copyOf(result, 4));
+    assertEquals(6, SortedLongArrays.intersect(large, large.length,
+        small, small.length, result));
+    assertArrayEquals(new long[] {3, 3, 64, 64, 65, 65},
+        Arrays.copyOf(result, 6));
+    assertEquals(6, SortedLongArrays.intersectionSize(large, large.length,
+        small, small.length));
+    assertEquals(0, SortedLongArrays.intersectionSize(large, large.length,
+        small, 0));
+    assertEquals(2, SortedLongArrays.intersectionSize(large, large.length,
+        small, 2));
+  }
+
+  @Test
+  public void testWritable() throws IOException {
+    long[] ids = {-100, -1, 0, 1, 1000000, Long.MAX_VALUE, 7};
+    SortedLongArrayWritable writable = new SortedLongArrayWritable(ids, 6);
+    UnsafeByteArrayOutputStream out = new UnsafeByteArrayOutputStream();
+    writable.write(out);
+    SortedLongArrayWritable readWritable = new SortedLongArrayWritable();
+    readWritable.readFields(new UnsafeByteArrayInputStream(
+        out.getByteArray(), 0, out.getPos()));
+    assertEquals(6, readWritable.size());
+    long[] readIds = new long[6];
+    System.arraycopy(readWritable.getIds(), 0, readIds, 0, 6);
+    assertArrayEquals(new long[] {-100, -1, 0, 1, 1000000, Long.MAX_VALUE},
+        readIds);
+    assertEquals(2, readWritable.intersectionSize(new long[] {0, 1, 2}, 3));
+
+    // The array given to set() is not overwritten when reading
+    long[] setIds = {1, 2, 3, 4, 5, 6, 7};
+    readWritable.set(setIds, 7);
+    readWritable.readFields(new UnsafeByteArrayInputStream(
+        out.getByteArray(), 0, out.getPos()));
+    assertArrayEquals(new long[] {1, 2, 3, 4, 5, 6, 7}, setIds);
+    assertEquals(Long.MAX_VALUE, readWritable.getIds()[5]);
+  }
+
+  @Test
+  public void testWritableIntersectionWithDuplicates() {
+    // Only the copies of this writable's ids count, whichever array is
+    // larger
+    SortedLongArrayWritable writable =
+        new SortedLongArrayWritable(new long[] {3, 3, 5}, 3);
+    assertEquals(3, writable.intersectionSize(new long[] {3, 5}, 2));
+    assertEquals(3, writable.intersectionSize(
+        new long[] {1, 2, 3, 3, 3, 4, 5, 5}, 8));
+    writable.set(new long[] {3, 5}, 2);
+    assertEquals(2, writable.intersectionSize(new long[] {3, 3, 5}, 3));
+  }
+}
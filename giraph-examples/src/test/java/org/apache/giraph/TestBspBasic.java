@@ -34,6 +34,7 @@ import org.apache.giraph.combiner.SimpleSumCombiner;
 import org.apache.giraph.examples.SimpleSuperstepVertex;
 import org.apache.giraph.examples.SimpleSuperstepVertex.SimpleSuperstepVertexInputFormat;
 import org.apache.giraph.examples.SimpleSuperstepVertex.SimpleSuperstepVertexOutputFormat;
+import org.apache.giraph.graph.InputSplitSchedule;
 import org.apache.giraph.graph.Vertex;
 import org.apache.giraph.job.GiraphJob;
 import org.apache.giraph.worker.InputSplitPathOrganizer;
@@ -55,12 +56,16 @@ import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.JobID;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
 import org.apache.zookeeper.KeeperException;
 import org.junit.Test;
 
 import com.google.common.base.Charsets;
+import com.google.common.collect.ConcurrentHashMultiset;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Multiset;
 import com.google.common.io.Closeables;
 
 import java.io.BufferedReader;
@@ -74,6 +79,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
@@ -368,6 +374,94 @@ else[HADOOP_NON_JOBCONTEXT_IS_INTERFACE]*/
     assertEquals("local", resultList.get(0));
   }
 
+  /**
+   * Check that the master's input split schedule gives out the largest
+   * splits first, prefers local workers and lets workers take over the
+   * smallest splits of other workers last.
+   */
+  @Test
+  public void testInputSplitSchedule() {
+    long[] lengths = new long[]{10, 100, 60, 50};
+    String[][] locations = new String[4][];
+    String[] hosts = new String[]{"host0", "host1"};
+    // 100 -> 0, 60 -> 1, 50 -> 1, 10 -> 0
+    assertArrayEquals(new int[]{0, 0, 1, 1},
+        InputSplitSchedule.assign(lengths, locations, hosts));
+    // The split of 50 is local to the busier worker, which is ahead by
+    // less than the split
+    locations[3] = new String[]{"host0"};
+    assertArrayEquals(new int[]{1, 0, 1, 0},
+        InputSplitSchedule.assign(lengths, locations, hosts));
+
+    InputSplitSchedule schedule = new InputSplitSchedule(
+        new int[]{1, 3, 2, 0}, new int[]{7, 0, 7, 7});
+    List<String> paths = Lists.newArrayList("/s/3", "/s/0", "/s/2", "/s/1");
+    assertEquals(Lists.newArrayList("/s/3", "/s/2", "/s/0", "/s/1"),
+        schedule.orderPaths(paths, 7));
+    assertEquals(Lists.newArrayList("/s/1", "/s/0", "/s/2", "/s/3"),
+        schedule.orderPaths(paths, 0));
+  }
+
+  /**
+   * Run a sample BSP job locally with input splits scheduled by the
+   * master.
+   *
+   * @throws IOException
+   * @throws ClassNotFoundException
+   * @throws InterruptedException
+   */
+  @Test
+  public void testBspScheduledInputSplits()
+      throws IOException, InterruptedException, ClassNotFoundException {
+    String callingMethod = getCallingMethodName();
+    Path outputPath = getTempPath(callingMethod);
+    GiraphConfiguration conf = new GiraphConfiguration();
+    conf.setVertexClass(SimpleSuperstepVertex.class);
+    conf.setVertexInputFormatClass(SimpleSuperstepVertexInputFormat.class);
+    conf.setVertexOutputFormatClass(SimpleSuperstepVertexOutputFormat.class);
+    GiraphConstants.SCHEDULE_INPUT_SPLITS.set(conf, true);
+    GiraphJob job = prepareJob(callingMethod, conf, outputPath);
+    Configuration configuration = job.getConfiguration();
+    configuration.setLong(GeneratedVertexReader.READER_VERTICES, 10);
+    assertTrue(job.run(true));
+    if (!runningInDistributedMode()) {
+      FileStatus fileStatus = getSinglePartFileStatus(configuration, outputPath);
+      assertEquals(49l, fileStatus.getLen());
+    }
+  }
+
+  /**
+   * Run a sample BSP job locally with several partitions written by
+   * several output threads, and check that every vertex is written once.
+   *
+   * @throws IOException
+   * @throws ClassNotFoundException
+   * @throws InterruptedException
+   */
+  @Test
+  public void testBspMultithreadedOutput()
+      throws IOException, InterruptedException, ClassNotFoundException {
+    String callingMethod = getCallingMethodName();
+    Path outputPath = getTempPath(callingMethod);
+    GiraphConfiguration conf = new GiraphConfiguration();
+    conf.setVertexClass(SimpleSuperstepVertex.class);
+    conf.setVertexInputFormatClass(SimpleSuperstepVertexInputFormat.class);
+    conf.setVertexOutputFormatClass(CountingVertexOutputFormat.class);
+    GiraphConstants.USER_PARTITION_COUNT.set(conf, 8);
+    GiraphConstants.VERTEX_OUTPUT_FORMAT_THREAD_SAFE.set(conf, true);
+    conf.setNumOutputThreads(4);
+    GiraphJob job = prepareJob(callingMethod, conf, outputPath);
+    Configuration configuration = job.getConfiguration();
+    configuration.setLong(GeneratedVertexReader.READER_VERTICES, 100);
+    CountingVertexOutputFormat.WRITTEN_IDS.clear();
+    assertTrue(job.run(true));
+    if (!runningInDistributedMode()) {
+      assertEquals(100, CountingVertexOutputFormat.WRITTEN_IDS.size());
+      assertEquals(100,
+          CountingVertexOutputFormat.WRITTEN_IDS.elementSet().size());
+    }
+  }
+
   /**
    * Run a sample BSP job locally and test shortest paths.
    *
@@ -514,4 +608,41 @@ else[HADOOP_NON_JOBCONTEXT_IS_INTERFACE]*/
       assertEquals(32.5, finalSum, 0d);
     }
   }
+
+  /**
+   * Output format which only records the ids of the vertices written, from
+   * any number of threads.
+   */
+  public static class CountingVertexOutputFormat extends
+      SimpleSuperstepVertexOutputFormat {
+    /** Ids of all the vertices written */
+    public static final Multiset<String> WRITTEN_IDS =
+        ConcurrentHashMultiset.create();
+
+    @Override
+    public TextVertexWriter createVertexWriter(TaskAttemptContext context)
+      throws IOException, InterruptedException {
+      return new CountingVertexWriter();
+    }
+
+    /**
+     * Vertex writer which records the ids instead of writing them out
+     */
+    public class CountingVertexWriter extends SimpleSuperstepVertexWriter {
+      @Override
+      protected RecordWriter<Text, Text> createLineRecordWriter(
+          TaskAttemptContext context) {
+        return new RecordWriter<Text, Text>() {
+          @Override
+          public void write(Text key, Text value) {
+            WRITTEN_IDS.add(key.toString());
+          }
+
+          @Override
+          public void close(TaskAttemptContext context) {
+          }
+        };
+      }
+    }
+  }
 }
@@ -18,14 +18,24 @@
 
 package org.apache.giraph;
 
+import org.apache.giraph.aggregators.LongSumAggregator;
+import org.apache.giraph.bsp.BspService;
 import org.apache.giraph.conf.GiraphConfiguration;
 import org.apache.giraph.conf.GiraphConstants;
 import org.apache.giraph.examples.SimpleCheckpointVertex;
 import org.apache.giraph.examples.SimpleSuperstepVertex.SimpleSuperstepVertexInputFormat;
 import org.apache.giraph.examples.SimpleSuperstepVertex.SimpleSuperstepVertexOutputFormat;
+import org.apache.giraph.graph.Vertex;
 import org.apache.giraph.job.GiraphJob;
+import org.apache.giraph.partition.PartitionCheckpointLocation;
+import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.FloatWritable;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 import org.junit.Test;
 
 import java.io.IOException;
@@ -37,6 +47,8 @@ import static org.junit.Assert.assertTrue;
  * Unit test for manual checkpoint restarting
  */
 public class TestManualCheckpoint extends BspCase {
+  /** Number of partitions of the jobs */
+  private static final int NUM_PARTITIONS = 4;
 
   public TestManualCheckpoint() {
     super(TestManualCheckpoint.class.getName());
@@ -111,4 +123,172 @@ public class TestManualCheckpoint extends BspCase {
       assertEquals(idSum, idSumRestarted);
     }
   }
+
+  /**
+   * Run a sample BSP job locally with several partitions written by
+   * several checkpoint threads, and restart it from superstep 2.
+   * @throws IOException
+   * @throws ClassNotFoundException
+   * @throws InterruptedException
+   */
+  @Test
+  public void testBspParallelCheckpoint()
+      throws IOException, InterruptedException, ClassNotFoundException {
+    testCheckpointRestart(getCallingMethodName());
+  }
+
+  /**
+   * Run a job which checkpoints incrementally, check that the partitions
+   * which didn't change were not written again, then restart it from a
+   * checkpoint which refers to an earlier one.
+   * @throws IOException
+   * @throws ClassNotFoundException
+   * @throws InterruptedException
+   */
+  @Test
+  public void testBspIncrementalCheckpoint()
+      throws IOException, InterruptedException, ClassNotFoundException {
+    String jobName = getCallingMethodName();
+    Path checkpointsDir = getTempPath(jobName + "CheckPoints");
+    GiraphJob job = prepareCheckpointJob(jobName, PartlyChangingVertex.class,
+        checkpointsDir, true);
+    assertTrue(job.run(true));
+    long idSum = SimpleCheckpointVertex.SimpleCheckpointVertexWorkerContext
+        .getFinalSum();
+
+    // Only the partition holding vertex 0 changed since the previous
+    // checkpoint, the others refer to an earlier checkpoint
+    int reused = 0;
+    int written = 0;
+    FileSystem fs = checkpointsDir.getFileSystem(job.getConfiguration());
+    for (FileStatus fileStatus : fs.listStatus(checkpointsDir)) {
+      String name = fileStatus.getPath().getName();
+      if (!name.startsWith("4.") ||
+          !name.endsWith(BspService.CHECKPOINT_METADATA_POSTFIX)) {
+        continue;
+      }
+      FSDataInputStream metadata = fs.open(fileStatus.getPath());
+      int partitions = metadata.readInt();
+      for (int i = 0; i < partitions; ++i) {
+        PartitionCheckpointLocation location =
+            new PartitionCheckpointLocation();
+        location.readFields(metadata);
+        if (new Path(location.getVerticesFile()).getName().startsWith("4.")) {
+          ++written;
+        } else {
+          ++reused;
+        }
+      }
+      metadata.close();
+    }
+    assertEquals(NUM_PARTITIONS - 1, reused);
+    assertEquals(1, written);
+
+    GiraphJob restartedJob = prepareCheckpointJob(jobName + "Restarted",
+        PartlyChangingVertex.class, checkpointsDir, true);
+    restartedJob.getConfiguration().setLong(
+        GiraphConstants.RESTART_SUPERSTEP, 4);
+    assertTrue(restartedJob.run(true));
+    if (!runningInDistributedMode()) {
+      assertEquals(idSum,
+          SimpleCheckpointVertex.SimpleCheckpointVertexWorkerContext
+              .getFinalSum());
+    }
+  }
+
+  /**
+   * Run a job which checkpoints, then restart it from a checkpoint and
+   * check it gives the same result.
+   *
+   * @param jobName Name of the job
+   */
+  private void testCheckpointRestart(String jobName)
+      throws IOException, InterruptedException, ClassNotFoundException {
+    Path checkpointsDir = getTempPath(jobName + "CheckPoints");
+    GiraphJob job = prepareCheckpointJob(jobName,
+        SimpleCheckpointVertex.SimpleCheckpointComputation.class,
+        checkpointsDir, false);
+
+    assertTrue(job.run(true));
+
+    long idSum = 0;
+    if (!runningInDistributedMode()) {
+      FileStatus fileStatus = getSinglePartFileStatus(job.getConfiguration(),
+          FileOutputFormat.getOutputPath(job.getInternalJob()));
+      idSum = SimpleCheckpointVertex.SimpleCheckpointVertexWorkerContext
+          .getFinalSum();
+      System.out.println(jobName + ": idSum = " + idSum +
+          " fileLen = " + fileStatus.getLen());
+    }
+
+    // Restart the test from superstep 2
+    System.out.println(jobName + ": Restarting from superstep 2" +
+        " with checkpoint path = " + checkpointsDir);
+    GiraphJob restartedJob = prepareCheckpointJob(jobName + "Restarted",
+        SimpleCheckpointVertex.SimpleCheckpointComputation.class,
+        checkpointsDir, false);
+    restartedJob.getConfiguration().setLong(
+        GiraphConstants.RESTART_SUPERSTEP, 2);
+
+    assertTrue(restartedJob.run(true));
+    if (!runningInDistributedMode()) {
+      long idSumRestarted =
+          SimpleCheckpointVertex.SimpleCheckpointVertexWorkerContext
+              .getFinalSum();
+      System.out.println(jobName + ": idSumRestarted = " +
+          idSumRestarted);
+      assertEquals(idSum, idSumRestarted);
+    }
+  }
+
+  /**
+   * Prepare a job checkpointing every 2 supersteps into a directory.
+   *
+   * @param jobName Name of the job, also used for its output path
+   * @param vertexClass Vertex class
+   * @param checkpointsDir Directory of the checkpoints
+   * @param incremental Whether to use incremental checkpointing
+   * @return Job
+   */
+  private GiraphJob prepareCheckpointJob(String jobName,
+      Class<? extends Vertex> vertexClass, Path checkpointsDir,
+      boolean incremental) throws IOException {
+    GiraphConfiguration conf = new GiraphConfiguration();
+    conf.setVertexClass(vertexClass);
+    conf.setWorkerContextClass(
+        SimpleCheckpointVertex.SimpleCheckpointVertexWorkerContext.class);
+    conf.setMasterComputeClass(
+        SimpleCheckpointVertex.SimpleCheckpointVertexMasterCompute.class);
+    conf.setVertexInputFormatClass(SimpleSuperstepVertexInputFormat.class);
+    conf.setVertexOutputFormatClass(SimpleSuperstepVertexOutputFormat.class);
+    GiraphJob job = prepareJob(jobName, conf, getTempPath(jobName));
+
+    GiraphConfiguration configuration = job.getConfiguration();
+    GiraphConstants.CHECKPOINT_DIRECTORY.set(configuration, checkpointsDir.toString());
+    GiraphConstants.CLEANUP_CHECKPOINTS_AFTER_SUCCESS.set(configuration, false);
+    configuration.setCheckpointFrequency(2);
+    GiraphConstants.CHECKPOINT_INCREMENTAL.set(configuration, incremental);
+    GiraphConstants.NUM_CHECKPOINT_IO_THREADS.set(configuration, 2);
+    GiraphConstants.USER_PARTITION_COUNT.set(configuration, NUM_PARTITIONS);
+    return job;
+  }
+
+  /**
+   * Vertex whose value only changes for vertex 0, so that the partitions
+   * without vertex 0 stay the same from one checkpoint to the next.
+   */
+  public static class PartlyChangingVertex extends
+      Vertex<LongWritable, IntWritable, FloatWritable, FloatWritable> {
+    @Override
+    public void compute(Iterable<FloatWritable> messages) {
+      if (getId().get() == 0) {
+        setValue(new IntWritable(getValue().get() + 1));
+      }
+      aggregate(LongSumAggregator.class.getName(),
+          new LongWritable(getValue().get()));
+      if (getSuperstep() >= 6) {
+        voteToHalt();
+      }
+    }
+  }
 }
@@ -20,6 +20,7 @@ package org.apache.giraph.examples;
 
 import org.apache.giraph.combiner.MinimumIntCombiner;
 import org.apache.giraph.conf.GiraphConfiguration;
+import org.apache.giraph.conf.GiraphConstants;
 import org.apache.giraph.edge.ByteArrayEdges;
 import org.apache.giraph.io.formats.IdWithValueTextOutputFormat;
 import org.apache.giraph.io.formats.IntIntNullTextInputFormat;
@@ -30,6 +31,7 @@ import com.google.common.base.Splitter;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Sets;
 
 import java.util.Set;
 
@@ -106,6 +108,40 @@ public class ConnectedComponentsVertexTest {
         assertTrue(componentThree.contains(9));
     }
 
+    /**
+     * Two stars whose centers have enough edges to be mirrored, so that
+     * the messages to and from the centers go through the mirrors
+     */
+    @Test
+    public void testStarsMirrored() throws Exception {
+        String[] graph = new String[] {
+                "1 2 3 4 5",
+                "2 1",
+                "3 1",
+                "4 1",
+                "5 1",
+
+                "6 7 8 9",
+                "7 6",
+                "8 6",
+                "9 6" };
+
+        GiraphConfiguration conf = new GiraphConfiguration();
+        conf.setVertexClass(ConnectedComponentsVertex.class);
+        conf.setVertexEdgesClass(ByteArrayEdges.class);
+        conf.setCombinerClass(MinimumIntCombiner.class);
+        conf.setVertexInputFormatClass(IntIntNullTextInputFormat.class);
+        conf.setVertexOutputFormatClass(IdWithValueTextOutputFormat.class);
+        GiraphConstants.MIRROR_VERTICES_MIN_DEGREE.set(conf, 3);
+
+        Iterable<String> results = InternalVertexRunner.run(conf, graph);
+
+        SetMultimap<Integer,Integer> components = parseResults(results);
+        assertEquals(2, components.keySet().size());
+        assertEquals(Sets.newHashSet(1, 2, 3, 4, 5), components.get(1));
+        assertEquals(Sets.newHashSet(6, 7, 8, 9), components.get(6));
+    }
+
     private SetMultimap<Integer,Integer> parseResults(
             Iterable<String> results) {
         SetMultimap<Integer,Integer> components = HashMultimap.create();